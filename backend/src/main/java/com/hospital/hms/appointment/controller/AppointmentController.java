@@ -1,29 +1,51 @@
 package com.hospital.hms.appointment.controller;
 
+import com.hospital.hms.appointment.dto.AppointmentListItem;
+import com.hospital.hms.appointment.dto.BulkBookingRequest;
+import com.hospital.hms.appointment.dto.BulkBookingResponse;
 import com.hospital.hms.appointment.dto.GuestBookingRequest;
 import com.hospital.hms.appointment.dto.GuestBookingResponse;
+import com.hospital.hms.appointment.dto.GuestOtpSession;
 import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.entity.DoctorPatientSummary;
 import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.AppointmentCounterService;
+import com.hospital.hms.appointment.service.BulkBookingService;
+import com.hospital.hms.appointment.service.DoctorRosterService;
+import com.hospital.hms.appointment.service.SlotReservationService;
 import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.dto.CursorPage;
+import com.hospital.hms.common.dto.ListPage;
 import com.hospital.hms.common.enums.AppointmentType;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ForbiddenException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.common.service.ShortLivedTokenStore;
+import com.hospital.hms.common.util.CursorCodec;
+import com.hospital.hms.security.jwt.UserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.Year;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -35,32 +57,28 @@ import java.util.stream.Collectors;
 public class AppointmentController {
 
     private final AppointmentRepository appointmentRepository;
-    
-    // In-memory OTP store (use Redis in production)
-    private static final Map<String, OtpSession> otpStore = new ConcurrentHashMap<>();
-    // In-memory access token store for guest appointments
-    private static final Map<String, Long> accessTokenStore = new ConcurrentHashMap<>();
+    private final SequenceService sequenceService;
+    private final DoctorRosterService doctorRosterService;
+    private final AppointmentCounterService appointmentCounterService;
+    private final ShortLivedTokenStore tokenStore;
+    private final BulkBookingService bulkBookingService;
+    private final SlotReservationService slotReservationService;
+
+    // Token store namespaces for guest booking
+    private static final String OTP_NAMESPACE = "guest-otp";
+    private static final String ACCESS_TOKEN_NAMESPACE = "guest-access";
+
+    @Value("${app.otp.expiry-minutes:10}")
+    private long otpExpiryMinutes;
+
+    @Value("${app.appointment.guest-access-token-days:30}")
+    private long guestAccessTokenDays;
     
     private static final SecureRandom random = new SecureRandom();
-    
-    // OTP Session class
-    private static class OtpSession {
-        String otp;
-        String mobile;
-        long expiryTime;
-        boolean verified;
-        
-        OtpSession(String otp, String mobile) {
-            this.otp = otp;
-            this.mobile = mobile;
-            this.expiryTime = System.currentTimeMillis() + 300000; // 5 minutes
-            this.verified = false;
-        }
-    }
 
     @GetMapping
     @Operation(summary = "Get All Appointments", description = "Get all appointments with pagination and optional filters")
-    public ResponseEntity<Map<String, Object>> getAllAppointments(
+    public ResponseEntity<ListPage<AppointmentListItem>> getAllAppointments(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
@@ -71,8 +89,6 @@ public class AppointmentController {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("appointmentDate").descending());
 
-        Page<Appointment> appointmentPage;
-        
         AppointmentStatus statusEnum = null;
         if (status != null && !status.isEmpty()) {
             try {
@@ -82,23 +98,43 @@ public class AppointmentController {
             }
         }
 
-        appointmentPage = appointmentRepository.findByFilters(statusEnum, date, hospitalId, pageable);
+        Page<AppointmentListItem> appointmentPage = appointmentRepository.findByFilters(statusEnum, date, hospitalId, pageable);
+        return ResponseEntity.ok(ListPage.of(appointmentPage));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", appointmentPage.getContent());
-        response.put("totalElements", appointmentPage.getTotalElements());
-        response.put("totalPages", appointmentPage.getTotalPages());
-        response.put("currentPage", page);
-        response.put("size", size);
+    @GetMapping("/cursor")
+    @Operation(summary = "Get Appointments (Cursor)", description = "Keyset-paginated appointments, newest first; pass nextCursor back as cursor")
+    public ResponseEntity<CursorPage<AppointmentListItem>> getAppointmentsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
 
-        return ResponseEntity.ok(response);
+        AppointmentStatus statusEnum = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                statusEnum = AppointmentStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid status: {}", status);
+            }
+        }
+
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<AppointmentListItem> rows = appointmentRepository.findByFiltersBefore(
+                statusEnum, date, hospitalId, position.date(), position.id(), CursorCodec.limit(size));
+        Long total = includeTotal ? appointmentRepository.countByFilters(statusEnum, date, hospitalId) : null;
+
+        return ResponseEntity.ok(CursorPage.of(rows, CursorCodec.pageSize(size),
+                a -> CursorCodec.encode(a.appointmentDate(), a.id()), total));
     }
 
     @GetMapping("/list")
     @Operation(summary = "Get Appointments List", description = "Get simple list of appointments")
-    public ResponseEntity<List<Appointment>> getAppointmentList() {
+    public ResponseEntity<List<AppointmentListItem>> getAppointmentList() {
         log.info("Fetching all appointments as list");
-        List<Appointment> appointments = appointmentRepository.findByIsDeletedFalse(
+        List<AppointmentListItem> appointments = appointmentRepository.findByFilters(null, null, null,
                 PageRequest.of(0, 100, Sort.by("appointmentDate").descending())).getContent();
         return ResponseEntity.ok(appointments);
     }
@@ -114,27 +150,27 @@ public class AppointmentController {
 
     @GetMapping("/patient/{patientId}")
     @Operation(summary = "Get Patient Appointments", description = "Get all appointments for a patient")
-    public ResponseEntity<List<Appointment>> getPatientAppointments(@PathVariable Long patientId) {
+    public ResponseEntity<List<AppointmentListItem>> getPatientAppointments(@PathVariable Long patientId) {
         log.info("Fetching appointments for patient: {}", patientId);
-        List<Appointment> appointments = appointmentRepository.findByPatientId(patientId);
+        List<AppointmentListItem> appointments = appointmentRepository.findByPatientId(patientId);
         return ResponseEntity.ok(appointments);
     }
 
     @GetMapping("/doctor/{doctorId}")
     @Operation(summary = "Get Doctor Appointments", description = "Get all appointments for a doctor")
-    public ResponseEntity<List<Appointment>> getDoctorAppointments(@PathVariable Long doctorId) {
+    public ResponseEntity<List<AppointmentListItem>> getDoctorAppointments(@PathVariable Long doctorId) {
         log.info("Fetching appointments for doctor: {}", doctorId);
-        List<Appointment> appointments = appointmentRepository.findByDoctorId(doctorId);
+        List<AppointmentListItem> appointments = appointmentRepository.findByDoctorId(doctorId);
         return ResponseEntity.ok(appointments);
     }
 
     @GetMapping("/today")
     @Operation(summary = "Get Today's Appointments", description = "Get all appointments for today")
-    public ResponseEntity<List<Appointment>> getTodayAppointments(
+    public ResponseEntity<List<AppointmentListItem>> getTodayAppointments(
             @RequestParam(required = false) Long hospitalId) {
         log.info("Fetching today's appointments for hospital: {}", hospitalId);
         LocalDate today = LocalDate.now();
-        List<Appointment> appointments;
+        List<AppointmentListItem> appointments;
         if (hospitalId != null) {
             appointments = appointmentRepository.findByHospitalIdAndDate(hospitalId, today);
         } else {
@@ -151,20 +187,71 @@ public class AppointmentController {
         log.info("Getting appointment counts");
         
         Map<String, Long> counts = new HashMap<>();
-        counts.put("total", appointmentRepository.count());
+        counts.put("total", appointmentCounterService.countAll());
         
         if (hospitalId != null) {
             LocalDate today = LocalDate.now();
-            counts.put("today", appointmentRepository.countByHospitalAndDate(hospitalId, today));
-            counts.put("scheduled", appointmentRepository.countByHospitalAndStatus(hospitalId, AppointmentStatus.SCHEDULED));
-            counts.put("completed", appointmentRepository.countByHospitalAndStatus(hospitalId, AppointmentStatus.COMPLETED));
-            counts.put("cancelledByPatient", appointmentRepository.countByHospitalAndStatus(hospitalId, AppointmentStatus.CANCELLED_BY_PATIENT));
-            counts.put("cancelledByHospital", appointmentRepository.countByHospitalAndStatus(hospitalId, AppointmentStatus.CANCELLED_BY_HOSPITAL));
+            counts.put("today", appointmentCounterService.countForDate(hospitalId, today));
+            counts.put("scheduled", appointmentCounterService.countForStatus(hospitalId, AppointmentStatus.SCHEDULED));
+            counts.put("completed", appointmentCounterService.countForStatus(hospitalId, AppointmentStatus.COMPLETED));
+            counts.put("cancelledByPatient", appointmentCounterService.countForStatus(hospitalId, AppointmentStatus.CANCELLED_BY_PATIENT));
+            counts.put("cancelledByHospital", appointmentCounterService.countForStatus(hospitalId, AppointmentStatus.CANCELLED_BY_HOSPITAL));
         }
         
         return ResponseEntity.ok(counts);
     }
     
+    @PatchMapping("/{id}/status")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    @Operation(summary = "Update Appointment Status", description = "Change appointment status (check-in, complete, cancel, no-show)")
+    public ResponseEntity<AppointmentListItem> updateAppointmentStatus(
+            @PathVariable Long id,
+            @RequestBody Map<String, String> request,
+            @AuthenticationPrincipal UserPrincipal user) {
+        String status = request.get("status");
+        log.info("Updating appointment {} status to {}", id, status);
+
+        AppointmentStatus newStatus;
+        try {
+            newStatus = AppointmentStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Invalid status: " + status);
+        }
+
+        Appointment appointment = appointmentRepository.findById(id)
+                .filter(a -> !Boolean.TRUE.equals(a.getIsDeleted()))
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", id));
+        if (!user.canAccessHospital(appointment.getHospitalId())) {
+            throw new ForbiddenException("You cannot update appointments of this hospital");
+        }
+        if (!appointment.getStatus().canChangeTo(newStatus)) {
+            throw new BadRequestException("Cannot change a " + appointment.getStatus().getDisplayName()
+                    + " appointment to " + newStatus.getDisplayName(), "INVALID_STATUS_CHANGE");
+        }
+
+        appointment.setStatus(newStatus);
+        if (newStatus.isCancelled()) {
+            appointment.setCancelledAt(LocalDateTime.now());
+            appointment.setCancelledBy(user.getUsername());
+            appointment.setCancellationReason(request.get("reason"));
+        } else if (newStatus == AppointmentStatus.CHECKED_IN) {
+            appointment.setCheckedInAt(LocalDateTime.now());
+        }
+        return ResponseEntity.ok(AppointmentListItem.of(appointmentRepository.save(appointment)));
+    }
+
+    /**
+     * Book a batch of appointments (health camps, corporate screenings)
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    @Operation(summary = "Bulk Booking", description = "Book many appointments in one request; returns per-row success or failure")
+    public ResponseEntity<BulkBookingResponse> bulkBook(@RequestBody BulkBookingRequest request) {
+        log.info("Bulk booking {} appointments for hospital {}",
+                request.getAppointments() != null ? request.getAppointments().size() : 0, request.getHospitalId());
+        return ResponseEntity.ok(bulkBookingService.book(request));
+    }
+
     // ==================== GUEST BOOKING ENDPOINTS ====================
     
     /**
@@ -185,7 +272,14 @@ public class AppointmentController {
         String otp = "123456";  // Fixed OTP for development
         String sessionId = UUID.randomUUID().toString();
         
-        otpStore.put(sessionId, new OtpSession(otp, mobile));
+        Duration otpTtl = Duration.ofMinutes(otpExpiryMinutes);
+        GuestOtpSession session = GuestOtpSession.builder()
+                .otp(otp)
+                .mobile(mobile)
+                .expiryTime(System.currentTimeMillis() + otpTtl.toMillis())
+                .verified(false)
+                .build();
+        tokenStore.put(OTP_NAMESPACE, sessionId, session, otpTtl);
         
         // In production, send OTP via SMS gateway
         log.info("Generated OTP: {} for session: {}", otp, sessionId);
@@ -210,21 +304,26 @@ public class AppointmentController {
         
         log.info("Verifying OTP for session: {}", sessionId);
         
-        OtpSession session = otpStore.get(sessionId);
+        GuestOtpSession session = sessionId != null
+                ? tokenStore.get(OTP_NAMESPACE, sessionId, GuestOtpSession.class).orElse(null)
+                : null;
         if (session == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired session"));
         }
         
-        if (System.currentTimeMillis() > session.expiryTime) {
-            otpStore.remove(sessionId);
+        long remainingMillis = session.getExpiryTime() - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            tokenStore.remove(OTP_NAMESPACE, sessionId);
             return ResponseEntity.badRequest().body(Map.of("error", "OTP expired"));
         }
         
-        if (!session.otp.equals(otp)) {
+        if (!session.getOtp().equals(otp)) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid OTP"));
         }
         
-        session.verified = true;
+        // Store the verified session for the rest of its original lifetime
+        session.setVerified(true);
+        tokenStore.put(OTP_NAMESPACE, sessionId, session, Duration.ofMillis(remainingMillis));
         
         Map<String, Object> response = new HashMap<>();
         response.put("verified", true);
@@ -243,24 +342,22 @@ public class AppointmentController {
         
         // Verify OTP session
         if (request.getOtpSessionId() != null) {
-            OtpSession session = otpStore.get(request.getOtpSessionId());
-            if (session == null || !session.verified) {
+            GuestOtpSession session = tokenStore
+                    .get(OTP_NAMESPACE, request.getOtpSessionId(), GuestOtpSession.class)
+                    .orElse(null);
+            if (session == null || !session.isVerified()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Please verify your mobile number first"));
             }
-            if (!session.mobile.equals(request.getPatientMobile())) {
+            if (!session.getMobile().equals(request.getPatientMobile())) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Mobile number mismatch"));
             }
         }
         
-        // Generate appointment number
-        String appointmentNumber = "APT" + Year.now().getValue() + String.format("%06d", appointmentRepository.count() + 1);
-        
         // Parse slot time
         LocalTime slotTime = LocalTime.parse(request.getSlotTime());
         
         // Create appointment
         Appointment appointment = Appointment.builder()
-                .appointmentNumber(appointmentNumber)
                 .hospitalId(request.getHospitalId() != null ? request.getHospitalId() : 1L)
                 .patientId(0L) // Guest patient - no patient ID
                 .patientName(request.getPatientName())
@@ -269,27 +366,29 @@ public class AppointmentController {
                 .appointmentType(AppointmentType.OPD)
                 .appointmentDate(request.getAppointmentDate())
                 .slotStartTime(slotTime)
-                .slotEndTime(slotTime.plusMinutes(15))
                 .status(AppointmentStatus.SCHEDULED)
-                .tokenNumber((int) (appointmentRepository.count() % 100) + 1)
                 .consultationFee(request.getAmount())
                 .bookingSource("ONLINE_GUEST")
                 .build();
         
-        appointment = appointmentRepository.save(appointment);
+        // Claim the slot; numbers and the token are only drawn once the slot is ours
+        appointment = slotReservationService.book(appointment, a -> {
+            a.setAppointmentNumber(nextAppointmentNumber());
+            a.setTokenNumber(nextTokenNumber(a.getDoctorId(), a.getAppointmentDate()));
+        });
         
         // Generate secure access token for viewing this appointment
         String accessToken = UUID.randomUUID().toString();
-        accessTokenStore.put(accessToken, appointment.getId());
+        tokenStore.put(ACCESS_TOKEN_NAMESPACE, accessToken, appointment.getId(), Duration.ofDays(guestAccessTokenDays));
         
         // Clean up OTP session
         if (request.getOtpSessionId() != null) {
-            otpStore.remove(request.getOtpSessionId());
+            tokenStore.remove(OTP_NAMESPACE, request.getOtpSessionId());
         }
         
         GuestBookingResponse response = GuestBookingResponse.builder()
                 .appointmentId(appointment.getId())
-                .appointmentNumber(appointmentNumber)
+                .appointmentNumber(appointment.getAppointmentNumber())
                 .accessToken(accessToken)
                 .patientName(appointment.getPatientName())
                 .doctorName(appointment.getDoctorName())
@@ -311,7 +410,7 @@ public class AppointmentController {
     public ResponseEntity<?> viewGuestAppointment(@RequestParam String token) {
         log.info("Viewing guest appointment with token: {}", token);
         
-        Long appointmentId = accessTokenStore.get(token);
+        Long appointmentId = tokenStore.get(ACCESS_TOKEN_NAMESPACE, token, Long.class).orElse(null);
         if (appointmentId == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired access token"));
         }
@@ -351,43 +450,47 @@ public class AppointmentController {
             @RequestParam(defaultValue = "10") int size) {
         
         log.info("Fetching patients for doctor: {}", doctorId);
-        
-        List<Appointment> allAppointments = appointmentRepository.findByDoctorId(doctorId);
-        
-        // Extract unique patients
-        Map<Long, Map<String, Object>> uniquePatients = new LinkedHashMap<>();
-        for (Appointment apt : allAppointments) {
-            if (!uniquePatients.containsKey(apt.getPatientId())) {
-                Map<String, Object> patient = new HashMap<>();
-                patient.put("id", apt.getPatientId());
-                patient.put("patientName", apt.getPatientName());
-                patient.put("patientMobile", apt.getPatientMobile());
-                patient.put("lastVisit", apt.getAppointmentDate());
-                patient.put("totalVisits", 1);
-                uniquePatients.put(apt.getPatientId(), patient);
-            } else {
-                Map<String, Object> patient = uniquePatients.get(apt.getPatientId());
-                patient.put("totalVisits", (int) patient.get("totalVisits") + 1);
-                if (apt.getAppointmentDate().isAfter((LocalDate) patient.get("lastVisit"))) {
-                    patient.put("lastVisit", apt.getAppointmentDate());
-                }
-            }
-        }
-        
-        List<Map<String, Object>> patients = new ArrayList<>(uniquePatients.values());
-        
-        // Pagination
-        int start = page * size;
-        int end = Math.min(start + size, patients.size());
-        List<Map<String, Object>> pageContent = start < patients.size() ? 
-                patients.subList(start, end) : List.of();
-        
+
+        Page<DoctorPatientSummary> roster = doctorRosterService.getRoster(doctorId, page, size);
+
+        List<Map<String, Object>> pageContent = roster.getContent().stream()
+                .map(summary -> {
+                    Map<String, Object> patient = new HashMap<>();
+                    patient.put("id", summary.getPatientId());
+                    patient.put("patientName", summary.getPatientName());
+                    patient.put("patientMobile", summary.getPatientMobile());
+                    patient.put("lastVisit", summary.getLastVisit());
+                    patient.put("totalVisits", summary.getTotalVisits());
+                    return patient;
+                })
+                .collect(Collectors.toList());
+
         Map<String, Object> response = new HashMap<>();
         response.put("content", pageContent);
-        response.put("totalElements", patients.size());
-        response.put("totalPages", (int) Math.ceil((double) patients.size() / size));
+        response.put("totalElements", roster.getTotalElements());
+        response.put("totalPages", roster.getTotalPages());
         response.put("currentPage", page);
         
         return ResponseEntity.ok(response);
     }
+
+    // ==================== NUMBERING ====================
+
+    private String nextAppointmentNumber() {
+        String year = String.valueOf(Year.now().getValue());
+        String prefix = "APT" + year;
+        long next = sequenceService.next("APT", SequenceService.GLOBAL_SCOPE, year,
+                () -> SequenceService.orZero(appointmentRepository.findMaxAppointmentNumber(prefix)));
+        return prefix + String.format("%06d", next);
+    }
+
+    /**
+     * Tokens run per doctor per day; block size 1 keeps them gap-free and in booking order
+     */
+    private int nextTokenNumber(Long doctorId, LocalDate date) {
+        return (int) sequenceService.next("TOKEN", doctorId, date.toString(), 1, () -> {
+            Integer max = appointmentRepository.findMaxTokenNumber(doctorId, date);
+            return max != null ? max : 0;
+        });
+    }
 }
@@ -0,0 +1,70 @@
+package com.hospital.hms.appointment.controller;
+
+import com.hospital.hms.appointment.dto.QueueCheckInRequest;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.service.OpdQueueService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * OPD queue operations for reception and doctors. Every change is also broadcast to
+ * {@code /topic/queue/{doctorId}} for token boards.
+ */
+@RestController
+@RequestMapping("/api/v1/appointments/queue")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "OPD Queue", description = "Real-time OPD token queue endpoints")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'NURSE', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+public class QueueController {
+
+    private final OpdQueueService queueService;
+
+    @GetMapping("/doctor/{doctorId}")
+    @Operation(summary = "Get Queue", description = "Current queue for a doctor on a date (defaults to today)")
+    public ResponseEntity<QueueSnapshot> getQueue(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(queueService.getQueue(doctorId, date != null ? date : LocalDate.now()));
+    }
+
+    @PostMapping("/check-in")
+    @Operation(summary = "Check In", description = "Add a booked appointment or a walk-in patient to today's queue")
+    public ResponseEntity<QueueSnapshot> checkIn(@RequestBody QueueCheckInRequest request) {
+        return ResponseEntity.ok(queueService.checkIn(request));
+    }
+
+    @PostMapping("/doctor/{doctorId}/call-next")
+    @Operation(summary = "Call Next", description = "Complete the current patient and call the next token")
+    public ResponseEntity<QueueSnapshot> callNext(@PathVariable Long doctorId) {
+        log.debug("Calling next token for doctor {}", doctorId);
+        return ResponseEntity.ok(queueService.callNext(doctorId));
+    }
+
+    @PostMapping("/doctor/{doctorId}/entries/{entryId}/skip")
+    @Operation(summary = "Skip Token", description = "Set a waiting or called patient aside")
+    public ResponseEntity<QueueSnapshot> skip(@PathVariable Long doctorId, @PathVariable Long entryId) {
+        return ResponseEntity.ok(queueService.skip(doctorId, entryId));
+    }
+
+    @PostMapping("/doctor/{doctorId}/entries/{entryId}/no-show")
+    @Operation(summary = "Mark No-Show", description = "Remove a patient who did not turn up")
+    public ResponseEntity<QueueSnapshot> markNoShow(@PathVariable Long doctorId, @PathVariable Long entryId) {
+        return ResponseEntity.ok(queueService.markNoShow(doctorId, entryId));
+    }
+
+    @PostMapping("/doctor/{doctorId}/entries/{entryId}/reinsert")
+    @Operation(summary = "Re-insert Token", description = "Put a skipped or no-show patient back in line")
+    public ResponseEntity<QueueSnapshot> reinsert(@PathVariable Long doctorId, @PathVariable Long entryId) {
+        return ResponseEntity.ok(queueService.reinsert(doctorId, entryId));
+    }
+}
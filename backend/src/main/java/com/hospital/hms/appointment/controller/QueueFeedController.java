@@ -0,0 +1,26 @@
+package com.hospital.hms.appointment.controller;
+
+import com.hospital.hms.appointment.dto.QueueFeedMessage;
+import com.hospital.hms.appointment.service.OpdQueueService;
+import com.hospital.hms.appointment.service.QueueFeedPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * STOMP entry point for token boards. Subscribing to {@code /app/queue/{doctorId}} returns the full board
+ * once (initial load or resync); live changes arrive as deltas on {@code /topic/queue/{doctorId}}.
+ */
+@Controller
+@RequiredArgsConstructor
+public class QueueFeedController {
+
+    private final OpdQueueService queueService;
+    private final QueueFeedPublisher feedPublisher;
+
+    @SubscribeMapping("/queue/{doctorId}")
+    public QueueFeedMessage subscribe(@DestinationVariable Long doctorId) {
+        return feedPublisher.snapshot(doctorId, () -> queueService.getBoard(doctorId));
+    }
+}
@@ -0,0 +1,47 @@
+package com.hospital.hms.appointment.controller;
+
+import com.hospital.hms.appointment.dto.SlotAvailabilityDto;
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/appointments/slots")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Appointment Slots", description = "Doctor slot availability endpoints")
+@CrossOrigin(origins = "*")
+public class SlotController {
+
+    private final SlotAvailabilityService slotAvailabilityService;
+
+    @GetMapping("/doctor/{doctorId}")
+    @Operation(summary = "Get Doctor Slots", description = "Get slot availability for a doctor on a date (defaults to today)")
+    public ResponseEntity<SlotAvailabilityDto> getDoctorSlots(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "false") boolean onlyAvailable) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        log.debug("Fetching slots for doctor: {} on {}", doctorId, day);
+        return ResponseEntity.ok(slotAvailabilityService.getAvailability(doctorId, day, onlyAvailable));
+    }
+
+    @GetMapping("/doctor/{doctorId}/range")
+    @Operation(summary = "Get Doctor Slots for Range", description = "Get slot availability for a doctor over an inclusive date range")
+    public ResponseEntity<List<SlotAvailabilityDto>> getDoctorSlotsForRange(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "true") boolean onlyAvailable) {
+        log.debug("Fetching slots for doctor: {} from {} to {}", doctorId, from, to);
+        return ResponseEntity.ok(slotAvailabilityService.getAvailability(doctorId, from, to, onlyAvailable));
+    }
+}
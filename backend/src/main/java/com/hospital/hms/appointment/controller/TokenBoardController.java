@@ -0,0 +1,47 @@
+package com.hospital.hms.appointment.controller;
+
+import com.hospital.hms.appointment.dto.TokenBoard;
+import com.hospital.hms.appointment.service.TokenBoardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Department "now serving" boards for waiting-hall displays, without patient names and without login.
+ * Displays that handle SockJS poorly use the SSE stream or long-poll with the last ETag.
+ */
+@RestController
+@RequestMapping("/api/v1/public/token-boards")
+@RequiredArgsConstructor
+@Tag(name = "Token Boards", description = "Now serving boards for waiting-hall displays")
+@CrossOrigin(origins = "*")
+public class TokenBoardController {
+
+    private final TokenBoardService tokenBoardService;
+
+    @GetMapping("/hospitals/{hospitalId}/departments/{departmentId}")
+    @Operation(summary = "Get Token Board",
+            description = "Current board; with If-None-Match (or ?etag=) it waits for a change and answers 304 if none comes")
+    public DeferredResult<ResponseEntity<TokenBoard>> getBoard(
+            @PathVariable Long hospitalId,
+            @PathVariable Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String etag) {
+        return tokenBoardService.poll(hospitalId, departmentId, ifNoneMatch != null ? ifNoneMatch : etag);
+    }
+
+    @GetMapping(value = "/hospitals/{hospitalId}/departments/{departmentId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream Token Board", description = "Server-Sent Events with the board on every change")
+    public SseEmitter stream(
+            @PathVariable Long hospitalId,
+            @PathVariable Long departmentId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return tokenBoardService.stream(hospitalId, departmentId, lastEventId);
+    }
+}
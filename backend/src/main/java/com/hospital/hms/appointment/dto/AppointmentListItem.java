@@ -0,0 +1,41 @@
+package com.hospital.hms.appointment.dto;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.enums.AppointmentType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Appointment row for list views, selected directly by constructor-expression queries
+ */
+public record AppointmentListItem(
+        Long id,
+        String appointmentNumber,
+        Long hospitalId,
+        Long patientId,
+        String patientName,
+        String patientMobile,
+        Long doctorId,
+        String doctorName,
+        AppointmentType appointmentType,
+        LocalDate appointmentDate,
+        LocalTime slotStartTime,
+        LocalTime slotEndTime,
+        AppointmentStatus status,
+        Integer tokenNumber,
+        String chiefComplaint,
+        Double consultationFee,
+        Boolean isFeePaid,
+        String bookingSource,
+        LocalDateTime createdAt) {
+
+    public static AppointmentListItem of(Appointment a) {
+        return new AppointmentListItem(a.getId(), a.getAppointmentNumber(), a.getHospitalId(), a.getPatientId(),
+                a.getPatientName(), a.getPatientMobile(), a.getDoctorId(), a.getDoctorName(), a.getAppointmentType(),
+                a.getAppointmentDate(), a.getSlotStartTime(), a.getSlotEndTime(), a.getStatus(), a.getTokenNumber(),
+                a.getChiefComplaint(), a.getConsultationFee(), a.getIsFeePaid(), a.getBookingSource(), a.getCreatedAt());
+    }
+}
@@ -0,0 +1,44 @@
+package com.hospital.hms.appointment.dto;
+
+import com.hospital.hms.common.enums.AppointmentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Batch booking for health camps and corporate screenings
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingRequest {
+
+    private Long hospitalId;
+    private AppointmentType appointmentType;  // defaults to OPD
+    private String bookingSource;             // defaults to CAMP
+    private String bookingNotes;              // e.g. camp or company name
+    private Double consultationFee;           // default fee for rows without one
+
+    private List<Entry> appointments;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Long patientId;               // null for unregistered camp patients
+        private String patientName;
+        private String patientMobile;
+        private Long doctorId;
+        private LocalDate appointmentDate;
+        private LocalTime slotTime;           // null = next free slot
+        private String chiefComplaint;
+        private Double consultationFee;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Per-row outcome of a batch booking; rows are reported in request order
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingResponse {
+
+    private int requested;
+    private int booked;
+    private int failed;
+    private List<Row> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private int index;
+        private boolean success;
+        private Long appointmentId;
+        private String appointmentNumber;
+        private Long doctorId;
+        private LocalDate appointmentDate;
+        private LocalTime slotTime;
+        private Integer tokenNumber;
+        private String errorCode;
+        private String message;
+    }
+}
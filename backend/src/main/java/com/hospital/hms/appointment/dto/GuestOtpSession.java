@@ -0,0 +1,21 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pending OTP verification for a guest booking, kept in the short-lived token store
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestOtpSession {
+
+    private String otp;
+    private String mobile;
+    private long expiryTime;
+    private boolean verified;
+}
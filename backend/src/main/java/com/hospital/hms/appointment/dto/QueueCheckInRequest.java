@@ -0,0 +1,29 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Check a patient into a doctor's OPD queue.
+ * Either {@code appointmentId} (booked patient) or the walk-in fields are required.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueCheckInRequest {
+
+    private Long appointmentId;
+
+    // Walk-in patients
+    private Long hospitalId;
+    private Long departmentId;
+    private Long doctorId;
+    private Long patientId;
+    private String patientName;
+
+    private Integer priority; // Higher = seen first (emergency, elderly, VIP)
+    private String notes;
+}
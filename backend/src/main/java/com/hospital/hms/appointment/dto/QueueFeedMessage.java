@@ -0,0 +1,48 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Message on a queue board feed.
+ *
+ * A SNAPSHOT carries the full board; a DELTA carries only what changed since the previous message:
+ * tokens whose details changed ({@code upserts}), entries that left the board ({@code removed}), and the
+ * id lists and counts that changed (absent otherwise). {@code seq} increases by one per message on a topic,
+ * so a client that sees a gap should resubscribe to {@code /app/queue/{doctorId}} for a fresh snapshot.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueFeedMessage {
+
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+
+    private String type;
+    private Long doctorId;
+    private LocalDate date;
+    private Long seq;
+    private Long version;
+
+    // SNAPSHOT
+    private QueueSnapshot snapshot;
+
+    // DELTA
+    private List<QueueSnapshot.Token> upserts;
+    private List<Long> removed;
+    private Boolean nowServingChanged;
+    private Long nowServingId;
+    private List<Long> waitingIds;
+    private List<Integer> waitEstimates; // aligned with the waiting order
+    private List<Long> skippedIds;
+    private Integer completed;
+    private Integer noShow;
+    private Double averageConsultationMinutes;
+}
@@ -0,0 +1,51 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of one doctor's OPD queue for a day, as returned to reception and broadcast to token boards.
+ * {@code version} increases with every change so clients can drop out-of-order updates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSnapshot {
+
+    private Long doctorId;
+    private LocalDate date;
+    private Long version;
+    private Token nowServing;
+    private List<Token> waiting;
+    private List<Token> skipped;
+    private Integer completed;
+    private Integer noShow;
+    private Double averageConsultationMinutes;
+    private Double p50ConsultationMinutes;
+    private Double p90ConsultationMinutes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Token {
+        private Long entryId;
+        private Integer tokenNumber;
+        private String tokenDisplay;
+        private String patientName; // omitted on the public token board
+        private String status;
+        private Integer position;
+        private Integer priority;
+        private Boolean walkIn;
+        private LocalDateTime checkInTime;
+        private LocalDateTime calledTime;
+        private Integer estimatedWaitMinutes;
+    }
+}
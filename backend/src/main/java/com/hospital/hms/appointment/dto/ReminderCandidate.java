@@ -0,0 +1,21 @@
+package com.hospital.hms.appointment.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Appointment due a reminder, with the patient's messaging consent (null when the booking has no patient record)
+ */
+public record ReminderCandidate(
+        Long appointmentId,
+        Long hospitalId,
+        Long patientId,
+        String patientName,
+        String patientMobile,
+        String doctorName,
+        LocalDate appointmentDate,
+        LocalTime slotStartTime,
+        Integer tokenNumber,
+        Boolean smsConsent,
+        Boolean whatsappConsent) {
+}
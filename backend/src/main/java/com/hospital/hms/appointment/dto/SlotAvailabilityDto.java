@@ -0,0 +1,39 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Slot availability for one doctor on one day
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailabilityDto {
+
+    private Long doctorId;
+    private LocalDate date;
+    private Boolean onLeave;
+    private Integer totalSlots;
+    private Integer availableSlots;
+    private List<SlotDto> slots;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlotDto {
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private Boolean available;
+        private String roomNumber;
+        private Boolean teleconsultation;
+    }
+}
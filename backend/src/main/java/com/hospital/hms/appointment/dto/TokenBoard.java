@@ -0,0 +1,38 @@
+package com.hospital.hms.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * "Now serving" board for one department of a hospital, as shown on waiting-hall displays.
+ * {@code etag} changes with every visible change and is sent back by long-polling displays.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenBoard {
+
+    private Long hospitalId;
+    private Long departmentId;
+    private String etag;
+    private List<Counter> counters;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Counter {
+        private Long doctorId;
+        private String doctorName;
+        private String nowServing;
+        private LocalDateTime calledTime;
+        private String next;
+        private Integer waiting;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hospital.hms.appointment.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
 import com.hospital.hms.common.entity.BaseEntity;
 import com.hospital.hms.common.enums.AppointmentStatus;
 import com.hospital.hms.common.enums.AppointmentType;
@@ -20,8 +22,15 @@ import java.time.LocalTime;
         @Index(name = "idx_appt_date", columnList = "appointment_date"),
         @Index(name = "idx_appt_hospital", columnList = "hospital_id"),
         @Index(name = "idx_appt_status", columnList = "status"),
-        @Index(name = "idx_appt_token", columnList = "token_number")
+        @Index(name = "idx_appt_token", columnList = "token_number"),
+        @Index(name = "idx_appt_date_id", columnList = "appointment_date, id"),
+        @Index(name = "idx_appt_doctor_patient", columnList = "doctor_id, patient_id, appointment_date"),
+        @Index(name = "idx_appt_hospital_date_id", columnList = "hospital_id, appointment_date, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = Appointment.SLOT_CONSTRAINT,
+                columnNames = {"doctor_id", "appointment_date", "slot_start_time", "slot_held"})
 })
+@EntityListeners(AppointmentEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,6 +38,8 @@ import java.time.LocalTime;
 @Builder
 public class Appointment extends BaseEntity {
 
+    public static final String SLOT_CONSTRAINT = "uk_appt_doctor_slot";
+
     @Column(name = "appointment_number", unique = true, nullable = false)
     private String appointmentNumber;
 
@@ -155,4 +166,33 @@ public class Appointment extends BaseEntity {
 
     @Column(name = "reminder_sent_at")
     private LocalDateTime reminderSentAt;
+
+    // TRUE while the appointment holds its slot, NULL once cancelled/no-show/deleted. Part of the unique slot
+    // constraint, so a slot can be held once across all instances while released rows (NULLs) never collide
+    @Column(name = "slot_held")
+    @JsonIgnore
+    private Boolean slotHeld;
+
+    // State as last read from / written to the database, used to publish before/after change events
+    @Transient
+    @JsonIgnore
+    private AppointmentChangedEvent.Snapshot loadedState;
+
+    @PrePersist
+    void holdSlot() {
+        slotHeld = occupiesSlot() ? Boolean.TRUE : null;
+    }
+
+    // Updates only ever release the slot: no status change re-activates an appointment, and a legacy row that
+    // SlotHeldBackfillService left unmarked (its slot is held by another booking) must stay outside the constraint
+    @PreUpdate
+    void releaseSlot() {
+        if (!occupiesSlot()) {
+            slotHeld = null;
+        }
+    }
+
+    private boolean occupiesSlot() {
+        return AppointmentChangedEvent.occupiesSlot(status, Boolean.TRUE.equals(getIsDeleted()));
+    }
 }
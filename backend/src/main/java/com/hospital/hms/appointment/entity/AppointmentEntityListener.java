@@ -0,0 +1,40 @@
+package com.hospital.hms.appointment.entity;
+
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.ChangeType;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener that turns appointment inserts/updates into {@link AppointmentChangedEvent}s.
+ * Instantiated by Hibernate through Spring's bean container, so constructor injection works.
+ */
+@RequiredArgsConstructor
+public class AppointmentEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onLoad(Appointment appointment) {
+        appointment.setLoadedState(Snapshot.of(appointment));
+    }
+
+    @PostPersist
+    public void onPersist(Appointment appointment) {
+        Snapshot current = Snapshot.of(appointment);
+        appointment.setLoadedState(current);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(ChangeType.CREATED, current, null));
+    }
+
+    @PostUpdate
+    public void onUpdate(Appointment appointment) {
+        Snapshot previous = appointment.getLoadedState();
+        Snapshot current = Snapshot.of(appointment);
+        appointment.setLoadedState(current);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(ChangeType.UPDATED, current, previous));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hospital.hms.appointment.entity;
+
+import com.hospital.hms.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Doctor patient roster read model - one row per (doctor, patient) pair that has at least one visit.
+ * Maintained from appointment change events so the roster never has to scan a doctor's appointment history.
+ */
+@Entity
+@Table(name = "doctor_patient_summary",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_dps_doctor_patient", columnNames = {"doctor_id", "patient_id"})
+        },
+        indexes = {
+                @Index(name = "idx_dps_doctor_last_visit", columnList = "doctor_id, last_visit")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DoctorPatientSummary extends BaseEntity {
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "patient_name")
+    private String patientName;
+
+    @Column(name = "patient_mobile")
+    private String patientMobile;
+
+    @Column(name = "last_visit")
+    private LocalDate lastVisit;
+
+    @Column(name = "total_visits", nullable = false)
+    private Integer totalVisits;
+}
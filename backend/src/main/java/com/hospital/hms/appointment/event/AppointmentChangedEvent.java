@@ -0,0 +1,67 @@
+package com.hospital.hms.appointment.event;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Published whenever an appointment row is inserted or updated.
+ * Carries immutable before/after snapshots so listeners never touch the managed entity.
+ */
+@Getter
+@AllArgsConstructor
+public class AppointmentChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED
+    }
+
+    private final ChangeType changeType;
+    private final Snapshot current;
+    private final Snapshot previous; // null for CREATED
+
+    /**
+     * Whether the appointment holds its slot (i.e. was not cancelled, marked no-show, rescheduled away or deleted)
+     */
+    public static boolean occupiesSlot(Snapshot snapshot) {
+        return snapshot != null && occupiesSlot(snapshot.getStatus(), snapshot.isDeleted());
+    }
+
+    public static boolean occupiesSlot(AppointmentStatus status, boolean deleted) {
+        return !deleted && status != null
+                && (status.isActive() || status == AppointmentStatus.COMPLETED);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final Long hospitalId;
+        private final Long doctorId;
+        private final Long patientId;
+        private final String patientName;
+        private final String patientMobile;
+        private final LocalDate appointmentDate;
+        private final LocalTime slotStartTime;
+        private final AppointmentStatus status;
+        private final boolean deleted;
+
+        public static Snapshot of(Appointment appointment) {
+            return new Snapshot(
+                    appointment.getId(),
+                    appointment.getHospitalId(),
+                    appointment.getDoctorId(),
+                    appointment.getPatientId(),
+                    appointment.getPatientName(),
+                    appointment.getPatientMobile(),
+                    appointment.getAppointmentDate(),
+                    appointment.getSlotStartTime(),
+                    appointment.getStatus(),
+                    Boolean.TRUE.equals(appointment.getIsDeleted()));
+        }
+    }
+}
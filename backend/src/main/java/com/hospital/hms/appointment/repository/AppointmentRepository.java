@@ -1,7 +1,10 @@
 package com.hospital.hms.appointment.repository;
 
+import com.hospital.hms.appointment.dto.AppointmentListItem;
+import com.hospital.hms.appointment.dto.ReminderCandidate;
 import com.hospital.hms.appointment.entity.Appointment;
 import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.service.SequenceService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,39 +13,60 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+    // List views select only the displayed columns into AppointmentListItem
+    String LIST_ITEM = "SELECT new com.hospital.hms.appointment.dto.AppointmentListItem(" +
+            "a.id, a.appointmentNumber, a.hospitalId, a.patientId, a.patientName, a.patientMobile, " +
+            "a.doctorId, a.doctorName, a.appointmentType, a.appointmentDate, a.slotStartTime, a.slotEndTime, " +
+            "a.status, a.tokenNumber, a.chiefComplaint, a.consultationFee, a.isFeePaid, a.bookingSource, a.createdAt) " +
+            "FROM Appointment a ";
+
     Optional<Appointment> findByAppointmentNumber(String appointmentNumber);
 
     Page<Appointment> findByIsDeletedFalse(Pageable pageable);
 
     Page<Appointment> findByHospitalIdAndIsDeletedFalse(Long hospitalId, Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.isDeleted = false " +
+    @Query(value = LIST_ITEM + "WHERE a.isDeleted = false " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:date IS NULL OR a.appointmentDate = :date) " +
+           "AND (:hospitalId IS NULL OR a.hospitalId = :hospitalId)",
+           countQuery = "SELECT COUNT(a) FROM Appointment a WHERE a.isDeleted = false " +
            "AND (:status IS NULL OR a.status = :status) " +
            "AND (:date IS NULL OR a.appointmentDate = :date) " +
            "AND (:hospitalId IS NULL OR a.hospitalId = :hospitalId)")
-    Page<Appointment> findByFilters(
+    Page<AppointmentListItem> findByFilters(
             @Param("status") AppointmentStatus status,
             @Param("date") LocalDate date,
             @Param("hospitalId") Long hospitalId,
             Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.patientId = :patientId AND a.isDeleted = false ORDER BY a.appointmentDate DESC, a.slotStartTime DESC")
-    List<Appointment> findByPatientId(@Param("patientId") Long patientId);
+    @Query(LIST_ITEM + "WHERE a.patientId = :patientId AND a.isDeleted = false ORDER BY a.appointmentDate DESC, a.slotStartTime DESC")
+    List<AppointmentListItem> findByPatientId(@Param("patientId") Long patientId);
+
+    @Query(LIST_ITEM + "WHERE a.patientId = :patientId AND a.isDeleted = false " +
+           "AND (a.appointmentDate < :cursorDate OR (a.appointmentDate = :cursorDate AND a.id < :cursorId)) " +
+           "ORDER BY a.appointmentDate DESC, a.id DESC")
+    List<AppointmentListItem> findByPatientIdBefore(
+            @Param("patientId") Long patientId,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
 
-    @Query("SELECT a FROM Appointment a WHERE a.doctorId = :doctorId AND a.isDeleted = false ORDER BY a.appointmentDate DESC, a.slotStartTime DESC")
-    List<Appointment> findByDoctorId(@Param("doctorId") Long doctorId);
+    @Query(LIST_ITEM + "WHERE a.doctorId = :doctorId AND a.isDeleted = false ORDER BY a.appointmentDate DESC, a.slotStartTime DESC")
+    List<AppointmentListItem> findByDoctorId(@Param("doctorId") Long doctorId);
 
     @Query("SELECT a FROM Appointment a WHERE a.doctorId = :doctorId AND a.appointmentDate = :date AND a.isDeleted = false ORDER BY a.slotStartTime")
     List<Appointment> findByDoctorIdAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
 
-    @Query("SELECT a FROM Appointment a WHERE a.hospitalId = :hospitalId AND a.appointmentDate = :date AND a.isDeleted = false")
-    List<Appointment> findByHospitalIdAndDate(@Param("hospitalId") Long hospitalId, @Param("date") LocalDate date);
+    @Query(LIST_ITEM + "WHERE a.hospitalId = :hospitalId AND a.appointmentDate = :date AND a.isDeleted = false ORDER BY a.slotStartTime")
+    List<AppointmentListItem> findByHospitalIdAndDate(@Param("hospitalId") Long hospitalId, @Param("date") LocalDate date);
 
     @Query("SELECT COUNT(a) FROM Appointment a WHERE a.hospitalId = :hospitalId AND a.appointmentDate = :date AND a.isDeleted = false")
     long countByHospitalAndDate(@Param("hospitalId") Long hospitalId, @Param("date") LocalDate date);
@@ -57,4 +81,102 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Paginated doctor appointments
     @Query("SELECT a FROM Appointment a WHERE a.doctorId = :doctorId AND a.isDeleted = false")
     Page<Appointment> findByDoctorIdPaged(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    // Sequence seeding: compared as numbers, so values past the fixed width still count as the highest;
+    // numbers with a non-numeric suffix are skipped
+    @Query("SELECT MAX(CAST(SUBSTRING(a.appointmentNumber, LENGTH(:prefix) + 1) AS Long)) FROM Appointment a " +
+            "WHERE a.appointmentNumber LIKE CONCAT(:prefix, '_%') AND " + SequenceService.STRIP_DIGITS +
+            "SUBSTRING(a.appointmentNumber, LENGTH(:prefix) + 1)" + SequenceService.STRIP_DIGITS_END + " = ''")
+    Long findMaxAppointmentNumber(@Param("prefix") String prefix);
+
+    @Query("SELECT MAX(a.tokenNumber) FROM Appointment a WHERE a.doctorId = :doctorId AND a.appointmentDate = :date")
+    Integer findMaxTokenNumber(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    // Keyset pagination - seeks past (cursorDate, cursorId) instead of OFFSET, newest first
+    @Query(LIST_ITEM + "WHERE a.isDeleted = false " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:date IS NULL OR a.appointmentDate = :date) " +
+           "AND (:hospitalId IS NULL OR a.hospitalId = :hospitalId) " +
+           "AND (a.appointmentDate < :cursorDate OR (a.appointmentDate = :cursorDate AND a.id < :cursorId)) " +
+           "ORDER BY a.appointmentDate DESC, a.id DESC")
+    List<AppointmentListItem> findByFiltersBefore(
+            @Param("status") AppointmentStatus status,
+            @Param("date") LocalDate date,
+            @Param("hospitalId") Long hospitalId,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.isDeleted = false " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:date IS NULL OR a.appointmentDate = :date) " +
+           "AND (:hospitalId IS NULL OR a.hospitalId = :hospitalId)")
+    long countByFilters(
+            @Param("status") AppointmentStatus status,
+            @Param("date") LocalDate date,
+            @Param("hospitalId") Long hospitalId);
+
+    // Doctor patient roster maintenance
+    interface VisitStats {
+        long getVisits();
+        LocalDate getLastVisit();
+    }
+
+    @Query("SELECT COUNT(a) AS visits, MAX(a.appointmentDate) AS lastVisit FROM Appointment a " +
+           "WHERE a.doctorId = :doctorId AND a.patientId = :patientId AND a.isDeleted = false AND a.status IN :statuses")
+    VisitStats getVisitStats(
+            @Param("doctorId") Long doctorId,
+            @Param("patientId") Long patientId,
+            @Param("statuses") Collection<AppointmentStatus> statuses);
+
+    interface RosterRow {
+        Long getPatientId();
+        String getPatientName();
+        String getPatientMobile();
+        long getVisits();
+        LocalDate getLastVisit();
+    }
+
+    @Query("SELECT a.patientId AS patientId, MAX(a.patientName) AS patientName, MAX(a.patientMobile) AS patientMobile, " +
+           "COUNT(a) AS visits, MAX(a.appointmentDate) AS lastVisit FROM Appointment a " +
+           "WHERE a.doctorId = :doctorId AND a.isDeleted = false AND a.status IN :statuses GROUP BY a.patientId")
+    List<RosterRow> aggregateRoster(@Param("doctorId") Long doctorId, @Param("statuses") Collection<AppointmentStatus> statuses);
+
+    @Query("SELECT DISTINCT a.doctorId FROM Appointment a WHERE a.isDeleted = false")
+    List<Long> findDistinctDoctorIds();
+
+    // Dashboard counter seeding/reconciliation
+    interface DailyStatusCount {
+        Long getHospitalId();
+        LocalDate getAppointmentDate();
+        AppointmentStatus getStatus();
+        long getTotal();
+    }
+
+    @Query("SELECT a.hospitalId AS hospitalId, a.appointmentDate AS appointmentDate, a.status AS status, COUNT(a) AS total " +
+           "FROM Appointment a WHERE a.isDeleted = false GROUP BY a.hospitalId, a.appointmentDate, a.status")
+    List<DailyStatusCount> countGroupedByHospitalDateAndStatus();
+
+    // Bulk booking - ids of rows inserted over JDBC
+    interface NumberedId {
+        Long getId();
+        String getAppointmentNumber();
+    }
+
+    @Query("SELECT a.id AS id, a.appointmentNumber AS appointmentNumber FROM Appointment a " +
+           "WHERE a.appointmentNumber IN :numbers")
+    List<NumberedId> findIdsByAppointmentNumbers(@Param("numbers") Collection<String> numbers);
+
+    // Keyset scan for the reminder job: appointments on a date after the last processed id, oldest id first
+    @Query("SELECT new com.hospital.hms.appointment.dto.ReminderCandidate(" +
+           "a.id, a.hospitalId, a.patientId, a.patientName, a.patientMobile, a.doctorName, a.appointmentDate, " +
+           "a.slotStartTime, a.tokenNumber, p.smsConsent, p.whatsappConsent) " +
+           "FROM Appointment a LEFT JOIN Patient p ON p.id = a.patientId " +
+           "WHERE a.appointmentDate = :date AND a.status = :status AND a.isDeleted = false " +
+           "AND (a.reminderSent = false OR a.reminderSent IS NULL) AND a.id > :afterId " +
+           "ORDER BY a.id")
+    List<ReminderCandidate> findReminderCandidates(@Param("date") LocalDate date,
+                                                   @Param("status") AppointmentStatus status,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable limit);
 }
@@ -0,0 +1,28 @@
+package com.hospital.hms.appointment.repository;
+
+import com.hospital.hms.appointment.entity.DoctorPatientSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DoctorPatientSummaryRepository extends JpaRepository<DoctorPatientSummary, Long> {
+
+    Page<DoctorPatientSummary> findByDoctorId(Long doctorId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DoctorPatientSummary s WHERE s.doctorId = :doctorId AND s.patientId = :patientId")
+    Optional<DoctorPatientSummary> findForUpdate(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId);
+
+    @Modifying
+    @Query("DELETE FROM DoctorPatientSummary s WHERE s.doctorId = :doctorId")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,17 @@
+package com.hospital.hms.appointment.repository;
+
+import com.hospital.hms.appointment.entity.QueueEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface QueueEntryRepository extends JpaRepository<QueueEntry, Long> {
+
+    @Query("SELECT q FROM QueueEntry q WHERE q.doctorId = :doctorId AND q.queueDate = :date AND q.isDeleted = false")
+    List<QueueEntry> findByDoctorIdAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+}
@@ -0,0 +1,177 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.AppointmentRepository.DailyStatusCount;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory appointment counters for dashboards.
+ *
+ * Seeded by one GROUP BY (hospital, date, status), kept current from appointment change events and
+ * periodically rebuilt to correct drift (e.g. writes made by another instance). Per-day counters are
+ * kept only for a window around today; per-(hospital, status) totals cover all dates.
+ */
+@Slf4j
+@Service
+public class AppointmentCounterService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final int daysBack;
+    private final int daysAhead;
+
+    private volatile Counters counters;
+
+    public AppointmentCounterService(AppointmentRepository appointmentRepository,
+                                     @Value("${app.appointment.counter-days-back:7}") int daysBack,
+                                     @Value("${app.appointment.max-advance-booking-days:30}") int daysAhead) {
+        this.appointmentRepository = appointmentRepository;
+        this.daysBack = daysBack;
+        this.daysAhead = daysAhead;
+    }
+
+    /**
+     * Appointments for a hospital on a date with the given status
+     */
+    public long count(Long hospitalId, LocalDate date, AppointmentStatus status) {
+        LongAdder adder = counters().daily.get(new DayKey(hospitalId, date, status));
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Appointments for a hospital on a date, any status
+     */
+    public long countForDate(Long hospitalId, LocalDate date) {
+        long total = 0;
+        Map<DayKey, LongAdder> daily = counters().daily;
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            LongAdder adder = daily.get(new DayKey(hospitalId, date, status));
+            if (adder != null) {
+                total += adder.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Appointments for a hospital with the given status, any date
+     */
+    public long countForStatus(Long hospitalId, AppointmentStatus status) {
+        LongAdder adder = counters().byStatus.get(new StatusKey(hospitalId, status));
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * All non-deleted appointments
+     */
+    public long countAll() {
+        return counters().total.sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Counters current = counters;
+        if (current == null) {
+            return; // not seeded yet; the seed query will include this change
+        }
+        Snapshot before = event.getPrevious();
+        Snapshot after = event.getCurrent();
+        if (before != null && sameBucket(before, after)) {
+            return;
+        }
+        if (before != null && !before.isDeleted()) {
+            apply(current, before, -1);
+        }
+        if (!after.isDeleted()) {
+            apply(current, after, 1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild all counters from the database and swap them in atomically
+     */
+    @Scheduled(fixedDelayString = "${app.appointment.counter-reconcile-ms:300000}",
+               initialDelayString = "${app.appointment.counter-reconcile-ms:300000}")
+    public void reconcile() {
+        Counters rebuilt = new Counters();
+        LocalDate from = LocalDate.now().minusDays(daysBack);
+        LocalDate to = LocalDate.now().plusDays(daysAhead);
+        for (DailyStatusCount row : appointmentRepository.countGroupedByHospitalDateAndStatus()) {
+            rebuilt.total.add(row.getTotal());
+            rebuilt.byStatus.computeIfAbsent(new StatusKey(row.getHospitalId(), row.getStatus()), k -> new LongAdder())
+                    .add(row.getTotal());
+            if (!row.getAppointmentDate().isBefore(from) && !row.getAppointmentDate().isAfter(to)) {
+                rebuilt.daily.computeIfAbsent(new DayKey(row.getHospitalId(), row.getAppointmentDate(), row.getStatus()),
+                        k -> new LongAdder()).add(row.getTotal());
+            }
+        }
+        Counters previous = counters;
+        counters = rebuilt;
+        if (previous != null && previous.total.sum() != rebuilt.total.sum()) {
+            log.info("Appointment counters reconciled: total {} -> {}", previous.total.sum(), rebuilt.total.sum());
+        }
+    }
+
+    private Counters counters() {
+        Counters current = counters;
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    reconcile();
+                }
+                current = counters;
+            }
+        }
+        return current;
+    }
+
+    private void apply(Counters target, Snapshot snapshot, int delta) {
+        target.total.add(delta);
+        target.byStatus.computeIfAbsent(new StatusKey(snapshot.getHospitalId(), snapshot.getStatus()), k -> new LongAdder())
+                .add(delta);
+        LocalDate date = snapshot.getAppointmentDate();
+        LocalDate today = LocalDate.now();
+        if (date != null && !date.isBefore(today.minusDays(daysBack)) && !date.isAfter(today.plusDays(daysAhead))) {
+            target.daily.computeIfAbsent(new DayKey(snapshot.getHospitalId(), date, snapshot.getStatus()), k -> new LongAdder())
+                    .add(delta);
+        }
+    }
+
+    private static boolean sameBucket(Snapshot a, Snapshot b) {
+        return a.isDeleted() == b.isDeleted()
+                && a.getStatus() == b.getStatus()
+                && Objects.equals(a.getHospitalId(), b.getHospitalId())
+                && Objects.equals(a.getAppointmentDate(), b.getAppointmentDate());
+    }
+
+    private record DayKey(Long hospitalId, LocalDate date, AppointmentStatus status) {
+    }
+
+    private record StatusKey(Long hospitalId, AppointmentStatus status) {
+    }
+
+    private static final class Counters {
+        private final LongAdder total = new LongAdder();
+        private final Map<StatusKey, LongAdder> byStatus = new ConcurrentHashMap<>();
+        private final Map<DayKey, LongAdder> daily = new ConcurrentHashMap<>();
+    }
+}
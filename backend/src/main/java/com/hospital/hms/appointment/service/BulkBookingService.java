@@ -0,0 +1,429 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.dto.BulkBookingRequest;
+import com.hospital.hms.appointment.dto.BulkBookingResponse;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.ChangeType;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.SlotAvailabilityService.SlotClaim;
+import com.hospital.hms.appointment.service.SlotReservationService.SlotKey;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.enums.AppointmentType;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books hundreds to thousands of appointments in one request (health camps, corporate screenings).
+ *
+ * Rows are planned per doctor-day against the cached slot map in a single pass, then claimed again and
+ * inserted while holding the slot locks single bookings use ({@link SlotReservationService#withSlotLocks}),
+ * so the two paths never book the same slot on one instance. Appointment numbers and tokens are reserved as
+ * contiguous ranges, and the rows are inserted with JDBC batching. Appointments use IDENTITY ids, which make
+ * Hibernate insert one row per statement, so the insert goes through JdbcTemplate and the usual
+ * {@link AppointmentChangedEvent}s are published by hand afterwards.
+ *
+ * Every row gets its own result: a slot booked through another instance fails only the rows that wanted it
+ * (the insert is rolled back and retried without them), not the whole batch.
+ */
+@Slf4j
+@Service
+public class BulkBookingService {
+
+    private static final String INSERT_SQL = "INSERT INTO appointments (" +
+            "appointment_number, hospital_id, patient_id, patient_name, patient_mobile, doctor_id, doctor_name, " +
+            "appointment_type, appointment_date, slot_start_time, slot_end_time, status, token_number, " +
+            "is_follow_up, consultation_fee, is_fee_paid, reschedule_count, chief_complaint, booking_notes, " +
+            "booking_source, reminder_sent, slot_held, created_at, updated_at, created_by, updated_by, is_active, " +
+            "is_deleted, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int ID_LOOKUP_CHUNK = 500;
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final SlotAvailabilityService slotAvailabilityService;
+    private final SlotReservationService slotReservationService;
+    private final SequenceService sequenceService;
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRows;
+    private final int batchSize;
+
+    public BulkBookingService(SlotAvailabilityService slotAvailabilityService,
+                              SlotReservationService slotReservationService,
+                              SequenceService sequenceService,
+                              AppointmentRepository appointmentRepository,
+                              DoctorRepository doctorRepository,
+                              JdbcTemplate jdbcTemplate,
+                              AuditorAware<String> auditorAware,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.appointment.bulk-max-rows:2000}") int maxRows,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.slotAvailabilityService = slotAvailabilityService;
+        this.slotReservationService = slotReservationService;
+        this.sequenceService = sequenceService;
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.maxRows = maxRows;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Book every row that can be booked; rows that cannot are reported with an error code and skipped.
+     * Must be called outside a transaction, as rows are committed before the slot locks are released.
+     */
+    public BulkBookingResponse book(BulkBookingRequest request) {
+        List<BulkBookingRequest.Entry> entries = request.getAppointments() != null ? request.getAppointments() : List.of();
+        if (request.getHospitalId() == null) {
+            throw new BadRequestException("hospitalId is required", "HOSPITAL_REQUIRED");
+        }
+        if (entries.isEmpty()) {
+            throw new BadRequestException("No appointments to book", "EMPTY_BATCH");
+        }
+        if (entries.size() > maxRows) {
+            throw new BadRequestException("A batch can contain at most " + maxRows + " appointments", "BATCH_TOO_LARGE");
+        }
+
+        BulkBookingResponse.Row[] results = new BulkBookingResponse.Row[entries.size()];
+        Map<SlotAvailabilityService.DayKey, List<Integer>> byDoctorDay = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String error = validate(entries.get(i));
+            if (error != null) {
+                results[i] = failure(i, entries.get(i), "INVALID_ROW", error);
+                continue;
+            }
+            byDoctorDay.computeIfAbsent(new SlotAvailabilityService.DayKey(
+                    entries.get(i).getDoctorId(), entries.get(i).getAppointmentDate()), k -> new ArrayList<>()).add(i);
+        }
+
+        Set<Long> doctorIds = byDoctorDay.keySet().stream()
+                .map(SlotAvailabilityService.DayKey::doctorId)
+                .collect(Collectors.toSet());
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(doctorIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+
+        // Plan one pass per doctor-day: pick each row's slot (earliest free one when none was asked for)
+        Map<SlotAvailabilityService.DayKey, List<Planned>> plan = new LinkedHashMap<>();
+        for (Map.Entry<SlotAvailabilityService.DayKey, List<Integer>> group : byDoctorDay.entrySet()) {
+            SlotAvailabilityService.DayKey day = group.getKey();
+            List<Integer> rows = group.getValue();
+            Doctor doctor = doctors.get(day.doctorId());
+            if (doctor == null) {
+                rows.forEach(i -> results[i] = failure(i, entries.get(i), "DOCTOR_NOT_FOUND", "Doctor not found"));
+                continue;
+            }
+            List<SlotClaim> claims = slotAvailabilityService.claimSlots(day.doctorId(), day.date(),
+                    rows.stream().map(i -> entries.get(i).getSlotTime()).toList());
+            for (int k = 0; k < rows.size(); k++) {
+                int i = rows.get(k);
+                SlotClaim claim = claims.get(k);
+                if (claim.isGranted()) {
+                    plan.computeIfAbsent(day, d -> new ArrayList<>()).add(new Planned(i, doctor, claim.startTime()));
+                } else {
+                    results[i] = failure(i, entries.get(i), claim.errorCode(), describe(claim.errorCode()));
+                }
+            }
+        }
+
+        List<SlotKey> slots = plan.entrySet().stream()
+                .flatMap(e -> e.getValue().stream().map(p -> new SlotKey(e.getKey().doctorId(), e.getKey().date(), p.slot())))
+                .toList();
+        int booked = slots.isEmpty() ? 0
+                : slotReservationService.withSlotLocks(slots, busy -> bookPlanned(request, entries, plan, busy, results));
+
+        log.info("Bulk booking for hospital {}: {} of {} appointments booked", request.getHospitalId(), booked, entries.size());
+        return BulkBookingResponse.builder()
+                .requested(entries.size())
+                .booked(booked)
+                .failed(entries.size() - booked)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Claim the planned slots again under their locks (a single booking may have taken one since planning),
+     * hand out each day's tokens in slot order and insert; returns the number of rows booked
+     */
+    private int bookPlanned(BulkBookingRequest request, List<BulkBookingRequest.Entry> entries,
+                            Map<SlotAvailabilityService.DayKey, List<Planned>> plan, Set<SlotKey> busy,
+                            BulkBookingResponse.Row[] results) {
+        Map<Appointment, Integer> rowOf = new LinkedHashMap<>();
+        for (Map.Entry<SlotAvailabilityService.DayKey, List<Planned>> group : plan.entrySet()) {
+            Long doctorId = group.getKey().doctorId();
+            LocalDate date = group.getKey().date();
+            List<Planned> planned = new ArrayList<>();
+            for (Planned p : group.getValue()) {
+                if (busy.contains(new SlotKey(doctorId, date, p.slot()))) {
+                    results[p.row()] = failure(p.row(), entries.get(p.row()), "SLOT_BUSY", describe("SLOT_BUSY"));
+                } else {
+                    planned.add(p);
+                }
+            }
+            if (planned.isEmpty()) {
+                continue;
+            }
+            List<SlotClaim> claims = slotAvailabilityService.claimSlots(doctorId, date,
+                    planned.stream().map(Planned::slot).toList());
+            List<Integer> granted = new ArrayList<>();
+            for (int k = 0; k < planned.size(); k++) {
+                int i = planned.get(k).row();
+                if (claims.get(k).isGranted()) {
+                    granted.add(k);
+                } else {
+                    results[i] = failure(i, entries.get(i), claims.get(k).errorCode(), describe(claims.get(k).errorCode()));
+                }
+            }
+            if (granted.isEmpty()) {
+                continue;
+            }
+            granted.sort(Comparator.comparing(k -> claims.get(k).startTime()));
+
+            long firstToken = sequenceService.nextRange("TOKEN", doctorId, date.toString(), granted.size(), () -> {
+                Integer max = appointmentRepository.findMaxTokenNumber(doctorId, date);
+                return max != null ? max : 0;
+            });
+            for (int t = 0; t < granted.size(); t++) {
+                Planned p = planned.get(granted.get(t));
+                rowOf.put(newAppointment(request, entries.get(p.row()), p.doctor(), claims.get(granted.get(t)),
+                        (int) (firstToken + t)), p.row());
+            }
+        }
+        if (rowOf.isEmpty()) {
+            return 0;
+        }
+
+        List<Appointment> toInsert = new ArrayList<>(rowOf.keySet());
+        assignNumbers(toInsert);
+        for (int attempt = 1; !toInsert.isEmpty(); attempt++) {
+            try {
+                List<Appointment> batch = toInsert;
+                transactionTemplate.executeWithoutResult(status -> {
+                    insert(batch);
+                    assignIds(batch);
+                    batch.forEach(a -> eventPublisher.publishEvent(
+                            new AppointmentChangedEvent(ChangeType.CREATED, Snapshot.of(a), null)));
+                });
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (!SlotReservationService.isSlotConflict(e)) {
+                    throw e;
+                }
+                List<Appointment> remaining = withoutTakenSlots(toInsert, entries, rowOf, results);
+                if (remaining.size() == toInsert.size() || attempt == MAX_INSERT_ATTEMPTS) {
+                    throw new ConflictException("Some slots were booked by other requests meanwhile, please resubmit the batch",
+                            "SLOT_TAKEN");
+                }
+                toInsert = remaining;
+            }
+        }
+        for (Appointment appointment : toInsert) {
+            results[rowOf.get(appointment)] = success(rowOf.get(appointment), appointment);
+        }
+        return toInsert.size();
+    }
+
+    /**
+     * After the insert hit the held-slot constraint (a booking through another instance that this instance's
+     * slot map missed): reload the days from the database and fail the rows whose slot is now held
+     */
+    private List<Appointment> withoutTakenSlots(List<Appointment> appointments, List<BulkBookingRequest.Entry> entries,
+                                                Map<Appointment, Integer> rowOf, BulkBookingResponse.Row[] results) {
+        appointments.stream()
+                .map(a -> new SlotAvailabilityService.DayKey(a.getDoctorId(), a.getAppointmentDate()))
+                .distinct()
+                .forEach(key -> slotAvailabilityService.evictDay(key.doctorId(), key.date()));
+        List<Appointment> remaining = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            if (slotAvailabilityService.isSlotFree(a.getDoctorId(), a.getAppointmentDate(), a.getSlotStartTime())) {
+                remaining.add(a);
+            } else {
+                int i = rowOf.get(a);
+                results[i] = failure(i, entries.get(i), "SLOT_TAKEN", describe("SLOT_TAKEN"));
+            }
+        }
+        log.info("Bulk booking: {} of {} slots were taken through another instance",
+                appointments.size() - remaining.size(), appointments.size());
+        return remaining;
+    }
+
+    private static String validate(BulkBookingRequest.Entry entry) {
+        if (entry.getDoctorId() == null) {
+            return "doctorId is required";
+        }
+        if (entry.getAppointmentDate() == null) {
+            return "appointmentDate is required";
+        }
+        if (entry.getPatientName() == null || entry.getPatientName().isBlank()) {
+            return "patientName is required";
+        }
+        if (entry.getPatientMobile() == null || entry.getPatientMobile().length() != 10) {
+            return "Invalid mobile number";
+        }
+        return null;
+    }
+
+    private static String describe(String errorCode) {
+        return switch (errorCode) {
+            case "DOCTOR_ON_LEAVE" -> "Doctor is on leave on this date";
+            case "NO_FREE_SLOT" -> "No free slot left on this date";
+            case "SLOT_NOT_IN_SCHEDULE" -> "Requested time is not a slot in the doctor's schedule";
+            case "SLOT_IN_PAST" -> "Requested slot has already started";
+            case "SLOT_TAKEN" -> "Requested slot is already booked";
+            case "SLOT_BUSY" -> "Requested slot is being booked by someone else";
+            default -> errorCode;
+        };
+    }
+
+    private Appointment newAppointment(BulkBookingRequest request, BulkBookingRequest.Entry entry, Doctor doctor,
+                                       SlotClaim claim, int tokenNumber) {
+        Double fee = entry.getConsultationFee() != null ? entry.getConsultationFee() : request.getConsultationFee();
+        return Appointment.builder()
+                .hospitalId(request.getHospitalId())
+                .patientId(entry.getPatientId() != null ? entry.getPatientId() : 0L)
+                .patientName(entry.getPatientName())
+                .patientMobile(entry.getPatientMobile())
+                .doctorId(doctor.getId())
+                .doctorName(doctor.getFullName())
+                .appointmentType(request.getAppointmentType() != null ? request.getAppointmentType() : AppointmentType.OPD)
+                .appointmentDate(entry.getAppointmentDate())
+                .slotStartTime(claim.startTime())
+                .slotEndTime(claim.endTime())
+                .status(AppointmentStatus.SCHEDULED)
+                .tokenNumber(tokenNumber)
+                .consultationFee(fee)
+                .chiefComplaint(entry.getChiefComplaint())
+                .bookingNotes(request.getBookingNotes())
+                .bookingSource(request.getBookingSource() != null ? request.getBookingSource() : "CAMP")
+                .build();
+    }
+
+    private void assignNumbers(List<Appointment> appointments) {
+        String year = String.valueOf(Year.now().getValue());
+        String prefix = "APT" + year;
+        long first = sequenceService.nextRange("APT", SequenceService.GLOBAL_SCOPE, year, appointments.size(),
+                () -> SequenceService.orZero(appointmentRepository.findMaxAppointmentNumber(prefix)));
+        for (int n = 0; n < appointments.size(); n++) {
+            appointments.get(n).setAppointmentNumber(prefix + String.format("%06d", first + n));
+        }
+    }
+
+    private void insert(List<Appointment> appointments) {
+        LocalDateTime now = LocalDateTime.now();
+        String auditor = auditorAware.getCurrentAuditor().orElse("SYSTEM");
+        for (Appointment a : appointments) {
+            a.setCreatedAt(now);
+            a.setUpdatedAt(now);
+            a.setCreatedBy(auditor);
+            a.setUpdatedBy(auditor);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, appointments, batchSize, BulkBookingService::bind);
+    }
+
+    private static void bind(PreparedStatement ps, Appointment a) throws SQLException {
+        int p = 1;
+        ps.setString(p++, a.getAppointmentNumber());
+        ps.setLong(p++, a.getHospitalId());
+        ps.setLong(p++, a.getPatientId());
+        ps.setString(p++, a.getPatientName());
+        ps.setString(p++, a.getPatientMobile());
+        ps.setLong(p++, a.getDoctorId());
+        ps.setString(p++, a.getDoctorName());
+        ps.setString(p++, a.getAppointmentType().name());
+        ps.setObject(p++, a.getAppointmentDate());
+        ps.setObject(p++, a.getSlotStartTime());
+        ps.setObject(p++, a.getSlotEndTime());
+        ps.setString(p++, a.getStatus().name());
+        ps.setInt(p++, a.getTokenNumber());
+        ps.setBoolean(p++, a.getIsFollowUp());
+        if (a.getConsultationFee() != null) {
+            ps.setDouble(p++, a.getConsultationFee());
+        } else {
+            ps.setNull(p++, Types.DOUBLE);
+        }
+        ps.setBoolean(p++, a.getIsFeePaid());
+        ps.setInt(p++, a.getRescheduleCount());
+        ps.setString(p++, a.getChiefComplaint());
+        ps.setString(p++, a.getBookingNotes());
+        ps.setString(p++, a.getBookingSource());
+        ps.setBoolean(p++, a.getReminderSent());
+        ps.setBoolean(p++, true);
+        ps.setObject(p++, a.getCreatedAt());
+        ps.setObject(p++, a.getUpdatedAt());
+        ps.setString(p++, a.getCreatedBy());
+        ps.setString(p++, a.getUpdatedBy());
+        ps.setBoolean(p++, a.getIsActive());
+        ps.setBoolean(p++, a.getIsDeleted());
+        ps.setLong(p, a.getVersion());
+    }
+
+    private void assignIds(List<Appointment> appointments) {
+        Map<String, Appointment> byNumber = appointments.stream()
+                .collect(Collectors.toMap(Appointment::getAppointmentNumber, Function.identity()));
+        List<String> numbers = new ArrayList<>(byNumber.keySet());
+        for (int from = 0; from < numbers.size(); from += ID_LOOKUP_CHUNK) {
+            List<String> chunk = numbers.subList(from, Math.min(from + ID_LOOKUP_CHUNK, numbers.size()));
+            for (AppointmentRepository.NumberedId row : appointmentRepository.findIdsByAppointmentNumbers(chunk)) {
+                byNumber.get(row.getAppointmentNumber()).setId(row.getId());
+            }
+        }
+    }
+
+    private record Planned(int row, Doctor doctor, LocalTime slot) {
+    }
+
+    private static BulkBookingResponse.Row success(int index, Appointment appointment) {
+        return BulkBookingResponse.Row.builder()
+                .index(index)
+                .success(true)
+                .appointmentId(appointment.getId())
+                .appointmentNumber(appointment.getAppointmentNumber())
+                .doctorId(appointment.getDoctorId())
+                .appointmentDate(appointment.getAppointmentDate())
+                .slotTime(appointment.getSlotStartTime())
+                .tokenNumber(appointment.getTokenNumber())
+                .build();
+    }
+
+    private static BulkBookingResponse.Row failure(int index, BulkBookingRequest.Entry entry, String errorCode, String message) {
+        return BulkBookingResponse.Row.builder()
+                .index(index)
+                .success(false)
+                .doctorId(entry.getDoctorId())
+                .appointmentDate(entry.getAppointmentDate())
+                .slotTime(entry.getSlotTime())
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+}
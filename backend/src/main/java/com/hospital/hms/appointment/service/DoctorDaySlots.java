@@ -0,0 +1,248 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.dto.SlotAvailabilityDto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled slot grid for one doctor on one day.
+ * Slots are stored as parallel arrays sorted by start minute; {@code occupied} is the booked-slot bitmap.
+ * Bookings are tracked by appointment id so replaying the same change twice is harmless.
+ */
+final class DoctorDaySlots {
+
+    private static final int UNSLOTTED = -1;
+
+    private final Long doctorId;
+    private final LocalDate date;
+    private final boolean onLeave;
+
+    private final int[] startMinutes;
+    private final int[] endMinutes;
+    private final int[] windowOf;
+    private final int[] windowCapacity; // 0 = no cap
+    private final String[] windowRoom;
+    private final boolean[] windowTele;
+
+    private final int[] bookedCount;
+    private final int[] windowBooked;
+    private final BitSet occupied;
+    private final Map<Long, Integer> slotByAppointment = new HashMap<>();
+
+    private DoctorDaySlots(Long doctorId, LocalDate date, boolean onLeave, List<int[]> slots,
+                           List<SlotAvailabilityService.ScheduleWindow> windows) {
+        this.doctorId = doctorId;
+        this.date = date;
+        this.onLeave = onLeave;
+        int n = slots.size();
+        this.startMinutes = new int[n];
+        this.endMinutes = new int[n];
+        this.windowOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] slot = slots.get(i);
+            startMinutes[i] = slot[0];
+            endMinutes[i] = slot[1];
+            windowOf[i] = slot[2];
+        }
+        int w = windows.size();
+        this.windowCapacity = new int[w];
+        this.windowRoom = new String[w];
+        this.windowTele = new boolean[w];
+        for (int i = 0; i < w; i++) {
+            SlotAvailabilityService.ScheduleWindow window = windows.get(i);
+            windowCapacity[i] = window.maxAppointments() != null ? window.maxAppointments() : 0;
+            windowRoom[i] = window.roomNumber();
+            windowTele[i] = window.teleconsultation();
+        }
+        this.bookedCount = new int[n];
+        this.windowBooked = new int[w];
+        this.occupied = new BitSet(n);
+    }
+
+    /**
+     * Expand the applicable schedule windows into fixed-length slots, skipping the break window
+     */
+    static DoctorDaySlots compile(Long doctorId, LocalDate date, boolean onLeave,
+                                  List<SlotAvailabilityService.ScheduleWindow> windows) {
+        List<int[]> slots = new ArrayList<>();
+        if (!onLeave) {
+            for (int w = 0; w < windows.size(); w++) {
+                SlotAvailabilityService.ScheduleWindow window = windows.get(w);
+                int duration = window.slotDurationMinutes();
+                for (int start = window.startMinute(); start + duration <= window.endMinute(); start += duration) {
+                    int end = start + duration;
+                    if (window.breakStartMinute() >= 0 && start < window.breakEndMinute() && end > window.breakStartMinute()) {
+                        continue;
+                    }
+                    slots.add(new int[]{start, end, w});
+                }
+            }
+            slots.sort((a, b) -> Integer.compare(a[0], b[0]));
+            // Overlapping windows: keep the first slot that claims a time range
+            List<int[]> deduped = new ArrayList<>(slots.size());
+            int lastEnd = Integer.MIN_VALUE;
+            for (int[] slot : slots) {
+                if (slot[0] >= lastEnd) {
+                    deduped.add(slot);
+                    lastEnd = slot[1];
+                }
+            }
+            slots = deduped;
+        }
+        return new DoctorDaySlots(doctorId, date, onLeave, slots, windows);
+    }
+
+    synchronized void book(Long appointmentId, LocalTime slotStart) {
+        int slot = indexOf(slotStart);
+        Integer existing = slotByAppointment.get(appointmentId);
+        if (existing != null) {
+            if (existing == slot) {
+                return;
+            }
+            unbook(existing);
+        }
+        slotByAppointment.put(appointmentId, slot);
+        if (slot != UNSLOTTED) {
+            bookedCount[slot]++;
+            windowBooked[windowOf[slot]]++;
+            occupied.set(slot);
+        }
+    }
+
+    synchronized void release(Long appointmentId) {
+        Integer existing = slotByAppointment.remove(appointmentId);
+        if (existing != null) {
+            unbook(existing);
+        }
+    }
+
+    synchronized boolean isFree(LocalTime slotStart) {
+        int slot = indexOf(slotStart);
+        return slot != UNSLOTTED && startMinutes[slot] == toMinute(slotStart) && isFree(slot);
+    }
+
+    /**
+     * Plan a batch of bookings in one pass without changing the bitmap.
+     * A null request takes the earliest free slot; slots granted earlier in the batch count as taken.
+     */
+    synchronized List<SlotAvailabilityService.SlotClaim> claim(List<LocalTime> requested, int notBeforeMinute) {
+        BitSet taken = (BitSet) occupied.clone();
+        int[] windowLoad = windowBooked.clone();
+        List<SlotAvailabilityService.SlotClaim> claims = new ArrayList<>(requested.size());
+        int cursor = 0;
+        for (LocalTime time : requested) {
+            int slot;
+            if (onLeave) {
+                claims.add(SlotAvailabilityService.SlotClaim.rejected("DOCTOR_ON_LEAVE"));
+                continue;
+            }
+            if (time == null) {
+                while (cursor < startMinutes.length
+                        && (startMinutes[cursor] < notBeforeMinute || !isFree(cursor, taken, windowLoad))) {
+                    cursor++;
+                }
+                if (cursor == startMinutes.length) {
+                    claims.add(SlotAvailabilityService.SlotClaim.rejected("NO_FREE_SLOT"));
+                    continue;
+                }
+                slot = cursor;
+            } else {
+                slot = indexOf(time);
+                if (slot == UNSLOTTED || startMinutes[slot] != toMinute(time)) {
+                    claims.add(SlotAvailabilityService.SlotClaim.rejected("SLOT_NOT_IN_SCHEDULE"));
+                    continue;
+                }
+                if (startMinutes[slot] < notBeforeMinute) {
+                    claims.add(SlotAvailabilityService.SlotClaim.rejected("SLOT_IN_PAST"));
+                    continue;
+                }
+                if (!isFree(slot, taken, windowLoad)) {
+                    claims.add(SlotAvailabilityService.SlotClaim.rejected("SLOT_TAKEN"));
+                    continue;
+                }
+            }
+            taken.set(slot);
+            windowLoad[windowOf[slot]]++;
+            claims.add(SlotAvailabilityService.SlotClaim.granted(toTime(startMinutes[slot]), toTime(endMinutes[slot])));
+        }
+        return claims;
+    }
+
+    synchronized SlotAvailabilityDto toDto(int notBeforeMinute, boolean onlyAvailable) {
+        List<SlotAvailabilityDto.SlotDto> result = new ArrayList<>(startMinutes.length);
+        int available = 0;
+        for (int i = 0; i < startMinutes.length; i++) {
+            boolean free = startMinutes[i] >= notBeforeMinute && isFree(i);
+            if (free) {
+                available++;
+            } else if (onlyAvailable) {
+                continue;
+            }
+            result.add(SlotAvailabilityDto.SlotDto.builder()
+                    .startTime(toTime(startMinutes[i]))
+                    .endTime(toTime(endMinutes[i]))
+                    .available(free)
+                    .roomNumber(windowRoom[windowOf[i]])
+                    .teleconsultation(windowTele[windowOf[i]])
+                    .build());
+        }
+        return SlotAvailabilityDto.builder()
+                .doctorId(doctorId)
+                .date(date)
+                .onLeave(onLeave)
+                .totalSlots(startMinutes.length)
+                .availableSlots(available)
+                .slots(result)
+                .build();
+    }
+
+    private boolean isFree(int slot) {
+        return isFree(slot, occupied, windowBooked);
+    }
+
+    private boolean isFree(int slot, BitSet taken, int[] windowLoad) {
+        if (taken.get(slot)) {
+            return false;
+        }
+        int window = windowOf[slot];
+        return windowCapacity[window] == 0 || windowLoad[window] < windowCapacity[window];
+    }
+
+    private void unbook(int slot) {
+        if (slot == UNSLOTTED) {
+            return;
+        }
+        if (--bookedCount[slot] == 0) {
+            occupied.clear(slot);
+        }
+        windowBooked[windowOf[slot]]--;
+    }
+
+    /**
+     * Index of the slot containing the given time, or UNSLOTTED if it falls outside every slot
+     */
+    private int indexOf(LocalTime time) {
+        if (time == null || startMinutes.length == 0) {
+            return UNSLOTTED;
+        }
+        int minute = toMinute(time);
+        int pos = Arrays.binarySearch(startMinutes, minute);
+        int slot = pos >= 0 ? pos : -pos - 2;
+        return slot >= 0 && minute < endMinutes[slot] ? slot : UNSLOTTED;
+    }
+
+    static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalTime toTime(int minute) {
+        return LocalTime.of(minute / 60 % 24, minute % 60);
+    }
+}
@@ -0,0 +1,269 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.entity.QueueEntry;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * In-memory OPD queue for one doctor on one day.
+ * Waiting entries are ordered by priority (highest first), then booked before walk-in, then check-in time.
+ * Wait estimates are recomputed in one pass over the waiting line from the doctor's rolling consultation
+ * statistics, so a queue move never needs the day's history from the database.
+ * Not thread-safe: {@link OpdQueueService} serialises access per queue. Every mutation returns the entries
+ * it changed so they can be written behind.
+ */
+final class DoctorQueue {
+
+    static final String WAITING = "WAITING";
+    static final String CALLED = "CALLED";
+    static final String IN_CONSULTATION = "IN_CONSULTATION";
+    static final String COMPLETED = "COMPLETED";
+    static final String SKIPPED = "SKIPPED";
+    static final String NO_SHOW = "NO_SHOW";
+
+    static final Comparator<QueueEntry> ORDER = Comparator
+            .comparing((QueueEntry e) -> e.getPriority() != null ? e.getPriority() : 0, Comparator.reverseOrder())
+            .thenComparing(e -> Boolean.TRUE.equals(e.getIsWalkIn()))
+            .thenComparing(QueueEntry::getCheckInTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(QueueEntry::getTokenNumber)
+            .thenComparing(QueueEntry::getId);
+
+    private final Long doctorId;
+    private final LocalDate date;
+
+    private final Map<Long, QueueEntry> entries = new HashMap<>();
+    private final Map<Long, Long> byAppointment = new HashMap<>();
+    private final TreeSet<QueueEntry> waiting = new TreeSet<>(ORDER);
+    private final LinkedHashSet<QueueEntry> skipped = new LinkedHashSet<>();
+    private QueueEntry current;
+    private int completed;
+    private int noShow;
+    private long version;
+
+    DoctorQueue(Long doctorId, LocalDate date, Collection<QueueEntry> persisted) {
+        this.doctorId = doctorId;
+        this.date = date;
+        persisted.stream()
+                .sorted(Comparator.comparing(QueueEntry::getCalledTime, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(this::restore);
+    }
+
+    Long getDoctorId() {
+        return doctorId;
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    boolean containsAppointment(Long appointmentId) {
+        return byAppointment.containsKey(appointmentId);
+    }
+
+    List<QueueEntry> add(QueueEntry entry) {
+        entry.setStatus(WAITING);
+        index(entry);
+        waiting.add(entry);
+        return changed(entry);
+    }
+
+    /**
+     * Finish the patient being served and call the next waiting one
+     */
+    List<QueueEntry> callNext(LocalDateTime now) {
+        List<QueueEntry> changed = new ArrayList<>(2);
+        if (current != null) {
+            current.setStatus(COMPLETED);
+            current.setConsultationEndTime(now);
+            completed++;
+            changed.add(current);
+            current = null;
+        }
+        QueueEntry next = waiting.pollFirst();
+        if (next != null) {
+            next.setStatus(CALLED);
+            next.setCalledTime(now);
+            next.setConsultationStartTime(now);
+            if (next.getCheckInTime() != null) {
+                next.setActualWaitMinutes((int) Duration.between(next.getCheckInTime(), now).toMinutes());
+            }
+            current = next;
+            changed.add(next);
+        }
+        return changed(changed);
+    }
+
+    /**
+     * Set a waiting or called patient aside, e.g. stepped out when their token was called
+     */
+    List<QueueEntry> skip(Long entryId) {
+        QueueEntry entry = find(entryId);
+        requireStatus(entry, WAITING, CALLED);
+        detach(entry);
+        entry.setStatus(SKIPPED);
+        skipped.add(entry);
+        return changed(entry);
+    }
+
+    List<QueueEntry> markNoShow(Long entryId) {
+        QueueEntry entry = find(entryId);
+        requireStatus(entry, WAITING, CALLED, SKIPPED);
+        detach(entry);
+        entry.setStatus(NO_SHOW);
+        noShow++;
+        return changed(entry);
+    }
+
+    /**
+     * Put a skipped or no-show patient back in line; they rejoin at the back of their priority band
+     */
+    List<QueueEntry> reinsert(Long entryId, LocalDateTime now) {
+        QueueEntry entry = find(entryId);
+        requireStatus(entry, SKIPPED, NO_SHOW);
+        if (NO_SHOW.equals(entry.getStatus())) {
+            noShow--;
+        }
+        skipped.remove(entry);
+        entry.setStatus(WAITING);
+        entry.setCheckInTime(now);
+        entry.setCalledTime(null);
+        entry.setConsultationStartTime(null);
+        waiting.add(entry);
+        return changed(entry);
+    }
+
+    /**
+     * Expected wait for a waiting entry: what is left of the consultation in progress plus one mean
+     * consultation for everyone ahead of it
+     */
+    int estimateWait(QueueEntry entry, WaitTimeEstimator.Stats stats, LocalDateTime now) {
+        int ahead = waiting.headSet(entry).size();
+        return (int) Math.round(remainingCurrent(stats, now) + ahead * stats.meanMinutes());
+    }
+
+    /**
+     * Current state with wait estimates; patient names are left out for public token boards
+     */
+    QueueSnapshot snapshot(boolean withNames, WaitTimeEstimator.Stats stats, LocalDateTime now) {
+        List<QueueSnapshot.Token> waitingTokens = new ArrayList<>(waiting.size());
+        double wait = remainingCurrent(stats, now);
+        int position = 1;
+        for (QueueEntry entry : waiting) {
+            QueueSnapshot.Token token = token(entry, position++, withNames);
+            token.setEstimatedWaitMinutes((int) Math.round(wait));
+            waitingTokens.add(token);
+            wait += stats.meanMinutes();
+        }
+        return QueueSnapshot.builder()
+                .doctorId(doctorId)
+                .date(date)
+                .version(version)
+                .nowServing(current != null ? token(current, null, withNames) : null)
+                .waiting(waitingTokens)
+                .skipped(skipped.stream().map(e -> token(e, null, withNames)).toList())
+                .completed(completed)
+                .noShow(noShow)
+                .averageConsultationMinutes(round1(stats.meanMinutes()))
+                .p50ConsultationMinutes(round1(stats.p50Minutes()))
+                .p90ConsultationMinutes(round1(stats.p90Minutes()))
+                .build();
+    }
+
+    private void restore(QueueEntry entry) {
+        index(entry);
+        switch (Objects.requireNonNullElse(entry.getStatus(), WAITING)) {
+            case CALLED, IN_CONSULTATION -> {
+                // Only one patient is with the doctor; earlier calls left open were finished by the next call
+                if (current != null) {
+                    completed++;
+                }
+                current = entry;
+            }
+            case SKIPPED -> skipped.add(entry);
+            case COMPLETED -> completed++;
+            case NO_SHOW -> noShow++;
+            default -> waiting.add(entry);
+        }
+    }
+
+    private void index(QueueEntry entry) {
+        entries.put(entry.getId(), entry);
+        if (entry.getAppointmentId() != null) {
+            byAppointment.put(entry.getAppointmentId(), entry.getId());
+        }
+    }
+
+    private void detach(QueueEntry entry) {
+        if (entry == current) {
+            current = null;
+        }
+        waiting.remove(entry);
+        skipped.remove(entry);
+    }
+
+    private QueueEntry find(Long entryId) {
+        QueueEntry entry = entries.get(entryId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("Queue entry", "id", entryId);
+        }
+        return entry;
+    }
+
+    private static void requireStatus(QueueEntry entry, String... allowed) {
+        for (String status : allowed) {
+            if (status.equals(entry.getStatus())) {
+                return;
+            }
+        }
+        throw new BadRequestException("Token " + entry.getTokenDisplay() + " is " + entry.getStatus(),
+                "INVALID_QUEUE_STATE");
+    }
+
+    private List<QueueEntry> changed(QueueEntry entry) {
+        return changed(List.of(entry));
+    }
+
+    private List<QueueEntry> changed(List<QueueEntry> changed) {
+        if (!changed.isEmpty()) {
+            version++;
+        }
+        return changed;
+    }
+
+    private double remainingCurrent(WaitTimeEstimator.Stats stats, LocalDateTime now) {
+        return current != null ? WaitTimeEstimator.remaining(stats, current.getConsultationStartTime(), now) : 0;
+    }
+
+    private static Double round1(double value) {
+        return Double.isNaN(value) ? null : Math.round(value * 10) / 10.0;
+    }
+
+    private static QueueSnapshot.Token token(QueueEntry entry, Integer position, boolean withNames) {
+        return QueueSnapshot.Token.builder()
+                .entryId(entry.getId())
+                .tokenNumber(entry.getTokenNumber())
+                .tokenDisplay(entry.getTokenDisplay())
+                .patientName(withNames ? entry.getPatientName() : null)
+                .status(entry.getStatus())
+                .position(position)
+                .priority(entry.getPriority())
+                .walkIn(entry.getIsWalkIn())
+                .checkInTime(entry.getCheckInTime())
+                .calledTime(entry.getCalledTime())
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.DoctorPatientSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+/**
+ * Keeps the doctor patient roster in step with appointment inserts and status changes,
+ * and backfills it from existing appointments when the table is empty.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DoctorRosterEventListener {
+
+    private final DoctorRosterService rosterService;
+    private final DoctorPatientSummaryRepository summaryRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Snapshot current = event.getCurrent();
+        Snapshot previous = event.getPrevious();
+
+        if (previous != null && previous.getStatus() == current.getStatus()
+                && previous.isDeleted() == current.isDeleted()
+                && Objects.equals(previous.getAppointmentDate(), current.getAppointmentDate())
+                && samePair(previous, current)) {
+            return; // nothing the roster depends on changed
+        }
+        refresh(current);
+        if (previous != null && !samePair(previous, current)) {
+            refresh(previous);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (summaryRepository.count() > 0) {
+            return;
+        }
+        int rows = 0;
+        for (Long doctorId : appointmentRepository.findDistinctDoctorIds()) {
+            rows += rosterService.rebuildDoctor(doctorId);
+        }
+        if (rows > 0) {
+            log.info("Backfilled doctor patient roster with {} rows", rows);
+        }
+    }
+
+    private void refresh(Snapshot snapshot) {
+        try {
+            rosterService.refresh(snapshot.getDoctorId(), snapshot.getPatientId(),
+                    snapshot.getPatientName(), snapshot.getPatientMobile());
+        } catch (DataIntegrityViolationException e) {
+            // First visit for this pair inserted concurrently; the row exists now
+            rosterService.refresh(snapshot.getDoctorId(), snapshot.getPatientId(),
+                    snapshot.getPatientName(), snapshot.getPatientMobile());
+        }
+    }
+
+    private static boolean samePair(Snapshot a, Snapshot b) {
+        return Objects.equals(a.getDoctorId(), b.getDoctorId()) && Objects.equals(a.getPatientId(), b.getPatientId());
+    }
+}
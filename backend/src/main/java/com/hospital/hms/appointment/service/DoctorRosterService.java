@@ -0,0 +1,96 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.entity.DoctorPatientSummary;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.AppointmentRepository.VisitStats;
+import com.hospital.hms.appointment.repository.DoctorPatientSummaryRepository;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maintains and serves the doctor_patient_summary roster.
+ * Each refresh recomputes one (doctor, patient) row from that pair's appointments under a row lock,
+ * so replayed or out-of-order events converge on the correct totals.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DoctorRosterService {
+
+    static final List<AppointmentStatus> VISIT_STATUSES = Arrays.stream(AppointmentStatus.values())
+            .filter(AppointmentStatus::countsAsVisit)
+            .toList();
+
+    private final DoctorPatientSummaryRepository summaryRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    /**
+     * Page of a doctor's patients, most recent visit first
+     */
+    @Transactional(readOnly = true)
+    public Page<DoctorPatientSummary> getRoster(Long doctorId, int page, int size) {
+        return summaryRepository.findByDoctorId(doctorId,
+                PageRequest.of(page, size, Sort.by(Sort.Order.desc("lastVisit"), Sort.Order.asc("patientId"))));
+    }
+
+    /**
+     * Recompute the roster row for one (doctor, patient) pair
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refresh(Long doctorId, Long patientId, String patientName, String patientMobile) {
+        DoctorPatientSummary summary = summaryRepository.findForUpdate(doctorId, patientId).orElse(null);
+        VisitStats stats = appointmentRepository.getVisitStats(doctorId, patientId, VISIT_STATUSES);
+
+        if (stats == null || stats.getVisits() == 0) {
+            if (summary != null) {
+                summaryRepository.delete(summary);
+            }
+            return;
+        }
+        if (summary == null) {
+            summary = DoctorPatientSummary.builder()
+                    .doctorId(doctorId)
+                    .patientId(patientId)
+                    .build();
+        }
+        if (patientName != null) {
+            summary.setPatientName(patientName);
+        }
+        if (patientMobile != null) {
+            summary.setPatientMobile(patientMobile);
+        }
+        summary.setTotalVisits((int) stats.getVisits());
+        summary.setLastVisit(stats.getLastVisit());
+        summaryRepository.saveAndFlush(summary);
+    }
+
+    /**
+     * Rebuild every roster row for a doctor with one GROUP BY over their appointments
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int rebuildDoctor(Long doctorId) {
+        summaryRepository.deleteByDoctorId(doctorId);
+        List<DoctorPatientSummary> rows = appointmentRepository.aggregateRoster(doctorId, VISIT_STATUSES).stream()
+                .map(row -> DoctorPatientSummary.builder()
+                        .doctorId(doctorId)
+                        .patientId(row.getPatientId())
+                        .patientName(row.getPatientName())
+                        .patientMobile(row.getPatientMobile())
+                        .totalVisits((int) row.getVisits())
+                        .lastVisit(row.getLastVisit())
+                        .build())
+                .toList();
+        summaryRepository.saveAll(rows);
+        return rows.size();
+    }
+}
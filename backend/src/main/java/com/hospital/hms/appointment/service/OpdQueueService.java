@@ -0,0 +1,333 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.dto.QueueCheckInRequest;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.entity.QueueEntry;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.QueueEntryRepository;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.service.SequenceService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Real-time OPD queue engine.
+ *
+ * Each doctor's queue for a day lives in memory ({@link DoctorQueue}), loaded from queue_entries on first use.
+ * Check-ins are inserted immediately so entries have ids; later transitions (call-next, skip, no-show,
+ * re-insert) are written behind in JDBC batches and every change is pushed to {@code /topic/queue/{doctorId}}
+ * through {@link QueueFeedPublisher}, so token boards and reception screens never poll the database. Snapshots carry per-token wait estimates
+ * from {@link WaitTimeEstimator}; the estimate given at check-in is stored in estimated_wait_minutes so it
+ * can be compared with actual_wait_minutes later.
+ *
+ * Queue state is held per instance; with several instances, queue operations for a doctor should reach the
+ * same instance (or be relayed) for the in-memory order to stay authoritative.
+ */
+@Slf4j
+@Service
+public class OpdQueueService {
+
+    public static final String TOPIC_PREFIX = "/topic/queue/";
+
+    private static final String UPDATE_SQL = "UPDATE queue_entries SET status = ?, check_in_time = ?, called_time = ?, " +
+            "consultation_start_time = ?, consultation_end_time = ?, estimated_wait_minutes = ?, actual_wait_minutes = ?, " +
+            "updated_at = ?, updated_by = ?, version = version + 1 WHERE id = ?";
+
+    private final QueueEntryRepository queueEntryRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SequenceService sequenceService;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final QueueFeedPublisher feedPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+    private final int batchSize;
+    private final String tokenPrefix;
+
+    private final Map<QueueKey, DoctorQueue> queues = new ConcurrentHashMap<>();
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    // Today's queues whose finished consultations have been fed to the wait-time estimator
+    private final Set<QueueKey> replayed = ConcurrentHashMap.newKeySet();
+
+    public OpdQueueService(QueueEntryRepository queueEntryRepository,
+                           AppointmentRepository appointmentRepository,
+                           SequenceService sequenceService,
+                           WaitTimeEstimator waitTimeEstimator,
+                           QueueFeedPublisher feedPublisher,
+                           JdbcTemplate jdbcTemplate,
+                           AuditorAware<String> auditorAware,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                           @Value("${app.queue.token-prefix:TKN}") String tokenPrefix) {
+        this.queueEntryRepository = queueEntryRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.sequenceService = sequenceService;
+        this.waitTimeEstimator = waitTimeEstimator;
+        this.feedPublisher = feedPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.batchSize = batchSize;
+        this.tokenPrefix = tokenPrefix;
+    }
+
+    /**
+     * Queue for a doctor on a date, with patient names (staff view)
+     */
+    public QueueSnapshot getQueue(Long doctorId, LocalDate date) {
+        DoctorQueue queue = queue(doctorId, date);
+        synchronized (queue) {
+            return snapshot(queue, true);
+        }
+    }
+
+    /**
+     * Today's queue as shown on public token boards (no patient names)
+     */
+    public QueueSnapshot getBoard(Long doctorId) {
+        DoctorQueue queue = queue(doctorId, LocalDate.now());
+        synchronized (queue) {
+            return snapshot(queue, false);
+        }
+    }
+
+    /**
+     * Add a booked or walk-in patient to today's queue
+     */
+    public QueueSnapshot checkIn(QueueCheckInRequest request) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        Appointment appointment = request.getAppointmentId() != null ? bookedAppointment(request.getAppointmentId(), today) : null;
+        QueueEntry entry = appointment != null ? fromAppointment(appointment, request) : walkIn(request);
+        entry.setQueueDate(today);
+        entry.setCheckInTime(now);
+        if (request.getPriority() != null) {
+            entry.setPriority(request.getPriority());
+        }
+
+        DoctorQueue queue = queue(entry.getDoctorId(), today);
+        QueueSnapshot snapshot;
+        synchronized (queue) {
+            if (appointment != null && queue.containsAppointment(appointment.getId())) {
+                throw new BadRequestException("Appointment " + appointment.getAppointmentNumber() + " is already in the queue",
+                        "ALREADY_IN_QUEUE");
+            }
+            if (entry.getTokenNumber() == null) {
+                entry.setTokenNumber(nextTokenNumber(entry.getDoctorId(), today));
+            }
+            entry.setTokenDisplay(String.format("%s-%03d", tokenPrefix, entry.getTokenNumber()));
+            queueEntryRepository.save(entry);
+            queue.add(entry);
+            entry.setEstimatedWaitMinutes(queue.estimateWait(entry, waitTimeEstimator.stats(entry.getDoctorId()), now));
+            pending.put(entry.getId(), PendingWrite.of(entry, now, auditorAware.getCurrentAuditor().orElse("SYSTEM")));
+            snapshot = publish(queue);
+        }
+
+        if (appointment != null && (appointment.getStatus() == AppointmentStatus.SCHEDULED
+                || appointment.getStatus() == AppointmentStatus.CONFIRMED)) {
+            appointment.setStatus(AppointmentStatus.CHECKED_IN);
+            appointment.setCheckedInAt(now);
+            appointmentRepository.save(appointment);
+        }
+        log.info("Checked in token {} for doctor {}", entry.getTokenDisplay(), entry.getDoctorId());
+        return snapshot;
+    }
+
+    /**
+     * Finish the current patient and call the next one in today's queue
+     */
+    public QueueSnapshot callNext(Long doctorId) {
+        LocalDateTime now = LocalDateTime.now();
+        return mutate(doctorId, queue -> {
+            List<QueueEntry> changed = queue.callNext(now);
+            changed.stream()
+                    .filter(e -> DoctorQueue.COMPLETED.equals(e.getStatus()))
+                    .forEach(e -> waitTimeEstimator.record(doctorId, e.getConsultationStartTime(), e.getConsultationEndTime()));
+            return changed;
+        });
+    }
+
+    public QueueSnapshot skip(Long doctorId, Long entryId) {
+        return mutate(doctorId, queue -> queue.skip(entryId));
+    }
+
+    public QueueSnapshot markNoShow(Long doctorId, Long entryId) {
+        return mutate(doctorId, queue -> queue.markNoShow(entryId));
+    }
+
+    public QueueSnapshot reinsert(Long doctorId, Long entryId) {
+        LocalDateTime now = LocalDateTime.now();
+        return mutate(doctorId, queue -> queue.reinsert(entryId, now));
+    }
+
+    /**
+     * Write pending queue transitions to the database and drop queues from previous days
+     */
+    @Scheduled(fixedDelayString = "${app.appointment.queue-flush-ms:1000}")
+    public void flush() {
+        if (!pending.isEmpty()) {
+            List<PendingWrite> batch = new ArrayList<>(pending.size());
+            for (Long id : pending.keySet()) {
+                PendingWrite write = pending.remove(id);
+                if (write != null) {
+                    batch.add(write);
+                }
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batchSize, (ps, w) -> {
+                    ps.setString(1, w.status());
+                    ps.setObject(2, w.checkInTime());
+                    ps.setObject(3, w.calledTime());
+                    ps.setObject(4, w.consultationStartTime());
+                    ps.setObject(5, w.consultationEndTime());
+                    ps.setObject(6, w.estimatedWaitMinutes());
+                    ps.setObject(7, w.actualWaitMinutes());
+                    ps.setObject(8, w.updatedAt());
+                    ps.setString(9, w.updatedBy());
+                    ps.setLong(10, w.id());
+                });
+            } catch (RuntimeException e) {
+                // Keep the rows for the next attempt unless a newer state has been queued meanwhile
+                batch.forEach(w -> pending.putIfAbsent(w.id(), w));
+                log.warn("Queue write-behind failed for {} entries, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+        }
+        LocalDate today = LocalDate.now();
+        queues.keySet().removeIf(key -> key.date().isBefore(today));
+        replayed.removeIf(key -> key.date().isBefore(today));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} queue updates could not be written on shutdown", pending.size());
+        }
+    }
+
+    private QueueSnapshot mutate(Long doctorId, Function<DoctorQueue, List<QueueEntry>> change) {
+        DoctorQueue queue = queue(doctorId, LocalDate.now());
+        synchronized (queue) {
+            List<QueueEntry> changed = change.apply(queue);
+            if (changed.isEmpty()) {
+                return snapshot(queue, true);
+            }
+            String auditor = auditorAware.getCurrentAuditor().orElse("SYSTEM");
+            LocalDateTime now = LocalDateTime.now();
+            for (QueueEntry entry : changed) {
+                pending.put(entry.getId(), PendingWrite.of(entry, now, auditor));
+            }
+            return publish(queue);
+        }
+    }
+
+    /**
+     * Hand the board view to the feed and return the staff view; called under the queue lock so the feed
+     * always holds the latest state
+     */
+    private QueueSnapshot publish(DoctorQueue queue) {
+        feedPublisher.changed(snapshot(queue, false));
+        return snapshot(queue, true);
+    }
+
+    private QueueSnapshot snapshot(DoctorQueue queue, boolean withNames) {
+        return queue.snapshot(withNames, waitTimeEstimator.stats(queue.getDoctorId()), LocalDateTime.now());
+    }
+
+    private DoctorQueue queue(Long doctorId, LocalDate date) {
+        return queues.computeIfAbsent(new QueueKey(doctorId, date), key -> {
+            List<QueueEntry> persisted = queueEntryRepository.findByDoctorIdAndDate(doctorId, date);
+            // Consultations finished today before a restart still count towards the doctor's statistics; only
+            // once, and not those of past days, whose queues are reloaded whenever they are viewed
+            if (date.equals(LocalDate.now()) && replayed.add(key)) {
+                persisted.stream()
+                        .filter(e -> DoctorQueue.COMPLETED.equals(e.getStatus()))
+                        .forEach(e -> waitTimeEstimator.record(doctorId, e.getConsultationStartTime(), e.getConsultationEndTime()));
+            }
+            return new DoctorQueue(doctorId, date, persisted);
+        });
+    }
+
+    private Appointment bookedAppointment(Long appointmentId, LocalDate today) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", appointmentId));
+        if (!today.equals(appointment.getAppointmentDate())) {
+            throw new BadRequestException("Appointment is for " + appointment.getAppointmentDate() + ", not today",
+                    "APPOINTMENT_NOT_TODAY");
+        }
+        if (appointment.getStatus() == null || !appointment.getStatus().isActive()) {
+            throw new BadRequestException("Appointment is " + appointment.getStatus(), "APPOINTMENT_NOT_ACTIVE");
+        }
+        return appointment;
+    }
+
+    private static QueueEntry fromAppointment(Appointment appointment, QueueCheckInRequest request) {
+        return QueueEntry.builder()
+                .hospitalId(appointment.getHospitalId())
+                .departmentId(appointment.getDepartmentId())
+                .doctorId(appointment.getDoctorId())
+                .appointmentId(appointment.getId())
+                .patientId(appointment.getPatientId())
+                .patientName(appointment.getPatientName())
+                .tokenNumber(appointment.getTokenNumber())
+                .isWalkIn(false)
+                .notes(request.getNotes())
+                .build();
+    }
+
+    private static QueueEntry walkIn(QueueCheckInRequest request) {
+        if (request.getHospitalId() == null || request.getDoctorId() == null || request.getPatientName() == null) {
+            throw new BadRequestException("appointmentId, or hospitalId, doctorId and patientName for a walk-in, is required",
+                    "INVALID_CHECK_IN");
+        }
+        return QueueEntry.builder()
+                .hospitalId(request.getHospitalId())
+                .departmentId(request.getDepartmentId())
+                .doctorId(request.getDoctorId())
+                .patientId(request.getPatientId() != null ? request.getPatientId() : 0L)
+                .patientName(request.getPatientName())
+                .isWalkIn(true)
+                .notes(request.getNotes())
+                .build();
+    }
+
+    /**
+     * Walk-ins draw from the same per-doctor, per-day token sequence as bookings
+     */
+    private int nextTokenNumber(Long doctorId, LocalDate date) {
+        return (int) sequenceService.next("TOKEN", doctorId, date.toString(), 1, () -> {
+            Integer max = appointmentRepository.findMaxTokenNumber(doctorId, date);
+            return max != null ? max : 0;
+        });
+    }
+
+    private record QueueKey(Long doctorId, LocalDate date) {
+    }
+
+    private record PendingWrite(Long id, String status, LocalDateTime checkInTime, LocalDateTime calledTime,
+                                LocalDateTime consultationStartTime, LocalDateTime consultationEndTime,
+                                Integer estimatedWaitMinutes, Integer actualWaitMinutes,
+                                LocalDateTime updatedAt, String updatedBy) {
+
+        static PendingWrite of(QueueEntry entry, LocalDateTime now, String auditor) {
+            return new PendingWrite(entry.getId(), entry.getStatus(), entry.getCheckInTime(), entry.getCalledTime(),
+                    entry.getConsultationStartTime(), entry.getConsultationEndTime(), entry.getEstimatedWaitMinutes(),
+                    entry.getActualWaitMinutes(), now, auditor);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.dto.QueueFeedMessage;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.common.service.WebSocketRelay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Coalescing publisher for the queue board feed on {@code /topic/queue/{doctorId}}.
+ *
+ * Queue changes only record the latest board state per topic; every {@code app.queue.feed-coalesce-ms}
+ * a single flush diffs it against what was last sent and broadcasts one compact delta, so a burst of
+ * check-ins and calls becomes one message per board. Full snapshots go out only when a client subscribes
+ * to {@code /app/queue/{doctorId}} (initial load or resync after a sequence gap) and when a topic starts
+ * a new day.
+ *
+ * Messages go out through the {@link WebSocketRelay}, so boards connected to any instance receive them. Each
+ * message is also shared with the other instances, which keep it as their last sent board; a client that
+ * subscribes on an instance other than the one running the queue still gets a snapshot that lines up with
+ * the sequence numbers on the topic.
+ */
+@Slf4j
+@Service
+public class QueueFeedPublisher {
+
+    static final String BOARD_CHANNEL = "queue-board";
+
+    private final WebSocketRelay relay;
+
+    private final Map<Long, TopicState> topics = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<QueueSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    public QueueFeedPublisher(WebSocketRelay relay) {
+        this.relay = relay;
+        relay.onBroadcast(BOARD_CHANNEL, SentBoard.class, this::mirror);
+    }
+
+    /**
+     * Record the latest board state for a doctor; it is sent with the next flush
+     */
+    public void changed(QueueSnapshot board) {
+        TopicState state = topics.computeIfAbsent(board.getDoctorId(), id -> new TopicState());
+        synchronized (state) {
+            state.latest = board;
+        }
+        dirty.add(board.getDoctorId());
+    }
+
+    /**
+     * Be told about every board sent on a topic, at most once per window: by this instance on the flush thread,
+     * or by another instance on the relay's thread. For other local views of the queue such as the department
+     * token boards, which may be served by an instance that does not run the queue.
+     */
+    public void addListener(Consumer<QueueSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Snapshot for a subscribing client, tagged with the sequence number of the last message sent on the
+     * topic so the client can apply the deltas that follow.
+     *
+     * The queue publishes into this class while holding its own lock, so the current board is read before
+     * taking the topic lock, never under it.
+     */
+    public QueueFeedMessage snapshot(Long doctorId, Supplier<QueueSnapshot> current) {
+        TopicState state = topics.computeIfAbsent(doctorId, id -> new TopicState());
+        synchronized (state) {
+            if (state.sent != null) {
+                return snapshotMessage(state.sent, state.seq);
+            }
+        }
+        QueueSnapshot board = current.get();
+        synchronized (state) {
+            if (state.sent == null) {
+                // Nothing broadcast yet; the current board becomes the baseline for future deltas, unless a
+                // change recorded meanwhile is newer
+                state.sent = state.latest != null ? state.latest : board;
+            }
+            return snapshotMessage(state.sent, state.seq);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.queue.feed-coalesce-ms:150}")
+    public void flush() {
+        for (Long doctorId : dirty) {
+            dirty.remove(doctorId);
+            TopicState state = topics.get(doctorId);
+            if (state == null) {
+                continue;
+            }
+            QueueFeedMessage message;
+            SentBoard sent;
+            synchronized (state) {
+                message = next(state);
+                sent = message != null ? new SentBoard(doctorId, state.seq, state.sent) : null;
+            }
+            if (message != null) {
+                relay.convertAndSend(OpdQueueService.TOPIC_PREFIX + doctorId, message);
+                relay.broadcast(BOARD_CHANNEL, sent);
+                notifyListeners(sent.board());
+            }
+        }
+    }
+
+    /**
+     * Board sent by another instance; it becomes this instance's baseline for subscribers to the topic
+     */
+    private void mirror(SentBoard sent) {
+        TopicState state = topics.computeIfAbsent(sent.doctorId(), id -> new TopicState());
+        synchronized (state) {
+            if (state.sent != null && sent.seq() <= state.seq) {
+                return;
+            }
+            if (state.latest == null || state.latest == state.sent) {
+                state.latest = sent.board();
+            }
+            state.sent = sent.board();
+            state.seq = sent.seq();
+        }
+        notifyListeners(sent.board());
+    }
+
+    private void notifyListeners(QueueSnapshot board) {
+        for (Consumer<QueueSnapshot> listener : listeners) {
+            try {
+                listener.accept(board);
+            } catch (RuntimeException e) {
+                log.warn("Queue board listener failed for doctor {}: {}", board.getDoctorId(), e.getMessage());
+            }
+        }
+    }
+
+    private static QueueFeedMessage next(TopicState state) {
+        QueueSnapshot latest = state.latest;
+        QueueSnapshot sent = state.sent;
+        if (latest == null || latest == sent) {
+            return null;
+        }
+        QueueFeedMessage message;
+        if (sent == null || !Objects.equals(sent.getDate(), latest.getDate())) {
+            message = snapshotMessage(latest, state.seq + 1);
+        } else {
+            message = delta(sent, latest);
+            if (message == null) {
+                state.sent = latest;
+                return null;
+            }
+            message.setSeq(state.seq + 1);
+        }
+        state.seq++;
+        state.sent = latest;
+        return message;
+    }
+
+    /**
+     * What changed between two boards for the same day, or null when a client would see no difference
+     */
+    static QueueFeedMessage delta(QueueSnapshot from, QueueSnapshot to) {
+        Map<Long, QueueSnapshot.Token> before = tokens(from);
+        Map<Long, QueueSnapshot.Token> after = tokens(to);
+
+        List<QueueSnapshot.Token> upserts = after.entrySet().stream()
+                .filter(e -> !e.getValue().equals(before.get(e.getKey())))
+                .map(Map.Entry::getValue)
+                .toList();
+        Set<Long> removedIds = new HashSet<>(before.keySet());
+        removedIds.removeAll(after.keySet());
+        List<Long> removed = removedIds.stream().sorted().toList();
+
+        Long fromServing = servingId(from);
+        Long toServing = servingId(to);
+        List<Long> waitingIds = ids(to.getWaiting());
+        List<Integer> waitEstimates = estimates(to.getWaiting());
+        List<Long> skippedIds = ids(to.getSkipped());
+        boolean servingChanged = !Objects.equals(fromServing, toServing);
+
+        QueueFeedMessage message = QueueFeedMessage.builder()
+                .type(QueueFeedMessage.DELTA)
+                .doctorId(to.getDoctorId())
+                .date(to.getDate())
+                .version(to.getVersion())
+                .upserts(upserts.isEmpty() ? null : upserts)
+                .removed(removed.isEmpty() ? null : removed)
+                .nowServingChanged(servingChanged ? true : null)
+                .nowServingId(servingChanged ? toServing : null)
+                .waitingIds(changed(ids(from.getWaiting()), waitingIds))
+                .waitEstimates(changed(estimates(from.getWaiting()), waitEstimates))
+                .skippedIds(changed(ids(from.getSkipped()), skippedIds))
+                .completed(changed(from.getCompleted(), to.getCompleted()))
+                .noShow(changed(from.getNoShow(), to.getNoShow()))
+                .averageConsultationMinutes(changed(from.getAverageConsultationMinutes(), to.getAverageConsultationMinutes()))
+                .build();
+        boolean empty = message.getUpserts() == null && message.getRemoved() == null && !servingChanged
+                && message.getWaitingIds() == null && message.getWaitEstimates() == null && message.getSkippedIds() == null
+                && message.getCompleted() == null && message.getNoShow() == null
+                && message.getAverageConsultationMinutes() == null;
+        return empty ? null : message;
+    }
+
+    private static QueueFeedMessage snapshotMessage(QueueSnapshot board, long seq) {
+        return QueueFeedMessage.builder()
+                .type(QueueFeedMessage.SNAPSHOT)
+                .doctorId(board.getDoctorId())
+                .date(board.getDate())
+                .version(board.getVersion())
+                .seq(seq)
+                .snapshot(board)
+                .build();
+    }
+
+    /**
+     * Every token on the board keyed by entry id, without the position and estimate that the id lists carry
+     */
+    private static Map<Long, QueueSnapshot.Token> tokens(QueueSnapshot board) {
+        Map<Long, QueueSnapshot.Token> tokens = new HashMap<>();
+        Stream.of(board.getWaiting(), board.getSkipped(),
+                        board.getNowServing() != null ? List.of(board.getNowServing()) : List.<QueueSnapshot.Token>of())
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .forEach(t -> tokens.put(t.getEntryId(), details(t)));
+        return tokens;
+    }
+
+    private static QueueSnapshot.Token details(QueueSnapshot.Token token) {
+        return QueueSnapshot.Token.builder()
+                .entryId(token.getEntryId())
+                .tokenNumber(token.getTokenNumber())
+                .tokenDisplay(token.getTokenDisplay())
+                .patientName(token.getPatientName())
+                .status(token.getStatus())
+                .priority(token.getPriority())
+                .walkIn(token.getWalkIn())
+                .checkInTime(token.getCheckInTime())
+                .calledTime(token.getCalledTime())
+                .build();
+    }
+
+    private static Long servingId(QueueSnapshot board) {
+        return board.getNowServing() != null ? board.getNowServing().getEntryId() : null;
+    }
+
+    private static List<Long> ids(List<QueueSnapshot.Token> tokens) {
+        return tokens == null ? List.of() : tokens.stream().map(QueueSnapshot.Token::getEntryId).toList();
+    }
+
+    private static List<Integer> estimates(List<QueueSnapshot.Token> tokens) {
+        return tokens == null ? List.of() : tokens.stream().map(QueueSnapshot.Token::getEstimatedWaitMinutes).toList();
+    }
+
+    private static <T> T changed(T before, T after) {
+        return Objects.equals(before, after) ? null : after;
+    }
+
+    public record SentBoard(Long doctorId, long seq, QueueSnapshot board) {
+    }
+
+    private static final class TopicState {
+        private QueueSnapshot sent;
+        private QueueSnapshot latest;
+        private long seq;
+    }
+}
@@ -0,0 +1,274 @@
+package com.hospital.hms.appointment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.hms.appointment.dto.SlotAvailabilityDto;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.common.enums.DayOfWeek;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.doctor.entity.DoctorSchedule;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import com.hospital.hms.doctor.repository.DoctorScheduleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * In-memory slot availability engine.
+ *
+ * Each doctor's schedules are compiled once into {@link ScheduleWindow}s, and each doctor-day into a
+ * {@link DoctorDaySlots} bitmap overlaid with that day's bookings. Appointment inserts/updates are applied
+ * to the cached bitmaps after commit, so free-slot queries never go back to the database once warm.
+ */
+@Slf4j
+@Service
+public class SlotAvailabilityService {
+
+    private static final int DEFAULT_SLOT_MINUTES = 15;
+
+    private final DoctorScheduleRepository scheduleRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final int maxRangeDays;
+    private final int defaultSlotMinutes;
+
+    private final Cache<Long, DoctorTemplate> templates = Caffeine.newBuilder()
+            .maximumSize(2_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    private final Cache<DayKey, DoctorDaySlots> days = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterAccess(Duration.ofHours(6))
+            .build();
+
+    public SlotAvailabilityService(DoctorScheduleRepository scheduleRepository,
+                                   DoctorRepository doctorRepository,
+                                   AppointmentRepository appointmentRepository,
+                                   @Value("${app.appointment.max-advance-booking-days:30}") int maxRangeDays,
+                                   @Value("${app.appointment.default-slot-duration:15}") int defaultSlotMinutes) {
+        this.scheduleRepository = scheduleRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.maxRangeDays = maxRangeDays;
+        this.defaultSlotMinutes = defaultSlotMinutes > 0 ? defaultSlotMinutes : DEFAULT_SLOT_MINUTES;
+    }
+
+    /**
+     * Slots for one doctor on one day. Slots that have already started today are reported as unavailable.
+     */
+    public SlotAvailabilityDto getAvailability(Long doctorId, LocalDate date, boolean onlyAvailable) {
+        return slotsFor(doctorId, date).toDto(notBeforeMinute(date), onlyAvailable);
+    }
+
+    /**
+     * Slots for one doctor over an inclusive date range
+     */
+    public List<SlotAvailabilityDto> getAvailability(Long doctorId, LocalDate from, LocalDate to, boolean onlyAvailable) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'to' must not be before 'from'", "INVALID_DATE_RANGE");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new BadRequestException("Date range cannot exceed " + maxRangeDays + " days", "INVALID_DATE_RANGE");
+        }
+        List<SlotAvailabilityDto> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            result.add(getAvailability(doctorId, date, onlyAvailable));
+        }
+        return result;
+    }
+
+    /**
+     * Whether the slot starting exactly at the given time is bookable
+     */
+    public boolean isSlotFree(Long doctorId, LocalDate date, LocalTime slotStart) {
+        return DoctorDaySlots.toMinute(slotStart) >= notBeforeMinute(date)
+                && slotsFor(doctorId, date).isFree(slotStart);
+    }
+
+    /**
+     * Validate a batch of requested start times for one doctor-day against the cached slot map in one pass.
+     * Null entries are given the earliest free slot. Nothing is reserved; the caller must insert the
+     * granted rows, after which the usual change events mark them as booked.
+     */
+    public List<SlotClaim> claimSlots(Long doctorId, LocalDate date, List<LocalTime> requested) {
+        return slotsFor(doctorId, date).claim(requested, notBeforeMinute(date));
+    }
+
+    /**
+     * Rebuild one doctor-day from the database on next read (after another instance booked into it)
+     */
+    public void evictDay(Long doctorId, LocalDate date) {
+        days.invalidate(new DayKey(doctorId, date));
+    }
+
+    /**
+     * Drop compiled schedules for a doctor (call after schedule or leave changes)
+     */
+    public void evictDoctor(Long doctorId) {
+        templates.invalidate(doctorId);
+        days.asMap().keySet().removeIf(key -> key.doctorId().equals(doctorId));
+    }
+
+    /**
+     * Keep cached bitmaps in step with bookings and cancellations.
+     * Runs after commit; days that are not cached are simply compiled fresh on next read.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Snapshot previous = event.getPrevious();
+        Snapshot current = event.getCurrent();
+
+        if (previous != null && AppointmentChangedEvent.occupiesSlot(previous) && !sameDay(previous, current)) {
+            days.asMap().computeIfPresent(new DayKey(previous.getDoctorId(), previous.getAppointmentDate()), (key, slots) -> {
+                slots.release(previous.getId());
+                return slots;
+            });
+        }
+        DayKey key = new DayKey(current.getDoctorId(), current.getAppointmentDate());
+        boolean occupies = AppointmentChangedEvent.occupiesSlot(current);
+        days.asMap().computeIfPresent(key, (k, slots) -> {
+            if (occupies) {
+                slots.book(current.getId(), current.getSlotStartTime());
+            } else {
+                slots.release(current.getId());
+            }
+            return slots;
+        });
+    }
+
+    private DoctorDaySlots slotsFor(Long doctorId, LocalDate date) {
+        return days.get(new DayKey(doctorId, date), this::compileDay);
+    }
+
+    private DoctorDaySlots compileDay(DayKey key) {
+        DoctorTemplate template = templates.get(key.doctorId(), this::loadTemplate);
+        DoctorDaySlots slots = DoctorDaySlots.compile(key.doctorId(), key.date(),
+                template.isOnLeave(key.date()), template.windowsFor(key.date()));
+        for (Appointment appointment : appointmentRepository.findByDoctorIdAndDate(key.doctorId(), key.date())) {
+            if (AppointmentChangedEvent.occupiesSlot(Snapshot.of(appointment))) {
+                slots.book(appointment.getId(), appointment.getSlotStartTime());
+            }
+        }
+        log.debug("Compiled slot map for doctor {} on {}", key.doctorId(), key.date());
+        return slots;
+    }
+
+    private DoctorTemplate loadTemplate(Long doctorId) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor", "id", doctorId));
+        if (!Boolean.TRUE.equals(doctor.getIsActive())) {
+            return new DoctorTemplate(List.of(), false, null, null);
+        }
+        List<ScheduleWindow> windows = scheduleRepository.findActiveByDoctorId(doctorId).stream()
+                .filter(s -> s.getStartTime() != null && s.getEndTime() != null)
+                .map(this::toWindow)
+                .toList();
+        return new DoctorTemplate(windows, Boolean.TRUE.equals(doctor.getIsOnLeave()),
+                doctor.getLeaveFrom(), doctor.getLeaveTo());
+    }
+
+    private ScheduleWindow toWindow(DoctorSchedule schedule) {
+        boolean hasBreak = schedule.getBreakStartTime() != null && schedule.getBreakEndTime() != null;
+        Integer duration = schedule.getSlotDurationMinutes();
+        return new ScheduleWindow(
+                schedule.getDayOfWeek(),
+                schedule.getSpecificDate(),
+                !Boolean.FALSE.equals(schedule.getIsRecurring()),
+                schedule.getEffectiveFrom(),
+                schedule.getEffectiveUntil(),
+                DoctorDaySlots.toMinute(schedule.getStartTime()),
+                DoctorDaySlots.toMinute(schedule.getEndTime()),
+                hasBreak ? DoctorDaySlots.toMinute(schedule.getBreakStartTime()) : -1,
+                hasBreak ? DoctorDaySlots.toMinute(schedule.getBreakEndTime()) : -1,
+                duration != null && duration > 0 ? duration : defaultSlotMinutes,
+                schedule.getMaxAppointments() != null && schedule.getMaxAppointments() > 0 ? schedule.getMaxAppointments() : null,
+                schedule.getRoomNumber(),
+                Boolean.TRUE.equals(schedule.getIsTeleconsultation()));
+    }
+
+    private static int notBeforeMinute(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today)) {
+            return Integer.MAX_VALUE;
+        }
+        return date.isEqual(today) ? DoctorDaySlots.toMinute(LocalTime.now()) + 1 : Integer.MIN_VALUE;
+    }
+
+    private static boolean sameDay(Snapshot a, Snapshot b) {
+        return Objects.equals(a.getDoctorId(), b.getDoctorId())
+                && Objects.equals(a.getAppointmentDate(), b.getAppointmentDate());
+    }
+
+    record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * Outcome of planning one requested booking: the granted slot, or the reason it was refused
+     */
+    public record SlotClaim(LocalTime startTime, LocalTime endTime, String errorCode) {
+
+        static SlotClaim granted(LocalTime startTime, LocalTime endTime) {
+            return new SlotClaim(startTime, endTime, null);
+        }
+
+        static SlotClaim rejected(String errorCode) {
+            return new SlotClaim(null, null, errorCode);
+        }
+
+        public boolean isGranted() {
+            return errorCode == null;
+        }
+    }
+
+    /**
+     * A DoctorSchedule reduced to the primitives the slot compiler needs
+     */
+    record ScheduleWindow(DayOfWeek dayOfWeek, LocalDate specificDate, boolean recurring,
+                          LocalDate effectiveFrom, LocalDate effectiveUntil,
+                          int startMinute, int endMinute, int breakStartMinute, int breakEndMinute,
+                          int slotDurationMinutes, Integer maxAppointments,
+                          String roomNumber, boolean teleconsultation) {
+    }
+
+    private record DoctorTemplate(List<ScheduleWindow> windows, boolean onLeave, LocalDate leaveFrom, LocalDate leaveTo) {
+
+        boolean isOnLeave(LocalDate date) {
+            return onLeave
+                    && (leaveFrom == null || !date.isBefore(leaveFrom))
+                    && (leaveTo == null || !date.isAfter(leaveTo));
+        }
+
+        /**
+         * Date-specific schedules replace the recurring weekly pattern for that date
+         */
+        List<ScheduleWindow> windowsFor(LocalDate date) {
+            List<ScheduleWindow> specific = windows.stream()
+                    .filter(w -> date.equals(w.specificDate()))
+                    .toList();
+            if (!specific.isEmpty()) {
+                return specific;
+            }
+            DayOfWeek day = DayOfWeek.fromJavaDay(date.getDayOfWeek());
+            return windows.stream()
+                    .filter(w -> w.specificDate() == null && w.recurring() && w.dayOfWeek() == day)
+                    .filter(w -> w.effectiveFrom() == null || !date.isBefore(w.effectiveFrom()))
+                    .filter(w -> w.effectiveUntil() == null || !date.isAfter(w.effectiveUntil()))
+                    .toList();
+        }
+    }
+}
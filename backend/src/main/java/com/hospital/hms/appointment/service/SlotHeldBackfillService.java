@@ -0,0 +1,107 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sets {@code appointments.slot_held} on bookings made before the column existed, so that they fall under the
+ * unique {@link Appointment#SLOT_CONSTRAINT} like new ones and no other instance can book their slot again.
+ *
+ * Runs at every startup and is idempotent: only rows still NULL are written, and once all are marked it is a
+ * single query. Only today's and later bookings are marked, as past slots can no longer be booked. Where
+ * legacy data already holds two bookings for one slot, the earliest keeps the slot and the others are left
+ * unmarked and logged for the desk to resolve: they can still be checked in or cancelled (updates never set the
+ * flag), and a later startup marks one of them once the slot's holder has been released.
+ */
+@Slf4j
+@Service
+public class SlotHeldBackfillService {
+
+    private static final String UPDATE_SQL = "UPDATE appointments SET slot_held = TRUE WHERE id = ? AND slot_held IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public SlotHeldBackfillService(JdbcTemplate jdbcTemplate,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill(LocalDate.now());
+    }
+
+    /**
+     * Mark the unmarked bookings from {@code from} on; returns how many were marked
+     */
+    public int backfill(LocalDate from) {
+        List<AppointmentStatus> occupying = Arrays.stream(AppointmentStatus.values())
+                .filter(status -> AppointmentChangedEvent.occupiesSlot(status, false))
+                .toList();
+        String placeholders = String.join(", ", Collections.nCopies(occupying.size(), "?"));
+        List<Object> params = new ArrayList<>();
+        params.add(Date.valueOf(from));
+        occupying.forEach(status -> params.add(status.name()));
+
+        // Rows already marked come first in id order only by chance, so collect their slots before choosing
+        List<SlotRow> rows = jdbcTemplate.query(
+                "SELECT id, doctor_id, appointment_date, slot_start_time, slot_held FROM appointments " +
+                        "WHERE appointment_date >= ? AND slot_start_time IS NOT NULL AND (slot_held = TRUE " +
+                        "OR (slot_held IS NULL AND is_deleted = FALSE AND status IN (" + placeholders + "))) ORDER BY id",
+                (rs, i) -> new SlotRow(rs.getLong("id"),
+                        new SlotKey(rs.getLong("doctor_id"), rs.getObject("appointment_date", LocalDate.class),
+                                rs.getObject("slot_start_time", LocalTime.class)),
+                        rs.getObject("slot_held") != null && rs.getBoolean("slot_held")),
+                params.toArray());
+
+        Set<SlotKey> held = new HashSet<>();
+        rows.stream().filter(SlotRow::held).forEach(row -> held.add(row.slot()));
+        List<Long> toMark = new ArrayList<>();
+        List<Long> doubleBooked = new ArrayList<>();
+        for (SlotRow row : rows) {
+            if (row.held()) {
+                continue;
+            }
+            if (held.add(row.slot())) {
+                toMark.add(row.id());
+            } else {
+                doubleBooked.add(row.id());
+            }
+        }
+
+        if (!toMark.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, toMark, batchSize, (ps, id) -> ps.setLong(1, id));
+            log.info("Marked {} existing appointments as holding their slot", toMark.size());
+        }
+        if (!doubleBooked.isEmpty()) {
+            log.warn("{} appointments share a slot with an earlier booking and were left unmarked: ids {}",
+                    doubleBooked.size(), doubleBooked);
+        }
+        return toMark.size();
+    }
+
+    private record SlotKey(long doctorId, LocalDate date, LocalTime slot) {
+    }
+
+    private record SlotRow(long id, SlotKey slot, boolean held) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.SlotAvailabilityService.SlotClaim;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.util.StripedLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Books a single appointment slot without double booking.
+ *
+ * Within an instance, requests for the same (doctor, date, slot) are serialised on a striped lock and checked
+ * against the cached slot map, so losers are turned away without touching the database. Across instances the
+ * unique {@link Appointment#SLOT_CONSTRAINT} on held slots is the guarantee; a violation is reported as the
+ * same conflict and the stale cached day is dropped. Batch bookings hold the same locks for all their slots
+ * through {@link #withSlotLocks}.
+ */
+@Slf4j
+@Service
+public class SlotReservationService {
+
+    private final SlotAvailabilityService slotAvailabilityService;
+    private final AppointmentRepository appointmentRepository;
+    private final StripedLocks locks;
+    private final long lockWaitMillis;
+
+    public SlotReservationService(SlotAvailabilityService slotAvailabilityService,
+                                  AppointmentRepository appointmentRepository,
+                                  @Value("${app.appointment.slot-lock-stripes:1024}") int stripes,
+                                  @Value("${app.appointment.slot-lock-wait-ms:500}") long lockWaitMillis) {
+        this.slotAvailabilityService = slotAvailabilityService;
+        this.appointmentRepository = appointmentRepository;
+        this.locks = new StripedLocks(stripes);
+        this.lockWaitMillis = lockWaitMillis;
+    }
+
+    /**
+     * Claim the appointment's slot and save it.
+     * {@code beforeSave} runs once the slot is known to be free (assign numbers/tokens there so losers don't
+     * consume them). Must be called outside a transaction: the slot map is updated when the insert commits,
+     * and that has to happen before the lock is released.
+     *
+     * @throws ConflictException   SLOT_TAKEN if the slot is already booked, SLOT_BUSY if it stays locked
+     * @throws BadRequestException if the slot is not bookable (not in schedule, in the past, doctor on leave)
+     */
+    public Appointment book(Appointment appointment, Consumer<Appointment> beforeSave) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Slot booking must not run inside an existing transaction");
+        }
+        Long doctorId = appointment.getDoctorId();
+        LocalDate date = appointment.getAppointmentDate();
+        LocalTime slot = appointment.getSlotStartTime();
+        if (doctorId == null || date == null || slot == null) {
+            throw new BadRequestException("Doctor, date and slot time are required", "INVALID_SLOT");
+        }
+
+        ReentrantLock lock = locks.get(new SlotKey(doctorId, date, slot));
+        if (!tryLock(lock, TimeUnit.MILLISECONDS.toNanos(lockWaitMillis))) {
+            throw new ConflictException("This slot is being booked by someone else, please pick another", "SLOT_BUSY");
+        }
+        try {
+            SlotClaim claim = slotAvailabilityService.claimSlots(doctorId, date, List.of(slot)).get(0);
+            if (!claim.isGranted()) {
+                throw rejection(claim.errorCode());
+            }
+            appointment.setSlotEndTime(claim.endTime());
+            beforeSave.accept(appointment);
+            try {
+                return appointmentRepository.save(appointment);
+            } catch (DataIntegrityViolationException e) {
+                if (!isSlotConflict(e)) {
+                    throw e;
+                }
+                // Booked through another instance; our cached day missed it
+                log.info("Slot {} {} {} taken on another instance", doctorId, date, slot);
+                slotAvailabilityService.evictDay(doctorId, date);
+                throw rejection("SLOT_TAKEN");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run {@code work} holding the locks that single bookings take for the given slots, so no single booking of
+     * one of them interleaves with it on this instance. Stripes are taken in index order; slots whose stripe
+     * stays locked until the lock wait has passed are not held but handed to {@code work} as busy. Must be
+     * called outside a transaction, like {@link #book}: {@code work} commits before the locks are released.
+     */
+    public <T> T withSlotLocks(Collection<SlotKey> slots, Function<Set<SlotKey>, T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Slot booking must not run inside an existing transaction");
+        }
+        Map<Integer, List<SlotKey>> byStripe = new TreeMap<>();
+        for (SlotKey slot : slots) {
+            byStripe.computeIfAbsent(locks.stripe(slot), s -> new ArrayList<>()).add(slot);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockWaitMillis);
+        List<ReentrantLock> held = new ArrayList<>(byStripe.size());
+        Set<SlotKey> busy = new HashSet<>();
+        try {
+            for (Map.Entry<Integer, List<SlotKey>> stripe : byStripe.entrySet()) {
+                ReentrantLock lock = locks.at(stripe.getKey());
+                if (tryLock(lock, deadline - System.nanoTime())) {
+                    held.add(lock);
+                } else {
+                    busy.addAll(stripe.getValue());
+                }
+            }
+            return work.apply(busy);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Whether a write failed on the unique held-slot constraint
+     */
+    public static boolean isSlotConflict(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Appointment.SLOT_CONSTRAINT);
+    }
+
+    static RuntimeException rejection(String errorCode) {
+        return switch (errorCode) {
+            case "SLOT_TAKEN" -> new ConflictException("This slot has just been booked, please pick another", errorCode);
+            case "DOCTOR_ON_LEAVE" -> new BadRequestException("Doctor is on leave on this date", errorCode);
+            case "SLOT_NOT_IN_SCHEDULE" -> new BadRequestException("Requested time is not a slot in the doctor's schedule", errorCode);
+            case "SLOT_IN_PAST" -> new BadRequestException("Requested slot has already started", errorCode);
+            default -> new BadRequestException("Slot cannot be booked", errorCode);
+        };
+    }
+
+    private static boolean tryLock(ReentrantLock lock, long waitNanos) {
+        try {
+            return lock.tryLock(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public record SlotKey(Long doctorId, LocalDate date, LocalTime slot) {
+    }
+}
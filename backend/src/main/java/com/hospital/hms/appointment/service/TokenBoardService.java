@@ -0,0 +1,352 @@
+package com.hospital.hms.appointment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.dto.TokenBoard;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import com.hospital.hms.hospital.repository.DepartmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * "Now serving" boards per hospital department for waiting-hall displays that cannot run a STOMP client.
+ *
+ * Boards are built from the queue feed: {@link QueueFeedPublisher} hands over each doctor's board once per
+ * coalescing window and only a change a display would show (token called, next token, waiting count) bumps
+ * the board's ETag. Displays either keep an SSE stream open or long-poll with {@code If-None-Match}; both are
+ * async requests, so an idle display holds a connection but no servlet thread. Pushes run on the board
+ * executor, one board at a time, with the JSON serialised once per change rather than once per display.
+ * A department's doctors are read when its board is first opened.
+ *
+ * The boards are public, so only existing departments get one, and a board that no display has streamed or
+ * polled for {@code app.queue.board-idle-ms} is dropped; it is rebuilt from the queues when next opened.
+ */
+@Slf4j
+@Service
+public class TokenBoardService {
+
+    static final String EVENT = "board";
+
+    private final OpdQueueService queueService;
+    private final DoctorRepository doctorRepository;
+    private final DepartmentRepository departmentRepository;
+    private final ObjectMapper objectMapper;
+    private final Executor boardExecutor;
+    private final long pollTimeoutMs;
+    private final long streamTimeoutMs;
+    private final long idleMs;
+
+    // ETags from before a restart never match a board built after it
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<BoardKey, Board> boards = new ConcurrentHashMap<>();
+    private final Map<Long, Board> byDoctor = new ConcurrentHashMap<>();
+
+    public TokenBoardService(OpdQueueService queueService,
+                             DoctorRepository doctorRepository,
+                             DepartmentRepository departmentRepository,
+                             QueueFeedPublisher feedPublisher,
+                             ObjectMapper objectMapper,
+                             @Qualifier("boardExecutor") Executor boardExecutor,
+                             @Value("${app.queue.board-poll-timeout-ms:25000}") long pollTimeoutMs,
+                             @Value("${app.queue.board-stream-timeout-ms:1800000}") long streamTimeoutMs,
+                             @Value("${app.queue.board-idle-ms:120000}") long idleMs) {
+        this.queueService = queueService;
+        this.doctorRepository = doctorRepository;
+        this.departmentRepository = departmentRepository;
+        this.objectMapper = objectMapper;
+        this.boardExecutor = boardExecutor;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.idleMs = idleMs;
+        feedPublisher.addListener(this::changed);
+    }
+
+    /**
+     * Board now if it differs from {@code etag}, otherwise held until it changes; 304 Not Modified when
+     * nothing changed within the poll timeout
+     */
+    public DeferredResult<ResponseEntity<TokenBoard>> poll(Long hospitalId, Long departmentId, String etag) {
+        Board board = open(hospitalId, departmentId);
+        synchronized (board) {
+            String current = board.view.getEtag();
+            DeferredResult<ResponseEntity<TokenBoard>> result = new DeferredResult<>(pollTimeoutMs,
+                    () -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build());
+            if (!matches(etag, current)) {
+                result.setResult(ok(board.view));
+                return result;
+            }
+            board.polls.add(result);
+            result.onCompletion(() -> board.polls.remove(result));
+            return result;
+        }
+    }
+
+    /**
+     * SSE stream of the board: the current board (unless the display already has it) and then every change.
+     * Event ids are ETags, so a reconnecting EventSource resumes without a duplicate.
+     */
+    public SseEmitter stream(Long hospitalId, Long departmentId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Board board = open(hospitalId, departmentId);
+        emitter.onCompletion(() -> board.emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> board.emitters.remove(emitter));
+        synchronized (board) {
+            board.emitters.add(emitter);
+            if (!Objects.equals(lastEventId, board.view.getEtag())) {
+                send(board, emitter);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Keep idle SSE connections open through proxies and find displays that went away; drop boards no display
+     * uses any more
+     */
+    @Scheduled(fixedDelayString = "${app.queue.board-heartbeat-ms:20000}")
+    public void heartbeat() {
+        long idleSince = System.currentTimeMillis() - idleMs;
+        for (Board board : boards.values()) {
+            if (evictIfIdle(board, idleSince)) {
+                continue;
+            }
+            boardExecutor.execute(() -> {
+                synchronized (board) {
+                    for (SseEmitter emitter : board.emitters) {
+                        try {
+                            emitter.send(SseEmitter.event().comment("keep-alive"));
+                        } catch (IOException | IllegalStateException e) {
+                            board.emitters.remove(emitter);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Latest board of one doctor from the queue feed
+     */
+    void changed(QueueSnapshot snapshot) {
+        Board board = byDoctor.get(snapshot.getDoctorId());
+        if (board == null || !LocalDate.now().equals(snapshot.getDate())) {
+            return;
+        }
+        synchronized (board) {
+            if (!board.update(counter(board, snapshot))) {
+                return;
+            }
+        }
+        boardExecutor.execute(() -> push(board));
+    }
+
+    private void push(Board board) {
+        synchronized (board) {
+            if (board.pushedVersion == board.version) {
+                return;
+            }
+            board.pushedVersion = board.version;
+            ResponseEntity<TokenBoard> response = ok(board.view);
+            for (DeferredResult<ResponseEntity<TokenBoard>> poll : new ArrayList<>(board.polls)) {
+                poll.setResult(response);
+            }
+            board.polls.clear();
+            for (SseEmitter emitter : board.emitters) {
+                send(board, emitter);
+            }
+        }
+    }
+
+    private void send(Board board, SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(board.view.getEtag())
+                    .name(EVENT)
+                    .data(board.json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            board.emitters.remove(emitter);
+        }
+    }
+
+    /**
+     * Board for a display to use, marked as just used so it is not dropped; one dropped between the lookup and
+     * the lock is opened again
+     */
+    private Board open(Long hospitalId, Long departmentId) {
+        while (true) {
+            Board board = board(hospitalId, departmentId);
+            synchronized (board) {
+                if (!board.evicted) {
+                    board.lastUsed = System.currentTimeMillis();
+                    return board;
+                }
+            }
+        }
+    }
+
+    private boolean evictIfIdle(Board board, long idleSince) {
+        synchronized (board) {
+            if (!board.emitters.isEmpty() || !board.polls.isEmpty() || board.lastUsed >= idleSince) {
+                return false;
+            }
+            board.evicted = true;
+            boards.remove(new BoardKey(board.hospitalId, board.departmentId), board);
+            board.doctorNames.keySet().forEach(doctorId -> byDoctor.remove(doctorId, board));
+            return true;
+        }
+    }
+
+    private Board board(Long hospitalId, Long departmentId) {
+        BoardKey key = new BoardKey(hospitalId, departmentId);
+        Board existing = boards.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (!departmentRepository.existsByIdAndHospitalIdAndIsActiveTrueAndIsDeletedFalse(departmentId, hospitalId)) {
+            throw new ResourceNotFoundException("Department", "id", departmentId);
+        }
+        List<Doctor> doctors = doctorRepository.findByPrimaryHospitalIdAndPrimaryDepartmentIdAndIsActiveTrue(hospitalId, departmentId);
+        Board created = new Board(hospitalId, departmentId, doctors);
+        synchronized (created) {
+            existing = boards.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing;
+            }
+            // Registered before reading the queues so a change in between is applied after this load
+            doctors.forEach(d -> byDoctor.put(d.getId(), created));
+            for (Doctor doctor : doctors) {
+                created.update(counter(created, queueService.getBoard(doctor.getId())));
+            }
+            created.pushedVersion = created.version;
+        }
+        return created;
+    }
+
+    private static TokenBoard.Counter counter(Board board, QueueSnapshot snapshot) {
+        List<QueueSnapshot.Token> waiting = snapshot.getWaiting() != null ? snapshot.getWaiting() : List.of();
+        QueueSnapshot.Token serving = snapshot.getNowServing();
+        return TokenBoard.Counter.builder()
+                .doctorId(snapshot.getDoctorId())
+                .doctorName(board.doctorNames.get(snapshot.getDoctorId()))
+                .nowServing(serving != null ? serving.getTokenDisplay() : null)
+                .calledTime(serving != null ? serving.getCalledTime() : null)
+                .next(waiting.isEmpty() ? null : waiting.get(0).getTokenDisplay())
+                .waiting(waiting.size())
+                .build();
+    }
+
+    /**
+     * Whether an {@code If-None-Match} value (one or more, possibly weak) names the current ETag
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String name(Doctor doctor) {
+        return doctor.getDisplayName() != null ? doctor.getDisplayName() : doctor.getFullName();
+    }
+
+    private static ResponseEntity<TokenBoard> ok(TokenBoard view) {
+        return ResponseEntity.ok().eTag(view.getEtag()).body(view);
+    }
+
+    private record BoardKey(Long hospitalId, Long departmentId) {
+    }
+
+    private final class Board {
+        private final Long hospitalId;
+        private final Long departmentId;
+        private final Map<Long, String> doctorNames = new LinkedHashMap<>();
+        private final Map<Long, TokenBoard.Counter> counters = new LinkedHashMap<>();
+        private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+        private final Set<DeferredResult<ResponseEntity<TokenBoard>>> polls = ConcurrentHashMap.newKeySet();
+        private long version;
+        private long pushedVersion;
+        private long lastUsed = System.currentTimeMillis();
+        private boolean evicted;
+        private TokenBoard view;
+        private String json;
+
+        private Board(Long hospitalId, Long departmentId, List<Doctor> doctors) {
+            this.hospitalId = hospitalId;
+            this.departmentId = departmentId;
+            doctors.stream()
+                    .sorted(Comparator.comparing(TokenBoardService::name, String.CASE_INSENSITIVE_ORDER))
+                    .forEach(d -> {
+                        doctorNames.put(d.getId(), name(d));
+                        counters.put(d.getId(), TokenBoard.Counter.builder()
+                                .doctorId(d.getId())
+                                .doctorName(doctorNames.get(d.getId()))
+                                .waiting(0)
+                                .build());
+                    });
+            render();
+        }
+
+        /**
+         * Apply a doctor's counter; false when a display would see no difference
+         */
+        private boolean update(TokenBoard.Counter counter) {
+            if (!counters.containsKey(counter.getDoctorId()) || counter.equals(counters.get(counter.getDoctorId()))) {
+                return false;
+            }
+            counters.put(counter.getDoctorId(), counter);
+            version++;
+            render();
+            return true;
+        }
+
+        private void render() {
+            view = TokenBoard.builder()
+                    .hospitalId(hospitalId)
+                    .departmentId(departmentId)
+                    .etag(instanceTag + "-" + version)
+                    .counters(List.copyOf(counters.values()))
+                    .build();
+            try {
+                json = objectMapper.writeValueAsString(view);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialise token board", e);
+            }
+        }
+    }
+}
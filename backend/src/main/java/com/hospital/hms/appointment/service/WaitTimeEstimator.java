@@ -0,0 +1,92 @@
+package com.hospital.hms.appointment.service;
+
+import com.hospital.hms.common.util.P2Quantile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-doctor consultation-duration statistics for OPD wait estimates.
+ *
+ * Each doctor keeps an exponentially weighted mean plus streaming p50/p90 estimates ({@link P2Quantile}),
+ * so memory stays constant however many consultations are recorded. Until a doctor has history the
+ * default slot duration stands in for the mean; early samples are averaged evenly before the EWMA weight
+ * takes over, so one unusual first consultation does not dominate.
+ */
+@Service
+public class WaitTimeEstimator {
+
+    private static final double MAX_CONSULTATION_MINUTES = 240;
+
+    private final double alpha;
+    private final double defaultMinutes;
+    private final Map<Long, ConsultationStats> stats = new ConcurrentHashMap<>();
+
+    public WaitTimeEstimator(@Value("${app.appointment.wait-estimate-alpha:0.2}") double alpha,
+                             @Value("${app.appointment.default-slot-duration:15}") int defaultMinutes) {
+        this.alpha = alpha;
+        this.defaultMinutes = defaultMinutes;
+    }
+
+    /**
+     * Record a finished consultation; ignored when either end is missing or the duration is implausible
+     */
+    public void record(Long doctorId, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return;
+        }
+        double minutes = Duration.between(start, end).toSeconds() / 60.0;
+        if (minutes <= 0 || minutes > MAX_CONSULTATION_MINUTES) {
+            return;
+        }
+        stats.computeIfAbsent(doctorId, id -> new ConsultationStats(defaultMinutes)).add(minutes, alpha);
+    }
+
+    public Stats stats(Long doctorId) {
+        ConsultationStats doctorStats = stats.get(doctorId);
+        return doctorStats != null ? doctorStats.snapshot() : new Stats(defaultMinutes, defaultMinutes, defaultMinutes, 0);
+    }
+
+    /**
+     * Minutes the consultation in progress is still expected to take
+     */
+    public static double remaining(Stats stats, LocalDateTime consultationStart, LocalDateTime now) {
+        if (consultationStart == null) {
+            return 0;
+        }
+        double elapsed = Duration.between(consultationStart, now).toSeconds() / 60.0;
+        return Math.max(0, stats.meanMinutes() - elapsed);
+    }
+
+    /**
+     * Consultation duration summary for one doctor, in minutes
+     */
+    public record Stats(double meanMinutes, double p50Minutes, double p90Minutes, long samples) {
+    }
+
+    private static final class ConsultationStats {
+        private final P2Quantile p50 = new P2Quantile(0.5);
+        private final P2Quantile p90 = new P2Quantile(0.9);
+        private double mean;
+        private long samples;
+
+        private ConsultationStats(double prior) {
+            this.mean = prior;
+        }
+
+        private synchronized void add(double minutes, double alpha) {
+            samples++;
+            mean += Math.max(alpha, 1.0 / samples) * (minutes - mean);
+            p50.add(minutes);
+            p90.add(minutes);
+        }
+
+        private synchronized Stats snapshot() {
+            return new Stats(mean, p50.value(), p90.value(), samples);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.hospital.hms.billing.controller;
 
+import com.hospital.hms.billing.dto.InvoiceListItem;
 import com.hospital.hms.billing.entity.Invoice;
 import com.hospital.hms.billing.repository.InvoiceRepository;
+import com.hospital.hms.common.dto.CursorPage;
+import com.hospital.hms.common.dto.ListPage;
 import com.hospital.hms.common.enums.PaymentStatus;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.common.util.CursorCodec;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -29,10 +36,11 @@ import java.util.Map;
 public class InvoiceController {
 
     private final InvoiceRepository invoiceRepository;
+    private final SequenceService sequenceService;
 
     @GetMapping
     @Operation(summary = "Get All Invoices", description = "Get all invoices with pagination and optional filters")
-    public ResponseEntity<Map<String, Object>> getAllInvoices(
+    public ResponseEntity<ListPage<InvoiceListItem>> getAllInvoices(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
@@ -42,8 +50,6 @@ public class InvoiceController {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("invoiceDate").descending());
 
-        Page<Invoice> invoicePage;
-        
         PaymentStatus statusEnum = null;
         if (status != null && !status.isEmpty()) {
             try {
@@ -53,23 +59,42 @@ public class InvoiceController {
             }
         }
 
-        invoicePage = invoiceRepository.findByFilters(statusEnum, hospitalId, pageable);
+        Page<InvoiceListItem> invoicePage = invoiceRepository.findByFilters(statusEnum, hospitalId, pageable);
+        return ResponseEntity.ok(ListPage.of(invoicePage));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", invoicePage.getContent());
-        response.put("totalElements", invoicePage.getTotalElements());
-        response.put("totalPages", invoicePage.getTotalPages());
-        response.put("currentPage", page);
-        response.put("size", size);
+    @GetMapping("/cursor")
+    @Operation(summary = "Get Invoices (Cursor)", description = "Keyset-paginated invoices, newest first; pass nextCursor back as cursor")
+    public ResponseEntity<CursorPage<InvoiceListItem>> getInvoicesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
 
-        return ResponseEntity.ok(response);
+        PaymentStatus statusEnum = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                statusEnum = PaymentStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid status: {}", status);
+            }
+        }
+
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<InvoiceListItem> rows = invoiceRepository.findByFiltersBefore(
+                statusEnum, hospitalId, position.date(), position.id(), CursorCodec.limit(size));
+        Long total = includeTotal ? invoiceRepository.countByFilters(statusEnum, hospitalId) : null;
+
+        return ResponseEntity.ok(CursorPage.of(rows, CursorCodec.pageSize(size),
+                i -> CursorCodec.encode(i.invoiceDate(), i.id()), total));
     }
 
     @GetMapping("/list")
     @Operation(summary = "Get Invoices List", description = "Get simple list of invoices")
-    public ResponseEntity<List<Invoice>> getInvoiceList() {
+    public ResponseEntity<List<InvoiceListItem>> getInvoiceList() {
         log.info("Fetching all invoices as list");
-        List<Invoice> invoices = invoiceRepository.findByIsDeletedFalse(
+        List<InvoiceListItem> invoices = invoiceRepository.findByFilters(null, null,
                 PageRequest.of(0, 100, Sort.by("invoiceDate").descending())).getContent();
         return ResponseEntity.ok(invoices);
     }
@@ -94,17 +119,17 @@ public class InvoiceController {
 
     @GetMapping("/patient/{patientId}")
     @Operation(summary = "Get Patient Invoices", description = "Get all invoices for a patient")
-    public ResponseEntity<List<Invoice>> getPatientInvoices(@PathVariable Long patientId) {
+    public ResponseEntity<List<InvoiceListItem>> getPatientInvoices(@PathVariable Long patientId) {
         log.info("Fetching invoices for patient: {}", patientId);
-        List<Invoice> invoices = invoiceRepository.findByPatientId(patientId);
+        List<InvoiceListItem> invoices = invoiceRepository.findByPatientId(patientId);
         return ResponseEntity.ok(invoices);
     }
 
     @GetMapping("/patient/uhid/{uhid}")
     @Operation(summary = "Get Patient Invoices by UHID", description = "Get all invoices for a patient by UHID")
-    public ResponseEntity<List<Invoice>> getPatientInvoicesByUhid(@PathVariable String uhid) {
+    public ResponseEntity<List<InvoiceListItem>> getPatientInvoicesByUhid(@PathVariable String uhid) {
         log.info("Fetching invoices for patient UHID: {}", uhid);
-        List<Invoice> invoices = invoiceRepository.findByPatientUhid(uhid);
+        List<InvoiceListItem> invoices = invoiceRepository.findByPatientUhid(uhid);
         return ResponseEntity.ok(invoices);
     }
 
@@ -130,6 +155,31 @@ public class InvoiceController {
         return ResponseEntity.ok(summary);
     }
 
+    @PostMapping
+    @Operation(summary = "Create Invoice", description = "Create an invoice; the invoice number is generated per hospital and year")
+    public ResponseEntity<Invoice> createInvoice(@RequestBody Invoice invoice) {
+        log.info("Creating invoice for patient: {} at hospital: {}", invoice.getPatientId(), invoice.getHospitalId());
+
+        if (invoice.getHospitalId() == null) {
+            throw new BadRequestException("Hospital is required", "HOSPITAL_REQUIRED");
+        }
+        if (invoice.getInvoiceDate() == null) {
+            invoice.setInvoiceDate(LocalDate.now());
+        }
+        if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
+            String year = String.valueOf(invoice.getInvoiceDate().getYear());
+            String prefix = "INV-" + invoice.getHospitalId() + "-" + year + "-";
+            long next = sequenceService.next("INV", invoice.getHospitalId(), year,
+                    () -> SequenceService.orZero(invoiceRepository.findMaxInvoiceNumber(prefix)));
+            invoice.setInvoiceNumber(prefix + String.format("%06d", next));
+        }
+        if (invoice.getItems() != null) {
+            invoice.getItems().forEach(item -> item.setInvoice(invoice));
+        }
+
+        return ResponseEntity.ok(invoiceRepository.save(invoice));
+    }
+
     // ==================== PAYMENT ENDPOINTS ====================
 
     @PostMapping("/{id}/payments")
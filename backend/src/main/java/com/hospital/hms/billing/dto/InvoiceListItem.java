@@ -0,0 +1,31 @@
+package com.hospital.hms.billing.dto;
+
+import com.hospital.hms.common.enums.BillingType;
+import com.hospital.hms.common.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Invoice row for list views; line items and tax breakdown are only on the detail endpoint
+ */
+public record InvoiceListItem(
+        Long id,
+        String invoiceNumber,
+        Long hospitalId,
+        BillingType billingType,
+        Long patientId,
+        String patientUhid,
+        String patientName,
+        String patientMobile,
+        Long appointmentId,
+        LocalDate invoiceDate,
+        LocalDate dueDate,
+        BigDecimal grandTotal,
+        BigDecimal amountPaid,
+        BigDecimal balanceAmount,
+        PaymentStatus paymentStatus,
+        Boolean isCancelled,
+        LocalDateTime createdAt) {
+}
@@ -20,7 +20,9 @@ import java.util.List;
         @Index(name = "idx_invoice_number", columnList = "invoice_number"),
         @Index(name = "idx_invoice_patient", columnList = "patient_id"),
         @Index(name = "idx_invoice_date", columnList = "invoice_date"),
-        @Index(name = "idx_invoice_hospital", columnList = "hospital_id")
+        @Index(name = "idx_invoice_hospital", columnList = "hospital_id"),
+        @Index(name = "idx_invoice_date_id", columnList = "invoice_date, id"),
+        @Index(name = "idx_invoice_hospital_date_id", columnList = "hospital_id, invoice_date, id")
 })
 @Getter
 @Setter
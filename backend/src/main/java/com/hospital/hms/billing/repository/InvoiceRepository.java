@@ -1,7 +1,9 @@
 package com.hospital.hms.billing.repository;
 
+import com.hospital.hms.billing.dto.InvoiceListItem;
 import com.hospital.hms.billing.entity.Invoice;
 import com.hospital.hms.common.enums.PaymentStatus;
+import com.hospital.hms.common.service.SequenceService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -16,25 +18,44 @@ import java.util.Optional;
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
+    // List views select only the displayed columns into InvoiceListItem
+    String LIST_ITEM = "SELECT new com.hospital.hms.billing.dto.InvoiceListItem(" +
+            "i.id, i.invoiceNumber, i.hospitalId, i.billingType, i.patientId, i.patientUhid, i.patientName, " +
+            "i.patientMobile, i.appointmentId, i.invoiceDate, i.dueDate, i.grandTotal, i.amountPaid, " +
+            "i.balanceAmount, i.paymentStatus, i.isCancelled, i.createdAt) " +
+            "FROM Invoice i ";
+
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
 
     Page<Invoice> findByIsDeletedFalse(Pageable pageable);
 
     Page<Invoice> findByHospitalIdAndIsDeletedFalse(Long hospitalId, Pageable pageable);
 
-    @Query("SELECT i FROM Invoice i WHERE i.isDeleted = false " +
+    @Query(value = LIST_ITEM + "WHERE i.isDeleted = false " +
+           "AND (:status IS NULL OR i.paymentStatus = :status) " +
+           "AND (:hospitalId IS NULL OR i.hospitalId = :hospitalId)",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.isDeleted = false " +
            "AND (:status IS NULL OR i.paymentStatus = :status) " +
            "AND (:hospitalId IS NULL OR i.hospitalId = :hospitalId)")
-    Page<Invoice> findByFilters(
+    Page<InvoiceListItem> findByFilters(
             @Param("status") PaymentStatus status,
             @Param("hospitalId") Long hospitalId,
             Pageable pageable);
 
-    @Query("SELECT i FROM Invoice i WHERE i.patientId = :patientId AND i.isDeleted = false ORDER BY i.invoiceDate DESC")
-    List<Invoice> findByPatientId(@Param("patientId") Long patientId);
+    @Query(LIST_ITEM + "WHERE i.patientId = :patientId AND i.isDeleted = false ORDER BY i.invoiceDate DESC")
+    List<InvoiceListItem> findByPatientId(@Param("patientId") Long patientId);
+
+    @Query(LIST_ITEM + "WHERE i.patientId = :patientId AND i.isDeleted = false " +
+           "AND (i.invoiceDate < :cursorDate OR (i.invoiceDate = :cursorDate AND i.id < :cursorId)) " +
+           "ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceListItem> findByPatientIdBefore(
+            @Param("patientId") Long patientId,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
 
-    @Query("SELECT i FROM Invoice i WHERE i.patientUhid = :uhid AND i.isDeleted = false ORDER BY i.invoiceDate DESC")
-    List<Invoice> findByPatientUhid(@Param("uhid") String uhid);
+    @Query(LIST_ITEM + "WHERE i.patientUhid = :uhid AND i.isDeleted = false ORDER BY i.invoiceDate DESC")
+    List<InvoiceListItem> findByPatientUhid(@Param("uhid") String uhid);
 
     @Query("SELECT i FROM Invoice i WHERE i.hospitalId = :hospitalId AND i.invoiceDate BETWEEN :startDate AND :endDate AND i.isDeleted = false")
     List<Invoice> findByHospitalAndDateRange(
@@ -50,4 +71,29 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     @Query("SELECT COUNT(i) FROM Invoice i WHERE i.hospitalId = :hospitalId AND i.paymentStatus = :status AND i.isDeleted = false")
     long countByHospitalAndStatus(@Param("hospitalId") Long hospitalId, @Param("status") PaymentStatus status);
+
+    // Sequence seeding: compared as numbers, so values past the fixed width still count as the highest;
+    // numbers with a non-numeric suffix are skipped
+    @Query("SELECT MAX(CAST(SUBSTRING(i.invoiceNumber, LENGTH(:prefix) + 1) AS Long)) FROM Invoice i " +
+            "WHERE i.invoiceNumber LIKE CONCAT(:prefix, '_%') AND " + SequenceService.STRIP_DIGITS +
+            "SUBSTRING(i.invoiceNumber, LENGTH(:prefix) + 1)" + SequenceService.STRIP_DIGITS_END + " = ''")
+    Long findMaxInvoiceNumber(@Param("prefix") String prefix);
+
+    // Keyset pagination - seeks past (cursorDate, cursorId) instead of OFFSET, newest first
+    @Query(LIST_ITEM + "WHERE i.isDeleted = false " +
+           "AND (:status IS NULL OR i.paymentStatus = :status) " +
+           "AND (:hospitalId IS NULL OR i.hospitalId = :hospitalId) " +
+           "AND (i.invoiceDate < :cursorDate OR (i.invoiceDate = :cursorDate AND i.id < :cursorId)) " +
+           "ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceListItem> findByFiltersBefore(
+            @Param("status") PaymentStatus status,
+            @Param("hospitalId") Long hospitalId,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query("SELECT COUNT(i) FROM Invoice i WHERE i.isDeleted = false " +
+           "AND (:status IS NULL OR i.paymentStatus = :status) " +
+           "AND (:hospitalId IS NULL OR i.hospitalId = :hospitalId)")
+    long countByFilters(@Param("status") PaymentStatus status, @Param("hospitalId") Long hospitalId);
 }
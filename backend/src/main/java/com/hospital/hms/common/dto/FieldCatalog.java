@@ -0,0 +1,196 @@
+package com.hospital.hms.common.dto;
+
+import com.hospital.hms.common.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fields a list endpoint can return on request ({@code ?fields=}), each with the entity paths it is read from.
+ *
+ * The parameter is either a view name ("summary", "full") or a comma-separated list of field names, and
+ * {@code id} is always included. A derived field (a full name, an age) names the columns it is computed from, so
+ * a {@link Selection} knows exactly which columns to select and which keys to emit.
+ */
+public final class FieldCatalog {
+
+    public static final String FULL = "full";
+
+    private record Field(String name, List<String> paths, Function<Object[], Object> value) {
+    }
+
+    private final String entity;
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+    private final Map<String, List<String>> views = new LinkedHashMap<>();
+
+    public FieldCatalog(String entity) {
+        this.entity = entity;
+        field("id");
+    }
+
+    /**
+     * A field read straight from the entity attribute of the same name
+     */
+    public FieldCatalog field(String name) {
+        return field(name, name);
+    }
+
+    /**
+     * A field read straight from {@code path}, e.g. {@code primaryAccount.id}
+     */
+    public FieldCatalog field(String name, String path) {
+        fields.put(name, new Field(name, List.of(path), values -> values[0]));
+        return this;
+    }
+
+    /**
+     * A field computed from the values of {@code paths}, in that order
+     */
+    public FieldCatalog derived(String name, Function<Object[], Object> value, String... paths) {
+        fields.put(name, new Field(name, List.of(paths), value));
+        return this;
+    }
+
+    public FieldCatalog view(String name, String... fieldNames) {
+        for (String fieldName : fieldNames) {
+            if (!fields.containsKey(fieldName)) {
+                throw new IllegalArgumentException("View " + name + " names unknown field " + fieldName);
+            }
+        }
+        views.put(name, List.of(fieldNames));
+        return this;
+    }
+
+    /**
+     * Resolve a {@code fields} parameter
+     *
+     * @return the selection, or {@code null} when the parameter is blank and the endpoint's usual response applies
+     * @throws BadRequestException if a name is neither a view nor a field
+     */
+    public Selection select(String parameter) {
+        if (parameter == null || parameter.isBlank()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String token : parameter.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String view = name.toLowerCase(Locale.ROOT);
+            if (FULL.equals(view)) {
+                names.addAll(fields.keySet());
+            } else if (views.containsKey(view)) {
+                names.addAll(views.get(view));
+            } else if (fields.containsKey(name)) {
+                names.add(name);
+            } else {
+                throw new BadRequestException(String.format("Unknown field '%s'; use %s or any of %s",
+                        name, String.join(", ", viewNames()), String.join(", ", fields.keySet())), "UNKNOWN_FIELD");
+            }
+        }
+        return new Selection(names.stream().map(fields::get).toList());
+    }
+
+    private List<String> viewNames() {
+        List<String> names = new ArrayList<>(views.keySet());
+        names.add(FULL);
+        return names;
+    }
+
+    /**
+     * The requested fields of one catalog: the columns to select and how to turn a result row back into fields
+     */
+    public final class Selection {
+
+        private final List<Field> selected;
+        private final List<String> paths;
+        private final int[][] columns;
+
+        private Selection(List<Field> selected) {
+            this.selected = selected;
+            List<String> distinct = new ArrayList<>();
+            this.columns = new int[selected.size()][];
+            for (int f = 0; f < selected.size(); f++) {
+                List<String> fieldPaths = selected.get(f).paths();
+                columns[f] = new int[fieldPaths.size()];
+                for (int p = 0; p < fieldPaths.size(); p++) {
+                    int index = distinct.indexOf(fieldPaths.get(p));
+                    if (index < 0) {
+                        index = distinct.size();
+                        distinct.add(fieldPaths.get(p));
+                    }
+                    columns[f][p] = index;
+                }
+            }
+            this.paths = List.copyOf(distinct);
+        }
+
+        public String entity() {
+            return entity;
+        }
+
+        public List<String> fieldNames() {
+            return selected.stream().map(Field::name).toList();
+        }
+
+        /**
+         * Entity paths behind the selected fields, each once, in select-list order
+         */
+        public List<String> paths() {
+            return paths;
+        }
+
+        public String selectClause(String alias) {
+            return paths.stream().map(path -> alias + "." + path).collect(Collectors.joining(", "));
+        }
+
+        /**
+         * ORDER BY clause for {@code sort}; only fields read straight from a column can be sorted on
+         *
+         * @throws BadRequestException for any other property
+         */
+        public String orderByClause(Sort sort, String alias) {
+            if (sort == null || sort.isUnsorted()) {
+                return "";
+            }
+            List<String> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Field field = fields.get(order.getProperty());
+                if (field == null || field.paths().size() != 1 || !field.paths().get(0).equals(field.name())) {
+                    throw new BadRequestException("Cannot sort by '" + order.getProperty() + "'", "INVALID_SORT");
+                }
+                orders.add(alias + "." + field.name() + (order.isAscending() ? " ASC" : " DESC"));
+            }
+            return " ORDER BY " + String.join(", ", orders);
+        }
+
+        /**
+         * The selected fields of one result row, in request order; null values are left out, as in the full DTOs
+         */
+        public Map<String, Object> toRow(Object[] values) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int f = 0; f < selected.size(); f++) {
+                int[] indexes = columns[f];
+                Object[] args = new Object[indexes.length];
+                for (int a = 0; a < indexes.length; a++) {
+                    args[a] = values[indexes[a]];
+                }
+                Object value = selected.get(f).value().apply(args);
+                if (value != null) {
+                    row.put(selected.get(f).name(), value);
+                }
+            }
+            return row;
+        }
+    }
+}
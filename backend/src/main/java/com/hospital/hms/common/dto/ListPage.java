@@ -0,0 +1,36 @@
+package com.hospital.hms.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Offset-paginated list response in the shape the web client reads
+ * ({@code content}, {@code totalElements}, {@code totalPages}, {@code currentPage}, {@code size}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListPage<T> {
+
+    private List<T> content;
+    private long totalElements;
+    private int totalPages;
+    private int currentPage;
+    private int size;
+
+    public static <T> ListPage<T> of(Page<T> page) {
+        return ListPage.<T>builder()
+                .content(page.getContent())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .currentPage(page.getNumber())
+                .size(page.getSize())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.hospital.hms.common.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Persistent high-water mark for a business number sequence (appointment numbers, UHIDs, invoices, tokens).
+ * Instances reserve blocks by advancing {@code nextValue} under a row lock and hand numbers out from memory.
+ */
+@Entity
+@Table(name = "number_sequences", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_number_sequence", columnNames = {"sequence_name", "scope_id", "period"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NumberSequence extends BaseEntity {
+
+    @Column(name = "sequence_name", nullable = false, length = 30)
+    private String sequenceName;
+
+    // Hospital/doctor id the sequence is scoped to, 0 for global sequences
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    // Reset period, e.g. "2026" for yearly or "2026-01-15" for daily sequences
+    @Column(name = "period", nullable = false, length = 20)
+    private String period;
+
+    // First number not yet reserved by any instance
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
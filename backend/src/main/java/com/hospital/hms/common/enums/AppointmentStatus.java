@@ -32,4 +32,26 @@ public enum AppointmentStatus {
     public boolean isCompleted() {
         return this == COMPLETED;
     }
+
+    /**
+     * Whether the front desk or doctor may move an appointment from this status to {@code next};
+     * completed, cancelled, no-show and rescheduled appointments are final
+     */
+    public boolean canChangeTo(AppointmentStatus next) {
+        return switch (this) {
+            case SCHEDULED -> next == CONFIRMED || next == CHECKED_IN || next.isCancelled() || next == NO_SHOW;
+            case CONFIRMED -> next == CHECKED_IN || next.isCancelled() || next == NO_SHOW;
+            case CHECKED_IN -> next == IN_QUEUE || next == IN_PROGRESS || next.isCancelled() || next == NO_SHOW;
+            case IN_QUEUE -> next == IN_PROGRESS || next.isCancelled() || next == NO_SHOW;
+            case IN_PROGRESS -> next == COMPLETED;
+            default -> false;
+        };
+    }
+
+    /**
+     * Whether the appointment counts as a visit for the doctor's patient roster
+     */
+    public boolean countsAsVisit() {
+        return isActive() || isCompleted();
+    }
 }
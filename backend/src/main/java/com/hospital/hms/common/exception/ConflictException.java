@@ -0,0 +1,23 @@
+package com.hospital.hms.common.exception;
+
+import lombok.Getter;
+
+/**
+ * The request lost a race for a resource another request holds (e.g. an appointment slot); retrying with
+ * a different choice may succeed.
+ */
+@Getter
+public class ConflictException extends RuntimeException {
+
+    private final String errorCode;
+
+    public ConflictException(String message) {
+        super(message);
+        this.errorCode = "CONFLICT";
+    }
+
+    public ConflictException(String message, String errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hospital.hms.common.repository;
+
+import com.hospital.hms.common.entity.NumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM NumberSequence s WHERE s.sequenceName = :name AND s.scopeId = :scopeId AND s.period = :period")
+    Optional<NumberSequence> findForUpdate(@Param("name") String name,
+                                           @Param("scopeId") Long scopeId,
+                                           @Param("period") String period);
+}
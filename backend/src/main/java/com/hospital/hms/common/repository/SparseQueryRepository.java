@@ -0,0 +1,63 @@
+package com.hospital.hms.common.repository;
+
+import com.hospital.hms.common.dto.FieldCatalog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs list queries that select only the columns behind a {@link FieldCatalog.Selection}.
+ *
+ * Callers pass the JPQL {@code WHERE} clause (written against {@code alias}) and its parameters, usually the
+ * same filter constants their Spring Data repository uses, so a sparse list matches the full one row for row.
+ */
+@Repository
+public class SparseQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Page<Map<String, Object>> findPage(FieldCatalog.Selection selection, String alias, String where,
+                                              Map<String, ?> parameters, Pageable pageable) {
+        TypedQuery<Object[]> query = query(selection, alias, where, parameters, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> rows = toRows(selection, query.getResultList());
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(selection, alias, where, parameters));
+    }
+
+    public List<Map<String, Object>> findAll(FieldCatalog.Selection selection, String alias, String where,
+                                               Map<String, ?> parameters, Sort sort) {
+        return toRows(selection, query(selection, alias, where, parameters, sort).getResultList());
+    }
+
+    private TypedQuery<Object[]> query(FieldCatalog.Selection selection, String alias, String where,
+                                       Map<String, ?> parameters, Sort sort) {
+        String jpql = "SELECT " + selection.selectClause(alias) + " FROM " + selection.entity() + " " + alias + " "
+                + where + selection.orderByClause(sort, alias);
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private long count(FieldCatalog.Selection selection, String alias, String where, Map<String, ?> parameters) {
+        TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT COUNT(" + alias + ") FROM " + selection.entity() + " " + alias + " " + where, Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private static List<Map<String, Object>> toRows(FieldCatalog.Selection selection, List<Object[]> results) {
+        return results.stream().map(selection::toRow).toList();
+    }
+}
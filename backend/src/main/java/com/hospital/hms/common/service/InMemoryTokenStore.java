@@ -0,0 +1,65 @@
+package com.hospital.hms.common.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Single-instance token store on Caffeine. Per-entry TTLs use Caffeine's variable expiry
+ * (a hierarchical timing wheel, O(1) per entry) and the cache is capped at {@code max-entries}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.token-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenStore implements ShortLivedTokenStore {
+
+    private final Cache<String, Entry> cache;
+
+    public InMemoryTokenStore(@Value("${app.token-store.max-entries:100000}") long maxEntries) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @Override
+    public <T> void put(String namespace, String key, T value, Duration ttl) {
+        cache.put(namespace + ":" + key, new Entry(value, ttl.toNanos()));
+    }
+
+    @Override
+    public <T> Optional<T> get(String namespace, String key, Class<T> type) {
+        Entry entry = cache.getIfPresent(namespace + ":" + key);
+        return entry != null ? Optional.of(type.cast(entry.value)) : Optional.empty();
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        cache.invalidate(namespace + ":" + key);
+    }
+
+    private record Entry(Object value, long ttlNanos) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.hospital.hms.common.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-instance relay: messages go straight to the local simple broker and there are no other
+ * instances to share state with.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessWebSocketRelay implements WebSocketRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void convertAndSend(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+
+    @Override
+    public void convertAndSendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+    }
+
+    @Override
+    public void broadcast(String channel, Object payload) {
+        // No other instances
+    }
+
+    @Override
+    public <T> void onBroadcast(String channel, Class<T> type, Consumer<T> listener) {
+        // No other instances
+    }
+}
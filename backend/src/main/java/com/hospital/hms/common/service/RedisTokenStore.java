@@ -0,0 +1,64 @@
+package com.hospital.hms.common.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Token store shared by all instances. Values are stored as JSON strings with a native Redis TTL,
+ * so expiry costs nothing on the application side.
+ */
+@Component
+@ConditionalOnProperty(name = "app.token-store.type", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisTokenStore implements ShortLivedTokenStore {
+
+    private static final String KEY_PREFIX = "hms:token:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public <T> void put(String namespace, String key, T value, Duration ttl) {
+        redisTemplate.opsForValue().set(redisKey(namespace, key), write(value), ttl);
+    }
+
+    @Override
+    public <T> Optional<T> get(String namespace, String key, Class<T> type) {
+        return read(redisTemplate.opsForValue().get(redisKey(namespace, key)), type);
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        redisTemplate.delete(redisKey(namespace, key));
+    }
+
+    private static String redisKey(String namespace, String key) {
+        return KEY_PREFIX + namespace + ":" + key;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialise token value", e);
+        }
+    }
+
+    private <T> Optional<T> read(String json, Class<T> type) {
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, type));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialise token value", e);
+        }
+    }
+}
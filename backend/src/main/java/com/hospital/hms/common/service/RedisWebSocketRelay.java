@@ -0,0 +1,166 @@
+package com.hospital.hms.common.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Relay shared by all instances over one Redis pub/sub channel.
+ *
+ * Every instance, including the sender, delivers topic and user messages from the channel to its local
+ * broker, so all clients see the same order no matter which instance they are connected to. Redis keeps
+ * publish order on a channel and messages are dispatched on a single thread, so that order survives
+ * delivery. If Redis cannot be reached the message still reaches the sender's own clients.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay", havingValue = "redis")
+public class RedisWebSocketRelay implements WebSocketRelay {
+
+    static final String TOPIC = "TOPIC";
+    static final String USER = "USER";
+    static final String STATE = "STATE";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<JsonNode>>> listeners = new ConcurrentHashMap<>();
+    private RedisMessageListenerContainer container;
+    private ExecutorService dispatcher;
+
+    public RedisWebSocketRelay(StringRedisTemplate redisTemplate,
+                               RedisConnectionFactory connectionFactory,
+                               SimpMessagingTemplate messagingTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${app.websocket.relay-channel:hms:ws:relay}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = Executors.newSingleThreadExecutor(r -> new Thread(r, "ws-relay"));
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(dispatcher);
+        container.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        container.destroy();
+        dispatcher.shutdown();
+    }
+
+    @Override
+    public void convertAndSend(String destination, Object payload) {
+        publish(new Envelope(instanceId, TOPIC, destination, null, objectMapper.valueToTree(payload)),
+                () -> messagingTemplate.convertAndSend(destination, payload));
+    }
+
+    @Override
+    public void convertAndSendToUser(String user, String destination, Object payload) {
+        publish(new Envelope(instanceId, USER, destination, user, objectMapper.valueToTree(payload)),
+                () -> messagingTemplate.convertAndSendToUser(user, destination, payload));
+    }
+
+    @Override
+    public void broadcast(String channel, Object payload) {
+        publish(new Envelope(instanceId, STATE, channel, null, objectMapper.valueToTree(payload)), () -> { });
+    }
+
+    @Override
+    public <T> void onBroadcast(String channel, Class<T> type, Consumer<T> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(node -> {
+            try {
+                listener.accept(objectMapper.treeToValue(node, type));
+            } catch (JsonProcessingException e) {
+                log.warn("Dropping unreadable {} broadcast: {}", channel, e.getMessage());
+            }
+        });
+    }
+
+    private void publish(Envelope envelope, Runnable localFallback) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.warn("WebSocket relay publish to {} failed, delivering locally only: {}",
+                    envelope.destination(), e.getMessage());
+            localFallback.run();
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), Envelope.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unreadable relay message: {}", e.getMessage());
+            return;
+        }
+        try {
+            switch (envelope.kind()) {
+                case TOPIC -> deliver(envelope.destination(), envelope.payload());
+                case USER -> deliver(messagingTemplate.getUserDestinationPrefix()
+                        + envelope.user().replace("/", "%2F") + envelope.destination(), envelope.payload());
+                case STATE -> {
+                    if (!instanceId.equals(envelope.origin())) {
+                        listeners.getOrDefault(envelope.destination(), List.of())
+                                .forEach(l -> l.accept(envelope.payload()));
+                    }
+                }
+                default -> log.warn("Dropping relay message of unknown kind {}", envelope.kind());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Relay delivery to {} failed: {}", envelope.destination(), e.getMessage());
+        }
+    }
+
+    /**
+     * Hand the payload to the local broker as the JSON it already is, without a second conversion
+     */
+    private void deliver(String destination, JsonNode payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(body, headers.getMessageHeaders()));
+    }
+
+    record Envelope(String origin, String kind, String destination, String user, JsonNode payload) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.hospital.hms.common.service;
+
+import com.hospital.hms.common.entity.NumberSequence;
+import com.hospital.hms.common.repository.NumberSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Reserves blocks of numbers from the number_sequences table.
+ * Each reservation runs in its own short transaction so the row lock is never held by a caller's business transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceBlockAllocator {
+
+    private final NumberSequenceRepository sequenceRepository;
+
+    /**
+     * Reserve {@code blockSize} numbers and return the first one.
+     * A missing sequence row is created starting after {@code currentMax}, so existing data is never reissued.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String name, Long scopeId, String period, int blockSize, LongSupplier currentMax) {
+        NumberSequence sequence = sequenceRepository.findForUpdate(name, scopeId, period)
+                .orElseGet(() -> {
+                    long seed = currentMax.getAsLong() + 1;
+                    log.info("Initialising sequence {}:{}:{} at {}", name, scopeId, period, seed);
+                    return sequenceRepository.saveAndFlush(NumberSequence.builder()
+                            .sequenceName(name)
+                            .scopeId(scopeId)
+                            .period(period)
+                            .nextValue(seed)
+                            .build());
+                });
+        long first = sequence.getNextValue();
+        sequence.setNextValue(first + blockSize);
+        sequenceRepository.save(sequence);
+        return first;
+    }
+}
@@ -0,0 +1,116 @@
+package com.hospital.hms.common.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out business numbers (appointment numbers, prescription numbers, UHIDs, invoice numbers, tokens)
+ * from blocks reserved in the database, replacing COUNT/MAX based generation.
+ *
+ * Numbers are unique across restarts and instances; unused numbers in a block are skipped after a restart,
+ * and with several instances numbers are unique but not strictly in creation order.
+ */
+@Slf4j
+@Service
+public class SequenceService {
+
+    public static final long GLOBAL_SCOPE = 0L;
+
+    // Seed queries cast the part of a number after its prefix only where it is all digits, as the cast fails on a
+    // foreign or legacy format: STRIP_DIGITS + suffix + STRIP_DIGITS_END is '' exactly for such suffixes
+    public static final String STRIP_DIGITS = "REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(";
+    public static final String STRIP_DIGITS_END = ", '0', ''), '1', ''), '2', ''), '3', ''), '4', ''), '5', ''), '6', ''), '7', ''), '8', ''), '9', '')";
+
+    private final SequenceBlockAllocator allocator;
+    private final int defaultBlockSize;
+
+    private final Cache<String, Block> blocks = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofHours(24))
+            .build();
+
+    public SequenceService(SequenceBlockAllocator allocator,
+                           @Value("${app.sequence.block-size:20}") int defaultBlockSize) {
+        this.allocator = allocator;
+        this.defaultBlockSize = Math.max(1, defaultBlockSize);
+    }
+
+    /**
+     * Next number using the default block size
+     */
+    public long next(String name, Long scopeId, String period, LongSupplier currentMax) {
+        return next(name, scopeId, period, defaultBlockSize, currentMax);
+    }
+
+    /**
+     * Next number for the sequence identified by (name, scope, period).
+     *
+     * @param currentMax highest number already in use, only consulted the first time the sequence is created
+     */
+    public long next(String name, Long scopeId, String period, int blockSize, LongSupplier currentMax) {
+        String key = name + ":" + scopeId + ":" + period;
+        while (true) {
+            Block block = blocks.getIfPresent(key);
+            if (block != null) {
+                long value = block.cursor.getAndIncrement();
+                if (value < block.limit) {
+                    return value;
+                }
+            }
+            blocks.asMap().compute(key, (k, current) -> current != null && current.hasRemaining()
+                    ? current
+                    : reserve(name, scopeId, period, blockSize, currentMax));
+        }
+    }
+
+    /**
+     * Reserve {@code count} consecutive numbers in one database round trip, for batch inserts.
+     * Returns the first number of the range; numbers already cached for single use are unaffected.
+     */
+    public long nextRange(String name, Long scopeId, String period, int count, LongSupplier currentMax) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        return reserve(name, scopeId, period, count, currentMax).cursor.get();
+    }
+
+    /**
+     * Highest number in use from a MAX query, 0 when there is none yet
+     */
+    public static long orZero(Long max) {
+        return max != null ? max : 0;
+    }
+
+    private Block reserve(String name, Long scopeId, String period, int blockSize, LongSupplier currentMax) {
+        long first;
+        try {
+            first = allocator.reserve(name, scopeId, period, blockSize, currentMax);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first; it exists now, so lock and reserve from it
+            log.debug("Sequence {}:{}:{} created concurrently, retrying", name, scopeId, period);
+            first = allocator.reserve(name, scopeId, period, blockSize, currentMax);
+        }
+        return new Block(first, first + blockSize);
+    }
+
+    private static final class Block {
+        private final AtomicLong cursor;
+        private final long limit;
+
+        private Block(long first, long limit) {
+            this.cursor = new AtomicLong(first);
+            this.limit = limit;
+        }
+
+        private boolean hasRemaining() {
+            return cursor.get() < limit;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.hospital.hms.common.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Key/value store for short-lived tokens and sessions (guest OTP sessions, guest access tokens, ...).
+ * Every entry carries its own TTL and disappears once it expires.
+ *
+ * Select the backend with {@code app.token-store.type}: {@code memory} (default, single instance)
+ * or {@code redis} (shared across instances).
+ */
+public interface ShortLivedTokenStore {
+
+    /**
+     * Store or replace a value under {@code namespace:key} for {@code ttl}
+     */
+    <T> void put(String namespace, String key, T value, Duration ttl);
+
+    /**
+     * Value if present and not expired
+     */
+    <T> Optional<T> get(String namespace, String key, Class<T> type);
+
+    void remove(String namespace, String key);
+}
@@ -0,0 +1,34 @@
+package com.hospital.hms.common.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Publishes to STOMP {@code /topic} and {@code /user} destinations so that clients connected to any
+ * instance receive the message, plus a small instance-to-instance channel for state that those
+ * instances need to answer subscriptions (e.g. the last queue board sent).
+ *
+ * Select the backend with {@code app.websocket.relay}: {@code memory} (default, single instance,
+ * straight to the local broker) or {@code redis} (fan-out over Redis pub/sub).
+ */
+public interface WebSocketRelay {
+
+    /**
+     * Send to a broadcast destination on every instance
+     */
+    void convertAndSend(String destination, Object payload);
+
+    /**
+     * Send to a user destination; each instance delivers to the sessions of that user it holds
+     */
+    void convertAndSendToUser(String user, String destination, Object payload);
+
+    /**
+     * Share state with the other instances; the publishing instance does not receive its own messages
+     */
+    void broadcast(String channel, Object payload);
+
+    /**
+     * Listen for {@link #broadcast} messages from other instances
+     */
+    <T> void onBroadcast(String channel, Class<T> type, Consumer<T> listener);
+}
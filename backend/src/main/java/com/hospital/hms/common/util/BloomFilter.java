@@ -0,0 +1,95 @@
+package com.hospital.hms.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over 64-bit keys (ids) and 128-bit keys (UUIDs): {@link #mightContain} never misses a
+ * key that was put, and wrongly reports an absent key with about the false-positive rate it was sized for, as long
+ * as no more than the expected number of keys are put. Keys cannot be removed; rebuild a new filter instead.
+ *
+ * Safe for concurrent use without locking: bits are only ever set, one atomic word at a time.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * @param expectedKeys      number of keys the filter is sized for
+     * @param falsePositiveRate wanted rate of false positives at that many keys, e.g. 0.01
+     */
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    public void put(long key) {
+        add(mix(key));
+    }
+
+    public void put(long high, long low) {
+        add(mix(high ^ mix(low)));
+    }
+
+    public boolean mightContain(long key) {
+        return contains(mix(key));
+    }
+
+    public boolean mightContain(long high, long low) {
+        return contains(mix(high ^ mix(low)));
+    }
+
+    /**
+     * Size of the bit array in bytes
+     */
+    public long sizeInBytes() {
+        return bits / 8;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    // Double hashing: bit i of a key is h1 + i * h2, h2 being the key's hash mixed once more
+    private void add(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    private boolean contains(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * MurmurHash3 finaliser, so that every input bit affects every output bit
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
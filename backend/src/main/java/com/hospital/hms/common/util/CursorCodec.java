@@ -0,0 +1,86 @@
+package com.hospital.hms.common.util;
+
+import com.hospital.hms.common.exception.BadRequestException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Encodes (date, id) and (timestamp, id) keyset positions as opaque URL-safe cursors for newest-first listings.
+ */
+public final class CursorCodec {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Seek position before the newest row; stays within the date range every supported database accepts
+    private static final Position FIRST_PAGE = new Position(LocalDate.of(9999, 12, 31), Long.MAX_VALUE);
+
+    private static final TimePosition FIRST_TIME_PAGE =
+            new TimePosition(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private CursorCodec() {
+    }
+
+    public record Position(LocalDate date, Long id) {
+    }
+
+    public record TimePosition(LocalDateTime at, Long id) {
+    }
+
+    public static String encode(LocalDate date, Long id) {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(LocalDateTime at, Long id) {
+        String raw = at + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor, or return the first-page position when none is given
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST_PAGE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Position(LocalDate.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor", "INVALID_CURSOR");
+        }
+    }
+
+    /**
+     * Decode a timestamp cursor, or return the first-page position when none is given
+     */
+    public static TimePosition decodeTime(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST_TIME_PAGE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new TimePosition(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor", "INVALID_CURSOR");
+        }
+    }
+
+    /**
+     * Limit for a seek query: one extra row tells whether another page exists
+     */
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)) + 1);
+    }
+
+    public static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
@@ -1,19 +1,39 @@
 package com.hospital.hms.common.util;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Utility for encrypting/decrypting sensitive data like Aadhaar numbers.
  * Uses AES-GCM for authenticated encryption.
+ *
+ * Keys are versioned so they can be rotated online. {@code secret-key} is the current key and encrypts; the
+ * retired keys in {@code previous-keys} only decrypt, until the re-encryption job has moved every value to the
+ * current key. A value names its key version in a {@code v<version>:} prefix. Values without one belong to
+ * version 0, the original unversioned key, which is still written without a prefix while it is current.
+ *
+ * The keys are derived once and cached, and each thread keeps its own Cipher, Mac and SecureRandom, so a call
+ * neither looks up a provider nor waits on another thread. Values are encrypted straight into the IV + ciphertext
+ * array and decrypted from it in place, without intermediate copies.
  */
 @Slf4j
 @Component
@@ -22,16 +42,152 @@ public class EncryptionUtil {
     private static final String ALGORITHM = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 128;
+    private static final String BLIND_INDEX_ALGORITHM = "HmacSHA256";
+    private static final int LEGACY_KEY_VERSION = 0;
+    private static final int MAX_KEY_VERSION = 255;
+    private static final String VERSION_PREFIX = "v";
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    });
+    private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
 
     @Value("${app.encryption.secret-key}")
     private String secretKey;
 
-    private SecretKeySpec getKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        // Ensure key is exactly 32 bytes for AES-256
-        byte[] key = new byte[32];
-        System.arraycopy(keyBytes, 0, key, 0, Math.min(keyBytes.length, 32));
-        return new SecretKeySpec(key, "AES");
+    @Value("${app.encryption.blind-index-key}")
+    private String blindIndexKey;
+
+    @Value("${app.encryption.key-version:0}")
+    private int secretKeyVersion;
+
+    // Retired keys still needed to decrypt, as comma-separated version:secret pairs
+    @Value("${app.encryption.previous-keys:}")
+    private String previousKeys;
+
+    private volatile Keyring keyring;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    private record Keyring(int currentVersion, Map<Integer, SecretKeySpec> keys) {
+
+        SecretKeySpec key(int version) {
+            SecretKeySpec key = keys.get(version);
+            if (key == null) {
+                throw new IllegalStateException("No encryption key configured for version " + version);
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Read the keyring at startup, so a malformed previous-keys setting fails the boot rather than a request
+     */
+    @PostConstruct
+    void loadKeys() {
+        log.info("Encryption keys loaded: current version {}, versions {}", currentKeyVersion(), keyVersions());
+    }
+
+    private Keyring keyring() {
+        Keyring cached = keyring;
+        if (cached == null) {
+            Map<Integer, SecretKeySpec> keys = new HashMap<>();
+            if (previousKeys != null) {
+                for (String entry : previousKeys.split(",")) {
+                    if (entry.isBlank()) {
+                        continue;
+                    }
+                    int colon = entry.indexOf(':');
+                    if (colon < 1) {
+                        throw new IllegalStateException("app.encryption.previous-keys entries must be version:secret");
+                    }
+                    int version = Integer.parseInt(entry.substring(0, colon).trim());
+                    keys.put(version, deriveKey(version, entry.substring(colon + 1).trim()));
+                }
+            }
+            keys.put(secretKeyVersion, deriveKey(secretKeyVersion, secretKey));
+            cached = new Keyring(secretKeyVersion, Map.copyOf(keys));
+            keyring = cached;
+        }
+        return cached;
+    }
+
+    private static SecretKeySpec deriveKey(int version, String secret) {
+        if (version < LEGACY_KEY_VERSION || version > MAX_KEY_VERSION) {
+            throw new IllegalStateException("Encryption key versions run from 0 to " + MAX_KEY_VERSION);
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (version == LEGACY_KEY_VERSION) {
+            // The unversioned key, truncated or zero-padded to 32 bytes as the values written with it expect
+            byte[] keyMaterial = new byte[32];
+            System.arraycopy(secretBytes, 0, keyMaterial, 0, Math.min(secretBytes.length, 32));
+            return new SecretKeySpec(keyMaterial, "AES");
+        }
+        try {
+            // Versioned keys use every byte of the secret, whatever its length
+            return new SecretKeySpec(MessageDigest.getInstance("SHA-256").digest(secretBytes), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Version of the key new values are encrypted with
+     */
+    public int currentKeyVersion() {
+        return keyring().currentVersion();
+    }
+
+    /**
+     * Versions of every configured key; more than one while a rotation is under way
+     */
+    public Set<Integer> keyVersions() {
+        return keyring().keys().keySet();
+    }
+
+    /**
+     * Prefix of values encrypted with the current key; empty while the unversioned key is current
+     */
+    public String currentKeyPrefix() {
+        int version = currentKeyVersion();
+        return version == LEGACY_KEY_VERSION ? "" : VERSION_PREFIX + version + ":";
+    }
+
+    /**
+     * Version of the key a value was encrypted with, read from its prefix
+     */
+    public static int keyVersion(String encryptedText) {
+        if (encryptedText != null && encryptedText.startsWith(VERSION_PREFIX)) {
+            // Base64 has no ':', so an unversioned value never looks prefixed
+            int colon = encryptedText.indexOf(':');
+            if (colon > VERSION_PREFIX.length()) {
+                return Integer.parseInt(encryptedText.substring(VERSION_PREFIX.length(), colon));
+            }
+        }
+        return LEGACY_KEY_VERSION;
+    }
+
+    /**
+     * The value encrypted with the current key: unchanged if it already is, else decrypted and encrypted again
+     */
+    public String reencrypt(String encryptedText) {
+        if (encryptedText == null || encryptedText.isEmpty() || keyVersion(encryptedText) == currentKeyVersion()) {
+            return encryptedText;
+        }
+        return encrypt(decrypt(encryptedText));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(BLIND_INDEX_ALGORITHM);
+            mac.init(new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), BLIND_INDEX_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(BLIND_INDEX_ALGORITHM + " is not available", e);
+        }
     }
 
     /**
@@ -46,28 +202,110 @@ public class EncryptionUtil {
         }
 
         try {
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            SecureRandom random = new SecureRandom();
-            random.nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, getKey(), parameterSpec);
-
-            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            return encode(Base64.getEncoder(), plainText);
+        } catch (Exception e) {
+            log.error("Encryption failed", e);
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
 
-            // Combine IV and encrypted data
-            byte[] combined = new byte[iv.length + encrypted.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+    /**
+     * Encrypts many values, for bulk imports and exports.
+     * Produces the same format as {@link #encrypt}, each value with its own IV; null or empty values stay null.
+     *
+     * @param plainTexts The texts to encrypt
+     * @return Encrypted values in the same order
+     */
+    public List<String> encryptAll(Collection<String> plainTexts) {
+        List<String> encrypted = new ArrayList<>(plainTexts.size());
+        Base64.Encoder encoder = Base64.getEncoder();
+        try {
+            for (String plainText : plainTexts) {
+                encrypted.add(plainText == null || plainText.isEmpty() ? null : encode(encoder, plainText));
+            }
+            return encrypted;
+        } catch (Exception e) {
+            log.error("Bulk encryption failed", e);
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
 
-            return Base64.getEncoder().encodeToString(combined);
+    /**
+     * Encrypts the remaining bytes of {@code plain} into {@code out}: one key-version byte, then IV + ciphertext as
+     * in the Base64 part of {@link #encrypt}. Both buffers advance; works with heap and direct buffers.
+     *
+     * @return Bytes written, {@link #encryptedSize} of the input
+     */
+    public int encrypt(ByteBuffer plain, ByteBuffer out) {
+        if (out.remaining() < encryptedSize(plain.remaining())) {
+            throw new IllegalArgumentException("Output buffer needs " + encryptedSize(plain.remaining()) + " bytes");
+        }
+        try {
+            Keyring keys = keyring();
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            RANDOMS.get().nextBytes(iv);
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.key(keys.currentVersion()), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            out.put((byte) keys.currentVersion());
+            out.put(iv);
+            return 1 + GCM_IV_LENGTH + cipher.doFinal(plain, out);
         } catch (Exception e) {
             log.error("Encryption failed", e);
             throw new RuntimeException("Encryption failed", e);
         }
     }
 
+    /**
+     * Size of the buffer form (key version + IV + ciphertext) of {@code plainLength} bytes
+     */
+    public static int encryptedSize(int plainLength) {
+        return 1 + GCM_IV_LENGTH + plainLength + GCM_TAG_LENGTH / 8;
+    }
+
+    private String encode(Base64.Encoder encoder, String plainText) throws GeneralSecurityException {
+        Keyring keys = keyring();
+        byte[] plain = plainText.getBytes(StandardCharsets.UTF_8);
+        byte[] combined = new byte[GCM_IV_LENGTH + plain.length + GCM_TAG_LENGTH / 8];
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        RANDOMS.get().nextBytes(iv);
+        System.arraycopy(iv, 0, combined, 0, GCM_IV_LENGTH);
+
+        Cipher cipher = CIPHERS.get();
+        cipher.init(Cipher.ENCRYPT_MODE, keys.key(keys.currentVersion()), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        cipher.doFinal(plain, 0, plain.length, combined, GCM_IV_LENGTH);
+        String body = encoder.encodeToString(combined);
+        return keys.currentVersion() == LEGACY_KEY_VERSION ? body : VERSION_PREFIX + keys.currentVersion() + ":" + body;
+    }
+
+    /**
+     * Keyed HMAC-SHA256 of a value (a blind index), for exact-match lookups of a column stored with {@link #encrypt}.
+     * Unlike the ciphertext it is deterministic, so it can be indexed and compared in SQL. It uses its own key, so
+     * neither key reveals anything about the other.
+     *
+     * @param plainText The value to index, already normalised by the caller
+     * @return Base64 encoded HMAC (44 characters), or null for null or empty values
+     */
+    public String blindIndex(String plainText) {
+        if (plainText == null || plainText.isEmpty()) {
+            return null;
+        }
+        return Base64.getEncoder().encodeToString(macs.get().doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Blind indexes of many values, for bulk imports and backfills.
+     *
+     * @param plainTexts The values to index
+     * @return Blind indexes in the same order; null or empty values stay null
+     */
+    public List<String> blindIndexAll(Collection<String> plainTexts) {
+        List<String> indexes = new ArrayList<>(plainTexts.size());
+        for (String plainText : plainTexts) {
+            indexes.add(blindIndex(plainText));
+        }
+        return indexes;
+    }
+
     /**
      * Decrypts a Base64 encoded encrypted string.
      * 
@@ -80,26 +318,65 @@ public class EncryptionUtil {
         }
 
         try {
-            byte[] combined = Base64.getDecoder().decode(encryptedText);
-
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] encrypted = new byte[combined.length - GCM_IV_LENGTH];
-
-            System.arraycopy(combined, 0, iv, 0, iv.length);
-            System.arraycopy(combined, iv.length, encrypted, 0, encrypted.length);
+            return decode(Base64.getDecoder(), encryptedText);
+        } catch (Exception e) {
+            log.error("Decryption failed", e);
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, getKey(), parameterSpec);
+    /**
+     * Decrypts many values, for bulk exports and backfills; null or empty values stay null.
+     *
+     * @param encryptedTexts Base64 encoded encrypted strings
+     * @return Plain texts in the same order
+     * @throws RuntimeException if any value cannot be decrypted
+     */
+    public List<String> decryptAll(Collection<String> encryptedTexts) {
+        List<String> decrypted = new ArrayList<>(encryptedTexts.size());
+        Base64.Decoder decoder = Base64.getDecoder();
+        try {
+            for (String encryptedText : encryptedTexts) {
+                decrypted.add(encryptedText == null || encryptedText.isEmpty() ? null : decode(decoder, encryptedText));
+            }
+            return decrypted;
+        } catch (Exception e) {
+            log.error("Bulk decryption failed", e);
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
 
-            byte[] decrypted = cipher.doFinal(encrypted);
-            return new String(decrypted, StandardCharsets.UTF_8);
+    /**
+     * Decrypts the remaining bytes of {@code encrypted} (key version + IV + ciphertext, as written by
+     * {@link #encrypt(ByteBuffer, ByteBuffer)}) into {@code out}. Both buffers advance.
+     *
+     * @return Plain text bytes written
+     */
+    public int decrypt(ByteBuffer encrypted, ByteBuffer out) {
+        try {
+            SecretKeySpec key = keyring().key(Byte.toUnsignedInt(encrypted.get()));
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            encrypted.get(iv);
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            return cipher.doFinal(encrypted, out);
         } catch (Exception e) {
             log.error("Decryption failed", e);
             throw new RuntimeException("Decryption failed", e);
         }
     }
 
+    private String decode(Base64.Decoder decoder, String encryptedText) throws GeneralSecurityException {
+        int version = keyVersion(encryptedText);
+        SecretKeySpec key = keyring().key(version);
+        byte[] combined = decoder.decode(version == LEGACY_KEY_VERSION ? encryptedText
+                : encryptedText.substring(encryptedText.indexOf(':') + 1));
+        Cipher cipher = CIPHERS.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, combined, 0, GCM_IV_LENGTH));
+        byte[] decrypted = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
     /**
      * Masks an Aadhaar number for display (shows only last 4 digits).
      * 
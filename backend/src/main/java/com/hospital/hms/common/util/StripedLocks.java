@@ -0,0 +1,44 @@
+package com.hospital.hms.common.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks addressed by key hash, for serialising work on fine-grained keys (e.g. one appointment
+ * slot) without keeping a lock object per key. Unrelated keys may share a stripe; that only costs throughput,
+ * never correctness.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock get(Object key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * Index of the stripe a key maps to. Code that holds several stripes at once must take them in ascending
+     * index order, so that two such holders can never wait on each other.
+     */
+    public int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public ReentrantLock at(int stripe) {
+        return locks[stripe];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
@@ -1,6 +1,7 @@
 package com.hospital.hms.config;
 
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
@@ -33,6 +34,31 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    @Bean(name = "boardExecutor")
+    public Executor boardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("HMS-Board-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "timelineExecutor")
+    public Executor timelineExecutor(@Value("${app.patient-timeline.pool-size:20}") int poolSize) {
+        // Threads are only added beyond the core size once the queue is full, so the core size is what runs:
+        // every timeline call takes five threads at once
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("HMS-Timeline-");
+        executor.initialize();
+        return executor;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         return taskExecutor();
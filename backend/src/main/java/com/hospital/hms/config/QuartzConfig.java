@@ -0,0 +1,40 @@
+package com.hospital.hms.config;
+
+import com.hospital.hms.notification.job.AppointmentReminderJob;
+import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.TimeZone;
+
+/**
+ * Quartz jobs. The JDBC job store is clustered, so each trigger fires on one instance only, and jobs
+ * marked for recovery are re-run by another instance if the one executing them dies.
+ */
+@Configuration
+public class QuartzConfig {
+
+    @Bean
+    public JobDetail appointmentReminderJobDetail() {
+        return JobBuilder.newJob(AppointmentReminderJob.class)
+                .withIdentity("appointmentReminderJob", "notifications")
+                .withDescription("Queue reminders for tomorrow's scheduled appointments")
+                .storeDurably()
+                .requestRecovery()
+                .build();
+    }
+
+    @Bean
+    public Trigger appointmentReminderTrigger(JobDetail appointmentReminderJobDetail,
+                                              @Value("${app.reminder.cron:0 0 18 * * ?}") String cron,
+                                              @Value("${app.reminder.time-zone:Asia/Kolkata}") String timeZone) {
+        return TriggerBuilder.newTrigger()
+                .forJob(appointmentReminderJobDetail)
+                .withIdentity("appointmentReminderTrigger", "notifications")
+                .withSchedule(CronScheduleBuilder.cronSchedule(cron)
+                        .inTimeZone(TimeZone.getTimeZone(timeZone))
+                        .withMisfireHandlingInstructionFireAndProceed())
+                .build();
+    }
+}
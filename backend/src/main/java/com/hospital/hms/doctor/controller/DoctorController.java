@@ -1,6 +1,12 @@
 package com.hospital.hms.doctor.controller;
 
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import com.hospital.hms.common.dto.FieldCatalog;
+import com.hospital.hms.common.dto.ListPage;
 import com.hospital.hms.common.enums.Specialization;
+import com.hospital.hms.common.repository.SparseQueryRepository;
+import com.hospital.hms.doctor.dto.DoctorFields;
+import com.hospital.hms.doctor.dto.DoctorListItem;
 import com.hospital.hms.doctor.entity.Doctor;
 import com.hospital.hms.doctor.repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +21,6 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/doctors")
@@ -25,18 +30,21 @@ import java.util.stream.Collectors;
 public class DoctorController {
 
     private final DoctorRepository doctorRepository;
+    private final SlotAvailabilityService slotAvailabilityService;
+    private final SparseQueryRepository sparseQueryRepository;
 
     /**
      * Get all active doctors with pagination and optional specialization filter
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllDoctors(
+    public ResponseEntity<ListPage<?>> getAllDoctors(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "100") int size,
             @RequestParam(defaultValue = "firstName") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
             @RequestParam(required = false) String specialization,
-            @RequestParam(required = false) String query) {
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String fields) {
         
         log.info("Fetching doctors - page: {}, size: {}, specialization: {}, query: {}", page, size, specialization, query);
         
@@ -45,83 +53,37 @@ public class DoctorController {
             : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Doctor> doctorPage;
         
-        // If specialization filter is provided, filter by it
+        Specialization spec = null;
         if (specialization != null && !specialization.isEmpty()) {
             try {
-                Specialization spec = Specialization.valueOf(specialization.toUpperCase());
-                List<Doctor> allDoctors = doctorRepository.findByPrimarySpecializationAndIsActiveTrue(spec);
-                
-                // Apply search query if provided
-                if (query != null && !query.isEmpty()) {
-                    String searchQuery = query.toLowerCase();
-                    allDoctors = allDoctors.stream()
-                            .filter(doc -> 
-                                (doc.getFirstName() != null && doc.getFirstName().toLowerCase().contains(searchQuery)) ||
-                                (doc.getLastName() != null && doc.getLastName().toLowerCase().contains(searchQuery)) ||
-                                (doc.getEmployeeId() != null && doc.getEmployeeId().toLowerCase().contains(searchQuery)))
-                            .collect(Collectors.toList());
-                }
-                
-                // Manual pagination for filtered list
-                int start = (int) pageable.getOffset();
-                int end = Math.min(start + pageable.getPageSize(), allDoctors.size());
-                List<Doctor> pageContent = start < allDoctors.size() ? allDoctors.subList(start, end) : List.of();
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("content", pageContent);
-                response.put("totalElements", allDoctors.size());
-                response.put("totalPages", (int) Math.ceil((double) allDoctors.size() / pageable.getPageSize()));
-                response.put("currentPage", page);
-                response.put("size", size);
-                
-                return ResponseEntity.ok(response);
+                spec = Specialization.valueOf(specialization.toUpperCase());
             } catch (IllegalArgumentException e) {
                 log.warn("Invalid specialization provided: {}", specialization);
             }
         }
         
-        // Default: get all doctors with pagination
-        doctorPage = doctorRepository.findByIsActiveTrueAndIsDeletedFalse(pageable);
-        
-        // Apply search query filter if provided
-        if (query != null && !query.isEmpty()) {
-            String searchQuery = query.toLowerCase();
-            List<Doctor> filtered = doctorPage.getContent().stream()
-                    .filter(doc -> 
-                        (doc.getFirstName() != null && doc.getFirstName().toLowerCase().contains(searchQuery)) ||
-                        (doc.getLastName() != null && doc.getLastName().toLowerCase().contains(searchQuery)) ||
-                        (doc.getEmployeeId() != null && doc.getEmployeeId().toLowerCase().contains(searchQuery)))
-                    .collect(Collectors.toList());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("content", filtered);
-            response.put("totalElements", filtered.size());
-            response.put("totalPages", 1);
-            response.put("currentPage", page);
-            response.put("size", size);
-            
-            return ResponseEntity.ok(response);
+        // Name / employee ID search is applied in the query so counts and pages stay consistent
+        String pattern = query != null && !query.isEmpty() ? "%" + query.toLowerCase() + "%" : null;
+        FieldCatalog.Selection selection = DoctorFields.CATALOG.select(fields);
+        if (selection != null) {
+            Map<String, Object> parameters = filterParameters(spec, null);
+            parameters.put("pattern", pattern);
+            return ResponseEntity.ok(ListPage.of(sparseQueryRepository.findPage(selection, "d",
+                    DoctorRepository.ACTIVE_FILTERS + DoctorRepository.PATTERN_FILTER, parameters, pageable)));
         }
+        Page<DoctorListItem> doctorPage = doctorRepository.findListItems(spec, null, pattern, pageable);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", doctorPage.getContent());
-        response.put("totalElements", doctorPage.getTotalElements());
-        response.put("totalPages", doctorPage.getTotalPages());
-        response.put("currentPage", doctorPage.getNumber());
-        response.put("size", doctorPage.getSize());
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ListPage.of(doctorPage));
     }
 
     /**
      * Get all doctors as a simple list (for dropdowns, etc.)
      */
     @GetMapping("/list")
-    public ResponseEntity<List<Doctor>> getDoctorList() {
+    public ResponseEntity<List<?>> getDoctorList(@RequestParam(required = false) String fields) {
         log.info("Fetching doctor list");
-        List<Doctor> doctors = doctorRepository.findByIsActiveTrueAndIsDeletedFalse();
+        List<?> doctors = listItems(null, null, fields);
         return ResponseEntity.ok(doctors);
     }
 
@@ -140,9 +102,13 @@ public class DoctorController {
      * Search doctors by name
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Doctor>> searchDoctors(@RequestParam String query) {
+    public ResponseEntity<List<?>> searchDoctors(@RequestParam String query,
+                                                 @RequestParam(required = false) String fields) {
         log.info("Searching doctors with query: {}", query);
-        List<Doctor> doctors = doctorRepository.searchByName(query);
+        FieldCatalog.Selection selection = DoctorFields.CATALOG.select(fields);
+        List<?> doctors = selection == null ? doctorRepository.searchListItemsByName(query)
+                : sparseQueryRepository.findAll(selection, "d", DoctorRepository.NAME_SEARCH,
+                        Map.of("query", query), null);
         return ResponseEntity.ok(doctors);
     }
 
@@ -150,12 +116,13 @@ public class DoctorController {
      * Get doctors by specialization
      */
     @GetMapping("/specialization/{specialization}")
-    public ResponseEntity<List<Doctor>> getDoctorsBySpecialization(
-            @PathVariable String specialization) {
+    public ResponseEntity<List<?>> getDoctorsBySpecialization(
+            @PathVariable String specialization,
+            @RequestParam(required = false) String fields) {
         log.info("Fetching doctors by specialization: {}", specialization);
         try {
             Specialization spec = Specialization.valueOf(specialization.toUpperCase());
-            List<Doctor> doctors = doctorRepository.findByPrimarySpecializationAndIsActiveTrue(spec);
+            List<?> doctors = listItems(spec, null, fields);
             return ResponseEntity.ok(doctors);
         } catch (IllegalArgumentException e) {
             log.warn("Invalid specialization: {}", specialization);
@@ -167,9 +134,10 @@ public class DoctorController {
      * Get doctors by hospital
      */
     @GetMapping("/hospital/{hospitalId}")
-    public ResponseEntity<List<Doctor>> getDoctorsByHospital(@PathVariable Long hospitalId) {
+    public ResponseEntity<List<?>> getDoctorsByHospital(@PathVariable Long hospitalId,
+                                                        @RequestParam(required = false) String fields) {
         log.info("Fetching doctors by hospital: {}", hospitalId);
-        List<Doctor> doctors = doctorRepository.findByPrimaryHospitalIdAndIsActiveTrue(hospitalId);
+        List<?> doctors = listItems(null, hospitalId, fields);
         return ResponseEntity.ok(doctors);
     }
 
@@ -177,9 +145,10 @@ public class DoctorController {
      * Get doctors with filters
      */
     @GetMapping("/filter")
-    public ResponseEntity<List<Doctor>> getDoctorsWithFilters(
+    public ResponseEntity<List<?>> getDoctorsWithFilters(
             @RequestParam(required = false) String specialization,
-            @RequestParam(required = false) Long hospitalId) {
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String fields) {
         log.info("Filtering doctors - specialization: {}, hospitalId: {}", specialization, hospitalId);
         
         Specialization spec = null;
@@ -191,7 +160,7 @@ public class DoctorController {
             }
         }
         
-        List<Doctor> doctors = doctorRepository.findByFilters(spec, hospitalId);
+        List<?> doctors = listItems(spec, hospitalId, fields);
         return ResponseEntity.ok(doctors);
     }
 
@@ -281,6 +250,7 @@ public class DoctorController {
                     doctor.setIsDeleted(true);
                     doctor.setIsActive(false);
                     doctorRepository.save(doctor);
+                    slotAvailabilityService.evictDoctor(id);
                     
                     Map<String, Object> response = new HashMap<>();
                     response.put("success", true);
@@ -289,4 +259,23 @@ public class DoctorController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Active doctors sorted by first name, as list items or, with {@code fields}, only the requested fields
+     */
+    private List<?> listItems(Specialization spec, Long hospitalId, String fields) {
+        FieldCatalog.Selection selection = DoctorFields.CATALOG.select(fields);
+        if (selection == null) {
+            return doctorRepository.findListItems(spec, hospitalId, Sort.by("firstName"));
+        }
+        return sparseQueryRepository.findAll(selection, "d", DoctorRepository.ACTIVE_FILTERS,
+                filterParameters(spec, hospitalId), Sort.by("firstName"));
+    }
+
+    private static Map<String, Object> filterParameters(Specialization spec, Long hospitalId) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("specialization", spec);
+        parameters.put("hospitalId", hospitalId);
+        return parameters;
+    }
 }
@@ -1,6 +1,11 @@
 package com.hospital.hms.doctor.controller;
 
+import com.hospital.hms.common.dto.CursorPage;
+import com.hospital.hms.common.dto.ListPage;
 import com.hospital.hms.common.enums.PrescriptionStatus;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.common.util.CursorCodec;
+import com.hospital.hms.doctor.dto.PrescriptionListItem;
 import com.hospital.hms.doctor.entity.Prescription;
 import com.hospital.hms.doctor.repository.PrescriptionRepository;
 import lombok.RequiredArgsConstructor;
@@ -26,12 +31,13 @@ import java.util.Map;
 public class PrescriptionController {
 
     private final PrescriptionRepository prescriptionRepository;
+    private final SequenceService sequenceService;
 
     /**
      * Get all prescriptions with pagination and filters
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllPrescriptions(
+    public ResponseEntity<ListPage<PrescriptionListItem>> getAllPrescriptions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Long doctorId,
@@ -62,7 +68,7 @@ public class PrescriptionController {
             }
         }
         
-        Page<Prescription> prescriptionPage;
+        Page<PrescriptionListItem> prescriptionPage;
         if (doctorId != null) {
             prescriptionPage = prescriptionRepository.findByDoctorIdWithFilters(
                     doctorId, prescriptionStatus, filterDate, pageable);
@@ -71,14 +77,49 @@ public class PrescriptionController {
                     hospitalId, prescriptionStatus, pageable);
         }
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", prescriptionPage.getContent());
-        response.put("totalElements", prescriptionPage.getTotalElements());
-        response.put("totalPages", prescriptionPage.getTotalPages());
-        response.put("currentPage", prescriptionPage.getNumber());
-        response.put("size", prescriptionPage.getSize());
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ListPage.of(prescriptionPage));
+    }
+
+    /**
+     * Get prescriptions with keyset pagination (newest first)
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<PrescriptionListItem>> getPrescriptionsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        PrescriptionStatus prescriptionStatus = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                prescriptionStatus = PrescriptionStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid status: {}", status);
+            }
+        }
+
+        LocalDate filterDate = null;
+        if (date != null && !date.isEmpty()) {
+            try {
+                filterDate = LocalDate.parse(date);
+            } catch (Exception e) {
+                log.warn("Invalid date format: {}", date);
+            }
+        }
+
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<PrescriptionListItem> rows = prescriptionRepository.findWithFiltersBefore(
+                doctorId, hospitalId, prescriptionStatus, filterDate, position.date(), position.id(), CursorCodec.limit(size));
+        Long total = includeTotal
+                ? prescriptionRepository.countWithFilters(doctorId, hospitalId, prescriptionStatus, filterDate)
+                : null;
+
+        return ResponseEntity.ok(CursorPage.of(rows, CursorCodec.pageSize(size),
+                p -> CursorCodec.encode(p.prescriptionDate(), p.id()), total));
     }
 
     /**
@@ -107,44 +148,30 @@ public class PrescriptionController {
      * Get prescriptions by doctor
      */
     @GetMapping("/doctor/{doctorId}")
-    public ResponseEntity<Map<String, Object>> getPrescriptionsByDoctor(
+    public ResponseEntity<ListPage<PrescriptionListItem>> getPrescriptionsByDoctor(
             @PathVariable Long doctorId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         log.info("Fetching prescriptions for doctor: {}", doctorId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("prescriptionDate").descending());
-        Page<Prescription> prescriptionPage = prescriptionRepository.findByDoctorIdOrderByPrescriptionDateDesc(doctorId, pageable);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", prescriptionPage.getContent());
-        response.put("totalElements", prescriptionPage.getTotalElements());
-        response.put("totalPages", prescriptionPage.getTotalPages());
-        response.put("currentPage", prescriptionPage.getNumber());
-        
-        return ResponseEntity.ok(response);
+        Page<PrescriptionListItem> prescriptionPage = prescriptionRepository.findListItemsByDoctorId(doctorId, pageable);
+        return ResponseEntity.ok(ListPage.of(prescriptionPage));
     }
 
     /**
      * Get prescriptions by patient
      */
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<Map<String, Object>> getPrescriptionsByPatient(
+    public ResponseEntity<ListPage<PrescriptionListItem>> getPrescriptionsByPatient(
             @PathVariable Long patientId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         log.info("Fetching prescriptions for patient: {}", patientId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("prescriptionDate").descending());
-        Page<Prescription> prescriptionPage = prescriptionRepository.findByPatientIdOrderByPrescriptionDateDesc(patientId, pageable);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", prescriptionPage.getContent());
-        response.put("totalElements", prescriptionPage.getTotalElements());
-        response.put("totalPages", prescriptionPage.getTotalPages());
-        response.put("currentPage", prescriptionPage.getNumber());
-        
-        return ResponseEntity.ok(response);
+        Page<PrescriptionListItem> prescriptionPage = prescriptionRepository.findListItemsByPatientId(patientId, pageable);
+        return ResponseEntity.ok(ListPage.of(prescriptionPage));
     }
 
     /**
@@ -156,9 +183,11 @@ public class PrescriptionController {
         
         // Generate prescription number
         if (prescription.getPrescriptionNumber() == null || prescription.getPrescriptionNumber().isEmpty()) {
-            String prefix = "RX-" + Year.now().getValue() + "-";
-            long count = prescriptionRepository.count();
-            prescription.setPrescriptionNumber(prefix + String.format("%05d", count + 1));
+            String year = String.valueOf(Year.now().getValue());
+            String prefix = "RX-" + year + "-";
+            long next = sequenceService.next("RX", SequenceService.GLOBAL_SCOPE, year,
+                    () -> SequenceService.orZero(prescriptionRepository.findMaxPrescriptionNumber(prefix)));
+            prescription.setPrescriptionNumber(prefix + String.format("%05d", next));
         }
         
         if (prescription.getPrescriptionDate() == null) {
@@ -0,0 +1,37 @@
+package com.hospital.hms.doctor.dto;
+
+import com.hospital.hms.common.dto.FieldCatalog;
+
+/**
+ * Fields of {@link DoctorListItem} that doctor lists can return sparsely
+ */
+public final class DoctorFields {
+
+    public static final FieldCatalog CATALOG = new FieldCatalog("Doctor")
+            .field("employeeId")
+            .field("title")
+            .field("firstName")
+            .field("lastName")
+            .field("displayName")
+            .field("mobileNumber")
+            .field("email")
+            .field("registrationNumber")
+            .field("primarySpecialization")
+            .field("qualifications")
+            .field("experienceYears")
+            .field("bio")
+            .field("primaryHospitalId")
+            .field("opdConsultationFee")
+            .field("followUpFee")
+            .field("teleconsultationFee")
+            .field("acceptsOnlineBooking")
+            .field("teleconsultationEnabled")
+            .field("profileImageUrl")
+            .field("isOnLeave")
+            .field("isActive")
+            .view("summary", "displayName", "primarySpecialization", "qualifications", "experienceYears",
+                    "opdConsultationFee", "isOnLeave");
+
+    private DoctorFields() {
+    }
+}
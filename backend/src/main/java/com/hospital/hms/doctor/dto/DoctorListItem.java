@@ -0,0 +1,31 @@
+package com.hospital.hms.doctor.dto;
+
+import com.hospital.hms.common.enums.Specialization;
+
+/**
+ * Doctor row for list views and dropdowns (profile, fees, availability flags)
+ */
+public record DoctorListItem(
+        Long id,
+        String employeeId,
+        String title,
+        String firstName,
+        String lastName,
+        String displayName,
+        String mobileNumber,
+        String email,
+        String registrationNumber,
+        Specialization primarySpecialization,
+        String qualifications,
+        Integer experienceYears,
+        String bio,
+        Long primaryHospitalId,
+        Double opdConsultationFee,
+        Double followUpFee,
+        Double teleconsultationFee,
+        Boolean acceptsOnlineBooking,
+        Boolean teleconsultationEnabled,
+        String profileImageUrl,
+        Boolean isOnLeave,
+        Boolean isActive) {
+}
@@ -0,0 +1,31 @@
+package com.hospital.hms.doctor.dto;
+
+import com.hospital.hms.common.enums.PrescriptionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Prescription row for list views; medicines, vitals and clinical notes are only on the detail endpoint
+ */
+public record PrescriptionListItem(
+        Long id,
+        String prescriptionNumber,
+        Long hospitalId,
+        Long patientId,
+        String patientName,
+        String patientAge,
+        String patientGender,
+        Long doctorId,
+        String doctorName,
+        Long appointmentId,
+        LocalDate prescriptionDate,
+        LocalDate validUntil,
+        PrescriptionStatus status,
+        String chiefComplaint,
+        String diagnosis,
+        String advice,
+        LocalDate followUpDate,
+        String followUpNotes,
+        LocalDateTime createdAt) {
+}
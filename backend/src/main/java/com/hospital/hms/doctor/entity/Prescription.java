@@ -18,7 +18,9 @@ import java.util.List;
         @Index(name = "idx_rx_patient", columnList = "patient_id"),
         @Index(name = "idx_rx_doctor", columnList = "doctor_id"),
         @Index(name = "idx_rx_appointment", columnList = "appointment_id"),
-        @Index(name = "idx_rx_date", columnList = "prescription_date")
+        @Index(name = "idx_rx_date", columnList = "prescription_date"),
+        @Index(name = "idx_rx_date_id", columnList = "prescription_date, id"),
+        @Index(name = "idx_rx_doctor_date_id", columnList = "doctor_id, prescription_date, id")
 })
 @Getter
 @Setter
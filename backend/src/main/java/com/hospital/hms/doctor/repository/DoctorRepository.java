@@ -1,9 +1,11 @@
 package com.hospital.hms.doctor.repository;
 
 import com.hospital.hms.common.enums.Specialization;
+import com.hospital.hms.doctor.dto.DoctorListItem;
 import com.hospital.hms.doctor.entity.Doctor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +17,26 @@ import java.util.Optional;
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
+    // List views select only the displayed columns into DoctorListItem; schedules and audit fields stay unloaded
+    String LIST_ITEM = "SELECT new com.hospital.hms.doctor.dto.DoctorListItem(" +
+            "d.id, d.employeeId, d.title, d.firstName, d.lastName, d.displayName, d.mobileNumber, d.email, " +
+            "d.registrationNumber, d.primarySpecialization, d.qualifications, d.experienceYears, d.bio, " +
+            "d.primaryHospitalId, d.opdConsultationFee, d.followUpFee, d.teleconsultationFee, " +
+            "d.acceptsOnlineBooking, d.teleconsultationEnabled, d.profileImageUrl, d.isOnLeave, d.isActive) " +
+            "FROM Doctor d ";
+
+    String ACTIVE_FILTERS = "WHERE d.isActive = true AND d.isDeleted = false " +
+            "AND (:specialization IS NULL OR d.primarySpecialization = :specialization) " +
+            "AND (:hospitalId IS NULL OR d.primaryHospitalId = :hospitalId) ";
+
+    String PATTERN_FILTER = "AND (:pattern IS NULL OR LOWER(d.firstName) LIKE :pattern " +
+            "OR LOWER(d.lastName) LIKE :pattern OR LOWER(d.employeeId) LIKE :pattern)";
+
+    String NAME_SEARCH = "WHERE d.isActive = true AND d.isDeleted = false " +
+            "AND (LOWER(d.firstName) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR LOWER(d.lastName) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR LOWER(d.displayName) LIKE LOWER(CONCAT('%', :query, '%')))";
+
     List<Doctor> findByIsActiveTrue();
 
     List<Doctor> findByIsActiveTrueAndIsDeletedFalse();
@@ -31,6 +53,8 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
     List<Doctor> findByPrimaryHospitalIdAndIsActiveTrue(Long hospitalId);
 
+    List<Doctor> findByPrimaryHospitalIdAndPrimaryDepartmentIdAndIsActiveTrue(Long hospitalId, Long departmentId);
+
     @Query("SELECT d FROM Doctor d WHERE d.isActive = true AND d.isDeleted = false " +
            "AND (:specialization IS NULL OR d.primarySpecialization = :specialization) " +
            "AND (:hospitalId IS NULL OR d.primaryHospitalId = :hospitalId)")
@@ -43,6 +67,24 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
            "OR LOWER(d.displayName) LIKE LOWER(CONCAT('%', :query, '%')))")
     List<Doctor> searchByName(@Param("query") String query);
 
+    /**
+     * Paged doctor list; {@code pattern} is a lower-cased LIKE pattern matched against name and employee ID
+     */
+    @Query(value = LIST_ITEM + ACTIVE_FILTERS + PATTERN_FILTER,
+           countQuery = "SELECT COUNT(d) FROM Doctor d " + ACTIVE_FILTERS + PATTERN_FILTER)
+    Page<DoctorListItem> findListItems(@Param("specialization") Specialization specialization,
+                                       @Param("hospitalId") Long hospitalId,
+                                       @Param("pattern") String pattern,
+                                       Pageable pageable);
+
+    @Query(LIST_ITEM + ACTIVE_FILTERS)
+    List<DoctorListItem> findListItems(@Param("specialization") Specialization specialization,
+                                       @Param("hospitalId") Long hospitalId,
+                                       Sort sort);
+
+    @Query(LIST_ITEM + NAME_SEARCH)
+    List<DoctorListItem> searchListItemsByName(@Param("query") String query);
+
     @Query("SELECT COUNT(d) FROM Doctor d WHERE d.isActive = true AND d.isDeleted = false")
     long countActiveDoctors();
 
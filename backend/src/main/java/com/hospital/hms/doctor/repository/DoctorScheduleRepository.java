@@ -0,0 +1,17 @@
+package com.hospital.hms.doctor.repository;
+
+import com.hospital.hms.doctor.entity.DoctorSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DoctorScheduleRepository extends JpaRepository<DoctorSchedule, Long> {
+
+    @Query("SELECT s FROM DoctorSchedule s WHERE s.doctor.id = :doctorId AND s.isActive = true AND s.isDeleted = false " +
+           "ORDER BY s.startTime")
+    List<DoctorSchedule> findActiveByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -1,6 +1,8 @@
 package com.hospital.hms.doctor.repository;
 
 import com.hospital.hms.common.enums.PrescriptionStatus;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.doctor.dto.PrescriptionListItem;
 import com.hospital.hms.doctor.entity.Prescription;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,11 +18,31 @@ import java.util.Optional;
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
 
+    // List views select only the displayed columns into PrescriptionListItem; medicines and vitals stay unloaded
+    String LIST_ITEM = "SELECT new com.hospital.hms.doctor.dto.PrescriptionListItem(" +
+            "p.id, p.prescriptionNumber, p.hospitalId, p.patientId, p.patientName, p.patientAge, p.patientGender, " +
+            "p.doctorId, p.doctorName, p.appointmentId, p.prescriptionDate, p.validUntil, p.status, " +
+            "p.chiefComplaint, p.diagnosis, p.advice, p.followUpDate, p.followUpNotes, p.createdAt) " +
+            "FROM Prescription p ";
+
     Optional<Prescription> findByPrescriptionNumber(String prescriptionNumber);
 
-    Page<Prescription> findByDoctorIdOrderByPrescriptionDateDesc(Long doctorId, Pageable pageable);
+    @Query(value = LIST_ITEM + "WHERE p.doctorId = :doctorId",
+           countQuery = "SELECT COUNT(p) FROM Prescription p WHERE p.doctorId = :doctorId")
+    Page<PrescriptionListItem> findListItemsByDoctorId(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    @Query(value = LIST_ITEM + "WHERE p.patientId = :patientId",
+           countQuery = "SELECT COUNT(p) FROM Prescription p WHERE p.patientId = :patientId")
+    Page<PrescriptionListItem> findListItemsByPatientId(@Param("patientId") Long patientId, Pageable pageable);
 
-    Page<Prescription> findByPatientIdOrderByPrescriptionDateDesc(Long patientId, Pageable pageable);
+    @Query(LIST_ITEM + "WHERE p.patientId = :patientId AND p.isDeleted = false " +
+           "AND (p.prescriptionDate < :cursorDate OR (p.prescriptionDate = :cursorDate AND p.id < :cursorId)) " +
+           "ORDER BY p.prescriptionDate DESC, p.id DESC")
+    List<PrescriptionListItem> findByPatientIdBefore(
+            @Param("patientId") Long patientId,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
 
     Page<Prescription> findByHospitalIdOrderByPrescriptionDateDesc(Long hospitalId, Pageable pageable);
 
@@ -28,21 +50,25 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
 
     List<Prescription> findByPatientIdAndStatus(Long patientId, PrescriptionStatus status);
 
-    @Query("SELECT p FROM Prescription p WHERE p.doctorId = :doctorId " +
+    @Query(value = LIST_ITEM + "WHERE p.doctorId = :doctorId " +
            "AND (:status IS NULL OR p.status = :status) " +
-           "AND (:date IS NULL OR p.prescriptionDate = :date) " +
-           "ORDER BY p.prescriptionDate DESC")
-    Page<Prescription> findByDoctorIdWithFilters(
+           "AND (:date IS NULL OR p.prescriptionDate = :date)",
+           countQuery = "SELECT COUNT(p) FROM Prescription p WHERE p.doctorId = :doctorId " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:date IS NULL OR p.prescriptionDate = :date)")
+    Page<PrescriptionListItem> findByDoctorIdWithFilters(
             @Param("doctorId") Long doctorId,
             @Param("status") PrescriptionStatus status,
             @Param("date") LocalDate date,
             Pageable pageable);
 
-    @Query("SELECT p FROM Prescription p WHERE " +
+    @Query(value = LIST_ITEM + "WHERE " +
            "(:hospitalId IS NULL OR p.hospitalId = :hospitalId) " +
-           "AND (:status IS NULL OR p.status = :status) " +
-           "ORDER BY p.prescriptionDate DESC")
-    Page<Prescription> findWithFilters(
+           "AND (:status IS NULL OR p.status = :status)",
+           countQuery = "SELECT COUNT(p) FROM Prescription p WHERE " +
+           "(:hospitalId IS NULL OR p.hospitalId = :hospitalId) " +
+           "AND (:status IS NULL OR p.status = :status)")
+    Page<PrescriptionListItem> findWithFilters(
             @Param("hospitalId") Long hospitalId,
             @Param("status") PrescriptionStatus status,
             Pageable pageable);
@@ -52,4 +78,39 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
 
     @Query("SELECT COUNT(p) FROM Prescription p WHERE p.hospitalId = :hospitalId AND p.prescriptionDate = :date")
     long countByHospitalAndDate(@Param("hospitalId") Long hospitalId, @Param("date") LocalDate date);
+
+    // Sequence seeding: compared as numbers, so values past the fixed width still count as the highest;
+    // numbers with a non-numeric suffix are skipped
+    @Query("SELECT MAX(CAST(SUBSTRING(p.prescriptionNumber, LENGTH(:prefix) + 1) AS Long)) FROM Prescription p " +
+            "WHERE p.prescriptionNumber LIKE CONCAT(:prefix, '_%') AND " + SequenceService.STRIP_DIGITS +
+            "SUBSTRING(p.prescriptionNumber, LENGTH(:prefix) + 1)" + SequenceService.STRIP_DIGITS_END + " = ''")
+    Long findMaxPrescriptionNumber(@Param("prefix") String prefix);
+
+    // Keyset pagination - seeks past (cursorDate, cursorId) instead of OFFSET, newest first
+    @Query(LIST_ITEM + "WHERE " +
+           "(:doctorId IS NULL OR p.doctorId = :doctorId) " +
+           "AND (:hospitalId IS NULL OR p.hospitalId = :hospitalId) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:date IS NULL OR p.prescriptionDate = :date) " +
+           "AND (p.prescriptionDate < :cursorDate OR (p.prescriptionDate = :cursorDate AND p.id < :cursorId)) " +
+           "ORDER BY p.prescriptionDate DESC, p.id DESC")
+    List<PrescriptionListItem> findWithFiltersBefore(
+            @Param("doctorId") Long doctorId,
+            @Param("hospitalId") Long hospitalId,
+            @Param("status") PrescriptionStatus status,
+            @Param("date") LocalDate date,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query("SELECT COUNT(p) FROM Prescription p WHERE " +
+           "(:doctorId IS NULL OR p.doctorId = :doctorId) " +
+           "AND (:hospitalId IS NULL OR p.hospitalId = :hospitalId) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (:date IS NULL OR p.prescriptionDate = :date)")
+    long countWithFilters(
+            @Param("doctorId") Long doctorId,
+            @Param("hospitalId") Long hospitalId,
+            @Param("status") PrescriptionStatus status,
+            @Param("date") LocalDate date);
 }
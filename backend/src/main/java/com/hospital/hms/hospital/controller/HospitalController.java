@@ -1,5 +1,7 @@
 package com.hospital.hms.hospital.controller;
 
+import com.hospital.hms.common.dto.ListPage;
+import com.hospital.hms.hospital.dto.HospitalListItem;
 import com.hospital.hms.hospital.entity.Hospital;
 import com.hospital.hms.hospital.repository.HospitalRepository;
 import lombok.RequiredArgsConstructor;
@@ -28,7 +30,7 @@ public class HospitalController {
      * Get all active hospitals with pagination
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllHospitals(
+    public ResponseEntity<ListPage<HospitalListItem>> getAllHospitals(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "100") int size,
             @RequestParam(defaultValue = "name") String sortBy,
@@ -41,25 +43,18 @@ public class HospitalController {
             : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Hospital> hospitalPage = hospitalRepository.findByIsActiveTrueAndIsDeletedFalse(pageable);
+        Page<HospitalListItem> hospitalPage = hospitalRepository.findActiveListItems(pageable);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", hospitalPage.getContent());
-        response.put("totalElements", hospitalPage.getTotalElements());
-        response.put("totalPages", hospitalPage.getTotalPages());
-        response.put("currentPage", hospitalPage.getNumber());
-        response.put("size", hospitalPage.getSize());
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ListPage.of(hospitalPage));
     }
 
     /**
      * Get all hospitals as a simple list
      */
     @GetMapping("/list")
-    public ResponseEntity<List<Hospital>> getHospitalList() {
+    public ResponseEntity<List<HospitalListItem>> getHospitalList() {
         log.info("Fetching hospital list");
-        List<Hospital> hospitals = hospitalRepository.findByIsActiveTrueAndIsDeletedFalse();
+        List<HospitalListItem> hospitals = hospitalRepository.findActiveListItems(Sort.by("name"));
         return ResponseEntity.ok(hospitals);
     }
 
@@ -89,9 +84,9 @@ public class HospitalController {
      * Get all main hospitals (not branches)
      */
     @GetMapping("/main")
-    public ResponseEntity<List<Hospital>> getMainHospitals() {
+    public ResponseEntity<List<HospitalListItem>> getMainHospitals() {
         log.info("Fetching main hospitals");
-        List<Hospital> hospitals = hospitalRepository.findAllMainHospitals();
+        List<HospitalListItem> hospitals = hospitalRepository.findMainHospitalListItems(Sort.by("name"));
         return ResponseEntity.ok(hospitals);
     }
 
@@ -99,9 +94,9 @@ public class HospitalController {
      * Get branches of a hospital
      */
     @GetMapping("/{id}/branches")
-    public ResponseEntity<List<Hospital>> getHospitalBranches(@PathVariable Long id) {
+    public ResponseEntity<List<HospitalListItem>> getHospitalBranches(@PathVariable Long id) {
         log.info("Fetching branches for hospital: {}", id);
-        List<Hospital> branches = hospitalRepository.findBranchesByParentId(id);
+        List<HospitalListItem> branches = hospitalRepository.findBranchListItems(id, Sort.by("name"));
         return ResponseEntity.ok(branches);
     }
 
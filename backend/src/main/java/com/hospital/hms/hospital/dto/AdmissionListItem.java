@@ -0,0 +1,29 @@
+package com.hospital.hms.hospital.dto;
+
+import com.hospital.hms.common.enums.AdmissionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Admission row for list views; billing, insurance, MLC and discharge notes are only on the admission itself
+ */
+public record AdmissionListItem(
+        Long id,
+        String admissionNumber,
+        Long hospitalId,
+        Long patientId,
+        AdmissionStatus status,
+        LocalDateTime admissionDate,
+        LocalDate expectedDischargeDate,
+        LocalDateTime actualDischargeDate,
+        String admissionType,
+        String departmentName,
+        String wardName,
+        String bedNumber,
+        String primaryDoctorName,
+        String chiefComplaint,
+        String provisionalDiagnosis,
+        String finalDiagnosis,
+        String dischargeType) {
+}
@@ -0,0 +1,25 @@
+package com.hospital.hms.hospital.dto;
+
+/**
+ * Hospital row for list views and dropdowns; banking, tax and branding details are only on the detail endpoint
+ */
+public record HospitalListItem(
+        Long id,
+        String hospitalCode,
+        String name,
+        String shortName,
+        String hospitalType,
+        String city,
+        String district,
+        String state,
+        String pincode,
+        String phone,
+        String email,
+        String logoUrl,
+        Boolean isBranch,
+        Long parentHospitalId,
+        Integer totalBeds,
+        Boolean emergencyEnabled,
+        Boolean teleconsultationEnabled,
+        Boolean isActive) {
+}
@@ -0,0 +1,34 @@
+package com.hospital.hms.hospital.repository;
+
+import com.hospital.hms.hospital.dto.AdmissionListItem;
+import com.hospital.hms.hospital.entity.Admission;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AdmissionRepository extends JpaRepository<Admission, Long> {
+
+    // List views select only the displayed columns into AdmissionListItem
+    String LIST_ITEM = "SELECT new com.hospital.hms.hospital.dto.AdmissionListItem(" +
+            "a.id, a.admissionNumber, a.hospitalId, a.patientId, a.status, a.admissionDate, " +
+            "a.expectedDischargeDate, a.actualDischargeDate, a.admissionType, a.departmentName, a.wardName, " +
+            "a.bedNumber, a.primaryDoctorName, a.chiefComplaint, a.provisionalDiagnosis, a.finalDiagnosis, " +
+            "a.dischargeType) " +
+            "FROM Admission a ";
+
+    // Keyset pagination - seeks past (cursorAt, cursorId) instead of OFFSET, newest first
+    @Query(LIST_ITEM + "WHERE a.patientId = :patientId AND a.isDeleted = false " +
+           "AND (a.admissionDate < :cursorAt OR (a.admissionDate = :cursorAt AND a.id < :cursorId)) " +
+           "ORDER BY a.admissionDate DESC, a.id DESC")
+    List<AdmissionListItem> findByPatientIdBefore(
+            @Param("patientId") Long patientId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+}
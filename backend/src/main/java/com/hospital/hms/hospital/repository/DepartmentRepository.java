@@ -0,0 +1,11 @@
+package com.hospital.hms.hospital.repository;
+
+import com.hospital.hms.hospital.entity.Department;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DepartmentRepository extends JpaRepository<Department, Long> {
+
+    boolean existsByIdAndHospitalIdAndIsActiveTrueAndIsDeletedFalse(Long id, Long hospitalId);
+}
@@ -1,10 +1,13 @@
 package com.hospital.hms.hospital.repository;
 
+import com.hospital.hms.hospital.dto.HospitalListItem;
 import com.hospital.hms.hospital.entity.Hospital;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +16,13 @@ import java.util.Optional;
 @Repository
 public interface HospitalRepository extends JpaRepository<Hospital, Long> {
 
+    // List views select only the displayed columns into HospitalListItem; parent id is read from the FK column
+    String LIST_ITEM = "SELECT new com.hospital.hms.hospital.dto.HospitalListItem(" +
+            "h.id, h.hospitalCode, h.name, h.shortName, h.hospitalType, h.city, h.district, h.state, h.pincode, " +
+            "h.phone, h.email, h.logoUrl, h.isBranch, h.parentHospital.id, h.totalBeds, h.emergencyEnabled, " +
+            "h.teleconsultationEnabled, h.isActive) " +
+            "FROM Hospital h ";
+
     List<Hospital> findByIsActiveTrue();
 
     List<Hospital> findByIsActiveTrueAndIsDeletedFalse();
@@ -29,6 +39,19 @@ public interface HospitalRepository extends JpaRepository<Hospital, Long> {
     @Query("SELECT h FROM Hospital h WHERE h.parentHospital.id = :parentId AND h.isActive = true")
     List<Hospital> findBranchesByParentId(Long parentId);
 
+    @Query(value = LIST_ITEM + "WHERE h.isActive = true AND h.isDeleted = false",
+           countQuery = "SELECT COUNT(h) FROM Hospital h WHERE h.isActive = true AND h.isDeleted = false")
+    Page<HospitalListItem> findActiveListItems(Pageable pageable);
+
+    @Query(LIST_ITEM + "WHERE h.isActive = true AND h.isDeleted = false")
+    List<HospitalListItem> findActiveListItems(Sort sort);
+
+    @Query(LIST_ITEM + "WHERE h.isActive = true AND h.isDeleted = false AND h.isBranch = false")
+    List<HospitalListItem> findMainHospitalListItems(Sort sort);
+
+    @Query(LIST_ITEM + "WHERE h.parentHospital.id = :parentId AND h.isActive = true")
+    List<HospitalListItem> findBranchListItems(@Param("parentId") Long parentId, Sort sort);
+
     @Query("SELECT COUNT(h) FROM Hospital h WHERE h.isActive = true AND h.isDeleted = false")
     long countActiveHospitals();
 }
@@ -0,0 +1,28 @@
+package com.hospital.hms.lab.dto;
+
+import com.hospital.hms.common.enums.TestStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lab order row for list views; ordered tests and results are only on the order itself
+ */
+public record LabOrderListItem(
+        Long id,
+        String orderNumber,
+        Long hospitalId,
+        Long patientId,
+        Long orderedByDoctorId,
+        String orderedByDoctorName,
+        Long appointmentId,
+        Long prescriptionId,
+        TestStatus status,
+        LocalDateTime orderDate,
+        String priority,
+        Boolean isEmergency,
+        LocalDateTime verifiedAt,
+        BigDecimal netAmount,
+        Boolean isPaid,
+        String reportPdfUrl) {
+}
@@ -0,0 +1,33 @@
+package com.hospital.hms.lab.repository;
+
+import com.hospital.hms.lab.dto.LabOrderListItem;
+import com.hospital.hms.lab.entity.LabOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LabOrderRepository extends JpaRepository<LabOrder, Long> {
+
+    // List views select only the displayed columns into LabOrderListItem; ordered tests stay unloaded
+    String LIST_ITEM = "SELECT new com.hospital.hms.lab.dto.LabOrderListItem(" +
+            "o.id, o.orderNumber, o.hospitalId, o.patientId, o.orderedByDoctorId, o.orderedByDoctorName, " +
+            "o.appointmentId, o.prescriptionId, o.status, o.orderDate, o.priority, o.isEmergency, o.verifiedAt, " +
+            "o.netAmount, o.isPaid, o.reportPdfUrl) " +
+            "FROM LabOrder o ";
+
+    // Keyset pagination - seeks past (cursorAt, cursorId) instead of OFFSET, newest first
+    @Query(LIST_ITEM + "WHERE o.patientId = :patientId AND o.isDeleted = false " +
+           "AND (o.orderDate < :cursorAt OR (o.orderDate = :cursorAt AND o.id < :cursorId)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<LabOrderListItem> findByPatientIdBefore(
+            @Param("patientId") Long patientId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+}
@@ -0,0 +1,54 @@
+package com.hospital.hms.notification.entity;
+
+import com.hospital.hms.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the appointment reminder job for one appointment date.
+ * Advanced in the same transaction as each chunk of notifications, so a crashed run resumes after the last
+ * committed chunk instead of starting over.
+ */
+@Entity
+@Table(name = "reminder_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reminder_run_date", columnNames = {"target_date"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReminderRun extends BaseEntity {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    // Appointment date the reminders are for
+    @Column(name = "target_date", nullable = false)
+    private LocalDate targetDate;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    // Keyset cursor: highest appointment id already handled
+    @Column(name = "last_appointment_id", nullable = false)
+    @Builder.Default
+    private Long lastAppointmentId = 0L;
+
+    @Column(name = "appointments_processed", nullable = false)
+    @Builder.Default
+    private Integer appointmentsProcessed = 0;
+
+    @Column(name = "notifications_created", nullable = false)
+    @Builder.Default
+    private Integer notificationsCreated = 0;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
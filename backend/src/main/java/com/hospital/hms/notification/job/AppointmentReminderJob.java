@@ -0,0 +1,45 @@
+package com.hospital.hms.notification.job;
+
+import com.hospital.hms.notification.service.AppointmentReminderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Nightly Quartz job that queues reminders for the next day's appointments.
+ *
+ * The target date comes from the scheduled fire time, not the wall clock, so a misfired or recovered
+ * execution that starts after midnight still reminds the day it was meant for. Instances are created and
+ * autowired by Spring's job factory on each execution.
+ */
+@Slf4j
+@DisallowConcurrentExecution
+@RequiredArgsConstructor
+public class AppointmentReminderJob extends QuartzJobBean {
+
+    private final AppointmentReminderService reminderService;
+
+    @Value("${app.reminder.time-zone:Asia/Kolkata}")
+    private String timeZone;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        LocalDate target = context.getScheduledFireTime().toInstant()
+                .atZone(ZoneId.of(timeZone))
+                .toLocalDate()
+                .plusDays(1);
+        try {
+            reminderService.sendReminders(target);
+        } catch (RuntimeException e) {
+            log.error("Appointment reminder run for {} failed: {}", target, e.getMessage(), e);
+            throw new JobExecutionException(e, false);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.hospital.hms.notification.repository;
+
+import com.hospital.hms.notification.entity.ReminderRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface ReminderRunRepository extends JpaRepository<ReminderRun, Long> {
+
+    Optional<ReminderRun> findByTargetDate(LocalDate targetDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReminderRun r WHERE r.id = :id")
+    Optional<ReminderRun> findForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,95 @@
+package com.hospital.hms.notification.service;
+
+import com.hospital.hms.appointment.dto.ReminderCandidate;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.notification.entity.ReminderRun;
+import com.hospital.hms.notification.repository.ReminderRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Creates reminder notifications for every SCHEDULED appointment on a date.
+ *
+ * Appointments are streamed in keyset chunks (id > cursor) so memory stays flat regardless of volume, and
+ * each chunk is committed together with the run cursor by {@link ReminderChunkWriter}. Re-running for the
+ * same date continues after the last committed chunk and is a no-op once the run is complete.
+ */
+@Slf4j
+@Service
+public class AppointmentReminderService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderRunRepository runRepository;
+    private final ReminderChunkWriter chunkWriter;
+    private final int chunkSize;
+
+    public AppointmentReminderService(AppointmentRepository appointmentRepository,
+                                      ReminderRunRepository runRepository,
+                                      ReminderChunkWriter chunkWriter,
+                                      @Value("${app.reminder.chunk-size:500}") int chunkSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.runRepository = runRepository;
+        this.chunkWriter = chunkWriter;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Send (or finish sending) reminders for appointments on {@code date}
+     */
+    public ReminderRun sendReminders(LocalDate date) {
+        ReminderRun run = startOrResume(date);
+        if (ReminderRun.STATUS_COMPLETED.equals(run.getStatus())) {
+            log.info("Reminders for {} already sent ({} notifications)", date, run.getNotificationsCreated());
+            return run;
+        }
+        if (run.getLastAppointmentId() > 0) {
+            log.info("Resuming reminders for {} after appointment {}", date, run.getLastAppointmentId());
+        }
+
+        long cursor = run.getLastAppointmentId();
+        int created = 0;
+        while (true) {
+            List<ReminderCandidate> chunk = appointmentRepository.findReminderCandidates(
+                    date, AppointmentStatus.SCHEDULED, cursor, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            created += chunkWriter.write(run.getId(), chunk);
+            cursor = chunk.get(chunk.size() - 1).appointmentId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        ReminderRun finished = runRepository.findById(run.getId()).orElse(run);
+        finished.setStatus(ReminderRun.STATUS_COMPLETED);
+        finished.setCompletedAt(LocalDateTime.now());
+        finished = runRepository.save(finished);
+        log.info("Created {} appointment reminders for {} ({} in total)", created, date,
+                finished.getNotificationsCreated());
+        return finished;
+    }
+
+    private ReminderRun startOrResume(LocalDate date) {
+        return runRepository.findByTargetDate(date).orElseGet(() -> {
+            try {
+                return runRepository.saveAndFlush(ReminderRun.builder()
+                        .targetDate(date)
+                        .status(ReminderRun.STATUS_RUNNING)
+                        .startedAt(LocalDateTime.now())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the run first
+                return runRepository.findByTargetDate(date).orElseThrow(() -> e);
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.hospital.hms.notification.service;
+
+import com.hospital.hms.appointment.dto.ReminderCandidate;
+import com.hospital.hms.common.enums.NotificationType;
+import com.hospital.hms.notification.entity.ReminderRun;
+import com.hospital.hms.notification.repository.ReminderRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes one chunk of appointment reminders.
+ *
+ * Notifications are inserted with JDBC batching (IDENTITY ids rule out Hibernate insert batching), the
+ * appointments are flagged as reminded and the run cursor is advanced, all in one transaction of its own:
+ * a chunk is either fully recorded or not at all, so a resumed run never sends a reminder twice.
+ */
+@Slf4j
+@Component
+public class ReminderChunkWriter {
+
+    private static final String AUDITOR = "SYSTEM";
+
+    private static final String INSERT_SQL = "INSERT INTO notifications (" +
+            "patient_id, hospital_id, notification_type, title, message, reference_type, reference_id, " +
+            "send_push, send_sms, send_email, send_whatsapp, is_read, is_sent, sms_sent, email_sent, whatsapp_sent, " +
+            "priority, scheduled_for, recipient_mobile, created_at, updated_at, created_by, updated_by, " +
+            "is_active, is_deleted, version" +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Version is bumped so a stale entity saved later fails instead of clearing the flag
+    private static final String MARK_SENT_SQL = "UPDATE appointments SET reminder_sent = TRUE, reminder_sent_at = ?, " +
+            "updated_at = ?, updated_by = ?, version = version + 1 WHERE id = ?";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a");
+
+    private final ReminderRunRepository runRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ReminderChunkWriter(ReminderRunRepository runRepository,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.runRepository = runRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Record reminders for {@code chunk} (ordered by appointment id) and move the run cursor past it.
+     *
+     * @return number of notifications created, 0 if the chunk was already recorded
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int write(Long runId, List<ReminderCandidate> chunk) {
+        ReminderRun run = runRepository.findForUpdate(runId)
+                .orElseThrow(() -> new IllegalStateException("Reminder run " + runId + " not found"));
+        long lastId = chunk.get(chunk.size() - 1).appointmentId();
+        if (run.getLastAppointmentId() >= lastId) {
+            log.debug("Reminder chunk up to appointment {} already recorded for {}", lastId, run.getTargetDate());
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, chunk, batchSize, (ps, c) -> bindNotification(ps, c, now));
+        jdbcTemplate.batchUpdate(MARK_SENT_SQL, chunk, batchSize, (ps, c) -> {
+            ps.setObject(1, now);
+            ps.setObject(2, now);
+            ps.setString(3, AUDITOR);
+            ps.setLong(4, c.appointmentId());
+        });
+
+        run.setLastAppointmentId(lastId);
+        run.setAppointmentsProcessed(run.getAppointmentsProcessed() + chunk.size());
+        run.setNotificationsCreated(run.getNotificationsCreated() + chunk.size());
+        runRepository.save(run);
+        return chunk.size();
+    }
+
+    private static void bindNotification(PreparedStatement ps, ReminderCandidate c, LocalDateTime now)
+            throws SQLException {
+        // Patients without a record booked as guests with this mobile, so SMS is allowed; WhatsApp needs opt-in
+        boolean sms = c.smsConsent() == null || c.smsConsent();
+        boolean whatsapp = Boolean.TRUE.equals(c.whatsappConsent());
+        Long patientId = c.patientId() != null && c.patientId() > 0 ? c.patientId() : null;
+
+        int p = 1;
+        if (patientId != null) {
+            ps.setLong(p++, patientId);
+        } else {
+            ps.setNull(p++, Types.BIGINT);
+        }
+        ps.setLong(p++, c.hospitalId());
+        ps.setString(p++, NotificationType.APPOINTMENT_REMINDER.name());
+        ps.setString(p++, NotificationType.APPOINTMENT_REMINDER.getDisplayName());
+        ps.setString(p++, message(c));
+        ps.setString(p++, "APPOINTMENT");
+        ps.setLong(p++, c.appointmentId());
+        ps.setBoolean(p++, patientId != null);
+        ps.setBoolean(p++, sms);
+        ps.setBoolean(p++, false);
+        ps.setBoolean(p++, whatsapp);
+        ps.setBoolean(p++, false);
+        ps.setBoolean(p++, false);
+        ps.setBoolean(p++, false);
+        ps.setBoolean(p++, false);
+        ps.setBoolean(p++, false);
+        ps.setInt(p++, 1);
+        ps.setObject(p++, now);
+        ps.setString(p++, c.patientMobile());
+        ps.setObject(p++, now);
+        ps.setObject(p++, now);
+        ps.setString(p++, AUDITOR);
+        ps.setString(p++, AUDITOR);
+        ps.setBoolean(p++, true);
+        ps.setBoolean(p++, false);
+        ps.setLong(p, 0L);
+    }
+
+    static String message(ReminderCandidate c) {
+        StringBuilder message = new StringBuilder("Dear ")
+                .append(c.patientName() != null ? c.patientName() : "Patient")
+                .append(", this is a reminder of your appointment");
+        if (c.doctorName() != null) {
+            message.append(" with ").append(c.doctorName());
+        }
+        message.append(" on ").append(c.appointmentDate().format(DATE_FORMAT));
+        if (c.slotStartTime() != null) {
+            message.append(" at ").append(c.slotStartTime().format(TIME_FORMAT));
+        }
+        if (c.tokenNumber() != null) {
+            message.append(" (Token ").append(c.tokenNumber()).append(")");
+        }
+        return message.append(". Please arrive 15 minutes early.").toString();
+    }
+}
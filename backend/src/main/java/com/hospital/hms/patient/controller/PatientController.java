@@ -2,22 +2,41 @@ package com.hospital.hms.patient.controller;
 
 import com.hospital.hms.common.dto.ApiResponse;
 import com.hospital.hms.common.dto.PageResponse;
+import com.hospital.hms.common.enums.UserRole;
+import com.hospital.hms.common.exception.ForbiddenException;
+import com.hospital.hms.patient.dto.AadhaarIndexBackfillReport;
+import com.hospital.hms.patient.dto.AadhaarLookupRequest;
+import com.hospital.hms.patient.dto.AadhaarReencryptionReport;
 import com.hospital.hms.patient.dto.CreatePatientRequest;
+import com.hospital.hms.patient.dto.DuplicateCandidateDto;
+import com.hospital.hms.patient.dto.DuplicateSweepReport;
 import com.hospital.hms.patient.dto.PatientDto;
+import com.hospital.hms.patient.dto.PatientImportJobDto;
+import com.hospital.hms.patient.dto.PatientTimelineDto;
+import com.hospital.hms.patient.service.AadhaarIndexBackfillService;
+import com.hospital.hms.patient.service.AadhaarReencryptionService;
+import com.hospital.hms.patient.service.PatientDuplicateService;
+import com.hospital.hms.patient.service.PatientImportService;
 import com.hospital.hms.patient.service.PatientService;
+import com.hospital.hms.patient.service.PatientTimelineService;
 import com.hospital.hms.security.jwt.UserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -27,6 +46,11 @@ import java.util.List;
 public class PatientController {
 
     private final PatientService patientService;
+    private final PatientDuplicateService duplicateService;
+    private final PatientImportService importService;
+    private final PatientTimelineService timelineService;
+    private final AadhaarIndexBackfillService aadhaarIndexBackfillService;
+    private final AadhaarReencryptionService aadhaarReencryptionService;
 
     @PostMapping
     @Operation(summary = "Register Patient", description = "Register a new patient")
@@ -35,25 +59,108 @@ public class PatientController {
             @Valid @RequestBody CreatePatientRequest request,
             @AuthenticationPrincipal UserPrincipal user) {
         Long hospitalId = request.getHospitalId() != null ? request.getHospitalId() : user.getHospitalId();
-        PatientDto patient = patientService.createPatient(request, hospitalId);
+        // Only the front desk may see duplicate candidates, so only its registrations are checked
+        boolean checkDuplicates = user.hasAnyRole(UserRole.RECEPTIONIST, UserRole.HOSPITAL_ADMIN, UserRole.SUPER_ADMIN);
+        PatientDto patient = patientService.createPatient(request, hospitalId, checkDuplicates);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Patient registered successfully", patient));
     }
 
+    @PostMapping("/duplicates/check")
+    @Operation(summary = "Check Duplicates", description = "Existing patients likely to be the same person as a registration")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<List<DuplicateCandidateDto>>> checkDuplicates(
+            @RequestBody CreatePatientRequest request) {
+        List<DuplicateCandidateDto> candidates = duplicateService.findLikelyDuplicates(request);
+        return ResponseEntity.ok(ApiResponse.success(candidates));
+    }
+
+    @PostMapping("/duplicates/sweep")
+    @Operation(summary = "Sweep Duplicates", description = "Find likely duplicate patients across the whole patient table")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<DuplicateSweepReport>> sweepDuplicates() {
+        return ResponseEntity.ok(ApiResponse.success(duplicateService.sweep()));
+    }
+
+    @PostMapping(value = "/imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Import Patients", description = "Start a bulk patient import from a CSV or XLSX file")
+    @PreAuthorize("hasAnyRole('HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<PatientImportJobDto>> importPatients(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long hospitalId,
+            @AuthenticationPrincipal UserPrincipal user) {
+        Long hId = hospitalId != null ? hospitalId : user.getHospitalId();
+        if (hId != null && !user.canAccessHospital(hId)) {
+            throw new ForbiddenException("You cannot import patients into this hospital");
+        }
+        PatientImportJobDto job = importService.start(file, hId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Patient import started", job));
+    }
+
+    @GetMapping("/imports")
+    @Operation(summary = "Recent Imports", description = "Most recent bulk patient imports of a hospital")
+    @PreAuthorize("hasAnyRole('HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<List<PatientImportJobDto>>> getImports(
+            @RequestParam(required = false) Long hospitalId,
+            @AuthenticationPrincipal UserPrincipal user) {
+        Long hId = hospitalId != null && user.canAccessHospital(hospitalId) ? hospitalId : user.getHospitalId();
+        return ResponseEntity.ok(ApiResponse.success(importService.recentJobs(hId)));
+    }
+
+    @GetMapping("/imports/{id}")
+    @Operation(summary = "Import Progress", description = "Progress of a bulk patient import")
+    @PreAuthorize("hasAnyRole('HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<PatientImportJobDto>> getImport(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.ok(ApiResponse.success(importService.getJob(id, hospitalScope(user))));
+    }
+
+    @PostMapping("/imports/{id}/resume")
+    @Operation(summary = "Resume Import", description = "Continue a failed import after its last committed chunk")
+    @PreAuthorize("hasAnyRole('HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<PatientImportJobDto>> resumeImport(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.ok(ApiResponse.success("Patient import resumed",
+                importService.resume(id, hospitalScope(user))));
+    }
+
+    @GetMapping("/imports/{id}/rejected")
+    @Operation(summary = "Rejected Rows", description = "CSV of the rows an import rejected, with the reasons")
+    @PreAuthorize("hasAnyRole('HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public void getRejectedRows(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal user,
+            HttpServletResponse response) throws IOException {
+        Long scope = hospitalScope(user);
+        PatientImportJobDto job = importService.getJob(id, scope);
+        response.setContentType("text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"patient-import-" + job.getId() + "-rejected.csv\"");
+        importService.copyRejectedRows(id, scope, response.getOutputStream());
+    }
+
     @GetMapping
-    @Operation(summary = "Get All Patients", description = "Get all patients with pagination")
+    @Operation(summary = "Get All Patients", description = "Get all patients with pagination; " +
+            "fields=summary, fields=full or fields=uhid,fullName,... returns only those fields")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'NURSE', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<ApiResponse<PageResponse<PatientDto>>> getAllPatients(
+    public ResponseEntity<ApiResponse<PageResponse<?>>> getAllPatients(
             @RequestParam(required = false) String query,
+            @RequestParam(required = false) String fields,
             @RequestHeader(value = "X-Hospital-Id", required = false) Long hospitalId,
             @AuthenticationPrincipal UserPrincipal user,
             @PageableDefault(size = 10) Pageable pageable) {
         Long hId = hospitalId != null ? hospitalId : (user != null ? user.getHospitalId() : null);
-        PageResponse<PatientDto> patients;
+        boolean sparse = fields != null && !fields.isBlank();
+        PageResponse<?> patients;
         if (query != null && !query.isEmpty()) {
-            patients = patientService.searchPatients(query, hId, pageable);
+            patients = sparse ? patientService.searchPatients(query, hId, pageable, fields)
+                    : patientService.searchPatients(query, hId, pageable);
         } else {
-            patients = patientService.getAllPatients(hId, pageable);
+            patients = sparse ? patientService.getAllPatients(hId, pageable, fields)
+                    : patientService.getAllPatients(hId, pageable);
         }
         return ResponseEntity.ok(ApiResponse.success(patients));
     }
@@ -66,6 +173,19 @@ public class PatientController {
         return ResponseEntity.ok(ApiResponse.success(patient));
     }
 
+    @GetMapping("/{id}/timeline")
+    @Operation(summary = "Get Patient Timeline", description = "Appointments, prescriptions, invoices, admissions " +
+            "and lab orders of a patient merged newest first; pass a section's nextCursor as cursor for more")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'NURSE', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<PatientTimelineDto>> getTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) List<String> sections,
+            @RequestParam(required = false) List<String> cursor,
+            @RequestParam(defaultValue = "10") int limit) {
+        PatientTimelineDto timeline = timelineService.getTimeline(id, sections, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(timeline));
+    }
+
     @GetMapping("/uhid/{uhid}")
     @Operation(summary = "Get Patient by UHID", description = "Get patient details by UHID")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'NURSE', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
@@ -82,6 +202,30 @@ public class PatientController {
         return ResponseEntity.ok(ApiResponse.success(patients));
     }
 
+    @PostMapping("/aadhaar/lookup")
+    @Operation(summary = "Get Patients by Aadhaar", description = "Patients with exactly this Aadhaar number")
+    @PreAuthorize("hasAnyRole('RECEPTIONIST', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<List<PatientDto>>> getPatientsByAadhaar(
+            @Valid @RequestBody AadhaarLookupRequest request,
+            @AuthenticationPrincipal UserPrincipal user) {
+        List<PatientDto> patients = patientService.getPatientsByAadhaar(request.getAadhaarNumber(), hospitalScope(user));
+        return ResponseEntity.ok(ApiResponse.success(patients));
+    }
+
+    @PostMapping("/aadhaar/backfill")
+    @Operation(summary = "Backfill Aadhaar Index", description = "Index existing patients for exact Aadhaar lookup")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<AadhaarIndexBackfillReport>> backfillAadhaarIndex() {
+        return ResponseEntity.ok(ApiResponse.success(aadhaarIndexBackfillService.backfill()));
+    }
+
+    @PostMapping("/aadhaar/reencrypt")
+    @Operation(summary = "Re-encrypt Aadhaar", description = "Move Aadhaar numbers to the current encryption key")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ApiResponse<AadhaarReencryptionReport>> reencryptAadhaar() {
+        return ResponseEntity.ok(ApiResponse.success(aadhaarReencryptionService.reencrypt()));
+    }
+
     @GetMapping("/{id}/family")
     @Operation(summary = "Get Family Members", description = "Get family members linked to a patient")
     public ResponseEntity<ApiResponse<List<PatientDto.FamilyMemberDto>>> getFamilyMembers(@PathVariable Long id) {
@@ -90,15 +234,19 @@ public class PatientController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search Patients", description = "Search patients by name, mobile, or UHID")
+    @Operation(summary = "Search Patients", description = "Search patients by name, mobile, or UHID; " +
+            "fields= limits the returned fields as on the patient list")
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'DOCTOR', 'NURSE', 'HOSPITAL_ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<ApiResponse<PageResponse<PatientDto>>> searchPatients(
+    public ResponseEntity<ApiResponse<PageResponse<?>>> searchPatients(
             @RequestParam String query,
+            @RequestParam(required = false) String fields,
             @RequestHeader(value = "X-Hospital-Id", required = false) Long hospitalId,
             @AuthenticationPrincipal UserPrincipal user,
             @PageableDefault(size = 20) Pageable pageable) {
         Long hId = hospitalId != null ? hospitalId : user.getHospitalId();
-        PageResponse<PatientDto> patients = patientService.searchPatients(query, hId, pageable);
+        PageResponse<?> patients = fields != null && !fields.isBlank()
+                ? patientService.searchPatients(query, hId, pageable, fields)
+                : patientService.searchPatients(query, hId, pageable);
         return ResponseEntity.ok(ApiResponse.success(patients));
     }
 
@@ -129,4 +277,8 @@ public class PatientController {
         List<PatientDto> patients = patientService.getPatientsByMobile(user.getMobileNumber());
         return ResponseEntity.ok(ApiResponse.success(patients));
     }
+
+    private static Long hospitalScope(UserPrincipal user) {
+        return user.hasRole(UserRole.SUPER_ADMIN) ? null : user.getHospitalId();
+    }
 }
@@ -0,0 +1,24 @@
+package com.hospital.hms.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an Aadhaar blind-index backfill run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AadhaarIndexBackfillReport {
+
+    private Integer chunks;
+    // Patients with an encrypted Aadhaar but no index when the run reached them
+    private Long scanned;
+    private Long indexed;
+    // Ciphertexts that could not be decrypted (wrong key, corrupt value); left unindexed
+    private Long failed;
+    private Long durationMs;
+}
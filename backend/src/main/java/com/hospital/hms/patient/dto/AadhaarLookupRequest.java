@@ -0,0 +1,18 @@
+package com.hospital.hms.patient.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aadhaar number to look up; sent in the body so it stays out of URLs and access logs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AadhaarLookupRequest {
+
+    @NotBlank(message = "Aadhaar number is required")
+    private String aadhaarNumber;
+}
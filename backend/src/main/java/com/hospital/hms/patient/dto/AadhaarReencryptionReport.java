@@ -0,0 +1,25 @@
+package com.hospital.hms.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of moving encrypted Aadhaar numbers to the current encryption key
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AadhaarReencryptionReport {
+
+    private Integer keyVersion;
+    private Integer batches;
+    // Patients whose Aadhaar was encrypted with an older key when the run reached them
+    private Long scanned;
+    private Long reencrypted;
+    // Values whose key is no longer configured, or that could not be decrypted; left as they were
+    private Long failed;
+    private Long durationMs;
+}
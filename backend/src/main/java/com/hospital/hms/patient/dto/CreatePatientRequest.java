@@ -60,6 +60,9 @@ public class CreatePatientRequest {
     @Pattern(regexp = "^\\d{6}$", message = "Invalid pincode")
     private String pincode;
 
+    // Set once the front desk has reviewed the likely duplicates and this is a new patient after all
+    private Boolean confirmedNotDuplicate;
+
     // Optional Aadhaar
     @Pattern(regexp = "^\\d{12}$", message = "Aadhaar must be 12 digits")
     private String aadhaarNumber;
@@ -0,0 +1,33 @@
+package com.hospital.hms.patient.dto;
+
+import com.hospital.hms.common.enums.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Existing patient who is likely the same person as a registration, best match first
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCandidateDto {
+
+    private Long patientId;
+    private String uhid;
+    private String fullName;
+    private LocalDate dateOfBirth;
+    private Integer age;
+    private Gender gender;
+    private String mobileNumber;
+    private Long registeredHospitalId;
+
+    // 0-100
+    private Integer score;
+    private List<String> reasons;
+}
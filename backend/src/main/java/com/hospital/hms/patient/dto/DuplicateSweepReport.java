@@ -0,0 +1,44 @@
+package com.hospital.hms.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a full-table duplicate sweep
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateSweepReport {
+
+    private Integer partitions;
+    private Long keysScanned;
+    private Long blocksCompared;
+    // Blocks too large to compare pairwise (very common name and year), skipped
+    private Long blocksSkipped;
+    private Long pairsFound;
+    private Long durationMs;
+
+    // Best pairs first, up to the configured report limit
+    private List<DuplicatePair> pairs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DuplicatePair {
+        private Long patientId;
+        private String uhid;
+        private String name;
+        private Long duplicatePatientId;
+        private String duplicateUhid;
+        private String duplicateName;
+        private Integer score;
+        private List<String> reasons;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hospital.hms.patient.dto;
+
+import com.hospital.hms.common.dto.FieldCatalog;
+import com.hospital.hms.patient.entity.Patient;
+
+import java.time.LocalDate;
+
+/**
+ * Fields of {@link PatientDto} that patient lists can return sparsely; names and derived values match the DTO
+ */
+public final class PatientFields {
+
+    public static final FieldCatalog CATALOG = new FieldCatalog("Patient")
+            .field("uhid")
+            .field("registeredHospitalId")
+            .field("firstName")
+            .field("middleName")
+            .field("lastName")
+            .derived("fullName", v -> Patient.fullName((String) v[0], (String) v[1], (String) v[2]),
+                    "firstName", "middleName", "lastName")
+            .field("dateOfBirth")
+            .derived("age", v -> Patient.calculatedAge((LocalDate) v[0], (Integer) v[1]), "dateOfBirth", "ageYears")
+            .field("gender")
+            .field("bloodGroup")
+            .field("mobileNumber")
+            .field("alternateMobile")
+            .field("email")
+            .field("addressLine1")
+            .field("addressLine2")
+            .field("city")
+            .field("district")
+            .field("state")
+            .field("pincode")
+            .derived("aadhaarMasked", v -> v[0] != null ? "XXXX-XXXX-" + v[0] : null, "aadhaarLastFour")
+            .field("emergencyContactName")
+            .field("emergencyContactRelation")
+            .field("emergencyContactPhone")
+            .field("allergies")
+            .field("chronicConditions")
+            .field("currentMedications")
+            .field("insuranceProvider")
+            .field("insurancePolicyNumber")
+            .field("insuranceValidity")
+            .field("profileImageUrl")
+            .field("preferredLanguage")
+            .field("isVip")
+            .field("primaryAccountId", "primaryAccount.id")
+            .field("relationToPrimary")
+            .field("createdAt")
+            .field("updatedAt")
+            .view("summary", "uhid", "firstName", "lastName", "fullName", "age", "gender", "mobileNumber");
+
+    private PatientFields() {
+    }
+}
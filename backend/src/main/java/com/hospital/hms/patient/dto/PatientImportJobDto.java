@@ -0,0 +1,37 @@
+package com.hospital.hms.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk patient import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportJobDto {
+
+    private Long id;
+    private Long hospitalId;
+    private String fileName;
+    private String fileFormat;
+    private Long fileSize;
+    private String status;
+
+    // Source row number (header included) the import has committed up to
+    private Long lastRow;
+    private Long rowsProcessed;
+    private Long rowsImported;
+    private Long rowsRejected;
+    private Boolean hasRejectedRows;
+
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
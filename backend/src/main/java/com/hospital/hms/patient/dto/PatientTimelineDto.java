@@ -0,0 +1,49 @@
+package com.hospital.hms.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patient chart timeline: entries of every requested section merged newest first, plus how each section paged
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientTimelineDto {
+
+    private Long patientId;
+    private List<Entry> entries;
+    private Map<String, Section> sections;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String type;
+        private Long id;
+        private String number;
+        private LocalDateTime occurredAt;
+        private String title;
+        private String status;
+        private Object item; // the section's list row
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Section {
+        private int count;
+        private boolean hasNext;
+        private String nextCursor;
+        private String error; // TIMEOUT, BUSY or FAILED when the section could not be loaded
+    }
+}
@@ -15,10 +15,12 @@ import java.util.Set;
  * Supports Indian family structure with linked family members.
  */
 @Entity
+@EntityListeners(PatientEntityListener.class)
 @Table(name = "patients", indexes = {
         @Index(name = "idx_patient_uhid", columnList = "uhid"),
         @Index(name = "idx_patient_mobile", columnList = "mobile_number"),
         @Index(name = "idx_patient_aadhaar", columnList = "aadhaar_encrypted"),
+        @Index(name = "idx_patient_aadhaar_hash", columnList = "aadhaar_hash"),
         @Index(name = "idx_patient_hospital", columnList = "registered_hospital_id")
 })
 @Getter
@@ -102,6 +104,10 @@ public class Patient extends BaseEntity {
     @Column(name = "aadhaar_last_four")
     private String aadhaarLastFour;
 
+    // Keyed HMAC of the Aadhaar number (EncryptionUtil.blindIndex), for exact lookups without decrypting
+    @Column(name = "aadhaar_hash", length = 64)
+    private String aadhaarHash;
+
     @Column(name = "pan")
     private String pan;
 
@@ -201,6 +207,14 @@ public class Patient extends BaseEntity {
     private Long userId;
 
     public String getFullName() {
+        return fullName(firstName, middleName, lastName);
+    }
+
+    public Integer getCalculatedAge() {
+        return calculatedAge(dateOfBirth, ageYears);
+    }
+
+    public static String fullName(String firstName, String middleName, String lastName) {
         StringBuilder name = new StringBuilder(firstName);
         if (middleName != null && !middleName.isEmpty()) {
             name.append(" ").append(middleName);
@@ -211,7 +225,7 @@ public class Patient extends BaseEntity {
         return name.toString();
     }
 
-    public Integer getCalculatedAge() {
+    public static Integer calculatedAge(LocalDate dateOfBirth, Integer ageYears) {
         if (dateOfBirth != null) {
             return java.time.Period.between(dateOfBirth, LocalDate.now()).getYears();
         }
@@ -0,0 +1,23 @@
+package com.hospital.hms.patient.entity;
+
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener that turns patient inserts/updates into {@link PatientChangedEvent}s.
+ * Instantiated by Hibernate through Spring's bean container, so constructor injection works.
+ */
+@RequiredArgsConstructor
+public class PatientEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Patient patient) {
+        eventPublisher.publishEvent(PatientChangedEvent.of(patient));
+    }
+}
@@ -0,0 +1,81 @@
+package com.hospital.hms.patient.entity;
+
+import com.hospital.hms.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one bulk patient import from an uploaded CSV or XLSX file.
+ * The row cursor and the committed length of the rejected-rows file are advanced in the same transaction as
+ * each chunk of inserted patients, so an interrupted import resumes after the last committed chunk.
+ */
+@Entity
+@Table(name = "patient_import_jobs", indexes = {
+        @Index(name = "idx_pij_hospital", columnList = "hospital_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientImportJob extends BaseEntity {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    // CSV or XLSX
+    @Column(name = "file_format", nullable = false, length = 10)
+    private String fileFormat;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "stored_path", nullable = false, length = 500)
+    private String storedPath;
+
+    @Column(name = "rejected_path", nullable = false, length = 500)
+    private String rejectedPath;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    // Cursor: source row number (spreadsheet row / CSV record) of the last committed row
+    @Column(name = "last_row", nullable = false)
+    @Builder.Default
+    private Long lastRow = 0L;
+
+    // Bytes of the rejected-rows file written by committed chunks; anything beyond is cut off on resume
+    @Column(name = "rejected_file_length", nullable = false)
+    @Builder.Default
+    private Long rejectedFileLength = 0L;
+
+    @Column(name = "rows_processed", nullable = false)
+    @Builder.Default
+    private Long rowsProcessed = 0L;
+
+    @Column(name = "rows_imported", nullable = false)
+    @Builder.Default
+    private Long rowsImported = 0L;
+
+    @Column(name = "rows_rejected", nullable = false)
+    @Builder.Default
+    private Long rowsRejected = 0L;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,36 @@
+package com.hospital.hms.patient.entity;
+
+import com.hospital.hms.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Blocking key a patient is filed under for duplicate detection - one row per (patient, key).
+ * Maintained from patient change events; see {@code PatientMatcher} for what the keys are made of.
+ */
+@Entity
+@Table(name = "patient_match_keys",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_pmk_patient_key", columnNames = {"patient_id", "block_key"})
+        },
+        indexes = {
+                @Index(name = "idx_pmk_block_key", columnList = "block_key"),
+                @Index(name = "idx_pmk_partition", columnList = "partition_no, block_key")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientMatchKey extends BaseEntity {
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "block_key", nullable = false, length = 64)
+    private String blockKey;
+
+    // Hash partition of the key, so the duplicate sweep can scan partitions in parallel
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+}
@@ -0,0 +1,50 @@
+package com.hospital.hms.patient.event;
+
+import com.hospital.hms.patient.entity.Patient;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a patient row is inserted or updated (soft deletes included).
+ * Carries an immutable copy of the searchable fields so listeners never touch the managed entity.
+ * Bulk imports file the duplicate-detection keys of a whole chunk themselves and say so with
+ * {@code matchKeysFiled}.
+ */
+@Getter
+@AllArgsConstructor
+public class PatientChangedEvent {
+
+    private final Long id;
+    private final Long hospitalId;
+    private final long version;
+    private final String firstName;
+    private final String middleName;
+    private final String lastName;
+    private final String mobileNumber;
+    private final String uhid;
+    private final boolean deleted;
+    private final boolean matchKeysFiled;
+
+    public PatientChangedEvent(Long id, Long hospitalId, long version, String firstName, String middleName,
+                               String lastName, String mobileNumber, String uhid, boolean deleted) {
+        this(id, hospitalId, version, firstName, middleName, lastName, mobileNumber, uhid, deleted, false);
+    }
+
+    public static PatientChangedEvent of(Patient patient) {
+        return of(patient, false);
+    }
+
+    public static PatientChangedEvent of(Patient patient, boolean matchKeysFiled) {
+        return new PatientChangedEvent(
+                patient.getId(),
+                patient.getRegisteredHospitalId(),
+                patient.getVersion() != null ? patient.getVersion() : 0L,
+                patient.getFirstName(),
+                patient.getMiddleName(),
+                patient.getLastName(),
+                patient.getMobileNumber(),
+                patient.getUhid(),
+                Boolean.TRUE.equals(patient.getIsDeleted()),
+                matchKeysFiled);
+    }
+}
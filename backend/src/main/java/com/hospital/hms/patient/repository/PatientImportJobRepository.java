@@ -0,0 +1,26 @@
+package com.hospital.hms.patient.repository;
+
+import com.hospital.hms.patient.entity.PatientImportJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PatientImportJobRepository extends JpaRepository<PatientImportJob, Long> {
+
+    List<PatientImportJob> findByStatus(String status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM PatientImportJob j WHERE j.id = :id")
+    Optional<PatientImportJob> findForUpdate(@Param("id") Long id);
+
+    @Query("SELECT j FROM PatientImportJob j WHERE j.hospitalId = :hospitalId AND j.isDeleted = false ORDER BY j.id DESC")
+    List<PatientImportJob> findRecentByHospital(@Param("hospitalId") Long hospitalId, Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package com.hospital.hms.patient.repository;
+
+import com.hospital.hms.patient.entity.PatientMatchKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PatientMatchKeyRepository extends JpaRepository<PatientMatchKey, Long> {
+
+    List<PatientMatchKey> findByPatientId(Long patientId);
+
+    /**
+     * Patients filed under a key, most recently registered first
+     */
+    @Query("SELECT k.patientId FROM PatientMatchKey k WHERE k.blockKey = :key ORDER BY k.patientId DESC")
+    List<Long> findPatientIdsByBlockKey(@Param("key") String key, Pageable pageable);
+}
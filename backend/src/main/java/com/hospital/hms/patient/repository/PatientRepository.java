@@ -1,5 +1,6 @@
 package com.hospital.hms.patient.repository;
 
+import com.hospital.hms.common.service.SequenceService;
 import com.hospital.hms.patient.entity.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,12 +9,25 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
+    // Shared with the sparse list queries (?fields=) so both return the same rows
+    String ACTIVE_FILTERS = "WHERE p.isActive = true AND p.isDeleted = false";
+
+    String HOSPITAL_FILTERS = "WHERE p.registeredHospitalId = :hospitalId AND p.isActive = true AND p.isDeleted = false";
+
+    String SEARCH_FILTERS = "WHERE " +
+            "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "p.mobileNumber LIKE CONCAT('%', :query, '%') OR " +
+            "p.uhid LIKE CONCAT('%', :query, '%')) AND " +
+            "p.registeredHospitalId = :hospitalId AND p.isDeleted = false";
+
     Optional<Patient> findByUhid(String uhid);
 
     Optional<Patient> findByMobileNumber(String mobileNumber);
@@ -31,18 +45,13 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     @Query("SELECT p FROM Patient p WHERE p.registeredHospitalId = :hospitalId AND p.isDeleted = false")
     Page<Patient> findByHospital(@Param("hospitalId") Long hospitalId, Pageable pageable);
 
-    @Query("SELECT p FROM Patient p WHERE p.registeredHospitalId = :hospitalId AND p.isActive = true AND p.isDeleted = false")
+    @Query("SELECT p FROM Patient p " + HOSPITAL_FILTERS)
     Page<Patient> findByRegisteredHospitalIdAndIsActiveTrue(@Param("hospitalId") Long hospitalId, Pageable pageable);
 
-    @Query("SELECT p FROM Patient p WHERE p.isActive = true AND p.isDeleted = false")
+    @Query("SELECT p FROM Patient p " + ACTIVE_FILTERS)
     Page<Patient> findByIsActiveTrue(Pageable pageable);
 
-    @Query("SELECT p FROM Patient p WHERE " +
-           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "p.mobileNumber LIKE CONCAT('%', :query, '%') OR " +
-           "p.uhid LIKE CONCAT('%', :query, '%')) AND " +
-           "p.registeredHospitalId = :hospitalId AND p.isDeleted = false")
+    @Query("SELECT p FROM Patient p " + SEARCH_FILTERS)
     Page<Patient> searchPatients(@Param("query") String query, @Param("hospitalId") Long hospitalId, Pageable pageable);
 
     @Query("SELECT p FROM Patient p WHERE p.userId = :userId AND p.isDeleted = false")
@@ -51,9 +60,25 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     @Query("SELECT p FROM Patient p WHERE p.aadhaarLastFour = :lastFour AND p.registeredHospitalId = :hospitalId AND p.isDeleted = false")
     List<Patient> findByAadhaarLastFour(@Param("lastFour") String lastFour, @Param("hospitalId") Long hospitalId);
 
+    @Query("SELECT p FROM Patient p WHERE p.aadhaarHash = :hash " +
+            "AND (:hospitalId IS NULL OR p.registeredHospitalId = :hospitalId) AND p.isDeleted = false")
+    List<Patient> findByAadhaarHash(@Param("hash") String hash, @Param("hospitalId") Long hospitalId);
+
     @Query("SELECT COUNT(p) FROM Patient p WHERE p.registeredHospitalId = :hospitalId AND p.isDeleted = false")
     long countByHospital(@Param("hospitalId") Long hospitalId);
 
-    @Query("SELECT MAX(CAST(SUBSTRING(p.uhid, 4) AS int)) FROM Patient p WHERE p.uhid LIKE :prefix%")
-    Integer findMaxUhidNumber(@Param("prefix") String prefix);
+    // Sequence seeding: compared as numbers, so values past the fixed width still count as the highest;
+    // numbers with a non-numeric suffix are skipped
+    @Query("SELECT MAX(CAST(SUBSTRING(p.uhid, LENGTH(:prefix) + 1) AS Long)) FROM Patient p " +
+            "WHERE p.uhid LIKE CONCAT(:prefix, '_%') AND " + SequenceService.STRIP_DIGITS +
+            "SUBSTRING(p.uhid, LENGTH(:prefix) + 1)" + SequenceService.STRIP_DIGITS_END + " = ''")
+    Long findMaxUhid(@Param("prefix") String prefix);
+
+    interface UhidId {
+        Long getId();
+        String getUhid();
+    }
+
+    @Query("SELECT p.id AS id, p.uhid AS uhid FROM Patient p WHERE p.uhid IN :uhids")
+    List<UhidId> findIdsByUhids(@Param("uhids") Collection<String> uhids);
 }
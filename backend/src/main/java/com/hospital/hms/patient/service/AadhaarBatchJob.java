@@ -0,0 +1,147 @@
+package com.hospital.hms.patient.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Walks the patients with an encrypted Aadhaar that match a condition, in id order, and hands each batch to a
+ * worker of a fixed pool. Used by the blind-index backfill and the key-rotation re-encryption.
+ *
+ * Batches are read one keyset query at a time ({@code id > last id}), so no cursor stays open while the workers
+ * update the same table, and a run that stops half way is simply picked up by the next one. At most two batches
+ * per worker are in flight, so memory stays flat however many patients there are, and the reader can be held to
+ * a maximum number of rows per second to leave the database to live traffic.
+ */
+final class AadhaarBatchJob {
+
+    record Row(long id, String aadhaarEncrypted) {
+    }
+
+    record BatchResult(long updated, long failed) {
+    }
+
+    record Totals(int batches, long scanned, long updated, long failed, long durationMs) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String name;
+    private final String batchSql;
+    private final String threadName;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxRowsPerSecond;
+
+    /**
+     * @param name             job name for errors, e.g. "Aadhaar index backfill"
+     * @param condition        SQL condition on {@code patients} selecting the rows still to process; a processed
+     *                         row must stop matching it
+     * @param maxRowsPerSecond reader throttle, or 0 for none
+     */
+    AadhaarBatchJob(JdbcTemplate jdbcTemplate, String name, String condition, String threadName, int batchSize,
+                    int parallelism, int maxRowsPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        this.batchSql = "SELECT id, aadhaar_encrypted FROM patients WHERE id > ? AND aadhaar_encrypted IS NOT NULL " +
+                "AND " + condition + " ORDER BY id LIMIT ?";
+        this.threadName = threadName;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * @param parameters values of the placeholders in the condition
+     */
+    Totals run(List<Object> parameters, Function<List<Row>, BatchResult> worker) {
+        long started = System.currentTimeMillis();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, threadName + threads.incrementAndGet()));
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<BatchResult>> results = new ArrayList<>();
+        long scanned = 0;
+        long updated = 0;
+        long failed = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Object> arguments = new ArrayList<>(parameters.size() + 2);
+                arguments.add(afterId);
+                arguments.addAll(parameters);
+                arguments.add(batchSize);
+                List<Row> batch = jdbcTemplate.query(batchSql,
+                        (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("aadhaar_encrypted")),
+                        arguments.toArray());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                scanned += batch.size();
+                afterId = batch.get(batch.size() - 1).id();
+                inFlight.acquire();
+                results.add(pool.submit(() -> {
+                    try {
+                        return worker.apply(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                throttle(started, scanned);
+            }
+            for (Future<BatchResult> result : results) {
+                BatchResult batchResult = result.get();
+                updated += batchResult.updated();
+                failed += batchResult.failed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(name + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Totals(results.size(), scanned, updated, failed, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Sleep until {@code scanned} rows are within the rate allowed since {@code started}
+     */
+    private void throttle(long started, long scanned) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long dueMs = scanned * 1000 / maxRowsPerSecond - (System.currentTimeMillis() - started);
+        if (dueMs > 0) {
+            TimeUnit.MILLISECONDS.sleep(dueMs);
+        }
+    }
+
+    /**
+     * Run a batch update and count the rows it changed
+     */
+    long update(String sql, List<Object[]> arguments) {
+        if (arguments.isEmpty()) {
+            return 0;
+        }
+        long updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql, arguments)) {
+            // Drivers may report success without a row count
+            updated += count > 0 || count == Statement.SUCCESS_NO_INFO ? 1 : 0;
+        }
+        return updated;
+    }
+}
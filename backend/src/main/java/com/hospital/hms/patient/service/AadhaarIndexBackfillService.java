@@ -0,0 +1,107 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.dto.AadhaarIndexBackfillReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills {@code patients.aadhaar_hash} (the Aadhaar blind index) for patients registered before it existed.
+ *
+ * Patients without the index are read in keyset batches ({@link AadhaarBatchJob}); each batch is decrypted,
+ * hashed and written by one worker of a fixed pool.
+ */
+@Slf4j
+@Service
+public class AadhaarIndexBackfillService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE patients SET aadhaar_hash = ? WHERE id = ? AND aadhaar_hash IS NULL";
+
+    private final EncryptionUtil encryptionUtil;
+    private final AadhaarBatchJob job;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AadhaarIndexBackfillService(JdbcTemplate jdbcTemplate,
+                                       EncryptionUtil encryptionUtil,
+                                       @Value("${app.patient-aadhaar-index.backfill-chunk-size:1000}") int chunkSize,
+                                       @Value("${app.patient-aadhaar-index.backfill-parallelism:4}") int parallelism) {
+        this.encryptionUtil = encryptionUtil;
+        this.job = new AadhaarBatchJob(jdbcTemplate, "Aadhaar index backfill", "aadhaar_hash IS NULL",
+                "HMS-AadhaarIndex-", chunkSize, parallelism, 0);
+    }
+
+    /**
+     * Index whatever existing patients still lack the blind index; a no-op single query once all are indexed
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill();
+    }
+
+    /**
+     * Index every patient with an encrypted Aadhaar and no blind index, chunks in parallel
+     *
+     * @throws ConflictException if a backfill is already running
+     */
+    public AadhaarIndexBackfillReport backfill() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("An Aadhaar index backfill is already running", "BACKFILL_RUNNING");
+        }
+        AadhaarBatchJob.Totals totals;
+        try {
+            totals = job.run(List.of(), this::indexChunk);
+        } finally {
+            running.set(false);
+        }
+        if (totals.scanned() > 0) {
+            log.info("Aadhaar index backfill: {} patients in {} chunks, {} indexed, {} failed, in {} ms",
+                    totals.scanned(), totals.batches(), totals.updated(), totals.failed(), totals.durationMs());
+        }
+        return AadhaarIndexBackfillReport.builder()
+                .chunks(totals.batches())
+                .scanned(totals.scanned())
+                .indexed(totals.updated())
+                .failed(totals.failed())
+                .durationMs(totals.durationMs())
+                .build();
+    }
+
+    private AadhaarBatchJob.BatchResult indexChunk(List<AadhaarBatchJob.Row> chunk) {
+        List<String> aadhaarNumbers = new ArrayList<>(chunk.size());
+        for (AadhaarBatchJob.Row row : chunk) {
+            String aadhaar;
+            try {
+                aadhaar = encryptionUtil.decrypt(row.aadhaarEncrypted());
+            } catch (RuntimeException e) {
+                aadhaar = null;
+            }
+            aadhaarNumbers.add(aadhaar);
+        }
+        List<String> hashes = encryptionUtil.blindIndexAll(aadhaarNumbers);
+        List<Object[]> updates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (hashes.get(i) != null) {
+                updates.add(new Object[]{hashes.get(i), chunk.get(i).id()});
+            }
+        }
+        long indexed = job.update(UPDATE_SQL, updates);
+        long failed = chunk.size() - updates.size();
+        if (failed > 0) {
+            log.warn("Aadhaar index backfill could not decrypt {} patients between ids {} and {}",
+                    failed, chunk.get(0).id(), chunk.get(chunk.size() - 1).id());
+        }
+        return new AadhaarBatchJob.BatchResult(indexed, failed);
+    }
+}
@@ -0,0 +1,116 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.dto.AadhaarReencryptionReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves encrypted Aadhaar numbers to the current encryption key after a key rotation, while the application
+ * keeps serving: values under older keys still decrypt meanwhile, and the job is throttled to a configured number
+ * of rows per second with a small worker pool so it does not compete with live traffic.
+ *
+ * Each row is written only if it still holds the value that was read, so a concurrent edit is never overwritten.
+ * The blind index uses its own key and is not affected.
+ */
+@Slf4j
+@Service
+public class AadhaarReencryptionService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE patients SET aadhaar_encrypted = ? WHERE id = ? AND aadhaar_encrypted = ?";
+
+    private final EncryptionUtil encryptionUtil;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxRowsPerSecond;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AadhaarReencryptionService(JdbcTemplate jdbcTemplate,
+                                      EncryptionUtil encryptionUtil,
+                                      @Value("${app.encryption.reencryption.batch-size:500}") int batchSize,
+                                      @Value("${app.encryption.reencryption.parallelism:2}") int parallelism,
+                                      @Value("${app.encryption.reencryption.max-rows-per-second:2000}")
+                                      int maxRowsPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionUtil = encryptionUtil;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Resume re-encryption on every start while retired keys are configured, i.e. while a rotation is under way
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reencryptOnStartup() {
+        if (encryptionUtil.keyVersions().size() > 1) {
+            reencrypt();
+        }
+    }
+
+    /**
+     * Re-encrypt every Aadhaar number not yet under the current key
+     *
+     * @throws ConflictException if a re-encryption is already running
+     */
+    public AadhaarReencryptionReport reencrypt() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("An Aadhaar re-encryption is already running", "REENCRYPTION_RUNNING");
+        }
+        String prefix = encryptionUtil.currentKeyPrefix();
+        // Unversioned values never contain ':', versioned ones always do
+        AadhaarBatchJob job = new AadhaarBatchJob(jdbcTemplate, "Aadhaar re-encryption",
+                prefix.isEmpty() ? "aadhaar_encrypted LIKE ?" : "aadhaar_encrypted NOT LIKE ?",
+                "HMS-Reencrypt-", batchSize, parallelism, maxRowsPerSecond);
+        AadhaarBatchJob.Totals totals;
+        try {
+            totals = job.run(List.of(prefix.isEmpty() ? "%:%" : prefix + "%"), batch -> reencryptBatch(job, batch));
+        } finally {
+            running.set(false);
+        }
+        if (totals.scanned() > 0) {
+            log.info("Aadhaar re-encryption to key version {}: {} patients in {} batches, {} re-encrypted, " +
+                            "{} failed, in {} ms", encryptionUtil.currentKeyVersion(), totals.scanned(),
+                    totals.batches(), totals.updated(), totals.failed(), totals.durationMs());
+        }
+        return AadhaarReencryptionReport.builder()
+                .keyVersion(encryptionUtil.currentKeyVersion())
+                .batches(totals.batches())
+                .scanned(totals.scanned())
+                .reencrypted(totals.updated())
+                .failed(totals.failed())
+                .durationMs(totals.durationMs())
+                .build();
+    }
+
+    private AadhaarBatchJob.BatchResult reencryptBatch(AadhaarBatchJob job, List<AadhaarBatchJob.Row> batch) {
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        for (AadhaarBatchJob.Row row : batch) {
+            try {
+                updates.add(new Object[]{encryptionUtil.reencrypt(row.aadhaarEncrypted()), row.id(),
+                        row.aadhaarEncrypted()});
+            } catch (RuntimeException e) {
+                // Key not configured or value corrupt: counted and logged below
+            }
+        }
+        long failed = batch.size() - updates.size();
+        if (failed > 0) {
+            log.warn("Aadhaar re-encryption could not decrypt {} patients between ids {} and {}",
+                    failed, batch.get(0).id(), batch.get(batch.size() - 1).id());
+        }
+        return new AadhaarBatchJob.BatchResult(job.update(UPDATE_SQL, updates), failed);
+    }
+}
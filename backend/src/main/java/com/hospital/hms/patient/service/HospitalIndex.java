@@ -0,0 +1,670 @@
+package com.hospital.hms.patient.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory n-gram index over the patients of one hospital: name, mobile number and UHID.
+ *
+ * Every word is indexed by its trigrams plus word-start and word-end grams, so a query term of three or more
+ * characters matches anywhere in a field (what {@code LIKE '%q%'} did) and a one- or two-character term
+ * matches the start of a word. The boundary grams also bound each candidate's score without touching its
+ * fields, so a broad query ("sure" among a million patients) only scores the few candidates that can still
+ * make the requested page. Documents get increasing ordinals and postings are delta-encoded varints appended in
+ * ordinal order; an update gives the patient a new ordinal and marks the old one dead, and dead ordinals are
+ * compacted away once they make up a quarter of the index. Roughly 300 bytes per patient, fields included.
+ *
+ * Versions from the patients table decide between a streamed row and a change event for the same patient,
+ * so the startup load and live updates can run at the same time. Not thread-safe:
+ * {@link PatientSearchIndex} guards each hospital's index with a read/write lock.
+ */
+final class HospitalIndex {
+
+    static final char WORD_START = '\u0002';
+    static final char WORD_END = '\u0003';
+
+    private static final int MIN_COMPACT = 1024;
+    // Up to this many candidates it is cheaper to score each one, with an exact total, than to intersect further
+    private static final int SCORE_ALL_THRESHOLD = 2048;
+    // Best possible term score by which boundary grams a candidate has: none, start, end, both
+    private static final int[] TERM_BOUND = {1, 3, 2, 4};
+
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] mobiles = new String[1024];
+    private String[] uhids = new String[1024];
+    private int size;
+    private final BitSet dead = new BitSet();
+    private int deadCount;
+
+    private final PatientSlots slots = new PatientSlots();
+    private Map<Long, Postings> grams = new HashMap<>();
+
+    record Hits(List<Long> ids, long total) {
+    }
+
+    int liveCount() {
+        return size - deadCount;
+    }
+
+    /**
+     * Add or replace a patient; ignored when the index already holds a newer version
+     */
+    void upsert(long id, long version, String firstName, String middleName, String lastName, String mobile, String uhid) {
+        int slot = slots.find(id);
+        if (slot >= 0 && slots.version(slot) > version) {
+            return;
+        }
+        String name = normalizeName(firstName, middleName, lastName);
+        String normalizedMobile = normalizeMobile(mobile);
+        String normalizedUhid = normalize(uhid);
+        int previous = slot >= 0 ? slots.ordinal(slot) : -1;
+        if (previous >= 0 && name.equals(names[previous]) && normalizedMobile.equals(mobiles[previous])
+                && normalizedUhid.equals(uhids[previous])) {
+            slots.put(id, previous, version);
+            return;
+        }
+        kill(previous);
+        int ordinal = append(id, name, normalizedMobile, normalizedUhid);
+        slots.put(id, ordinal, version);
+        compactIfNeeded();
+    }
+
+    /**
+     * Drop a deleted patient; remembered with its version so an older row cannot bring it back
+     */
+    void remove(long id, long version) {
+        int slot = slots.find(id);
+        if (slot >= 0 && slots.version(slot) > version) {
+            return;
+        }
+        kill(slot >= 0 ? slots.ordinal(slot) : -1);
+        slots.put(id, -1, version);
+        compactIfNeeded();
+    }
+
+    /**
+     * Patients matching every term of the query, best matches first
+     */
+    Hits search(String query, int offset, int limit) {
+        String[] terms = normalize(query).split(" ");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return new Hits(List.of(), 0);
+        }
+        // The rarest gram of each term first, as a term's own grams mostly occur together, then the rest
+        List<Postings> rarest = new ArrayList<>();
+        List<Postings> rest = new ArrayList<>();
+        for (String term : terms) {
+            List<Postings> termLists = new ArrayList<>();
+            for (long gram : queryGrams(term)) {
+                Postings postings = grams.get(gram);
+                if (postings == null) {
+                    return new Hits(List.of(), 0);
+                }
+                termLists.add(postings);
+            }
+            termLists.sort(Comparator.comparingInt(Postings::count));
+            rarest.add(termLists.get(0));
+            rest.addAll(termLists.subList(1, termLists.size()));
+        }
+        rarest.sort(Comparator.comparingInt(Postings::count));
+        rest.sort(Comparator.comparingInt(Postings::count));
+        List<Postings> lists = new ArrayList<>(rarest);
+        lists.addAll(rest);
+
+        int[] candidates = lists.get(0).decode();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > SCORE_ALL_THRESHOLD; i++) {
+            count = lists.get(i).retainAll(candidates, count);
+        }
+
+        int wanted = offset + limit;
+        TopRanks top = new TopRanks(wanted);
+        long total = count > SCORE_ALL_THRESHOLD
+                ? rankByBound(terms, candidates, count, top)
+                : rankAll(terms, candidates, count, top);
+        long[] ranked = top.sortedDescending();
+        List<Long> page = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(ids[(int) ranked[i]]);
+        }
+        return new Hits(page, total);
+    }
+
+    /**
+     * Score every candidate; the total counts verified matches only
+     */
+    private long rankAll(String[] terms, int[] candidates, int count, TopRanks top) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates[i];
+            if (dead.get(ordinal)) {
+                continue;
+            }
+            int score = score(ordinal, terms);
+            if (score > 0) {
+                total++;
+                top.offer(score, ordinal);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Visit candidates best bound first, where the bound comes from the boundary grams each term finds on
+     * the candidate, and stop at the first one whose bound (ties going to the more recently indexed patient)
+     * cannot beat the page: every candidate after it ranks lower still. The total is the live candidate
+     * count, which for terms of four or more characters may include the rare patient that has all of a
+     * term's trigrams without the term itself.
+     */
+    private long rankByBound(String[] terms, int[] candidates, int count, TopRanks top) {
+        int[] bounds = new int[count];
+        byte[] flags = new byte[count];
+        for (String term : terms) {
+            Arrays.fill(flags, (byte) 0);
+            Postings start = grams.get(startGram(term));
+            Postings end = grams.get(endGram(term));
+            if (start != null) {
+                start.mark(candidates, count, flags, 1);
+            }
+            if (end != null) {
+                end.mark(candidates, count, flags, 2);
+            }
+            for (int i = 0; i < count; i++) {
+                bounds[i] += TERM_BOUND[flags[i]];
+            }
+        }
+
+        // Counting sort: highest bound first, most recently indexed first within a bound
+        int maxBound = 4 * terms.length;
+        int[] offsets = new int[maxBound + 2];
+        for (int i = 0; i < count; i++) {
+            offsets[maxBound - bounds[i] + 1]++;
+        }
+        for (int b = 1; b < offsets.length; b++) {
+            offsets[b] += offsets[b - 1];
+        }
+        int[] order = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            order[offsets[maxBound - bounds[i]]++] = i;
+        }
+
+        long live = count;
+        if (deadCount > 0) {
+            for (int i = 0; i < count; i++) {
+                if (dead.get(candidates[i])) {
+                    live--;
+                }
+            }
+        }
+        for (int index : order) {
+            int ordinal = candidates[index];
+            if (!top.wouldTake(bounds[index], ordinal)) {
+                break;
+            }
+            if (dead.get(ordinal)) {
+                continue;
+            }
+            int score = score(ordinal, terms);
+            if (score > 0) {
+                top.offer(score, ordinal);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Sum over the terms of the best match in any field, or 0 when a term matches nowhere
+     */
+    private int score(int ordinal, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = Math.max(scoreWords(names[ordinal], term),
+                    Math.max(scoreCode(mobiles[ordinal], term), scoreCode(uhids[ordinal], term)));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int scoreWords(String name, String term) {
+        int best = 0;
+        int start = 0;
+        while (start <= name.length()) {
+            int end = name.indexOf(' ', start);
+            if (end < 0) {
+                end = name.length();
+            }
+            int length = end - start;
+            if (length == term.length() && name.regionMatches(start, term, 0, length)) {
+                return 4;
+            }
+            if (length > term.length() && name.startsWith(term, start)) {
+                best = 3;
+            }
+            start = end + 1;
+        }
+        if (best == 0 && term.length() >= 3 && name.contains(term)) {
+            best = 1;
+        }
+        return best;
+    }
+
+    private static int scoreCode(String code, String term) {
+        if (code.isEmpty()) {
+            return 0;
+        }
+        if (code.equals(term)) {
+            return 4;
+        }
+        if (code.startsWith(term)) {
+            return 3;
+        }
+        if (term.length() < 3) {
+            return 0;
+        }
+        // Reception often types the last digits of a mobile number or UHID
+        if (code.endsWith(term)) {
+            return 2;
+        }
+        return code.contains(term) ? 1 : 0;
+    }
+
+    private int append(long id, String name, String mobile, String uhid) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            mobiles = Arrays.copyOf(mobiles, capacity);
+            uhids = Arrays.copyOf(uhids, capacity);
+        }
+        int ordinal = size++;
+        ids[ordinal] = id;
+        names[ordinal] = name;
+        mobiles[ordinal] = mobile;
+        uhids[ordinal] = uhid;
+        Set<Long> docGrams = new HashSet<>();
+        addGrams(docGrams, name);
+        addGrams(docGrams, mobile);
+        addGrams(docGrams, uhid);
+        for (long gram : docGrams) {
+            grams.computeIfAbsent(gram, g -> new Postings()).add(ordinal);
+        }
+        return ordinal;
+    }
+
+    private void kill(int ordinal) {
+        if (ordinal >= 0 && !dead.get(ordinal)) {
+            dead.set(ordinal);
+            deadCount++;
+        }
+    }
+
+    /**
+     * Rebuild postings over live patients only; ordinals keep their relative order
+     */
+    private void compactIfNeeded() {
+        if (deadCount < MIN_COMPACT || deadCount * 4L < size) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[] oldNames = names;
+        String[] oldMobiles = mobiles;
+        String[] oldUhids = uhids;
+        int oldSize = size;
+        int capacity = Math.max(1024, liveCount() + (liveCount() >> 1));
+        ids = new long[capacity];
+        names = new String[capacity];
+        mobiles = new String[capacity];
+        uhids = new String[capacity];
+        size = 0;
+        grams = new HashMap<>();
+        for (int ordinal = 0; ordinal < oldSize; ordinal++) {
+            if (dead.get(ordinal)) {
+                continue;
+            }
+            int moved = append(oldIds[ordinal], oldNames[ordinal], oldMobiles[ordinal], oldUhids[ordinal]);
+            int slot = slots.find(oldIds[ordinal]);
+            slots.put(oldIds[ordinal], moved, slots.version(slot));
+        }
+        dead.clear();
+        deadCount = 0;
+    }
+
+    private static void addGrams(Set<Long> into, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        for (String word : value.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = WORD_START + word + WORD_END;
+            into.add(gram(padded, 0, 2));
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                into.add(gram(padded, i, 3));
+            }
+        }
+    }
+
+    /**
+     * Grams a term must have: the word-start gram for one or two characters, every trigram otherwise
+     */
+    static List<Long> queryGrams(String term) {
+        if (term.length() < 3) {
+            return List.of(gram(WORD_START + term, 0, term.length() + 1));
+        }
+        List<Long> result = new ArrayList<>(term.length() - 2);
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            result.add(gram(term, i, 3));
+        }
+        return result;
+    }
+
+    /**
+     * Gram of a word starting with the term
+     */
+    private static long startGram(String term) {
+        return gram(WORD_START + term, 0, Math.min(3, term.length() + 1));
+    }
+
+    /**
+     * Gram of a word ending with the term; for a one-character term, of that one-character word
+     */
+    private static long endGram(String term) {
+        return term.length() == 1
+                ? gram(WORD_START + term + WORD_END, 0, 3)
+                : gram(term + WORD_END, term.length() - 2, 3);
+    }
+
+    /**
+     * Up to three UTF-16 chars packed into a long, with the length in the top bits so "ab" and "ab\0" differ
+     */
+    private static long gram(String value, int from, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | value.charAt(from + i);
+        }
+        return key;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static String normalizeName(String firstName, String middleName, String lastName) {
+        return normalize((firstName != null ? firstName : "") + " " + (middleName != null ? middleName : "")
+                + " " + (lastName != null ? lastName : ""));
+    }
+
+    private static String normalizeMobile(String mobile) {
+        return mobile == null ? "" : mobile.replaceAll("[^0-9]", "");
+    }
+
+    /**
+     * Ascending ordinals stored as varint gaps, with a skip entry every {@link #SKIP_INTERVAL} ordinals so
+     * intersecting a short candidate list with a long posting list jumps over the blocks in between
+     */
+    static final class Postings {
+        static final int SKIP_INTERVAL = 64;
+
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+        // Ordinal before, and byte offset of, every SKIP_INTERVAL-th entry
+        private int[] skipOrdinals = new int[1];
+        private int[] skipOffsets = new int[1];
+
+        int count() {
+            return count;
+        }
+
+        void add(int ordinal) {
+            if (count % SKIP_INTERVAL == 0) {
+                int skip = count / SKIP_INTERVAL;
+                if (skip == skipOrdinals.length) {
+                    skipOrdinals = Arrays.copyOf(skipOrdinals, skip * 2);
+                    skipOffsets = Arrays.copyOf(skipOffsets, skip * 2);
+                }
+                skipOrdinals[skip] = last;
+                skipOffsets[skip] = length;
+            }
+            int gap = ordinal - last;
+            last = ordinal;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length + (bytes.length >> 1)));
+            }
+            while ((gap & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[length++] = (byte) gap;
+            count++;
+        }
+
+        int[] decode() {
+            int[] out = new int[count];
+            Cursor cursor = new Cursor();
+            for (int i = 0; i < count; i++) {
+                out[i] = cursor.next();
+            }
+            return out;
+        }
+
+        /**
+         * Keep the first {@code n} sorted ordinals that are also in this list; returns the new count
+         */
+        int retainAll(int[] sorted, int n) {
+            Cursor cursor = new Cursor();
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                int found = cursor.advanceTo(sorted[i]);
+                if (found == sorted[i]) {
+                    sorted[kept++] = found;
+                } else if (found == Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * Set {@code bit} in {@code flags[i]} for each of the first {@code n} sorted ordinals in this list
+         */
+        void mark(int[] sorted, int n, byte[] flags, int bit) {
+            Cursor cursor = new Cursor();
+            for (int i = 0; i < n; i++) {
+                int found = cursor.advanceTo(sorted[i]);
+                if (found == sorted[i]) {
+                    flags[i] |= (byte) bit;
+                } else if (found == Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+        }
+
+        private final class Cursor {
+            private int position;
+            private int value = -1;
+            private int decoded;
+
+            int next() {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                decoded++;
+                return value += gap;
+            }
+
+            /**
+             * The first ordinal at or after {@code target}, or {@link Integer#MAX_VALUE} past the end
+             */
+            int advanceTo(int target) {
+                if (value >= target) {
+                    return value;
+                }
+                int skip = decoded / SKIP_INTERVAL;
+                int skips = (count + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+                while (skip + 1 < skips && skipOrdinals[skip + 1] < target) {
+                    skip++;
+                }
+                if (skip * SKIP_INTERVAL > decoded) {
+                    value = skipOrdinals[skip];
+                    position = skipOffsets[skip];
+                    decoded = skip * SKIP_INTERVAL;
+                }
+                while (decoded < count) {
+                    if (next() >= target) {
+                        return value;
+                    }
+                }
+                return Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * The best {@code capacity} (score, ordinal) pairs offered, as a min-heap of longs packing the score above
+     * the ordinal: higher score first, then the more recently indexed patient
+     */
+    static final class TopRanks {
+        private final long[] heap;
+        private int size;
+
+        TopRanks(int capacity) {
+            heap = new long[Math.max(0, capacity)];
+        }
+
+        /**
+         * Whether a pair ranked this high would still make it in
+         */
+        boolean wouldTake(int score, int ordinal) {
+            return size < heap.length || (size > 0 && (((long) score << 32) | ordinal) > heap[0]);
+        }
+
+        void offer(int score, int ordinal) {
+            long rank = ((long) score << 32) | ordinal;
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) >> 1] > rank) {
+                    heap[i] = heap[(i - 1) >> 1];
+                    i = (i - 1) >> 1;
+                }
+                heap[i] = rank;
+            } else if (size > 0 && rank > heap[0]) {
+                int i = 0;
+                while (2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && heap[child + 1] < heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] >= rank) {
+                        break;
+                    }
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = rank;
+            }
+        }
+
+        /**
+         * Ordinals, best first
+         */
+        long[] sortedDescending() {
+            long[] ranks = Arrays.copyOf(heap, size);
+            Arrays.sort(ranks);
+            long[] ordinals = new long[size];
+            for (int i = 0; i < size; i++) {
+                ordinals[i] = ranks[size - 1 - i] & 0xFFFFFFFFL;
+            }
+            return ordinals;
+        }
+    }
+
+    /**
+     * Open-addressing map from patient id to (ordinal, version); ordinal -1 marks a deleted patient
+     */
+    static final class PatientSlots {
+        private long[] keys = new long[2048];
+        private int[] ordinals = new int[2048];
+        private long[] versions = new long[2048];
+        private int used;
+
+        int find(long id) {
+            int mask = keys.length - 1;
+            for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return i;
+                }
+                if (keys[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        int ordinal(int slot) {
+            return ordinals[slot];
+        }
+
+        long version(int slot) {
+            return versions[slot];
+        }
+
+        void put(long id, int ordinal, long version) {
+            if ((used + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = mix(id) & mask;
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = id;
+                used++;
+            }
+            ordinals[i] = ordinal;
+            versions[i] = version;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldOrdinals = ordinals;
+            long[] oldVersions = versions;
+            keys = new long[oldKeys.length * 2];
+            ordinals = new int[oldKeys.length * 2];
+            versions = new long[oldKeys.length * 2];
+            used = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldOrdinals[i], oldVersions[i]);
+                }
+            }
+        }
+
+        private static int mix(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.hospital.hms.patient.service;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Phonetic key for names as they get spelt at Indian front desks, so "Mohd"/"Mohammad"/"Muhammad",
+ * "Laxmi"/"Lakshmi" and "Shreenivas"/"Srinivas" share a key.
+ *
+ * Common abbreviations are expanded, spelling variants of the same sound are folded (x/ksh, sh/s, w/v, z/j,
+ * aspirated consonants), and vowels after the first letter are dropped along with doubled consonants.
+ * Soundex and friends are tuned for English surnames and fold far too little (or too much) for these names.
+ */
+public final class NamePhonetics {
+
+    private static final int MAX_LENGTH = 8;
+
+    private static final Map<String, String> ABBREVIATIONS = Map.of(
+            "md", "mohammad",
+            "mohd", "mohammad",
+            "mhd", "mohammad",
+            "sk", "shaikh");
+
+    private NamePhonetics() {
+    }
+
+    /**
+     * Key for a name of one or more words; empty when the name has no letters
+     */
+    public static String encode(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder letters = new StringBuilder();
+        for (String word : name.toLowerCase(Locale.ROOT).trim().split("[\\s.]+")) {
+            String expanded = ABBREVIATIONS.getOrDefault(word, word);
+            for (int i = 0; i < expanded.length(); i++) {
+                char c = expanded.charAt(i);
+                if (c >= 'a' && c <= 'z') {
+                    letters.append(c);
+                }
+            }
+        }
+        if (letters.isEmpty()) {
+            return "";
+        }
+        String folded = fold(letters.toString());
+
+        StringBuilder key = new StringBuilder(MAX_LENGTH);
+        key.append(isVowel(folded.charAt(0)) ? 'a' : folded.charAt(0));
+        char previous = key.charAt(0);
+        for (int i = 1; i < folded.length() && key.length() < MAX_LENGTH; i++) {
+            char c = folded.charAt(i);
+            if (isVowel(c) || c == previous) {
+                previous = isVowel(c) ? c : previous;
+                continue;
+            }
+            key.append(c);
+            previous = c;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Spell every variant of a sound the same way; vowels stay, to be dropped by the caller
+     */
+    private static String fold(String s) {
+        StringBuilder out = new StringBuilder(s.length() + 4);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            char next = i + 1 < s.length() ? s.charAt(i + 1) : 0;
+            char last = out.isEmpty() ? 0 : out.charAt(out.length() - 1);
+            switch (c) {
+                case 'x' -> out.append("ks");
+                case 'z' -> out.append('j');
+                case 'q' -> out.append('k');
+                case 'c' -> {
+                    if (next == 'k') {
+                        continue; // "ck" is just k
+                    }
+                    out.append(next == 'h' ? 'c' : 'k');
+                }
+                case 'p' -> {
+                    if (next == 'h') {
+                        out.append('f');
+                        i++;
+                    } else {
+                        out.append('p');
+                    }
+                }
+                // w after a vowel is part of it (Chowdhury, Rawat), otherwise the same as v
+                case 'w' -> out.append(last != 0 && isVowel(last) ? 'u' : 'v');
+                // y between or after vowels is a vowel (Priya, Vijay), a consonant to start a name (Yash)
+                case 'y' -> out.append(out.isEmpty() ? 'y' : 'i');
+                case 'h' -> {
+                    // Aspirated consonants (bh, dh, th, kh, gh, jh, ch, sh) and a trailing h (Shah) lose the h
+                    if (last != 0 && !isVowel(last)) {
+                        continue;
+                    }
+                    if (next == 0 || (last != 0 && !isVowel(next))) {
+                        continue;
+                    }
+                    out.append('h');
+                }
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,402 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.common.exception.DuplicateResourceException;
+import com.hospital.hms.patient.dto.CreatePatientRequest;
+import com.hospital.hms.patient.dto.DuplicateCandidateDto;
+import com.hospital.hms.patient.dto.DuplicateSweepReport;
+import com.hospital.hms.patient.entity.Patient;
+import com.hospital.hms.patient.entity.PatientMatchKey;
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import com.hospital.hms.patient.repository.PatientMatchKeyRepository;
+import com.hospital.hms.patient.repository.PatientRepository;
+import com.hospital.hms.patient.service.PatientMatcher.Profile;
+import com.hospital.hms.patient.service.PatientMatcher.ScoredPair;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Duplicate-patient detection over blocking keys ({@link PatientMatcher}) kept in {@code patient_match_keys}.
+ *
+ * At registration the few keys of the new patient are looked up in one indexed query and only the patients
+ * found there are scored, so the check costs a couple of milliseconds however large the table. The offline
+ * sweep streams the key table one hash partition per worker, compares patients within each block and merges
+ * the pairs.
+ *
+ * Table scans stream inside a read-only transaction: PostgreSQL only honours the fetch size there, and would
+ * otherwise read the whole result into memory before the first row.
+ */
+@Slf4j
+@Service
+public class PatientDuplicateService {
+
+    private static final int MAX_CANDIDATES_RETURNED = 10;
+    private static final int SWEEP_REPORT_LIMIT = 500;
+    private static final int FETCH_SIZE = 5000;
+
+    private static final String PROFILE_COLUMNS = "p.id, p.uhid, p.first_name, p.last_name, p.date_of_birth, " +
+            "p.age_years, p.created_at, p.gender, p.mobile_number";
+    private static final String SWEEP_SQL = "SELECT k.block_key, " + PROFILE_COLUMNS +
+            " FROM patient_match_keys k JOIN patients p ON p.id = k.patient_id" +
+            " WHERE k.partition_no = ? AND p.is_deleted = false ORDER BY k.block_key";
+    private static final String BACKFILL_SQL = "SELECT " + PROFILE_COLUMNS + " FROM patients p WHERE p.is_deleted = false";
+    private static final String INSERT_KEY_SQL = "INSERT INTO patient_match_keys " +
+            "(patient_id, block_key, partition_no, created_at, is_active, is_deleted, version) " +
+            "VALUES (?, ?, ?, ?, true, false, 0)";
+
+    private final PatientRepository patientRepository;
+    private final PatientMatchKeyRepository keyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int reportThreshold;
+    private final int blockThreshold;
+    private final int maxCandidates;
+    private final int partitions;
+    private final int parallelism;
+    private final int maxBlockSize;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate chunkTransaction;
+
+    public PatientDuplicateService(PatientRepository patientRepository,
+                                   PatientMatchKeyRepository keyRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.patient-duplicates.report-threshold:50}") int reportThreshold,
+                                   @Value("${app.patient-duplicates.block-threshold:85}") int blockThreshold,
+                                   @Value("${app.patient-duplicates.max-candidates:50}") int maxCandidates,
+                                   @Value("${app.patient-duplicates.sweep-partitions:64}") int partitions,
+                                   @Value("${app.patient-duplicates.sweep-parallelism:4}") int parallelism,
+                                   @Value("${app.patient-duplicates.sweep-max-block:200}") int maxBlockSize) {
+        this.patientRepository = patientRepository;
+        this.keyRepository = keyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportThreshold = reportThreshold;
+        this.blockThreshold = blockThreshold;
+        this.maxCandidates = maxCandidates;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+        this.maxBlockSize = maxBlockSize;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Existing patients who are likely the same person as the registration, best match first
+     */
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateDto> findLikelyDuplicates(CreatePatientRequest request) {
+        Profile probe = Profile.of(request);
+        Set<String> keys = PatientMatcher.lookupKeys(probe);
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        // One capped lookup per key, strongest key first, so a crowded name block cannot crowd out the patients
+        // sharing the mobile number
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (ids.size() >= maxCandidates) {
+                break;
+            }
+            for (Long id : keyRepository.findPatientIdsByBlockKey(key, PageRequest.of(0, maxCandidates))) {
+                if (ids.size() < maxCandidates) {
+                    ids.add(id);
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return patientRepository.findAllById(ids).stream()
+                .filter(patient -> !Boolean.TRUE.equals(patient.getIsDeleted()))
+                .map(patient -> toCandidate(patient, PatientMatcher.score(probe, Profile.of(patient))))
+                .filter(candidate -> candidate.getScore() >= reportThreshold)
+                .sorted(Comparator.comparing(DuplicateCandidateDto::getScore).reversed())
+                .limit(MAX_CANDIDATES_RETURNED)
+                .toList();
+    }
+
+    /**
+     * Refuse a registration that is almost certainly an existing patient; the front desk can review the
+     * candidates ({@link #findLikelyDuplicates}) and confirm to register anyway. The message names no
+     * patient, as the candidates may belong to other hospitals.
+     */
+    @Transactional(readOnly = true)
+    public void rejectLikelyDuplicate(CreatePatientRequest request) {
+        if (findLikelyDuplicates(request).stream().anyMatch(candidate -> candidate.getScore() >= blockThreshold)) {
+            throw new DuplicateResourceException(
+                    "Likely duplicate of an existing patient; review the candidates and confirm to register anyway");
+        }
+    }
+
+    /**
+     * Re-file a patient under its current keys after every committed change, unless the change filed them
+     * already ({@link #fileNewPatients})
+     */
+    @TransactionalEventListener(fallbackExecution = true, condition = "!#event.matchKeysFiled")
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPatientChanged(PatientChangedEvent event) {
+        Patient patient = event.isDeleted() ? null : patientRepository.findById(event.getId()).orElse(null);
+        Set<String> wanted = patient != null ? PatientMatcher.indexKeys(Profile.of(patient)) : Set.of();
+
+        List<PatientMatchKey> existing = keyRepository.findByPatientId(event.getId());
+        List<PatientMatchKey> stale = existing.stream()
+                .filter(key -> !wanted.contains(key.getBlockKey()))
+                .toList();
+        if (!stale.isEmpty()) {
+            keyRepository.deleteAll(stale);
+        }
+        Set<String> filed = new HashSet<>();
+        existing.forEach(key -> filed.add(key.getBlockKey()));
+        List<PatientMatchKey> added = wanted.stream()
+                .filter(key -> !filed.contains(key))
+                .map(key -> PatientMatchKey.builder()
+                        .patientId(event.getId())
+                        .blockKey(key)
+                        .partitionNo(PatientMatcher.partition(key, partitions))
+                        .build())
+                .toList();
+        if (!added.isEmpty()) {
+            keyRepository.saveAll(added);
+        }
+    }
+
+    /**
+     * File newly inserted patients under their keys with one batch insert, in the caller's transaction; their
+     * change events are then published with {@code matchKeysFiled} set
+     */
+    public void fileNewPatients(List<Patient> patients) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (Patient patient : patients) {
+            for (String key : PatientMatcher.indexKeys(Profile.of(patient))) {
+                rows.add(new Object[]{patient.getId(), key, PatientMatcher.partition(key, partitions), now});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_KEY_SQL, rows);
+        }
+    }
+
+    /**
+     * File existing patients once, when the key table is still empty
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (keyRepository.count() > 0 || patientRepository.count() == 0) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+        long[] rows = {0};
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // Keys are written in their own transactions, on another connection, while the read-only scan streams
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BACKFILL_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (ResultSet rs) -> {
+            Profile profile = profile(rs);
+            for (String key : PatientMatcher.indexKeys(profile)) {
+                batch.add(new Object[]{profile.id(), key, PatientMatcher.partition(key, partitions), now});
+            }
+            if (batch.size() >= 1000) {
+                insertKeys(batch);
+                batch.clear();
+            }
+            rows[0]++;
+        }));
+        if (!batch.isEmpty()) {
+            insertKeys(batch);
+        }
+        log.info("Filed {} patients under duplicate-detection keys in {} ms", rows[0], System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Compare every block of patients sharing a key, partitions in parallel, and report the likely duplicates
+     */
+    public DuplicateSweepReport sweep() {
+        long started = System.currentTimeMillis();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "HMS-DuplicateSweep-" + threads.incrementAndGet()));
+        PartitionResult total = new PartitionResult();
+        try {
+            List<Future<PartitionResult>> results = new ArrayList<>(partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                int p = partition;
+                results.add(pool.submit(() -> sweepPartition(p)));
+            }
+            for (Future<PartitionResult> result : results) {
+                total.merge(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Duplicate sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Duplicate sweep failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<DuplicateSweepReport.DuplicatePair> pairs = total.pairs.values().stream()
+                .sorted(Comparator.comparingInt((ScoredPair pair) -> pair.match().score()).reversed())
+                .limit(SWEEP_REPORT_LIMIT)
+                .map(PatientDuplicateService::toPair)
+                .toList();
+        long durationMs = System.currentTimeMillis() - started;
+        log.info("Duplicate sweep over {} partitions: {} keys, {} blocks, {} likely duplicate pairs in {} ms",
+                partitions, total.keys, total.blocksCompared, total.pairs.size(), durationMs);
+        return DuplicateSweepReport.builder()
+                .partitions(partitions)
+                .keysScanned(total.keys)
+                .blocksCompared(total.blocksCompared)
+                .blocksSkipped(total.blocksSkipped)
+                .pairsFound((long) total.pairs.size())
+                .durationMs(durationMs)
+                .pairs(pairs)
+                .build();
+    }
+
+    private PartitionResult sweepPartition(int partition) {
+        PartitionResult result = new PartitionResult();
+        List<Profile> block = new ArrayList<>();
+        String[] blockKey = {null};
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SWEEP_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setInt(1, partition);
+            return ps;
+        }, (ResultSet rs) -> {
+            String key = rs.getString("block_key");
+            if (!key.equals(blockKey[0])) {
+                compare(block, result);
+                block.clear();
+                blockKey[0] = key;
+            }
+            block.add(profile(rs));
+            result.keys++;
+        }));
+        compare(block, result);
+        return result;
+    }
+
+    private void insertKeys(List<Object[]> batch) {
+        chunkTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_KEY_SQL, batch));
+    }
+
+    private void compare(List<Profile> block, PartitionResult result) {
+        if (block.size() < 2) {
+            return;
+        }
+        if (block.size() > maxBlockSize) {
+            result.blocksSkipped++;
+            return;
+        }
+        result.blocksCompared++;
+        for (ScoredPair pair : PatientMatcher.compareBlock(block, reportThreshold)) {
+            result.add(pair);
+        }
+    }
+
+    private static Profile profile(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        java.sql.Date dateOfBirth = rs.getDate("date_of_birth");
+        int ageYears = rs.getInt("age_years");
+        Integer age = rs.wasNull() ? null : ageYears;
+        String gender = rs.getString("gender");
+        return new Profile(rs.getLong("id"), rs.getString("uhid"), rs.getString("first_name"),
+                rs.getString("last_name"), dateOfBirth != null ? dateOfBirth.toLocalDate() : null,
+                PatientMatcher.birthYear(dateOfBirth != null ? dateOfBirth.toLocalDate() : null, age,
+                        createdAt != null ? createdAt.toLocalDateTime() : null),
+                gender != null ? Gender.valueOf(gender) : null, rs.getString("mobile_number"));
+    }
+
+    private static DuplicateCandidateDto toCandidate(Patient patient, PatientMatcher.Match match) {
+        return DuplicateCandidateDto.builder()
+                .patientId(patient.getId())
+                .uhid(patient.getUhid())
+                .fullName(patient.getFullName())
+                .dateOfBirth(patient.getDateOfBirth())
+                .age(patient.getCalculatedAge())
+                .gender(patient.getGender())
+                .mobileNumber(patient.getMobileNumber())
+                .registeredHospitalId(patient.getRegisteredHospitalId())
+                .score(match.score())
+                .reasons(match.reasons())
+                .build();
+    }
+
+    private static DuplicateSweepReport.DuplicatePair toPair(ScoredPair pair) {
+        return DuplicateSweepReport.DuplicatePair.builder()
+                .patientId(pair.first().id())
+                .uhid(pair.first().uhid())
+                .name(name(pair.first()))
+                .duplicatePatientId(pair.second().id())
+                .duplicateUhid(pair.second().uhid())
+                .duplicateName(name(pair.second()))
+                .score(pair.match().score())
+                .reasons(pair.match().reasons())
+                .build();
+    }
+
+    private static String name(Profile profile) {
+        return profile.lastName() != null && !profile.lastName().isBlank()
+                ? profile.firstName() + " " + profile.lastName()
+                : profile.firstName();
+    }
+
+    /**
+     * Counters and pairs of one partition; a pair sharing two keys is kept once
+     */
+    private static final class PartitionResult {
+        private long keys;
+        private long blocksCompared;
+        private long blocksSkipped;
+        private final Map<String, ScoredPair> pairs = new HashMap<>();
+
+        void add(ScoredPair pair) {
+            pairs.merge(pair.first().id() + ":" + pair.second().id(), pair,
+                    (a, b) -> a.match().score() >= b.match().score() ? a : b);
+        }
+
+        void merge(PartitionResult other) {
+            keys += other.keys;
+            blocksCompared += other.blocksCompared;
+            blocksSkipped += other.blocksSkipped;
+            other.pairs.values().forEach(this::add);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.patient.entity.Patient;
+import com.hospital.hms.patient.entity.PatientImportJob;
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import com.hospital.hms.patient.repository.PatientImportJobRepository;
+import com.hospital.hms.patient.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one chunk of a bulk patient import.
+ *
+ * UHIDs for the chunk are reserved as one contiguous block, the patients are inserted with JDBC batching
+ * (IDENTITY ids rule out Hibernate insert batching), rejected rows are appended to the job's rejected-rows
+ * file, the new patients are filed under their duplicate-detection keys in one more batch and the job cursor is
+ * advanced, all in one transaction of its own. The rejected-rows file is cut back to its committed length before
+ * every append, so rows written by a chunk that rolled back never show up twice.
+ */
+@Slf4j
+@Component
+public class PatientImportChunkWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO patients (" +
+            "uhid, registered_hospital_id, first_name, middle_name, last_name, date_of_birth, age_years, age_months, " +
+            "gender, blood_group, mobile_number, alternate_mobile, email, address_line1, address_line2, city, " +
+            "district, state, pincode, country, aadhaar_encrypted, aadhaar_last_four, aadhaar_hash, " +
+            "emergency_contact_name, emergency_contact_relation, emergency_contact_phone, allergies, " +
+            "chronic_conditions, current_medications, insurance_provider, insurance_policy_number, insurance_validity, " +
+            "preferred_language, is_vip, sms_consent, email_consent, whatsapp_consent, marketing_consent, " +
+            "data_sharing_consent, created_at, updated_at, created_by, updated_by, is_active, is_deleted, version" +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
+            "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int ID_LOOKUP_CHUNK = 500;
+
+    /**
+     * A source row that failed conversion or validation, with its original values
+     */
+    public record Rejection(long rowNumber, String errors, List<String> values) {
+    }
+
+    /**
+     * Validated patients (without UHIDs yet) and rejected rows of source rows {@code firstRow} to {@code lastRow}
+     */
+    public record Chunk(long firstRow, long lastRow, int rowCount, List<Patient> patients, List<Rejection> rejections) {
+    }
+
+    private final PatientImportJobRepository jobRepository;
+    private final PatientRepository patientRepository;
+    private final SequenceService sequenceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientDuplicateService duplicateService;
+    private final int batchSize;
+
+    public PatientImportChunkWriter(PatientImportJobRepository jobRepository,
+                                    PatientRepository patientRepository,
+                                    SequenceService sequenceService,
+                                    JdbcTemplate jdbcTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PatientDuplicateService duplicateService,
+                                    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jobRepository = jobRepository;
+        this.patientRepository = patientRepository;
+        this.sequenceService = sequenceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.duplicateService = duplicateService;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Record {@code chunk} and move the job cursor past it.
+     *
+     * @return number of patients inserted
+     * @throws ConflictException if the job is already past the start of the chunk, i.e. another run of the
+     *                           same import got there first
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int write(Long jobId, List<String> header, Chunk chunk) {
+        PatientImportJob job = jobRepository.findForUpdate(jobId)
+                .orElseThrow(() -> new IllegalStateException("Patient import " + jobId + " not found"));
+        if (job.getLastRow() >= chunk.firstRow()) {
+            throw new ConflictException(String.format("Patient import %d is already past row %d",
+                    jobId, chunk.firstRow()), "IMPORT_RUNNING");
+        }
+
+        List<Patient> patients = chunk.patients();
+        if (!patients.isEmpty()) {
+            assignUhids(patients);
+            insert(patients, job.getCreatedBy() != null ? job.getCreatedBy() : "SYSTEM");
+            assignIds(patients);
+            duplicateService.fileNewPatients(patients);
+        }
+        if (!chunk.rejections().isEmpty()) {
+            try {
+                job.setRejectedFileLength(appendRejected(Path.of(job.getRejectedPath()), job.getRejectedFileLength(),
+                        header, chunk.rejections()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write rejected rows of patient import " + jobId, e);
+            }
+        }
+
+        job.setLastRow(chunk.lastRow());
+        job.setRowsProcessed(job.getRowsProcessed() + chunk.rowCount());
+        job.setRowsImported(job.getRowsImported() + patients.size());
+        job.setRowsRejected(job.getRowsRejected() + chunk.rejections().size());
+        jobRepository.save(job);
+
+        // Delivered after commit, like those of a single registration, for the search index; the duplicate keys
+        // are already filed
+        patients.forEach(patient -> eventPublisher.publishEvent(PatientChangedEvent.of(patient, true)));
+        return patients.size();
+    }
+
+    /**
+     * Append rejected rows after the first {@code committedLength} bytes of {@code file}, writing the header
+     * first when the file is still empty
+     *
+     * @return the new length of the file
+     */
+    static long appendRejected(Path file, long committedLength, List<String> header, List<Rejection> rejections)
+            throws IOException {
+        StringBuilder out = new StringBuilder();
+        try (CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT)) {
+            if (committedLength == 0) {
+                List<String> columns = new ArrayList<>(header.size() + 2);
+                columns.add("row");
+                columns.add("errors");
+                columns.addAll(header);
+                printer.printRecord(columns);
+            }
+            for (Rejection rejection : rejections) {
+                List<Object> values = new ArrayList<>(rejection.values().size() + 2);
+                values.add(rejection.rowNumber());
+                values.add(rejection.errors());
+                values.addAll(rejection.values());
+                printer.printRecord(values);
+            }
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(committedLength);
+            channel.position(committedLength);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        return committedLength + bytes.limit();
+    }
+
+    private void assignUhids(List<Patient> patients) {
+        // Same numbering as single registrations, reserved as one block for the chunk
+        String year = String.valueOf(Year.now().getValue());
+        String prefix = "HMS" + year.substring(2);
+        long first = sequenceService.nextRange("UHID", SequenceService.GLOBAL_SCOPE, year, patients.size(),
+                () -> SequenceService.orZero(patientRepository.findMaxUhid(prefix)));
+        for (int n = 0; n < patients.size(); n++) {
+            patients.get(n).setUhid(prefix + String.format("%06d", first + n));
+        }
+    }
+
+    private void insert(List<Patient> patients, String auditor) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Patient patient : patients) {
+            patient.setCreatedAt(now);
+            patient.setUpdatedAt(now);
+            patient.setCreatedBy(auditor);
+            patient.setUpdatedBy(auditor);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, patients, batchSize, PatientImportChunkWriter::bind);
+    }
+
+    private static void bind(PreparedStatement ps, Patient p) throws SQLException {
+        int i = 1;
+        ps.setString(i++, p.getUhid());
+        ps.setLong(i++, p.getRegisteredHospitalId());
+        ps.setString(i++, p.getFirstName());
+        ps.setString(i++, p.getMiddleName());
+        ps.setString(i++, p.getLastName());
+        setNullable(ps, i++, p.getDateOfBirth(), Types.DATE);
+        setNullable(ps, i++, p.getAgeYears(), Types.INTEGER);
+        setNullable(ps, i++, p.getAgeMonths(), Types.INTEGER);
+        ps.setString(i++, p.getGender() != null ? p.getGender().name() : null);
+        ps.setString(i++, p.getBloodGroup() != null ? p.getBloodGroup().name() : null);
+        ps.setString(i++, p.getMobileNumber());
+        ps.setString(i++, p.getAlternateMobile());
+        ps.setString(i++, p.getEmail());
+        ps.setString(i++, p.getAddressLine1());
+        ps.setString(i++, p.getAddressLine2());
+        ps.setString(i++, p.getCity());
+        ps.setString(i++, p.getDistrict());
+        ps.setString(i++, p.getState());
+        ps.setString(i++, p.getPincode());
+        ps.setString(i++, p.getCountry());
+        ps.setString(i++, p.getAadhaarEncrypted());
+        ps.setString(i++, p.getAadhaarLastFour());
+        ps.setString(i++, p.getAadhaarHash());
+        ps.setString(i++, p.getEmergencyContactName());
+        ps.setString(i++, p.getEmergencyContactRelation());
+        ps.setString(i++, p.getEmergencyContactPhone());
+        ps.setString(i++, p.getAllergies());
+        ps.setString(i++, p.getChronicConditions());
+        ps.setString(i++, p.getCurrentMedications());
+        ps.setString(i++, p.getInsuranceProvider());
+        ps.setString(i++, p.getInsurancePolicyNumber());
+        setNullable(ps, i++, p.getInsuranceValidity(), Types.DATE);
+        ps.setString(i++, p.getPreferredLanguage());
+        ps.setBoolean(i++, p.getIsVip());
+        ps.setBoolean(i++, p.getSmsConsent());
+        ps.setBoolean(i++, p.getEmailConsent());
+        ps.setBoolean(i++, p.getWhatsappConsent());
+        ps.setBoolean(i++, p.getMarketingConsent());
+        ps.setBoolean(i++, p.getDataSharingConsent());
+        ps.setObject(i++, p.getCreatedAt());
+        ps.setObject(i++, p.getUpdatedAt());
+        ps.setString(i++, p.getCreatedBy());
+        ps.setString(i++, p.getUpdatedBy());
+        ps.setBoolean(i++, p.getIsActive());
+        ps.setBoolean(i++, p.getIsDeleted());
+        ps.setLong(i, p.getVersion());
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value != null) {
+            ps.setObject(index, value);
+        } else {
+            ps.setNull(index, sqlType);
+        }
+    }
+
+    private void assignIds(List<Patient> patients) {
+        Map<String, Patient> byUhid = patients.stream()
+                .collect(Collectors.toMap(Patient::getUhid, Function.identity()));
+        List<String> uhids = new ArrayList<>(byUhid.keySet());
+        for (int from = 0; from < uhids.size(); from += ID_LOOKUP_CHUNK) {
+            List<String> chunk = uhids.subList(from, Math.min(from + ID_LOOKUP_CHUNK, uhids.size()));
+            for (PatientRepository.UhidId row : patientRepository.findIdsByUhids(chunk)) {
+                byUhid.get(row.getUhid()).setId(row.getId());
+            }
+        }
+    }
+}
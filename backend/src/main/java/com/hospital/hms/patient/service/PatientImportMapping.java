@@ -0,0 +1,228 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.enums.BloodGroup;
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.patient.dto.CreatePatientRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the columns of an import file onto {@link CreatePatientRequest}.
+ *
+ * Headers are matched loosely (case, spaces and punctuation ignored, a few common aliases such as "DOB" or
+ * "Mobile"), unknown columns are ignored. A value that cannot be converted is reported against its column
+ * and leaves the field empty, so bean validation still reports everything else wrong with the row.
+ */
+public final class PatientImportMapping {
+
+    private static final List<String> REQUIRED = List.of("firstName", "gender", "mobileNumber");
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d.M.uuuu"));
+
+    private static final Pattern SCIENTIFIC = Pattern.compile("^\\d(\\.\\d+)?[eE]\\+?\\d+$");
+
+    private static final Map<String, Column> COLUMNS = new HashMap<>();
+
+    static {
+        column("firstName", (r, v) -> r.setFirstName(v), "first");
+        column("middleName", (r, v) -> r.setMiddleName(v));
+        column("lastName", (r, v) -> r.setLastName(v), "surname");
+        column("dateOfBirth", (r, v) -> r.setDateOfBirth(date(v)), "dob", "birthDate");
+        column("ageYears", (r, v) -> r.setAgeYears(integer(v)), "age");
+        column("ageMonths", (r, v) -> r.setAgeMonths(integer(v)));
+        column("gender", (r, v) -> r.setGender(gender(v)), "sex");
+        column("bloodGroup", (r, v) -> r.setBloodGroup(bloodGroup(v)));
+        column("mobileNumber", (r, v) -> r.setMobileNumber(mobile(v)), "mobile", "phone", "phoneNumber");
+        column("alternateMobile", (r, v) -> r.setAlternateMobile(mobile(v)));
+        column("email", (r, v) -> r.setEmail(v), "emailAddress");
+        column("addressLine1", (r, v) -> r.setAddressLine1(v), "address");
+        column("addressLine2", (r, v) -> r.setAddressLine2(v));
+        column("city", (r, v) -> r.setCity(v));
+        column("district", (r, v) -> r.setDistrict(v));
+        column("state", (r, v) -> r.setState(v));
+        column("pincode", (r, v) -> r.setPincode(plainNumber(v)), "pin", "postalCode");
+        column("aadhaarNumber", (r, v) -> r.setAadhaarNumber(plainNumber(v).replaceAll("[\\s-]", "")), "aadhaar");
+        column("emergencyContactName", (r, v) -> r.setEmergencyContactName(v));
+        column("emergencyContactRelation", (r, v) -> r.setEmergencyContactRelation(v));
+        column("emergencyContactPhone", (r, v) -> r.setEmergencyContactPhone(mobile(v)));
+        column("allergies", (r, v) -> r.setAllergies(v));
+        column("chronicConditions", (r, v) -> r.setChronicConditions(v));
+        column("currentMedications", (r, v) -> r.setCurrentMedications(v));
+        column("insuranceProvider", (r, v) -> r.setInsuranceProvider(v));
+        column("insurancePolicyNumber", (r, v) -> r.setInsurancePolicyNumber(v));
+        column("insuranceValidity", (r, v) -> r.setInsuranceValidity(date(v)));
+        column("preferredLanguage", (r, v) -> r.setPreferredLanguage(v), "language");
+        column("smsConsent", (r, v) -> r.setSmsConsent(bool(v)));
+        column("emailConsent", (r, v) -> r.setEmailConsent(bool(v)));
+        column("whatsappConsent", (r, v) -> r.setWhatsappConsent(bool(v)));
+    }
+
+    private record Column(String field, BiConsumer<CreatePatientRequest, String> setter) {
+    }
+
+    /**
+     * Fields bound to the columns of one file, by column position
+     */
+    public static final class Binding {
+
+        private final Column[] columns;
+
+        private Binding(Column[] columns) {
+            this.columns = columns;
+        }
+
+        /**
+         * Build the request for one row; conversion errors are added to {@code errors} by field
+         */
+        public CreatePatientRequest toRequest(List<String> values, Map<String, String> errors) {
+            CreatePatientRequest request = new CreatePatientRequest();
+            for (int i = 0; i < columns.length && i < values.size(); i++) {
+                String value = values.get(i) != null ? values.get(i).trim() : "";
+                if (columns[i] == null || value.isEmpty()) {
+                    continue;
+                }
+                try {
+                    columns[i].setter().accept(request, value);
+                } catch (IllegalArgumentException e) {
+                    errors.put(columns[i].field(), e.getMessage());
+                }
+            }
+            return request;
+        }
+    }
+
+    private PatientImportMapping() {
+    }
+
+    /**
+     * Bind the header of a file; the first column wins when two map to the same field
+     */
+    public static Binding bind(List<String> header) {
+        Column[] columns = new Column[header.size()];
+        Set<String> bound = new HashSet<>();
+        for (int i = 0; i < header.size(); i++) {
+            Column column = COLUMNS.get(normalize(header.get(i)));
+            if (column != null && bound.add(column.field())) {
+                columns[i] = column;
+            }
+        }
+        return new Binding(columns);
+    }
+
+    /**
+     * Required fields with no column in {@code header}
+     */
+    public static List<String> missingColumns(List<String> header) {
+        Set<String> present = new HashSet<>();
+        for (String name : header) {
+            Column column = COLUMNS.get(normalize(name));
+            if (column != null) {
+                present.add(column.field());
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (String field : REQUIRED) {
+            if (!present.contains(field)) {
+                missing.add(field);
+            }
+        }
+        return missing;
+    }
+
+    private static void column(String field, BiConsumer<CreatePatientRequest, String> setter, String... aliases) {
+        Column column = new Column(field, setter);
+        COLUMNS.put(normalize(field), column);
+        for (String alias : aliases) {
+            COLUMNS.put(normalize(alias), column);
+        }
+    }
+
+    private static String normalize(String header) {
+        return header == null ? "" : header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    static LocalDate date(String value) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // Try the next format
+            }
+        }
+        throw new IllegalArgumentException("'" + value + "' is not a date (use YYYY-MM-DD or DD-MM-YYYY)");
+    }
+
+    private static Integer integer(String value) {
+        try {
+            return new BigDecimal(value).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("'" + value + "' is not a whole number");
+        }
+    }
+
+    static Gender gender(String value) {
+        String key = value.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+        for (Gender gender : Gender.values()) {
+            if (gender.name().equals(key) || gender.getCode().equals(key)) {
+                return gender;
+            }
+        }
+        throw new IllegalArgumentException("'" + value + "' is not a gender (M, F, O or N)");
+    }
+
+    private static BloodGroup bloodGroup(String value) {
+        String key = value.trim().toUpperCase(Locale.ROOT).replace(" ", "");
+        for (BloodGroup group : BloodGroup.values()) {
+            if (group.name().replace("_", "").equals(key) || group.getCode().equalsIgnoreCase(key)) {
+                return group;
+            }
+        }
+        throw new IllegalArgumentException("'" + value + "' is not a blood group");
+    }
+
+    private static Boolean bool(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1" -> true;
+            case "false", "no", "n", "0" -> false;
+            default -> throw new IllegalArgumentException("'" + value + "' is not yes or no");
+        };
+    }
+
+    /**
+     * Ten-digit mobile number from common spellings (+91 prefix, leading 0, spaces and dashes)
+     */
+    static String mobile(String value) {
+        String digits = plainNumber(value).replaceAll("[^0-9]", "");
+        if (digits.length() == 12 && digits.startsWith("91")) {
+            return digits.substring(2);
+        }
+        if (digits.length() == 11 && digits.startsWith("0")) {
+            return digits.substring(1);
+        }
+        return digits.isEmpty() ? value : digits;
+    }
+
+    // Numbers typed into a spreadsheet cell without a text format can arrive as 9.876543210E9
+    private static String plainNumber(String value) {
+        if (SCIENTIFIC.matcher(value).matches()) {
+            return new BigDecimal(value).toBigInteger().toString();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,227 @@
+package com.hospital.hms.patient.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams the rows of an import file without loading it: CSV through commons-csv, XLSX through POI's SAX
+ * event API over the first sheet (the usermodel API would build the whole workbook in memory).
+ *
+ * The first non-blank row is the header. Every data row is reported with its source row number - the
+ * spreadsheet row, or the CSV record counting the header as 1 - which only grows, so it doubles as the
+ * resume cursor. Blank rows are skipped.
+ */
+public final class PatientImportReader {
+
+    public enum Format {
+        CSV, XLSX;
+
+        public static Format of(String fileName) {
+            String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".xlsx")) {
+                return XLSX;
+            }
+            return null;
+        }
+    }
+
+    public interface RowHandler {
+
+        void header(List<String> columns);
+
+        void row(long rowNumber, List<String> values);
+    }
+
+    private PatientImportReader() {
+    }
+
+    /**
+     * Stream every row of {@code file} to {@code handler}, header first
+     */
+    public static void read(Path file, Format format, RowHandler handler) throws IOException {
+        if (format == Format.CSV) {
+            readCsv(file, handler);
+        } else {
+            readXlsx(file, handler);
+        }
+    }
+
+    /**
+     * Column names of {@code file}, reading no further than the header
+     */
+    public static List<String> readHeader(Path file, Format format) throws IOException {
+        List<String> header = new ArrayList<>();
+        try {
+            read(file, format, new RowHandler() {
+                @Override
+                public void header(List<String> columns) {
+                    header.addAll(columns);
+                    throw new StopReading();
+                }
+
+                @Override
+                public void row(long rowNumber, List<String> values) {
+                    throw new StopReading();
+                }
+            });
+        } catch (StopReading ignored) {
+            // Header read
+        }
+        return header;
+    }
+
+    private static void readCsv(Path file, RowHandler handler) throws IOException {
+        CSVFormat csv = CSVFormat.DEFAULT.builder()
+                .setIgnoreSurroundingSpaces(true)
+                .setIgnoreEmptyLines(true)
+                .build();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CSVParser parser = csv.parse(reader)) {
+            boolean headerSeen = false;
+            for (CSVRecord record : parser) {
+                List<String> values = record.toList();
+                if (isBlank(values)) {
+                    continue;
+                }
+                if (!headerSeen) {
+                    // Excel writes UTF-8 CSV with a byte order mark
+                    if (values.get(0).startsWith("\uFEFF")) {
+                        values.set(0, values.get(0).substring(1));
+                    }
+                    handler.header(values);
+                    headerSeen = true;
+                } else {
+                    handler.row(record.getRecordNumber(), values);
+                }
+            }
+        }
+    }
+
+    private static void readXlsx(Path file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+                        new SheetRows(handler), formatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Not a readable XLSX file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Dates as ISO dates and integral numbers in full (mobile and Aadhaar numbers would otherwise come out
+     * as 9.87654E+09), whatever the cell format. DataFormatter keeps caches that are not thread-safe, so every
+     * sheet read gets its own.
+     */
+    private static DataFormatter formatter() {
+        return new DataFormatter(Locale.ROOT) {
+            @Override
+            public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+                if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                    return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+                }
+                if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                    return Long.toString((long) value);
+                }
+                return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+            }
+        };
+    }
+
+    private static boolean isBlank(List<String> values) {
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the cells of each sheet row, filling the gaps left by empty cells
+     */
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> values = new ArrayList<>();
+        private boolean headerSeen;
+        private int nextColumn;
+
+        SheetRows(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            while (values.size() < column) {
+                values.add("");
+            }
+            values.add(formattedValue != null ? formattedValue.trim() : "");
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (isBlank(values)) {
+                return;
+            }
+            if (!headerSeen) {
+                headerSeen = true;
+                handler.header(new ArrayList<>(values));
+            } else {
+                handler.row(rowNum + 1L, new ArrayList<>(values));
+            }
+        }
+    }
+
+    private static final class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.dto.CreatePatientRequest;
+import com.hospital.hms.patient.dto.PatientImportJobDto;
+import com.hospital.hms.patient.entity.Patient;
+import com.hospital.hms.patient.entity.PatientImportJob;
+import com.hospital.hms.patient.repository.PatientImportJobRepository;
+import com.hospital.hms.patient.service.PatientImportChunkWriter.Chunk;
+import com.hospital.hms.patient.service.PatientImportChunkWriter.Rejection;
+import com.hospital.hms.patient.service.PatientImportReader.Format;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk patient import from CSV or XLSX files (migrations from other systems, camp registers).
+ *
+ * The uploaded file is stored and then streamed in chunks on a background thread, so neither the file nor the
+ * result is ever held in memory. Rows of a chunk are converted and checked against the same constraints as a
+ * single registration in parallel slices, each slice encrypting its Aadhaar numbers in one go, and the chunk
+ * is committed by {@link PatientImportChunkWriter} together with the job cursor. An interrupted import -
+ * failed, or cut off by a restart - continues after the last committed chunk when resumed; imports left
+ * running by a shutdown are resumed at startup.
+ *
+ * Rows are not checked against existing patients one by one; the duplicate sweep picks up imported duplicates.
+ */
+@Slf4j
+@Service
+public class PatientImportService {
+
+    private static final int RECENT_JOBS = 20;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final PatientImportJobRepository jobRepository;
+    private final PatientImportChunkWriter chunkWriter;
+    private final EncryptionUtil encryptionUtil;
+    private final Validator validator;
+    private final Executor taskExecutor;
+    private final Path importDir;
+    private final int chunkSize;
+    private final int parallelism;
+
+    // Imports running on this instance
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public PatientImportService(PatientImportJobRepository jobRepository,
+                                PatientImportChunkWriter chunkWriter,
+                                EncryptionUtil encryptionUtil,
+                                Validator validator,
+                                @Qualifier("taskExecutor") Executor taskExecutor,
+                                @Value("${app.storage.upload-dir:./uploads}") String uploadDir,
+                                @Value("${app.patient-import.chunk-size:500}") int chunkSize,
+                                @Value("${app.patient-import.validation-parallelism:4}") int parallelism) {
+        this.jobRepository = jobRepository;
+        this.chunkWriter = chunkWriter;
+        this.encryptionUtil = encryptionUtil;
+        this.validator = validator;
+        this.taskExecutor = taskExecutor;
+        this.importDir = Path.of(uploadDir, "patient-imports");
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Store the file, check its header and start importing it in the background
+     */
+    public PatientImportJobDto start(MultipartFile file, Long hospitalId) {
+        if (hospitalId == null) {
+            throw new BadRequestException("hospitalId is required", "HOSPITAL_REQUIRED");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("The import file is empty", "EMPTY_FILE");
+        }
+        Format format = Format.of(file.getOriginalFilename());
+        if (format == null) {
+            throw new BadRequestException("Only .csv and .xlsx files can be imported", "UNSUPPORTED_FORMAT");
+        }
+
+        String name = UUID.randomUUID().toString();
+        Path stored = importDir.resolve(name + "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.createDirectories(importDir);
+            file.transferTo(stored);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store the import file", e);
+        }
+        checkHeader(stored, format);
+
+        String fileName = file.getOriginalFilename();
+        PatientImportJob job = jobRepository.save(PatientImportJob.builder()
+                .hospitalId(hospitalId)
+                .fileName(fileName.length() > 255 ? fileName.substring(fileName.length() - 255) : fileName)
+                .fileFormat(format.name())
+                .fileSize(file.getSize())
+                .storedPath(stored.toString())
+                .rejectedPath(importDir.resolve(name + "-rejected.csv").toString())
+                .status(PatientImportJob.STATUS_RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build());
+        log.info("Patient import {} of {} ({} bytes) started for hospital {}", job.getId(), job.getFileName(),
+                job.getFileSize(), hospitalId);
+        launch(job.getId());
+        return toDto(job);
+    }
+
+    /**
+     * Continue a failed or interrupted import after its last committed chunk
+     */
+    public PatientImportJobDto resume(Long jobId, Long hospitalScope) {
+        PatientImportJob job = load(jobId, hospitalScope);
+        if (PatientImportJob.STATUS_COMPLETED.equals(job.getStatus())) {
+            throw new BadRequestException("The import has already completed", "IMPORT_COMPLETED");
+        }
+        if (running.contains(jobId)) {
+            throw new ConflictException("The import is already running", "IMPORT_RUNNING");
+        }
+        job.setStatus(PatientImportJob.STATUS_RUNNING);
+        job.setErrorMessage(null);
+        job.setCompletedAt(null);
+        job = jobRepository.save(job);
+        log.info("Resuming patient import {} after row {}", jobId, job.getLastRow());
+        launch(jobId);
+        return toDto(job);
+    }
+
+    public PatientImportJobDto getJob(Long jobId, Long hospitalScope) {
+        return toDto(load(jobId, hospitalScope));
+    }
+
+    public List<PatientImportJobDto> recentJobs(Long hospitalId) {
+        return jobRepository.findRecentByHospital(hospitalId, PageRequest.of(0, RECENT_JOBS)).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Copy the committed part of the rejected-rows file (CSV: row, errors, then the original columns)
+     */
+    public void copyRejectedRows(Long jobId, Long hospitalScope, OutputStream out) throws IOException {
+        PatientImportJob job = load(jobId, hospitalScope);
+        long remaining = job.getRejectedFileLength();
+        if (remaining == 0) {
+            return;
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(Path.of(job.getRejectedPath()))) {
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * Pick up imports that were still running when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (PatientImportJob job : jobRepository.findByStatus(PatientImportJob.STATUS_RUNNING)) {
+            log.info("Resuming interrupted patient import {} after row {}", job.getId(), job.getLastRow());
+            launch(job.getId());
+        }
+    }
+
+    private void launch(Long jobId) {
+        try {
+            taskExecutor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            fail(jobId, "Import queue is full, resume the import later");
+        }
+    }
+
+    private void run(Long jobId) {
+        if (!running.add(jobId)) {
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "HMS-PatientImport-" + threads.incrementAndGet()));
+        try {
+            PatientImportJob job = jobRepository.findById(jobId)
+                    .orElseThrow(() -> new IllegalStateException("Patient import " + jobId + " not found"));
+            long started = System.currentTimeMillis();
+            ChunkingHandler handler = new ChunkingHandler(job, pool);
+            PatientImportReader.read(Path.of(job.getStoredPath()), Format.valueOf(job.getFileFormat()), handler);
+            handler.flush();
+
+            PatientImportJob finished = jobRepository.findById(jobId).orElse(job);
+            finished.setStatus(PatientImportJob.STATUS_COMPLETED);
+            finished.setCompletedAt(LocalDateTime.now());
+            finished = jobRepository.save(finished);
+            log.info("Patient import {} completed: {} imported, {} rejected ({} rows this run in {} ms)", jobId,
+                    finished.getRowsImported(), finished.getRowsRejected(), handler.rows,
+                    System.currentTimeMillis() - started);
+        } catch (ConflictException e) {
+            // Another instance resumed the same import and is ahead of this run; leave it to that one
+            log.info("Patient import {} continued elsewhere: {}", jobId, e.getMessage());
+        } catch (Exception e) {
+            log.error("Patient import {} failed", jobId, e);
+            fail(jobId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            pool.shutdownNow();
+            running.remove(jobId);
+        }
+    }
+
+    private void fail(Long jobId, String message) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(PatientImportJob.STATUS_FAILED);
+            job.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            jobRepository.save(job);
+        });
+    }
+
+    private void checkHeader(Path stored, Format format) {
+        List<String> header;
+        try {
+            header = PatientImportReader.readHeader(stored, format);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(stored);
+            throw new BadRequestException("Could not read the import file: " + e.getMessage(), "UNREADABLE_FILE");
+        }
+        if (header.isEmpty()) {
+            deleteQuietly(stored);
+            throw new BadRequestException("The import file has no header row", "MISSING_HEADER");
+        }
+        List<String> missing = PatientImportMapping.missingColumns(header);
+        if (!missing.isEmpty()) {
+            deleteQuietly(stored);
+            throw new BadRequestException("Missing required columns: " + String.join(", ", missing), "MISSING_COLUMNS");
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+
+    private PatientImportJob load(Long jobId, Long hospitalScope) {
+        return jobRepository.findById(jobId)
+                .filter(job -> hospitalScope == null || hospitalScope.equals(job.getHospitalId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Patient import", "id", jobId));
+    }
+
+    /**
+     * Validate and convert one chunk of rows: parallel slices, results kept in source order
+     */
+    private Chunk prepare(List<SourceRow> rows, PatientImportMapping.Binding binding, Long hospitalId, ExecutorService pool)
+            throws InterruptedException, ExecutionException {
+        int sliceSize = (rows.size() + parallelism - 1) / parallelism;
+        List<Future<List<Object>>> slices = new ArrayList<>(parallelism);
+        for (int from = 0; from < rows.size(); from += sliceSize) {
+            List<SourceRow> slice = rows.subList(from, Math.min(from + sliceSize, rows.size()));
+            slices.add(pool.submit(() -> prepareSlice(slice, binding, hospitalId)));
+        }
+        List<Patient> patients = new ArrayList<>(rows.size());
+        List<Rejection> rejections = new ArrayList<>();
+        for (Future<List<Object>> slice : slices) {
+            for (Object result : slice.get()) {
+                if (result instanceof Patient patient) {
+                    patients.add(patient);
+                } else {
+                    rejections.add((Rejection) result);
+                }
+            }
+        }
+        return new Chunk(rows.get(0).number(), rows.get(rows.size() - 1).number(), rows.size(), patients, rejections);
+    }
+
+    private List<Object> prepareSlice(List<SourceRow> rows, PatientImportMapping.Binding binding, Long hospitalId) {
+        List<Object> results = new ArrayList<>(rows.size());
+        List<Patient> withAadhaar = new ArrayList<>();
+        List<String> aadhaarNumbers = new ArrayList<>();
+        for (SourceRow row : rows) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            CreatePatientRequest request = binding.toRequest(row.values(), errors);
+            validator.validate(request).stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .forEach(violation -> errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage()));
+            if (!errors.isEmpty()) {
+                results.add(new Rejection(row.number(), errors.entrySet().stream()
+                        .map(error -> error.getKey() + ": " + error.getValue())
+                        .collect(Collectors.joining("; ")), row.values()));
+                continue;
+            }
+            Patient patient = PatientService.newPatient(request, hospitalId);
+            if (request.getAadhaarNumber() != null && !request.getAadhaarNumber().isEmpty()) {
+                patient.setAadhaarLastFour(request.getAadhaarNumber().substring(8));
+                withAadhaar.add(patient);
+                aadhaarNumbers.add(request.getAadhaarNumber());
+            }
+            results.add(patient);
+        }
+        if (!aadhaarNumbers.isEmpty()) {
+            List<String> encrypted = encryptionUtil.encryptAll(aadhaarNumbers);
+            List<String> hashes = encryptionUtil.blindIndexAll(aadhaarNumbers);
+            for (int i = 0; i < withAadhaar.size(); i++) {
+                withAadhaar.get(i).setAadhaarEncrypted(encrypted.get(i));
+                withAadhaar.get(i).setAadhaarHash(hashes.get(i));
+            }
+        }
+        return results;
+    }
+
+    private PatientImportJobDto toDto(PatientImportJob job) {
+        return PatientImportJobDto.builder()
+                .id(job.getId())
+                .hospitalId(job.getHospitalId())
+                .fileName(job.getFileName())
+                .fileFormat(job.getFileFormat())
+                .fileSize(job.getFileSize())
+                .status(job.getStatus())
+                .lastRow(job.getLastRow())
+                .rowsProcessed(job.getRowsProcessed())
+                .rowsImported(job.getRowsImported())
+                .rowsRejected(job.getRowsRejected())
+                .hasRejectedRows(job.getRejectedFileLength() > 0)
+                .errorMessage(job.getErrorMessage())
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private record SourceRow(long number, List<String> values) {
+    }
+
+    /**
+     * Buffers streamed rows past the job cursor and hands them over a chunk at a time
+     */
+    private final class ChunkingHandler implements PatientImportReader.RowHandler {
+
+        private final PatientImportJob job;
+        private final ExecutorService pool;
+        private List<String> header;
+        private PatientImportMapping.Binding binding;
+        private List<SourceRow> buffer = new ArrayList<>();
+        private long rows;
+
+        ChunkingHandler(PatientImportJob job, ExecutorService pool) {
+            this.job = job;
+            this.pool = pool;
+        }
+
+        @Override
+        public void header(List<String> columns) {
+            header = columns;
+            binding = PatientImportMapping.bind(columns);
+        }
+
+        @Override
+        public void row(long rowNumber, List<String> values) {
+            if (rowNumber <= job.getLastRow()) {
+                return;
+            }
+            buffer.add(new SourceRow(rowNumber, values));
+            if (buffer.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            try {
+                chunkWriter.write(job.getId(), header, prepare(buffer, binding, job.getHospitalId(), pool));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Patient import interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Row validation failed", e.getCause());
+            }
+            rows += buffer.size();
+            buffer = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.patient.dto.CreatePatientRequest;
+import com.hospital.hms.patient.entity.Patient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Blocking keys and pairwise scoring for duplicate-patient detection.
+ *
+ * A patient is filed under two blocking keys: phonetic first and last name with year of birth and gender,
+ * and phonetic first name with the last four digits of the mobile number. Two registrations of the same
+ * person almost always share one of them even when the name is spelt differently, the DOB is only an
+ * estimated age or the family mobile number changed. Only patients sharing a key are ever scored.
+ */
+public final class PatientMatcher {
+
+    static final String NAME_BLOCK = "N";
+    static final String MOBILE_BLOCK = "M";
+
+    private PatientMatcher() {
+    }
+
+    /**
+     * The fields duplicate detection looks at, for a stored patient or a registration not saved yet
+     */
+    public record Profile(Long id, String uhid, String firstName, String lastName, LocalDate dateOfBirth,
+                          Integer birthYear, Gender gender, String mobileNumber) {
+
+        public static Profile of(Patient patient) {
+            return new Profile(patient.getId(), patient.getUhid(), patient.getFirstName(), patient.getLastName(),
+                    patient.getDateOfBirth(), PatientMatcher.birthYear(patient.getDateOfBirth(), patient.getAgeYears(),
+                    patient.getCreatedAt()), patient.getGender(), patient.getMobileNumber());
+        }
+
+        public static Profile of(CreatePatientRequest request) {
+            return new Profile(null, null, request.getFirstName(), request.getLastName(), request.getDateOfBirth(),
+                    PatientMatcher.birthYear(request.getDateOfBirth(), request.getAgeYears(), null), request.getGender(),
+                    request.getMobileNumber());
+        }
+    }
+
+    public record Match(int score, List<String> reasons) {
+    }
+
+    /**
+     * Year of birth from the DOB, or estimated from the age given at registration
+     */
+    static Integer birthYear(LocalDate dateOfBirth, Integer ageYears, LocalDateTime registeredAt) {
+        if (dateOfBirth != null) {
+            return dateOfBirth.getYear();
+        }
+        if (ageYears == null) {
+            return null;
+        }
+        int registeredYear = registeredAt != null ? registeredAt.getYear() : Year.now().getValue();
+        return registeredYear - ageYears;
+    }
+
+    /**
+     * Keys a stored patient is filed under
+     */
+    public static Set<String> indexKeys(Profile profile) {
+        Set<String> keys = new LinkedHashSet<>();
+        String first = NamePhonetics.encode(profile.firstName());
+        if (first.isEmpty()) {
+            return keys;
+        }
+        if (profile.birthYear() != null && profile.gender() != null) {
+            keys.add(nameKey(first, NamePhonetics.encode(profile.lastName()), profile.birthYear(), profile.gender()));
+        }
+        String suffix = mobileSuffix(profile.mobileNumber());
+        if (suffix != null) {
+            keys.add(MOBILE_BLOCK + "|" + first + "|" + suffix);
+        }
+        return keys;
+    }
+
+    /**
+     * Keys to look a registration up by, strongest first: the mobile key, then the name key for the year given
+     * and for a year either side, since an age given at the desk is approximate
+     */
+    public static Set<String> lookupKeys(Profile profile) {
+        Set<String> keys = new LinkedHashSet<>();
+        String first = NamePhonetics.encode(profile.firstName());
+        if (first.isEmpty()) {
+            return keys;
+        }
+        String suffix = mobileSuffix(profile.mobileNumber());
+        if (suffix != null) {
+            keys.add(MOBILE_BLOCK + "|" + first + "|" + suffix);
+        }
+        if (profile.birthYear() != null && profile.gender() != null) {
+            String last = NamePhonetics.encode(profile.lastName());
+            keys.add(nameKey(first, last, profile.birthYear(), profile.gender()));
+            keys.add(nameKey(first, last, profile.birthYear() - 1, profile.gender()));
+            keys.add(nameKey(first, last, profile.birthYear() + 1, profile.gender()));
+        }
+        return keys;
+    }
+
+    /**
+     * Sweep partition of a key, so partitions can be scanned independently
+     */
+    public static int partition(String key, int partitions) {
+        return Math.floorMod(key.hashCode(), partitions);
+    }
+
+    /**
+     * How likely two profiles are the same person, 0-100, with the evidence behind the score
+     */
+    public static Match score(Profile a, Profile b) {
+        int score = 0;
+        List<String> reasons = new ArrayList<>();
+
+        if (normalize(a.firstName()).equals(normalize(b.firstName()))) {
+            score += 25;
+            reasons.add("Same first name");
+        } else if (NamePhonetics.encode(a.firstName()).equals(NamePhonetics.encode(b.firstName()))) {
+            score += 18;
+            reasons.add("Similar first name");
+        } else {
+            // Family members share the surname, mobile number and often the year; the first name tells them apart
+            score -= 20;
+        }
+
+        String lastA = normalize(a.lastName());
+        String lastB = normalize(b.lastName());
+        if (!lastA.isEmpty() && lastA.equals(lastB)) {
+            score += 15;
+            reasons.add("Same last name");
+        } else if (!lastA.isEmpty() && !lastB.isEmpty()
+                && NamePhonetics.encode(lastA).equals(NamePhonetics.encode(lastB))) {
+            score += 10;
+            reasons.add("Similar last name");
+        }
+
+        if (a.dateOfBirth() != null && a.dateOfBirth().equals(b.dateOfBirth())) {
+            score += 25;
+            reasons.add("Same date of birth");
+        } else if (a.birthYear() != null && b.birthYear() != null) {
+            int years = Math.abs(a.birthYear() - b.birthYear());
+            if (years == 0) {
+                score += 12;
+                reasons.add("Same year of birth");
+            } else if (years == 1) {
+                score += 6;
+                reasons.add("Year of birth within a year");
+            }
+        }
+
+        if (a.gender() != null && b.gender() != null) {
+            if (a.gender() == b.gender()) {
+                score += 10;
+            } else {
+                score -= 30;
+            }
+        }
+
+        String suffixA = mobileSuffix(a.mobileNumber());
+        if (suffixA != null && digits(a.mobileNumber()).equals(digits(b.mobileNumber()))) {
+            score += 25;
+            reasons.add("Same mobile number");
+        } else if (suffixA != null && suffixA.equals(mobileSuffix(b.mobileNumber()))) {
+            score += 10;
+            reasons.add("Mobile number ends in the same digits");
+        }
+        return new Match(Math.max(0, Math.min(100, score)), reasons);
+    }
+
+    /**
+     * Pairs scoring at least {@code threshold} within one block of patients sharing a key
+     */
+    public static List<ScoredPair> compareBlock(List<Profile> block, int threshold) {
+        List<ScoredPair> pairs = new ArrayList<>();
+        for (int i = 0; i < block.size(); i++) {
+            for (int j = i + 1; j < block.size(); j++) {
+                Profile a = block.get(i);
+                Profile b = block.get(j);
+                if (Objects.equals(a.id(), b.id())) {
+                    continue;
+                }
+                Match match = score(a, b);
+                if (match.score() >= threshold) {
+                    pairs.add(a.id() < b.id() ? new ScoredPair(a, b, match) : new ScoredPair(b, a, match));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Two likely duplicates, the older patient first
+     */
+    public record ScoredPair(Profile first, Profile second, Match match) {
+    }
+
+    private static String nameKey(String first, String last, int birthYear, Gender gender) {
+        return NAME_BLOCK + "|" + first + "|" + last + "|" + birthYear + "|" + gender.getCode();
+    }
+
+    private static String mobileSuffix(String mobile) {
+        String digits = digits(mobile);
+        return digits.length() >= 4 ? digits.substring(digits.length() - 4) : null;
+    }
+
+    private static String digits(String value) {
+        return value == null ? "" : value.replaceAll("[^0-9]", "");
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
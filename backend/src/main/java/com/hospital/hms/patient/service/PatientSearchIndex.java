@@ -0,0 +1,149 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-hospital patient search over name, mobile number and UHID ({@link HospitalIndex}), so reception
+ * lookups no longer scan the patients table on every keystroke.
+ *
+ * The index is loaded once the application is ready by streaming the patients table, and kept current from
+ * {@link PatientChangedEvent}s after each commit. Until the load has finished {@link #search} returns empty
+ * and callers fall back to the database query. Searches return ranked patient ids only; callers load the
+ * page of patients in one batch.
+ */
+@Slf4j
+@Service
+public class PatientSearchIndex {
+
+    private static final String LOAD_SQL = "SELECT id, registered_hospital_id, version, first_name, middle_name, " +
+            "last_name, mobile_number, uhid FROM patients WHERE is_deleted = false";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final Map<Long, Shard> shards = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public record Result(List<Long> ids, long total) {
+    }
+
+    public PatientSearchIndex(JdbcTemplate jdbcTemplate,
+                              @Value("${app.patient-search.enabled:true}") boolean enabled,
+                              @Value("${app.patient-search.load-fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Ranked ids of the hospital's patients matching every word of the query; empty while the index is
+     * still loading (or disabled)
+     */
+    public Optional<Result> search(Long hospitalId, String query, int offset, int limit) {
+        if (!ready || hospitalId == null) {
+            return Optional.empty();
+        }
+        Shard shard = shards.get(hospitalId);
+        if (shard == null) {
+            return Optional.of(new Result(List.of(), 0));
+        }
+        shard.lock.readLock().lock();
+        try {
+            HospitalIndex.Hits hits = shard.index.search(query, offset, limit);
+            return Optional.of(new Result(hits.ids(), hits.total()));
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stream the patients table into the index; change events that arrive meanwhile are applied as well,
+     * and row versions decide which of the two is newer. PostgreSQL only honours the fetch size inside a
+     * transaction, otherwise the driver reads the whole table into memory first.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long[] rows = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (ResultSet rs) -> {
+            long hospitalId = rs.getLong("registered_hospital_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            upsert(hospitalId, rs.getLong("id"), rs.getLong("version"), rs.getString("first_name"),
+                    rs.getString("middle_name"), rs.getString("last_name"), rs.getString("mobile_number"),
+                    rs.getString("uhid"));
+            rows[0]++;
+        });
+        ready = true;
+        log.info("Patient search index loaded {} patients across {} hospitals in {} ms",
+                rows[0], shards.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (!enabled || event.getHospitalId() == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            Shard shard = shard(event.getHospitalId());
+            shard.lock.writeLock().lock();
+            try {
+                shard.index.remove(event.getId(), event.getVersion());
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        } else {
+            upsert(event.getHospitalId(), event.getId(), event.getVersion(), event.getFirstName(),
+                    event.getMiddleName(), event.getLastName(), event.getMobileNumber(), event.getUhid());
+        }
+    }
+
+    private void upsert(long hospitalId, long id, long version, String firstName, String middleName,
+                        String lastName, String mobile, String uhid) {
+        Shard shard = shard(hospitalId);
+        shard.lock.writeLock().lock();
+        try {
+            shard.index.upsert(id, version, firstName, middleName, lastName, mobile, uhid);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    private Shard shard(long hospitalId) {
+        return shards.computeIfAbsent(hospitalId, id -> new Shard());
+    }
+
+    private static final class Shard {
+        private final HospitalIndex index = new HospitalIndex();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+}
@@ -1,24 +1,34 @@
 package com.hospital.hms.patient.service;
 
+import com.hospital.hms.common.dto.FieldCatalog;
 import com.hospital.hms.common.dto.PageResponse;
 import com.hospital.hms.common.exception.BadRequestException;
 import com.hospital.hms.common.exception.DuplicateResourceException;
 import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.repository.SparseQueryRepository;
+import com.hospital.hms.common.service.SequenceService;
 import com.hospital.hms.common.util.EncryptionUtil;
 import com.hospital.hms.patient.dto.CreatePatientRequest;
 import com.hospital.hms.patient.dto.PatientDto;
+import com.hospital.hms.patient.dto.PatientFields;
 import com.hospital.hms.patient.entity.Patient;
 import com.hospital.hms.patient.repository.PatientRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,54 +38,32 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final EncryptionUtil encryptionUtil;
+    private final SequenceService sequenceService;
+    private final PatientSearchIndex searchIndex;
+    private final PatientDuplicateService duplicateService;
+    private final SparseQueryRepository sparseQueryRepository;
 
     /**
-     * Register a new patient
+     * Register a new patient; with {@code checkDuplicates} (front-desk registrations) a likely duplicate is
+     * refused until the desk confirms
      */
     @Transactional
-    public PatientDto createPatient(CreatePatientRequest request, Long hospitalId) {
+    public PatientDto createPatient(CreatePatientRequest request, Long hospitalId, boolean checkDuplicates) {
+        if (checkDuplicates && !Boolean.TRUE.equals(request.getConfirmedNotDuplicate())) {
+            duplicateService.rejectLikelyDuplicate(request);
+        }
+
         // Generate UHID
         String uhid = generateUhid(hospitalId);
 
-        Patient patient = Patient.builder()
-                .uhid(uhid)
-                .registeredHospitalId(hospitalId)
-                .firstName(request.getFirstName())
-                .middleName(request.getMiddleName())
-                .lastName(request.getLastName())
-                .dateOfBirth(request.getDateOfBirth())
-                .ageYears(request.getAgeYears())
-                .ageMonths(request.getAgeMonths())
-                .gender(request.getGender())
-                .bloodGroup(request.getBloodGroup())
-                .mobileNumber(request.getMobileNumber())
-                .alternateMobile(request.getAlternateMobile())
-                .email(request.getEmail())
-                .addressLine1(request.getAddressLine1())
-                .addressLine2(request.getAddressLine2())
-                .city(request.getCity())
-                .district(request.getDistrict())
-                .state(request.getState())
-                .pincode(request.getPincode())
-                .emergencyContactName(request.getEmergencyContactName())
-                .emergencyContactRelation(request.getEmergencyContactRelation())
-                .emergencyContactPhone(request.getEmergencyContactPhone())
-                .allergies(request.getAllergies())
-                .chronicConditions(request.getChronicConditions())
-                .currentMedications(request.getCurrentMedications())
-                .insuranceProvider(request.getInsuranceProvider())
-                .insurancePolicyNumber(request.getInsurancePolicyNumber())
-                .insuranceValidity(request.getInsuranceValidity())
-                .preferredLanguage(request.getPreferredLanguage() != null ? request.getPreferredLanguage() : "en")
-                .smsConsent(request.getSmsConsent() != null ? request.getSmsConsent() : true)
-                .emailConsent(request.getEmailConsent() != null ? request.getEmailConsent() : true)
-                .whatsappConsent(request.getWhatsappConsent() != null ? request.getWhatsappConsent() : true)
-                .build();
+        Patient patient = newPatient(request, hospitalId);
+        patient.setUhid(uhid);
 
         // Handle Aadhaar encryption
         if (request.getAadhaarNumber() != null && !request.getAadhaarNumber().isEmpty()) {
             patient.setAadhaarEncrypted(encryptionUtil.encrypt(request.getAadhaarNumber()));
             patient.setAadhaarLastFour(request.getAadhaarNumber().substring(8));
+            patient.setAadhaarHash(encryptionUtil.blindIndex(request.getAadhaarNumber()));
         }
 
         // Handle family linking
@@ -123,6 +111,23 @@ public class PatientService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Patients with exactly this Aadhaar number, found by one equality probe on the blind index
+     *
+     * @param hospitalId registering hospital to search, or {@code null} for every hospital
+     */
+    @Transactional(readOnly = true)
+    public List<PatientDto> getPatientsByAadhaar(String aadhaarNumber, Long hospitalId) {
+        String digits = aadhaarNumber == null ? "" : aadhaarNumber.replaceAll("[\\s-]", "");
+        if (!digits.matches("\\d{12}")) {
+            throw new BadRequestException("Aadhaar must be 12 digits", "INVALID_AADHAAR");
+        }
+        return patientRepository.findByAadhaarHash(encryptionUtil.blindIndex(digits), hospitalId)
+                .stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get family members
      */
@@ -159,10 +164,24 @@ public class PatientService {
     }
 
     /**
-     * Search patients
+     * Search patients by name, mobile or UHID, best matches first. Served from the in-memory index and
+     * hydrated in one batch; falls back to the database query while the index is loading.
      */
     @Transactional(readOnly = true)
     public PageResponse<PatientDto> searchPatients(String query, Long hospitalId, Pageable pageable) {
+        Optional<PatientSearchIndex.Result> hits =
+                searchIndex.search(hospitalId, query, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.isPresent()) {
+            Map<Long, Patient> patients = patientRepository.findAllById(hits.get().ids()).stream()
+                    .collect(Collectors.toMap(Patient::getId, Function.identity()));
+            List<PatientDto> dtos = hits.get().ids().stream()
+                    .map(patients::get)
+                    .filter(Objects::nonNull)
+                    .map(this::toDto)
+                    .collect(Collectors.toList());
+            return PageResponse.of(new PageImpl<>(dtos, pageable, hits.get().total()), dtos);
+        }
+
         Page<Patient> page = patientRepository.searchPatients(query, hospitalId, pageable);
         List<PatientDto> dtos = page.getContent().stream()
                 .map(this::toDto)
@@ -170,6 +189,48 @@ public class PatientService {
         return PageResponse.of(page, dtos);
     }
 
+    /**
+     * Patients with only the requested fields ({@code ?fields=}); only the columns behind them are selected
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<Map<String, Object>> getAllPatients(Long hospitalId, Pageable pageable, String fields) {
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select(fields);
+        Page<Map<String, Object>> page = hospitalId != null
+                ? sparseQueryRepository.findPage(selection, "p", PatientRepository.HOSPITAL_FILTERS,
+                        Map.of("hospitalId", hospitalId), pageable)
+                : sparseQueryRepository.findPage(selection, "p", PatientRepository.ACTIVE_FILTERS, Map.of(), pageable);
+        return PageResponse.of(page);
+    }
+
+    /**
+     * {@link #searchPatients(String, Long, Pageable)} with only the requested fields
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<Map<String, Object>> searchPatients(String query, Long hospitalId, Pageable pageable,
+                                                            String fields) {
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select(fields);
+        Optional<PatientSearchIndex.Result> hits =
+                searchIndex.search(hospitalId, query, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.isPresent()) {
+            List<Long> ids = hits.get().ids();
+            Map<Object, Map<String, Object>> rows = ids.isEmpty() ? Map.of()
+                    : sparseQueryRepository.findAll(selection, "p", "WHERE p.id IN :ids", Map.of("ids", ids), null)
+                            .stream()
+                            .collect(Collectors.toMap(row -> row.get("id"), Function.identity()));
+            List<Map<String, Object>> content = ids.stream()
+                    .map(rows::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            return PageResponse.of(new PageImpl<>(content, pageable, hits.get().total()));
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("query", query);
+        parameters.put("hospitalId", hospitalId);
+        return PageResponse.of(sparseQueryRepository.findPage(selection, "p", PatientRepository.SEARCH_FILTERS,
+                parameters, pageable));
+    }
+
     /**
      * Update patient
      */
@@ -222,12 +283,52 @@ public class PatientService {
         log.info("Soft deleted patient with id: {}", id);
     }
 
+    /**
+     * Unsaved patient for a registration, without UHID, Aadhaar or family link
+     */
+    static Patient newPatient(CreatePatientRequest request, Long hospitalId) {
+        return Patient.builder()
+                .registeredHospitalId(hospitalId)
+                .firstName(request.getFirstName())
+                .middleName(request.getMiddleName())
+                .lastName(request.getLastName())
+                .dateOfBirth(request.getDateOfBirth())
+                .ageYears(request.getAgeYears())
+                .ageMonths(request.getAgeMonths())
+                .gender(request.getGender())
+                .bloodGroup(request.getBloodGroup())
+                .mobileNumber(request.getMobileNumber())
+                .alternateMobile(request.getAlternateMobile())
+                .email(request.getEmail())
+                .addressLine1(request.getAddressLine1())
+                .addressLine2(request.getAddressLine2())
+                .city(request.getCity())
+                .district(request.getDistrict())
+                .state(request.getState())
+                .pincode(request.getPincode())
+                .emergencyContactName(request.getEmergencyContactName())
+                .emergencyContactRelation(request.getEmergencyContactRelation())
+                .emergencyContactPhone(request.getEmergencyContactPhone())
+                .allergies(request.getAllergies())
+                .chronicConditions(request.getChronicConditions())
+                .currentMedications(request.getCurrentMedications())
+                .insuranceProvider(request.getInsuranceProvider())
+                .insurancePolicyNumber(request.getInsurancePolicyNumber())
+                .insuranceValidity(request.getInsuranceValidity())
+                .preferredLanguage(request.getPreferredLanguage() != null ? request.getPreferredLanguage() : "en")
+                .smsConsent(request.getSmsConsent() != null ? request.getSmsConsent() : true)
+                .emailConsent(request.getEmailConsent() != null ? request.getEmailConsent() : true)
+                .whatsappConsent(request.getWhatsappConsent() != null ? request.getWhatsappConsent() : true)
+                .build();
+    }
+
     private String generateUhid(Long hospitalId) {
         // Format: HMS + Year(2 digits) + Sequence (6 digits)
         // e.g., HMS2600001
-        String prefix = "HMS" + String.valueOf(Year.now().getValue()).substring(2);
-        Integer maxNumber = patientRepository.findMaxUhidNumber(prefix);
-        int nextNumber = (maxNumber != null ? maxNumber : 0) + 1;
+        String year = String.valueOf(Year.now().getValue());
+        String prefix = "HMS" + year.substring(2);
+        long nextNumber = sequenceService.next("UHID", SequenceService.GLOBAL_SCOPE, year,
+                () -> SequenceService.orZero(patientRepository.findMaxUhid(prefix)));
         return prefix + String.format("%06d", nextNumber);
     }
 
@@ -0,0 +1,333 @@
+package com.hospital.hms.patient.service;
+
+import com.hospital.hms.appointment.dto.AppointmentListItem;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.billing.dto.InvoiceListItem;
+import com.hospital.hms.billing.repository.InvoiceRepository;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.util.CursorCodec;
+import com.hospital.hms.doctor.dto.PrescriptionListItem;
+import com.hospital.hms.doctor.repository.PrescriptionRepository;
+import com.hospital.hms.hospital.dto.AdmissionListItem;
+import com.hospital.hms.hospital.repository.AdmissionRepository;
+import com.hospital.hms.lab.dto.LabOrderListItem;
+import com.hospital.hms.lab.repository.LabOrderRepository;
+import com.hospital.hms.patient.dto.PatientTimelineDto;
+import com.hospital.hms.patient.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Everything on a patient's chart in one call.
+ *
+ * Each section (appointments, prescriptions, invoices, admissions, lab orders) is read on the bounded timeline
+ * executor at the same time, newest first and keyset-paged on its own cursor. A section that has not answered
+ * within the section timeout, or cannot be queued, is reported with an error instead of holding up the rest.
+ * Its task is then cancelled: dropped if still queued, interrupted if running. Each section reads in a read-only
+ * transaction with the same timeout, so the database also gives up on a query that is still running.
+ */
+@Slf4j
+@Service
+public class PatientTimelineService {
+
+    public enum Section {
+        APPOINTMENTS("appointments", "APPOINTMENT", false),
+        PRESCRIPTIONS("prescriptions", "PRESCRIPTION", false),
+        INVOICES("invoices", "INVOICE", false),
+        ADMISSIONS("admissions", "ADMISSION", true),
+        LAB_ORDERS("labOrders", "LAB_ORDER", true);
+
+        private final String key;
+        private final String entryType;
+        private final boolean timestamped; // keyed on a timestamp column rather than a date
+
+        Section(String key, String entryType, boolean timestamped) {
+            this.key = key;
+            this.entryType = entryType;
+            this.timestamped = timestamped;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Section of(String key) {
+            for (Section section : values()) {
+                if (section.key.equalsIgnoreCase(key.trim())) {
+                    return section;
+                }
+            }
+            throw new BadRequestException("Unknown timeline section '" + key + "'", "UNKNOWN_SECTION");
+        }
+    }
+
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final AdmissionRepository admissionRepository;
+    private final LabOrderRepository labOrderRepository;
+    private final Executor executor;
+    private final TransactionTemplate sectionTransaction;
+    private final long sectionTimeoutMs;
+
+    public PatientTimelineService(PatientRepository patientRepository,
+                                  AppointmentRepository appointmentRepository,
+                                  PrescriptionRepository prescriptionRepository,
+                                  InvoiceRepository invoiceRepository,
+                                  AdmissionRepository admissionRepository,
+                                  LabOrderRepository labOrderRepository,
+                                  @Qualifier("timelineExecutor") Executor executor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.patient-timeline.section-timeout-ms:2000}") long sectionTimeoutMs) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.admissionRepository = admissionRepository;
+        this.labOrderRepository = labOrderRepository;
+        this.executor = executor;
+        this.sectionTimeoutMs = sectionTimeoutMs;
+        this.sectionTransaction = new TransactionTemplate(transactionManager);
+        this.sectionTransaction.setReadOnly(true);
+        // Transaction timeouts are in whole seconds; JPA queries get what is left of it as their query timeout
+        this.sectionTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(sectionTimeoutMs + 999)));
+    }
+
+    /**
+     * Timeline of a patient
+     *
+     * @param sections section keys to include; all sections when empty
+     * @param cursors  {@code nextCursor} values from an earlier response, each continuing its own section
+     * @param limit    entries per section
+     */
+    public PatientTimelineDto getTimeline(Long patientId, Collection<String> sections, Collection<String> cursors,
+                                          int limit) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient", "id", patientId);
+        }
+        Set<Section> requested = EnumSet.noneOf(Section.class);
+        if (sections != null) {
+            sections.stream().filter(key -> !key.isBlank()).map(Section::of).forEach(requested::add);
+        }
+        if (requested.isEmpty()) {
+            requested = EnumSet.allOf(Section.class);
+        }
+        Map<Section, String> cursorBySection = parseCursors(cursors, requested);
+        int size = CursorCodec.pageSize(limit);
+
+        Map<Section, FutureTask<List<PatientTimelineDto.Entry>>> pending = new EnumMap<>(Section.class);
+        Map<Section, PatientTimelineDto.Section> summaries = new EnumMap<>(Section.class);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        for (Section section : requested) {
+            FutureTask<List<PatientTimelineDto.Entry>> task = new FutureTask<>(() -> sectionTransaction.execute(
+                    status -> fetch(section, patientId, cursorBySection.get(section), size)));
+            try {
+                executor.execute(task);
+                pending.put(section, task);
+            } catch (RejectedExecutionException e) {
+                log.warn("Timeline executor full; skipping {} of patient {}", section.key, patientId);
+                summaries.put(section, failed("BUSY"));
+            }
+        }
+
+        List<PatientTimelineDto.Entry> entries = new ArrayList<>();
+        pending.forEach((section, task) -> {
+            try {
+                List<PatientTimelineDto.Entry> rows = task.get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                boolean hasNext = rows.size() > size;
+                List<PatientTimelineDto.Entry> page = hasNext ? rows.subList(0, size) : rows;
+                entries.addAll(page);
+                summaries.put(section, PatientTimelineDto.Section.builder()
+                        .count(page.size())
+                        .hasNext(hasNext)
+                        .nextCursor(hasNext ? cursorAfter(section, page.get(page.size() - 1)) : null)
+                        .build());
+            } catch (TimeoutException e) {
+                task.cancel(true);
+                log.warn("Timeline section {} of patient {} timed out after {} ms",
+                        section.key, patientId, sectionTimeoutMs);
+                summaries.put(section, failed("TIMEOUT"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.cancel(true);
+                summaries.put(section, failed("FAILED"));
+            } catch (ExecutionException e) {
+                log.error("Timeline section {} of patient {} failed", section.key, patientId, e.getCause());
+                summaries.put(section, failed("FAILED"));
+            }
+        });
+
+        entries.sort(Comparator.comparing(PatientTimelineDto.Entry::getOccurredAt, Comparator.reverseOrder())
+                .thenComparing(PatientTimelineDto.Entry::getType)
+                .thenComparing(PatientTimelineDto.Entry::getId, Comparator.reverseOrder()));
+        Map<String, PatientTimelineDto.Section> bySection = new LinkedHashMap<>();
+        summaries.forEach((section, summary) -> bySection.put(section.key, summary));
+
+        return PatientTimelineDto.builder()
+                .patientId(patientId)
+                .entries(entries)
+                .sections(bySection)
+                .build();
+    }
+
+    /**
+     * One section, newest first, with one row more than {@code size} to tell whether another page exists
+     */
+    private List<PatientTimelineDto.Entry> fetch(Section section, Long patientId, String cursor, int size) {
+        Pageable limit = CursorCodec.limit(size);
+        switch (section) {
+            case APPOINTMENTS -> {
+                CursorCodec.Position position = CursorCodec.decode(cursor);
+                return appointmentRepository.findByPatientIdBefore(patientId, position.date(), position.id(), limit)
+                        .stream().map(PatientTimelineService::entry).toList();
+            }
+            case PRESCRIPTIONS -> {
+                CursorCodec.Position position = CursorCodec.decode(cursor);
+                return prescriptionRepository.findByPatientIdBefore(patientId, position.date(), position.id(), limit)
+                        .stream().map(PatientTimelineService::entry).toList();
+            }
+            case INVOICES -> {
+                CursorCodec.Position position = CursorCodec.decode(cursor);
+                return invoiceRepository.findByPatientIdBefore(patientId, position.date(), position.id(), limit)
+                        .stream().map(PatientTimelineService::entry).toList();
+            }
+            case ADMISSIONS -> {
+                CursorCodec.TimePosition position = CursorCodec.decodeTime(cursor);
+                return admissionRepository.findByPatientIdBefore(patientId, position.at(), position.id(), limit)
+                        .stream().map(PatientTimelineService::entry).toList();
+            }
+            case LAB_ORDERS -> {
+                CursorCodec.TimePosition position = CursorCodec.decodeTime(cursor);
+                return labOrderRepository.findByPatientIdBefore(patientId, position.at(), position.id(), limit)
+                        .stream().map(PatientTimelineService::entry).toList();
+            }
+            default -> throw new IllegalStateException("Unhandled timeline section " + section);
+        }
+    }
+
+    // Section cursors are "<section key>.<keyset cursor>" so several can be passed side by side
+    private static Map<Section, String> parseCursors(Collection<String> cursors, Set<Section> requested) {
+        Map<Section, String> bySection = new EnumMap<>(Section.class);
+        if (cursors == null) {
+            return bySection;
+        }
+        for (String cursor : cursors) {
+            int dot = cursor.indexOf('.');
+            if (dot <= 0) {
+                throw new BadRequestException("Invalid cursor", "INVALID_CURSOR");
+            }
+            Section section = Section.of(cursor.substring(0, dot));
+            if (!requested.contains(section)) {
+                throw new BadRequestException("Cursor for " + section.key + " but that section was not requested",
+                        "INVALID_CURSOR");
+            }
+            String position = cursor.substring(dot + 1);
+            // Decode now so a bad cursor is a 400 for the request rather than a failed section
+            if (section.timestamped) {
+                CursorCodec.decodeTime(position);
+            } else {
+                CursorCodec.decode(position);
+            }
+            bySection.put(section, position);
+        }
+        return bySection;
+    }
+
+    private static String cursorAfter(Section section, PatientTimelineDto.Entry last) {
+        String position = section.timestamped
+                ? CursorCodec.encode(last.getOccurredAt(), last.getId())
+                : CursorCodec.encode(last.getOccurredAt().toLocalDate(), last.getId());
+        return section.key + "." + position;
+    }
+
+    private static PatientTimelineDto.Section failed(String error) {
+        return PatientTimelineDto.Section.builder().error(error).build();
+    }
+
+    private static PatientTimelineDto.Entry entry(AppointmentListItem a) {
+        LocalTime time = a.slotStartTime() != null ? a.slotStartTime() : LocalTime.MIDNIGHT;
+        return PatientTimelineDto.Entry.builder()
+                .type(Section.APPOINTMENTS.entryType)
+                .id(a.id())
+                .number(a.appointmentNumber())
+                .occurredAt(a.appointmentDate().atTime(time))
+                .title(a.doctorName() != null ? "Appointment with " + a.doctorName() : "Appointment")
+                .status(a.status() != null ? a.status().name() : null)
+                .item(a)
+                .build();
+    }
+
+    private static PatientTimelineDto.Entry entry(PrescriptionListItem p) {
+        return PatientTimelineDto.Entry.builder()
+                .type(Section.PRESCRIPTIONS.entryType)
+                .id(p.id())
+                .number(p.prescriptionNumber())
+                .occurredAt(p.prescriptionDate().atStartOfDay())
+                .title(p.doctorName() != null ? "Prescription by " + p.doctorName() : "Prescription")
+                .status(p.status() != null ? p.status().name() : null)
+                .item(p)
+                .build();
+    }
+
+    private static PatientTimelineDto.Entry entry(InvoiceListItem i) {
+        return PatientTimelineDto.Entry.builder()
+                .type(Section.INVOICES.entryType)
+                .id(i.id())
+                .number(i.invoiceNumber())
+                .occurredAt(i.invoiceDate().atStartOfDay())
+                .title("Invoice " + i.invoiceNumber())
+                .status(i.paymentStatus() != null ? i.paymentStatus().name() : null)
+                .item(i)
+                .build();
+    }
+
+    private static PatientTimelineDto.Entry entry(AdmissionListItem a) {
+        String where = a.departmentName() != null ? a.departmentName() : a.wardName();
+        return PatientTimelineDto.Entry.builder()
+                .type(Section.ADMISSIONS.entryType)
+                .id(a.id())
+                .number(a.admissionNumber())
+                .occurredAt(a.admissionDate())
+                .title(where != null ? "Admitted to " + where : "Admission")
+                .status(a.status() != null ? a.status().name() : null)
+                .item(a)
+                .build();
+    }
+
+    private static PatientTimelineDto.Entry entry(LabOrderListItem o) {
+        return PatientTimelineDto.Entry.builder()
+                .type(Section.LAB_ORDERS.entryType)
+                .id(o.id())
+                .number(o.orderNumber())
+                .occurredAt(o.orderDate())
+                .title(o.orderedByDoctorName() != null ? "Lab order by " + o.orderedByDoctorName() : "Lab order")
+                .status(o.status() != null ? o.status().name() : null)
+                .item(o)
+                .build();
+    }
+}
@@ -56,16 +56,18 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    @Operation(summary = "Logout", description = "Logout and revoke refresh token")
-    public ResponseEntity<ApiResponse<Void>> logout(@RequestParam(required = false) String refreshToken) {
-        if (refreshToken != null) {
-            authService.logout(refreshToken);
-        }
+    @Operation(summary = "Logout", description = "Logout, revoking the refresh token and the access token sent")
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @RequestParam(required = false) String refreshToken,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authService.logout(refreshToken, accessToken);
         return ResponseEntity.ok(ApiResponse.success("Logged out successfully"));
     }
 
     @PostMapping("/logout-all")
-    @Operation(summary = "Logout from All Devices", description = "Revoke all refresh tokens for user")
+    @Operation(summary = "Logout from All Devices", description = "Revoke all refresh and access tokens for user")
     public ResponseEntity<ApiResponse<Void>> logoutAll(@AuthenticationPrincipal UserPrincipal user) {
         authService.logoutAll(user.getId());
         return ResponseEntity.ok(ApiResponse.success("Logged out from all devices"));
@@ -0,0 +1,36 @@
+package com.hospital.hms.security.entity;
+
+import com.hospital.hms.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access token revoked before its expiry: one token by its id, or every token of a user issued up to a moment.
+ * Kept until the tokens expire, so that instances can rebuild their in-memory revocation list on startup.
+ */
+@Entity
+@Table(name = "revoked_access_tokens", indexes = {
+        @Index(name = "idx_revoked_access_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedAccessToken extends BaseEntity {
+
+    // Null when every token of the user issued up to issued_up_to is revoked
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "issued_up_to")
+    private LocalDateTime issuedUpTo;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -7,6 +7,7 @@ import lombok.*;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -19,6 +20,7 @@ import java.util.Set;
         @Index(name = "idx_user_email", columnList = "email"),
         @Index(name = "idx_user_username", columnList = "username")
 })
+@EntityListeners(UserEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -149,6 +151,10 @@ public class User extends BaseEntity {
     @Column(name = "staff_id")
     private Long staffId;
 
+    // Principal fields as last loaded or saved, see UserEntityListener
+    @Transient
+    private List<Object> loadedPrincipalState;
+
     @PrePersist
     @PreUpdate
     private void updateDisplayName() {
@@ -0,0 +1,45 @@
+package com.hospital.hms.security.entity;
+
+import com.hospital.hms.security.event.UserAccessChangedEvent;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * JPA listener that publishes a {@link UserAccessChangedEvent} when an update changes a field the security
+ * principal is built from. Logins, OTPs and lockouts update users all the time without changing what their
+ * tokens grant, so the fields are compared against what was loaded.
+ * Instantiated by Hibernate through Spring's bean container, so constructor injection works.
+ */
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    @PostPersist
+    public void remember(User user) {
+        user.setLoadedPrincipalState(principalState(user));
+    }
+
+    @PostUpdate
+    public void onUpdate(User user) {
+        List<Object> state = principalState(user);
+        if (!state.equals(user.getLoadedPrincipalState())) {
+            user.setLoadedPrincipalState(state);
+            eventPublisher.publishEvent(new UserAccessChangedEvent(user.getId()));
+        }
+    }
+
+    private static List<Object> principalState(User user) {
+        return Arrays.asList(user.getUsername(), user.getMobileNumber(), user.getEmail(), user.getDisplayName(),
+                user.getPrimaryRole(), new HashSet<>(user.getRoles()), user.getHospitalId(), user.getDepartmentId(),
+                user.getIsActive(), user.getIsDeleted());
+    }
+}
@@ -0,0 +1,13 @@
+package com.hospital.hms.security.event;
+
+/**
+ * An access token revoked before its expiry, published once the revocation is stored and relayed to the other
+ * instances.
+ *
+ * @param tokenId          id (jti) of the revoked token, or null to revoke every token of the user issued up to
+ *                         {@code issuedUpToMillis}
+ * @param issuedUpToMillis epoch millisecond of that cutoff
+ * @param expiresAt        epoch second the revoked tokens expire at, after which the revocation can be forgotten
+ */
+public record AccessTokenRevokedEvent(String tokenId, Long userId, long issuedUpToMillis, long expiresAt) {
+}
@@ -0,0 +1,15 @@
+package com.hospital.hms.security.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when what a user's access tokens grant may have changed: their roles, hospital, profile or active
+ * flag was updated, or they logged out. Authentications cached for the user's tokens must not be reused.
+ */
+@Getter
+@AllArgsConstructor
+public class UserAccessChangedEvent {
+
+    private final Long userId;
+}
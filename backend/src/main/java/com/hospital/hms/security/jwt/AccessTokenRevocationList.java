@@ -0,0 +1,174 @@
+package com.hospital.hms.security.jwt;
+
+import com.hospital.hms.common.util.BloomFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Access tokens revoked before they expire, held in memory for a check on every request.
+ *
+ * Two kinds of revocation: one token by its id (jti), and every token of a user issued up to a moment (logout
+ * from all devices). Both are kept exactly, and both are also put into a Bloom filter that is asked first: a
+ * token that was never revoked (nearly all of them) is cleared by the filter alone, and only a filter hit pays
+ * for the exact lookup, which rules out the filter's false positives.
+ *
+ * Revoked token ids are grouped by when the tokens expire, so that a whole group is dropped once its tokens can no
+ * longer be presented. Every {@link #purge} rebuilds the filter for the revocations still live, with room for as
+ * many again; a burst of revocations past that room rebuilds it early, so the false-positive rate stays near its
+ * target. Token ids are stored as UUIDs (their issued form; other ids are hashed to one) to keep the exact set
+ * compact.
+ */
+public class AccessTokenRevocationList {
+
+    private static final int MIN_CAPACITY = 1_024;
+
+    private final double falsePositiveRate;
+    private final long bucketSeconds;
+
+    // Expiry bucket (expiry epoch second / bucketSeconds) -> revoked token ids expiring in it
+    private final ConcurrentSkipListMap<Long, Set<UUID>> tokens = new ConcurrentSkipListMap<>();
+    // User id -> tokens issued at or before this epoch millisecond are revoked
+    private final Map<Long, UserCutoff> users = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+    private long capacity;
+    private long size;
+
+    private record UserCutoff(long issuedUpTo, long expiresAt) {
+    }
+
+    /**
+     * @param falsePositiveRate target rate of filter hits for tokens that are not revoked
+     * @param bucketSeconds     width of the expiry groups; revoked ids are kept at most this long past expiry
+     */
+    public AccessTokenRevocationList(double falsePositiveRate, long bucketSeconds) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.bucketSeconds = Math.max(1, bucketSeconds);
+        this.capacity = MIN_CAPACITY;
+        this.filter = new BloomFilter(capacity, falsePositiveRate);
+    }
+
+    /**
+     * Revoke one token
+     *
+     * @param expiresAt epoch second the token expires at; it is forgotten after that
+     */
+    public synchronized void revokeToken(String tokenId, long expiresAt) {
+        UUID id = tokenKey(tokenId);
+        if (tokens.computeIfAbsent(expiresAt / bucketSeconds, b -> ConcurrentHashMap.newKeySet()).add(id)) {
+            added();
+            filter.put(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Revoke every token of a user issued at or before {@code issuedUpTo}
+     *
+     * @param issuedUpTo epoch millisecond of the cutoff
+     * @param expiresAt  epoch second the last of those tokens expires at
+     */
+    public synchronized void revokeUser(Long userId, long issuedUpTo, long expiresAt) {
+        UserCutoff previous = users.get(userId);
+        if (previous == null || previous.issuedUpTo() < issuedUpTo) {
+            users.put(userId, new UserCutoff(issuedUpTo, expiresAt));
+            if (previous == null) {
+                added();
+            }
+            filter.put(userId);
+        }
+    }
+
+    /**
+     * Whether a token has been revoked
+     *
+     * @param tokenId  the token's jti, or null for tokens issued without one
+     * @param issuedAt epoch millisecond the token was issued at
+     */
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        BloomFilter current = filter;
+        if (tokenId != null) {
+            UUID id = tokenKey(tokenId);
+            if (current.mightContain(id.getMostSignificantBits(), id.getLeastSignificantBits()) && containsToken(id)) {
+                return true;
+            }
+        }
+        if (userId != null && current.mightContain(userId)) {
+            UserCutoff cutoff = users.get(userId);
+            return cutoff != null && issuedAt <= cutoff.issuedUpTo();
+        }
+        return false;
+    }
+
+    /**
+     * Forget revocations of tokens that have expired by {@code now} (epoch seconds) and rebuild the filter for
+     * the rest
+     */
+    public synchronized void purge(long now) {
+        // A bucket is done once every token in it has expired
+        tokens.headMap(now / bucketSeconds).clear();
+        users.values().removeIf(cutoff -> cutoff.expiresAt() < now);
+        size = users.size();
+        for (Set<UUID> bucket : tokens.values()) {
+            size += bucket.size();
+        }
+        rebuild();
+    }
+
+    /**
+     * Revocations currently held, tokens and users
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    public long filterSizeInBytes() {
+        return filter.sizeInBytes();
+    }
+
+    private boolean containsToken(UUID id) {
+        for (Set<UUID> bucket : tokens.values()) {
+            if (bucket.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void added() {
+        if (++size > capacity) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replace the filter with one sized for twice the live revocations. Callers hold the lock, so no revocation is
+     * added while the new filter is filled, and readers keep using the old one, which holds everything so far,
+     * until the swap.
+     */
+    private void rebuild() {
+        capacity = Math.max(MIN_CAPACITY, size * 2);
+        BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveRate);
+        for (Set<UUID> bucket : tokens.values()) {
+            for (UUID id : bucket) {
+                rebuilt.put(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            }
+        }
+        for (Long userId : users.keySet()) {
+            rebuilt.put(userId);
+        }
+        filter = rebuilt;
+    }
+
+    private static UUID tokenKey(String tokenId) {
+        try {
+            return UUID.fromString(tokenId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(tokenId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.hospital.hms.security.jwt;
 
+import com.hospital.hms.security.service.AccessTokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,6 +19,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests carrying a bearer access token.
+ *
+ * A token seen recently is answered from {@link TokenAuthenticationCache}. Otherwise it is verified once and the
+ * principal built from its claims; only tokens issued before a change to their user (or before tokens carried
+ * the principal claims) load the user from the database, which also turns away deactivated users. Either way the
+ * token must not be on the in-memory revocation list ({@link AccessTokenRevocationService}).
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -24,6 +34,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final TokenAuthenticationCache authenticationCache;
+    private final AccessTokenRevocationService revocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -31,20 +43,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(String.valueOf(userId));
-                
-                UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, 
-                                null, 
-                                userDetails.getAuthorities()
-                        );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (StringUtils.hasText(jwt)) {
+                UserDetails userDetails = authenticate(jwt);
+
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities()
+                            );
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -53,6 +65,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails authenticate(String jwt) {
+        TokenAuthenticationCache.VerifiedToken cached = authenticationCache.get(jwt);
+        if (cached != null) {
+            boolean revoked = revocationService.isRevoked(cached.tokenId(), cached.principal().getId(),
+                    cached.issuedAt());
+            return revoked ? null : cached.principal();
+        }
+
+        Claims claims = tokenProvider.parseToken(jwt);
+        if (claims == null) {
+            return null;
+        }
+        Long userId = Long.parseLong(claims.getSubject());
+        long issuedAt = JwtTokenProvider.issuedAtMillis(claims);
+        if (revocationService.isRevoked(claims.getId(), userId, issuedAt)) {
+            return null;
+        }
+        TokenAuthenticationCache.Invalidation invalidation = authenticationCache.invalidation(userId);
+        UserPrincipal principal = TokenAuthenticationCache.isStale(invalidation, claims.getIssuedAt())
+                ? null : UserPrincipal.fromClaims(claims);
+
+        if (principal == null) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(String.valueOf(userId));
+            if (!userDetails.isEnabled()) {
+                log.warn("Rejected access token of deactivated user {}", userId);
+                return null;
+            }
+            if (!(userDetails instanceof UserPrincipal loaded)) {
+                return userDetails;
+            }
+            principal = loaded;
+        }
+
+        authenticationCache.put(jwt, new TokenAuthenticationCache.VerifiedToken(principal, claims.getId(), issuedAt),
+                claims.getExpiration(), invalidation);
+        return principal;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
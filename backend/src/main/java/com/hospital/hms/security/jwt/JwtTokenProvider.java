@@ -3,6 +3,7 @@ package com.hospital.hms.security.jwt;
 import com.hospital.hms.common.enums.UserRole;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -12,12 +13,17 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
+    // Issue time in epoch milliseconds: iat holds whole seconds, too coarse to tell a token from a logout on all
+    // devices in the same second
+    public static final String ISSUED_AT_MS_CLAIM = "iatMs";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -27,13 +33,37 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration}")
     private long refreshExpiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Built once: the key and parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     public String generateAccessToken(Long userId, String mobileNumber, UserRole primaryRole, 
                                        Set<UserRole> roles, Long hospitalId) {
+        return accessToken(userId, mobileNumber, primaryRole, roles, hospitalId).compact();
+    }
+
+    /**
+     * Access token carrying every field of the principal, so that requests can be authenticated from the token
+     * alone ({@link UserPrincipal#fromClaims})
+     */
+    public String generateAccessToken(UserPrincipal principal) {
+        return accessToken(principal.getId(), principal.getMobileNumber(), principal.getPrimaryRole(),
+                principal.getRoles(), principal.getHospitalId())
+                .claim("username", principal.getUsername())
+                .claim("email", principal.getEmail())
+                .claim("name", principal.getDisplayName())
+                .claim("departmentId", principal.getDepartmentId())
+                .compact();
+    }
+
+    private JwtBuilder accessToken(Long userId, String mobileNumber, UserRole primaryRole,
+                                   Set<UserRole> roles, Long hospitalId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
@@ -42,53 +72,52 @@ public class JwtTokenProvider {
                 .collect(Collectors.joining(","));
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(userId))
                 .claim("mobile", mobileNumber)
                 .claim("primaryRole", primaryRole.name())
                 .claim("roles", rolesString)
                 .claim("hospitalId", hospitalId)
                 .issuedAt(now)
+                .claim(ISSUED_AT_MS_CLAIM, now.getTime())
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .signWith(signingKey);
     }
 
     public String generateAccessToken(Authentication authentication) {
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return generateAccessToken(
-                userPrincipal.getId(),
-                userPrincipal.getMobileNumber(),
-                userPrincipal.getPrimaryRole(),
-                userPrincipal.getRoles(),
-                userPrincipal.getHospitalId()
-        );
+        return generateAccessToken((UserPrincipal) authentication.getPrincipal());
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * When a token was issued, in epoch milliseconds; tokens issued without {@value #ISSUED_AT_MS_CLAIM} count from
+     * the start of their iat second
+     */
+    public static long issuedAtMillis(Claims claims) {
+        Long millis = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        if (millis != null) {
+            return millis;
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+    }
 
-        return Long.parseLong(claims.getSubject());
+    public Long getUserIdFromToken(String token) {
+        return Long.parseLong(getClaimsFromToken(token).getSubject());
     }
 
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
+    /**
+     * Verify the signature and expiry of a token and return its claims, or null (logged) if it is not valid
+     */
+    public Claims parseToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return getClaimsFromToken(token);
         } catch (SecurityException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -97,10 +126,12 @@ public class JwtTokenProvider {
             log.error("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
+        } catch (JwtException ex) {
+            log.error("Invalid JWT signature");
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
         }
-        return false;
+        return null;
     }
 
     public long getExpirationInSeconds() {
@@ -0,0 +1,163 @@
+package com.hospital.hms.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.hospital.hms.common.service.WebSocketRelay;
+import com.hospital.hms.security.event.UserAccessChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Principals of recently verified access tokens, so that a token seen again is authenticated by one map lookup,
+ * with no signature check and no database read.
+ *
+ * Entries are keyed by the exact token string and live until the token expires or {@code ttl}, whichever comes
+ * first; the cache is capped at {@code max-entries}. When a user's access changes ({@link UserAccessChangedEvent})
+ * their entries are dropped and an {@link Invalidation} is recorded: tokens issued up to that moment carry stale
+ * claims, so they are checked against the database until they expire.
+ *
+ * Every instance keeps its own cache, so once the change is committed it is also sent to the other instances over
+ * the {@link WebSocketRelay} broadcast channel, which apply it to theirs.
+ */
+@Slf4j
+@Component
+public class TokenAuthenticationCache {
+
+    static final String CHANNEL = "user-access";
+
+    /**
+     * A change to a user's access. Tokens issued at or before {@code issuedUpTo} (epoch seconds, the precision of
+     * the iat claim) must not be trusted on their claims; {@code sequence} tells two changes in the same second
+     * apart.
+     */
+    public record Invalidation(long sequence, long issuedUpTo) {
+    }
+
+    /**
+     * A verified token: its principal, and its id (jti, null on tokens issued without one) and issue time in
+     * epoch milliseconds for the revocation check
+     */
+    public record VerifiedToken(UserPrincipal principal, String tokenId, long issuedAt) {
+    }
+
+    /**
+     * A change to a user's access made on another instance, with the moment it was made there in epoch seconds
+     */
+    public record UserInvalidated(Long userId, long issuedUpTo) {
+    }
+
+    private record Entry(VerifiedToken token, long ttlNanos) {
+    }
+
+    private final Cache<String, Entry> principals;
+    private final Cache<Long, Invalidation> invalidations;
+    private final long ttlNanos;
+    private final AtomicLong sequence = new AtomicLong();
+    private final WebSocketRelay relay;
+
+    public TokenAuthenticationCache(WebSocketRelay relay,
+                                    @Value("${app.jwt.auth-cache.max-entries:100000}") long maxEntries,
+                                    @Value("${app.jwt.auth-cache.ttl:15m}") Duration ttl,
+                                    @Value("${app.jwt.expiration}") long jwtExpiration) {
+        this.relay = relay;
+        this.ttlNanos = ttl.toNanos();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+        // Once every token issued before a change has expired, the change no longer matters
+        this.invalidations = Caffeine.newBuilder()
+                .expireAfterWrite(jwtExpiration, TimeUnit.MILLISECONDS)
+                .build();
+        relay.onBroadcast(CHANNEL, UserInvalidated.class, remote -> invalidateUser(remote.userId(), remote.issuedUpTo()));
+    }
+
+    /**
+     * Token verified earlier with this exact string, or null
+     */
+    public VerifiedToken get(String token) {
+        Entry entry = principals.getIfPresent(token);
+        return entry != null ? entry.token : null;
+    }
+
+    /**
+     * Latest change to the user's access still relevant to unexpired tokens, or null
+     */
+    public Invalidation invalidation(Long userId) {
+        return invalidations.getIfPresent(userId);
+    }
+
+    /**
+     * Whether a token issued at {@code issuedAt} predates a change to its user's access
+     */
+    public static boolean isStale(Invalidation invalidation, Date issuedAt) {
+        return invalidation != null && (issuedAt == null || issuedAt.getTime() / 1000 <= invalidation.issuedUpTo());
+    }
+
+    /**
+     * Cache a verified token
+     *
+     * @param seen the user's {@link #invalidation} read before the principal was built; if the user changed since,
+     *             the principal may be stale and is not kept
+     */
+    public void put(String token, VerifiedToken verified, Date expiresAt, Invalidation seen) {
+        long ttl = Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(expiresAt.getTime() - System.currentTimeMillis()));
+        if (ttl <= 0) {
+            return;
+        }
+        principals.put(token, new Entry(verified, ttl));
+        // invalidateUser records the change before dropping entries, so one put racing it is caught either way
+        if (!Objects.equals(seen, invalidation(verified.principal().getId()))) {
+            principals.invalidate(token);
+        }
+    }
+
+    /**
+     * Stop trusting the claims of the user's current tokens and drop their cached principals
+     */
+    public void invalidateUser(Long userId) {
+        invalidateUser(userId, System.currentTimeMillis() / 1000);
+    }
+
+    private void invalidateUser(Long userId, long issuedUpTo) {
+        // A relayed change may arrive after a later local one; the later cut-off wins
+        invalidations.asMap().merge(userId, new Invalidation(sequence.incrementAndGet(), issuedUpTo),
+                (current, changed) -> new Invalidation(changed.sequence(),
+                        Math.max(current.issuedUpTo(), changed.issuedUpTo())));
+        principals.asMap().values().removeIf(entry -> userId.equals(entry.token.principal().getId()));
+        log.debug("Invalidated cached authentications of user {}", userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        long issuedUpTo = System.currentTimeMillis() / 1000;
+        invalidateUser(event.getUserId(), issuedUpTo);
+        relay.broadcast(CHANNEL, new UserInvalidated(event.getUserId(), issuedUpTo));
+    }
+}
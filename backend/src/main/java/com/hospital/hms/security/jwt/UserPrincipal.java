@@ -2,6 +2,7 @@ package com.hospital.hms.security.jwt;
 
 import com.hospital.hms.common.enums.UserRole;
 import com.hospital.hms.security.entity.User;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -10,6 +11,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -54,6 +56,47 @@ public class UserPrincipal implements UserDetails {
                 .build();
     }
 
+    /**
+     * Principal from the claims of a verified access token, or null if the token predates the principal claims
+     * (see {@link JwtTokenProvider#generateAccessToken(UserPrincipal)}) and the user has to be loaded instead.
+     * Tokens are only issued to enabled users, so it counts as enabled and unlocked; it carries no password and
+     * no mobile verification flag.
+     */
+    public static UserPrincipal fromClaims(Claims claims) {
+        String username = claims.get("username", String.class);
+        String primaryRole = claims.get("primaryRole", String.class);
+        if (username == null || primaryRole == null) {
+            return null;
+        }
+        Set<UserRole> roles = EnumSet.of(UserRole.valueOf(primaryRole));
+        String rolesClaim = claims.get("roles", String.class);
+        if (rolesClaim != null && !rolesClaim.isEmpty()) {
+            for (String role : rolesClaim.split(",")) {
+                roles.add(UserRole.valueOf(role));
+            }
+        }
+
+        return UserPrincipal.builder()
+                .id(Long.parseLong(claims.getSubject()))
+                .username(username)
+                .mobileNumber(claims.get("mobile", String.class))
+                .email(claims.get("email", String.class))
+                .displayName(claims.get("name", String.class))
+                .primaryRole(UserRole.valueOf(primaryRole))
+                .roles(roles)
+                .hospitalId(longClaim(claims, "hospitalId"))
+                .departmentId(longClaim(claims, "departmentId"))
+                .enabled(true)
+                .locked(false)
+                .build();
+    }
+
+    private static Long longClaim(Claims claims, String name) {
+        // JSON numbers come back as Integer or Long depending on their size
+        Object value = claims.get(name);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles.stream()
@@ -0,0 +1,178 @@
+package com.hospital.hms.security.service;
+
+import com.hospital.hms.common.service.WebSocketRelay;
+import com.hospital.hms.security.entity.RevokedAccessToken;
+import com.hospital.hms.security.event.AccessTokenRevokedEvent;
+import com.hospital.hms.security.jwt.AccessTokenRevocationList;
+import com.hospital.hms.security.repository.RevokedAccessTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Revokes access tokens before they expire, so that logging out ends the session at once instead of when the
+ * 24-hour access token runs out.
+ *
+ * Revocations are stored (for instances that start later) and, once committed, published as
+ * {@link AccessTokenRevokedEvent}s that feed every instance's in-memory {@link AccessTokenRevocationList}: this one
+ * directly, the others over the {@link WebSocketRelay} broadcast channel. The broadcast is delivered at most once, so
+ * every instance also reads the rows added to the table since its last read every few seconds; a missed message
+ * only delays the revocation there. Requests are checked against the in-memory list only, never the table.
+ */
+@Slf4j
+@Service
+public class AccessTokenRevocationService {
+
+    static final String CHANNEL = "token-revocations";
+
+    // Rows are read again from this far before the newest one seen, so that one committed late is not skipped
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedAccessTokenRepository repository;
+    private final WebSocketRelay relay;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccessTokenRevocationList revocations;
+    private final long tokenLifetimeSeconds;
+
+    // Created-at of the newest row read from the table
+    private LocalDateTime lastSeen = LocalDateTime.now();
+
+    public AccessTokenRevocationService(RevokedAccessTokenRepository repository,
+                                        WebSocketRelay relay,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${app.jwt.expiration}") long jwtExpiration,
+                                        @Value("${app.jwt.revocation.false-positive-rate:0.01}") double fpRate) {
+        this.repository = repository;
+        this.relay = relay;
+        this.eventPublisher = eventPublisher;
+        this.tokenLifetimeSeconds = jwtExpiration / 1000;
+        // About 24 expiry groups over a token lifetime: revoked ids outlive their token by at most 1/24 of it
+        this.revocations = new AccessTokenRevocationList(fpRate, Math.max(60, tokenLifetimeSeconds / 24));
+        relay.onBroadcast(CHANNEL, AccessTokenRevokedEvent.class, this::apply);
+    }
+
+    /**
+     * Load the revocations of tokens that have not expired yet, before the first request is checked
+     */
+    @PostConstruct
+    public synchronized void load() {
+        long started = System.currentTimeMillis();
+        int loaded = apply(repository.findByExpiresAtAfter(LocalDateTime.now()));
+        if (loaded > 0) {
+            log.info("Loaded {} access token revocations in {} ms", loaded, System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * Apply the revocations stored since the last read, catching up on broadcasts this instance missed
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        int read = apply(repository.findByCreatedAtAfterAndExpiresAtAfter(lastSeen.minus(REFRESH_OVERLAP),
+                LocalDateTime.now()));
+        log.trace("Read {} access token revocations stored since {}", read, lastSeen);
+    }
+
+    /**
+     * Revoke one access token
+     *
+     * @param expiresAt epoch second the token expires at
+     */
+    @Transactional
+    public void revokeToken(String tokenId, Long userId, long expiresAt) {
+        repository.save(RevokedAccessToken.builder()
+                .tokenId(tokenId)
+                .userId(userId)
+                .expiresAt(localDateTime(expiresAt))
+                .build());
+        eventPublisher.publishEvent(new AccessTokenRevokedEvent(tokenId, userId, 0, expiresAt));
+    }
+
+    /**
+     * Revoke every access token issued to a user until now, to the millisecond so that a token issued by a new
+     * login right after stays valid
+     */
+    @Transactional
+    public void revokeAllTokens(Long userId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now / 1000 + tokenLifetimeSeconds;
+        repository.save(RevokedAccessToken.builder()
+                .userId(userId)
+                .issuedUpTo(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()))
+                .expiresAt(localDateTime(expiresAt))
+                .build());
+        eventPublisher.publishEvent(new AccessTokenRevokedEvent(null, userId, now, expiresAt));
+    }
+
+    /**
+     * Whether an access token has been revoked; answered from memory
+     *
+     * @param tokenId  the token's jti, or null for tokens issued without one
+     * @param issuedAt epoch millisecond the token was issued at
+     */
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        return revocations.isRevoked(tokenId, userId, issuedAt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessTokenRevoked(AccessTokenRevokedEvent event) {
+        apply(event);
+        relay.broadcast(CHANNEL, event);
+    }
+
+    /**
+     * Forget revocations of expired tokens, in memory and in the table
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval-ms:600000}")
+    @Transactional
+    public void purge() {
+        revocations.purge(System.currentTimeMillis() / 1000);
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired access token revocations, {} still held", deleted, revocations.size());
+        }
+    }
+
+    private void apply(AccessTokenRevokedEvent event) {
+        if (event.tokenId() != null) {
+            revocations.revokeToken(event.tokenId(), event.expiresAt());
+        } else {
+            revocations.revokeUser(event.userId(), event.issuedUpToMillis(), event.expiresAt());
+        }
+    }
+
+    /**
+     * Apply stored revocations (again, harmlessly, for those already held) and move {@link #lastSeen} past them
+     */
+    private int apply(List<RevokedAccessToken> rows) {
+        for (RevokedAccessToken revoked : rows) {
+            apply(new AccessTokenRevokedEvent(revoked.getTokenId(), revoked.getUserId(),
+                    revoked.getIssuedUpTo() != null
+                            ? revoked.getIssuedUpTo().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0,
+                    epochSecond(revoked.getExpiresAt())));
+            if (revoked.getCreatedAt() != null && revoked.getCreatedAt().isAfter(lastSeen)) {
+                lastSeen = revoked.getCreatedAt();
+            }
+        }
+        return rows.size();
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static LocalDateTime localDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
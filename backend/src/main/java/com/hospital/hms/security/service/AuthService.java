@@ -5,13 +5,16 @@ import com.hospital.hms.common.exception.*;
 import com.hospital.hms.security.dto.*;
 import com.hospital.hms.security.entity.RefreshToken;
 import com.hospital.hms.security.entity.User;
+import com.hospital.hms.security.event.UserAccessChangedEvent;
 import com.hospital.hms.security.jwt.JwtTokenProvider;
 import com.hospital.hms.security.jwt.UserPrincipal;
 import com.hospital.hms.security.repository.RefreshTokenRepository;
 import com.hospital.hms.security.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -34,6 +37,8 @@ public class AuthService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtTokenProvider tokenProvider;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccessTokenRevocationService revocationService;
 
     @Value("${app.otp.expiry-minutes:10}")
     private int otpExpiryMinutes;
@@ -220,15 +225,23 @@ public class AuthService {
     }
 
     /**
-     * Logout - revoke refresh token
+     * Logout - revoke refresh token and access token, either of which may be null
      */
     @Transactional
-    public void logout(String refreshTokenStr) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenStr).orElse(null);
+    public void logout(String refreshTokenStr, String accessToken) {
+        RefreshToken refreshToken = refreshTokenStr != null
+                ? refreshTokenRepository.findByToken(refreshTokenStr).orElse(null) : null;
         if (refreshToken != null) {
             refreshToken.setIsRevoked(true);
             refreshToken.setRevokedAt(LocalDateTime.now());
             refreshTokenRepository.save(refreshToken);
+            eventPublisher.publishEvent(new UserAccessChangedEvent(refreshToken.getUser().getId()));
+        }
+
+        Claims claims = accessToken != null ? tokenProvider.parseToken(accessToken) : null;
+        if (claims != null && claims.getId() != null) {
+            revocationService.revokeToken(claims.getId(), Long.parseLong(claims.getSubject()),
+                    claims.getExpiration().getTime() / 1000);
         }
     }
 
@@ -240,6 +253,8 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
         refreshTokenRepository.revokeAllByUser(user, LocalDateTime.now());
+        revocationService.revokeAllTokens(userId);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId));
     }
 
     private void validateOtp(User user, String otp) {
@@ -263,13 +278,7 @@ public class AuthService {
     }
 
     private AuthResponse generateAuthResponse(User user) {
-        String accessToken = tokenProvider.generateAccessToken(
-                user.getId(),
-                user.getMobileNumber(),
-                user.getPrimaryRole(),
-                user.getRoles(),
-                user.getHospitalId()
-        );
+        String accessToken = tokenProvider.generateAccessToken(UserPrincipal.create(user));
 
         // Create refresh token
         RefreshToken refreshToken = RefreshToken.builder()
@@ -0,0 +1,150 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.ChangeType;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.AppointmentRepository.DailyStatusCount;
+import com.hospital.hms.appointment.service.AppointmentCounterService;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.factory.TestDataFactory;
+import com.hospital.hms.patient.entity.Patient;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for in-memory dashboard appointment counters.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AppointmentCounterService Tests")
+class AppointmentCounterServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private AppointmentCounterService counterService;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        counterService = new AppointmentCounterService(appointmentRepository, 7, 30);
+    }
+
+    private static DailyStatusCount row(Long hospitalId, LocalDate date, AppointmentStatus status, long total) {
+        return new DailyStatusCount() {
+            public Long getHospitalId() {
+                return hospitalId;
+            }
+
+            public LocalDate getAppointmentDate() {
+                return date;
+            }
+
+            public AppointmentStatus getStatus() {
+                return status;
+            }
+
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private Appointment appointment(Long hospitalId, LocalDate date) {
+        Patient patient = TestDataFactory.createPatient();
+        Doctor doctor = TestDataFactory.createDoctor();
+        Appointment appointment = TestDataFactory.createAppointment(patient, doctor, date, LocalTime.of(10, 0));
+        appointment.setId(50L);
+        appointment.setHospitalId(hospitalId);
+        return appointment;
+    }
+
+    @Test
+    @DisplayName("Should answer every dashboard count from one seed query")
+    void shouldSeedFromSingleGroupBy() {
+        // Given
+        when(appointmentRepository.countGroupedByHospitalDateAndStatus()).thenReturn(List.of(
+                row(1L, today, AppointmentStatus.SCHEDULED, 4),
+                row(1L, today, AppointmentStatus.COMPLETED, 2),
+                row(1L, today.minusYears(1), AppointmentStatus.COMPLETED, 10),
+                row(2L, today, AppointmentStatus.SCHEDULED, 5)));
+
+        // When
+        counterService.seed();
+
+        // Then
+        assertThat(counterService.countAll()).isEqualTo(21);
+        assertThat(counterService.countForDate(1L, today)).isEqualTo(6);
+        assertThat(counterService.countForStatus(1L, AppointmentStatus.COMPLETED)).isEqualTo(12);
+        assertThat(counterService.count(2L, today, AppointmentStatus.SCHEDULED)).isEqualTo(5);
+        assertThat(counterService.countForStatus(1L, AppointmentStatus.CANCELLED_BY_PATIENT)).isZero();
+        verify(appointmentRepository, times(1)).countGroupedByHospitalDateAndStatus();
+    }
+
+    @Test
+    @DisplayName("Should move counts between statuses on status change events")
+    void shouldApplyStatusChange() {
+        // Given
+        when(appointmentRepository.countGroupedByHospitalDateAndStatus()).thenReturn(List.of());
+        counterService.seed();
+        Appointment appointment = appointment(1L, today);
+
+        // When
+        counterService.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.CREATED, Snapshot.of(appointment), null));
+        Snapshot booked = Snapshot.of(appointment);
+        appointment.setStatus(AppointmentStatus.CANCELLED_BY_PATIENT);
+        counterService.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), booked));
+
+        // Then
+        assertThat(counterService.countAll()).isEqualTo(1);
+        assertThat(counterService.countForDate(1L, today)).isEqualTo(1);
+        assertThat(counterService.countForStatus(1L, AppointmentStatus.SCHEDULED)).isZero();
+        assertThat(counterService.countForStatus(1L, AppointmentStatus.CANCELLED_BY_PATIENT)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop soft-deleted appointments from every counter")
+    void shouldRemoveDeletedAppointments() {
+        // Given
+        when(appointmentRepository.countGroupedByHospitalDateAndStatus())
+                .thenReturn(List.of(row(1L, today, AppointmentStatus.SCHEDULED, 1)));
+        counterService.seed();
+        Appointment appointment = appointment(1L, today);
+        Snapshot before = Snapshot.of(appointment);
+
+        // When
+        appointment.setIsDeleted(true);
+        counterService.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), before));
+
+        // Then
+        assertThat(counterService.countAll()).isZero();
+        assertThat(counterService.countForDate(1L, today)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should correct drift on reconciliation")
+    void shouldCorrectDriftOnReconcile() {
+        // Given
+        when(appointmentRepository.countGroupedByHospitalDateAndStatus())
+                .thenReturn(List.of())
+                .thenReturn(List.of(row(1L, today, AppointmentStatus.SCHEDULED, 3)));
+        counterService.seed();
+
+        // When
+        counterService.reconcile();
+
+        // Then
+        assertThat(counterService.countForDate(1L, today)).isEqualTo(3);
+    }
+}
@@ -203,6 +203,24 @@ class AppointmentServiceTest {
             assertThat(canCancel).isFalse();
         }
 
+        @Test
+        @DisplayName("Should only move appointments forward through the visit")
+        void shouldOnlyMoveForward() {
+            assertThat(AppointmentStatus.SCHEDULED.canChangeTo(AppointmentStatus.CHECKED_IN)).isTrue();
+            assertThat(AppointmentStatus.CHECKED_IN.canChangeTo(AppointmentStatus.CANCELLED_BY_HOSPITAL)).isTrue();
+            assertThat(AppointmentStatus.IN_PROGRESS.canChangeTo(AppointmentStatus.COMPLETED)).isTrue();
+            assertThat(AppointmentStatus.IN_PROGRESS.canChangeTo(AppointmentStatus.CANCELLED_BY_PATIENT)).isFalse();
+            assertThat(AppointmentStatus.CHECKED_IN.canChangeTo(AppointmentStatus.SCHEDULED)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should not reopen completed, cancelled or no-show appointments")
+        void shouldNotReopenFinalStatuses() {
+            assertThat(AppointmentStatus.COMPLETED.canChangeTo(AppointmentStatus.SCHEDULED)).isFalse();
+            assertThat(AppointmentStatus.CANCELLED_BY_PATIENT.canChangeTo(AppointmentStatus.CONFIRMED)).isFalse();
+            assertThat(AppointmentStatus.NO_SHOW.canChangeTo(AppointmentStatus.CHECKED_IN)).isFalse();
+        }
+
         private boolean canCancelAppointment(Appointment appointment) {
             return appointment.getStatus() == AppointmentStatus.SCHEDULED ||
                    appointment.getStatus() == AppointmentStatus.CONFIRMED ||
@@ -0,0 +1,267 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.dto.BulkBookingRequest;
+import com.hospital.hms.appointment.dto.BulkBookingResponse;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.AppointmentRepository.NumberedId;
+import com.hospital.hms.appointment.service.BulkBookingService;
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import com.hospital.hms.appointment.service.SlotAvailabilityService.SlotClaim;
+import com.hospital.hms.appointment.service.SlotReservationService;
+import com.hospital.hms.appointment.service.SlotReservationService.SlotKey;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import com.hospital.hms.factory.TestDataFactory;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Year;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for batch appointment booking.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BulkBookingService Tests")
+class BulkBookingServiceTest {
+
+    private static final Long DOCTOR_ID = 7L;
+
+    @Mock
+    private SlotAvailabilityService slotAvailabilityService;
+
+    @Mock
+    private SequenceService sequenceService;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditorAware<String> auditorAware;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SlotReservationService slotReservationService;
+    private BulkBookingService bulkBookingService;
+    private final LocalDate date = LocalDate.now().plusDays(3);
+
+    @BeforeEach
+    void setUp() {
+        slotReservationService = new SlotReservationService(slotAvailabilityService, appointmentRepository, 64, 50);
+        bulkBookingService = bulkBookingService(2000);
+    }
+
+    private BulkBookingService bulkBookingService(int maxRows) {
+        return new BulkBookingService(slotAvailabilityService, slotReservationService, sequenceService,
+                appointmentRepository, doctorRepository, jdbcTemplate, auditorAware, eventPublisher,
+                new TransactionTemplate(transactionManager), maxRows, 50);
+    }
+
+    private void givenDoctorAndNumbers() {
+        Doctor doctor = TestDataFactory.createDoctor();
+        doctor.setId(DOCTOR_ID);
+        String prefix = "APT" + Year.now().getValue();
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor));
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of("reception"));
+        when(appointmentRepository.findIdsByAppointmentNumbers(any())).thenAnswer(i -> i.<Collection<String>>getArgument(0)
+                .stream()
+                .map(n -> numbered(Long.parseLong(n.substring(prefix.length())), n))
+                .toList());
+    }
+
+    private static SlotClaim granted(LocalTime start) {
+        return new SlotClaim(start, start.plusMinutes(15), null);
+    }
+
+    private BulkBookingRequest.Entry entry(Long doctorId, String mobile, LocalTime slot) {
+        return BulkBookingRequest.Entry.builder()
+                .patientName("Camp Patient")
+                .patientMobile(mobile)
+                .doctorId(doctorId)
+                .appointmentDate(date)
+                .slotTime(slot)
+                .build();
+    }
+
+    private static NumberedId numbered(Long id, String number) {
+        return new NumberedId() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getAppointmentNumber() {
+                return number;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should book valid rows with block-assigned numbers and tokens and report the rest per row")
+    void shouldBookValidRowsAndReportFailures() {
+        // Given: the plan picks 10:00 and the earliest free 9:00, then both are claimed again under their locks
+        givenDoctorAndNumbers();
+        String prefix = "APT" + Year.now().getValue();
+        when(slotAvailabilityService.claimSlots(eq(DOCTOR_ID), eq(date), any())).thenReturn(
+                List.of(granted(LocalTime.of(10, 0)), granted(LocalTime.of(9, 0)), new SlotClaim(null, null, "SLOT_TAKEN")),
+                List.of(granted(LocalTime.of(10, 0)), granted(LocalTime.of(9, 0))));
+        when(sequenceService.nextRange(eq("TOKEN"), eq(DOCTOR_ID), eq(date.toString()), eq(2), any())).thenReturn(5L);
+        when(sequenceService.nextRange(eq("APT"), eq(SequenceService.GLOBAL_SCOPE), anyString(), eq(2), any())).thenReturn(100L);
+
+        BulkBookingRequest request = BulkBookingRequest.builder()
+                .hospitalId(1L)
+                .appointments(List.of(
+                        entry(DOCTOR_ID, "9000000001", LocalTime.of(10, 0)),
+                        entry(DOCTOR_ID, "9000000002", null),
+                        entry(DOCTOR_ID, "123", null),
+                        entry(DOCTOR_ID, "9000000004", LocalTime.of(10, 0)),
+                        entry(99L, "9000000005", null)))
+                .build();
+
+        // When
+        BulkBookingResponse response = bulkBookingService.book(request);
+
+        // Then
+        assertThat(response.getRequested()).isEqualTo(5);
+        assertThat(response.getBooked()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(3);
+        List<BulkBookingResponse.Row> rows = response.getResults();
+        assertThat(rows).extracting(BulkBookingResponse.Row::getErrorCode)
+                .containsExactly(null, null, "INVALID_ROW", "SLOT_TAKEN", "DOCTOR_NOT_FOUND");
+
+        // Tokens and numbers follow slot order within the doctor-day
+        assertThat(rows.get(1).getSlotTime()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(rows.get(1).getTokenNumber()).isEqualTo(5);
+        assertThat(rows.get(1).getAppointmentNumber()).isEqualTo(prefix + "000100");
+        assertThat(rows.get(1).getAppointmentId()).isEqualTo(100L);
+        assertThat(rows.get(0).getTokenNumber()).isEqualTo(6);
+        assertThat(rows.get(0).getAppointmentNumber()).isEqualTo(prefix + "000101");
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO appointments"), argThat((Collection<?> c) -> c.size() == 2),
+                eq(50), any());
+        verify(eventPublisher, times(2)).publishEvent(any(AppointmentChangedEvent.class));
+        verify(slotAvailabilityService).claimSlots(DOCTOR_ID, date, List.of(LocalTime.of(10, 0), LocalTime.of(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Should fail only the rows whose slot was booked through another instance")
+    @SuppressWarnings("unchecked")
+    void shouldFailOnlyRowsTakenElsewhere() {
+        // Given: both slots look free here, but 10:00 was booked through another instance
+        givenDoctorAndNumbers();
+        List<SlotClaim> claims = List.of(granted(LocalTime.of(10, 0)), granted(LocalTime.of(11, 0)));
+        when(slotAvailabilityService.claimSlots(eq(DOCTOR_ID), eq(date), any())).thenReturn(claims);
+        when(sequenceService.nextRange(anyString(), anyLong(), anyString(), eq(2), any())).thenReturn(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute batch",
+                        new SQLException("Unique index or primary key violation: \"PUBLIC.UK_APPT_DOCTOR_SLOT_INDEX_1\"")))
+                .thenReturn(new int[0][]);
+        when(slotAvailabilityService.isSlotFree(DOCTOR_ID, date, LocalTime.of(10, 0))).thenReturn(false);
+        when(slotAvailabilityService.isSlotFree(DOCTOR_ID, date, LocalTime.of(11, 0))).thenReturn(true);
+
+        // When
+        BulkBookingResponse response = bulkBookingService.book(BulkBookingRequest.builder()
+                .hospitalId(1L)
+                .appointments(List.of(
+                        entry(DOCTOR_ID, "9000000001", LocalTime.of(10, 0)),
+                        entry(DOCTOR_ID, "9000000002", LocalTime.of(11, 0))))
+                .build());
+
+        // Then: the insert is retried without the taken row, in a new transaction
+        assertThat(response.getBooked()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BulkBookingResponse.Row::getErrorCode).containsExactly("SLOT_TAKEN", null);
+        verify(slotAvailabilityService).evictDay(DOCTOR_ID, date);
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<?> c) -> c.size() == 1), eq(50), any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(eventPublisher, times(1)).publishEvent(any(AppointmentChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should take the single-booking slot locks and report rows whose slot stays locked")
+    void shouldReportSlotsLockedBySingleBookings() throws InterruptedException {
+        // Given: a single booking holding the 10:00 slot
+        givenDoctorAndNumbers();
+        when(slotAvailabilityService.claimSlots(eq(DOCTOR_ID), eq(date), any())).thenReturn(
+                List.of(granted(LocalTime.of(10, 0)), granted(LocalTime.of(11, 0))),
+                List.of(granted(LocalTime.of(11, 0))));
+        when(sequenceService.nextRange(anyString(), anyLong(), anyString(), eq(1), any())).thenReturn(1L);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread single = new Thread(() -> slotReservationService.withSlotLocks(
+                List.of(new SlotKey(DOCTOR_ID, date, LocalTime.of(10, 0))), busy -> {
+                    locked.countDown();
+                    try {
+                        return release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                }));
+        single.start();
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        BulkBookingResponse response;
+        try {
+            response = bulkBookingService.book(BulkBookingRequest.builder()
+                    .hospitalId(1L)
+                    .appointments(List.of(
+                            entry(DOCTOR_ID, "9000000001", LocalTime.of(10, 0)),
+                            entry(DOCTOR_ID, "9000000002", LocalTime.of(11, 0))))
+                    .build());
+        } finally {
+            release.countDown();
+            single.join();
+        }
+
+        // Then
+        assertThat(response.getResults()).extracting(BulkBookingResponse.Row::getErrorCode).containsExactly("SLOT_BUSY", null);
+        verify(slotAvailabilityService).claimSlots(DOCTOR_ID, date, List.of(LocalTime.of(11, 0)));
+    }
+
+    @Test
+    @DisplayName("Should reject batches over the configured limit")
+    void shouldRejectOversizedBatch() {
+        BulkBookingService limited = bulkBookingService(1);
+        BulkBookingRequest request = BulkBookingRequest.builder()
+                .hospitalId(1L)
+                .appointments(List.of(entry(DOCTOR_ID, "9000000001", null), entry(DOCTOR_ID, "9000000002", null)))
+                .build();
+
+        assertThatThrownBy(() -> limited.book(request))
+                .isInstanceOf(BadRequestException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "BATCH_TOO_LARGE");
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,160 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.entity.DoctorPatientSummary;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.ChangeType;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.AppointmentRepository.VisitStats;
+import com.hospital.hms.appointment.repository.DoctorPatientSummaryRepository;
+import com.hospital.hms.appointment.service.DoctorRosterEventListener;
+import com.hospital.hms.appointment.service.DoctorRosterService;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.factory.TestDataFactory;
+import com.hospital.hms.patient.entity.Patient;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the doctor patient roster read model.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DoctorRosterService Tests")
+class DoctorRosterServiceTest {
+
+    @Mock
+    private DoctorPatientSummaryRepository summaryRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private DoctorRosterService rosterService;
+
+    private static VisitStats stats(long visits, LocalDate lastVisit) {
+        return new VisitStats() {
+            public long getVisits() {
+                return visits;
+            }
+
+            public LocalDate getLastVisit() {
+                return lastVisit;
+            }
+        };
+    }
+
+    @Nested
+    @DisplayName("Refresh Tests")
+    class RefreshTests {
+
+        @Test
+        @DisplayName("Should create roster row on a patient's first visit")
+        void shouldCreateRowOnFirstVisit() {
+            // Given
+            LocalDate visit = LocalDate.now().plusDays(2);
+            when(summaryRepository.findForUpdate(3L, 9L)).thenReturn(Optional.empty());
+            when(appointmentRepository.getVisitStats(eq(3L), eq(9L), anyCollection())).thenReturn(stats(1, visit));
+
+            // When
+            rosterService.refresh(3L, 9L, "Sunita Verma", "9876543210");
+
+            // Then
+            ArgumentCaptor<DoctorPatientSummary> saved = ArgumentCaptor.forClass(DoctorPatientSummary.class);
+            verify(summaryRepository).saveAndFlush(saved.capture());
+            assertThat(saved.getValue().getTotalVisits()).isEqualTo(1);
+            assertThat(saved.getValue().getLastVisit()).isEqualTo(visit);
+            assertThat(saved.getValue().getPatientName()).isEqualTo("Sunita Verma");
+        }
+
+        @Test
+        @DisplayName("Should remove roster row when the only visit is cancelled")
+        void shouldDeleteRowWhenNoVisitsRemain() {
+            // Given
+            DoctorPatientSummary existing = DoctorPatientSummary.builder()
+                    .doctorId(3L).patientId(9L).totalVisits(1).build();
+            when(summaryRepository.findForUpdate(3L, 9L)).thenReturn(Optional.of(existing));
+            when(appointmentRepository.getVisitStats(eq(3L), eq(9L), anyCollection())).thenReturn(stats(0, null));
+
+            // When
+            rosterService.refresh(3L, 9L, null, null);
+
+            // Then
+            verify(summaryRepository).delete(existing);
+            verify(summaryRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Should only count scheduled, in-progress and completed appointments as visits")
+        void shouldExcludeCancelledStatuses() {
+            assertThat(AppointmentStatus.COMPLETED.countsAsVisit()).isTrue();
+            assertThat(AppointmentStatus.SCHEDULED.countsAsVisit()).isTrue();
+            assertThat(AppointmentStatus.CANCELLED_BY_PATIENT.countsAsVisit()).isFalse();
+            assertThat(AppointmentStatus.NO_SHOW.countsAsVisit()).isFalse();
+            assertThat(AppointmentStatus.RESCHEDULED.countsAsVisit()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Event Listener Tests")
+    class ListenerTests {
+
+        @Mock
+        private DoctorRosterService mockRosterService;
+
+        private DoctorRosterEventListener listener;
+        private Appointment appointment;
+
+        @BeforeEach
+        void setUp() {
+            listener = new DoctorRosterEventListener(mockRosterService, summaryRepository, appointmentRepository);
+            Patient patient = TestDataFactory.createPatient();
+            patient.setId(9L);
+            Doctor doctor = TestDataFactory.createDoctor();
+            doctor.setId(3L);
+            appointment = TestDataFactory.createAppointment(patient, doctor, LocalDate.now().plusDays(1), LocalTime.of(10, 0));
+            appointment.setId(100L);
+        }
+
+        @Test
+        @DisplayName("Should refresh the pair when an appointment status changes")
+        void shouldRefreshOnStatusChange() {
+            // Given
+            Snapshot before = Snapshot.of(appointment);
+            appointment.setStatus(AppointmentStatus.CANCELLED_BY_PATIENT);
+
+            // When
+            listener.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), before));
+
+            // Then
+            verify(mockRosterService).refresh(eq(3L), eq(9L), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should ignore updates that do not affect the roster")
+        void shouldIgnoreIrrelevantUpdates() {
+            // Given
+            Snapshot before = Snapshot.of(appointment);
+            appointment.setInternalNotes("BP checked");
+
+            // When
+            listener.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), before));
+
+            // Then
+            verifyNoInteractions(mockRosterService);
+        }
+    }
+}
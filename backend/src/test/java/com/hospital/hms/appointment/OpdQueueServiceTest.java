@@ -0,0 +1,342 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.dto.QueueCheckInRequest;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.entity.QueueEntry;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.repository.QueueEntryRepository;
+import com.hospital.hms.appointment.service.OpdQueueService;
+import com.hospital.hms.appointment.service.QueueFeedPublisher;
+import com.hospital.hms.appointment.service.WaitTimeEstimator;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.service.SequenceService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the in-memory OPD queue engine.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OpdQueueService Tests")
+class OpdQueueServiceTest {
+
+    private static final Long DOCTOR_ID = 4L;
+
+    @Mock
+    private QueueEntryRepository queueEntryRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private SequenceService sequenceService;
+
+    @Mock
+    private QueueFeedPublisher feedPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditorAware<String> auditorAware;
+
+    private WaitTimeEstimator waitTimeEstimator;
+    private OpdQueueService queueService;
+    private final LocalDate today = LocalDate.now();
+    private final LocalDateTime checkInBase = LocalDateTime.now().minusMinutes(30);
+
+    @BeforeEach
+    void setUp() {
+        waitTimeEstimator = new WaitTimeEstimator(0.2, 15);
+        queueService = new OpdQueueService(queueEntryRepository, appointmentRepository, sequenceService,
+                waitTimeEstimator, feedPublisher, jdbcTemplate, auditorAware, 50, "TKN");
+    }
+
+    private QueueEntry entry(long id, int token, int priority, boolean walkIn, int checkInMinute) {
+        QueueEntry entry = QueueEntry.builder()
+                .hospitalId(1L)
+                .doctorId(DOCTOR_ID)
+                .patientId(100 + id)
+                .patientName("Patient " + id)
+                .queueDate(today)
+                .tokenNumber(token)
+                .tokenDisplay(String.format("OPD-%03d", token))
+                .priority(priority)
+                .isWalkIn(walkIn)
+                .checkInTime(checkInBase.plusMinutes(checkInMinute))
+                .build();
+        entry.setId(id);
+        return entry;
+    }
+
+    private void givenQueue(QueueEntry... entries) {
+        when(queueEntryRepository.findByDoctorIdAndDate(DOCTOR_ID, today)).thenReturn(List.of(entries));
+    }
+
+    @Nested
+    @DisplayName("Ordering Tests")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Should order by priority, then booked before walk-in, then check-in time")
+        void shouldOrderWaitingEntries() {
+            // Given
+            givenQueue(
+                    entry(1, 1, 0, true, 0),
+                    entry(2, 2, 0, false, 10),
+                    entry(3, 3, 5, true, 20),
+                    entry(4, 4, 0, false, 5));
+
+            // When
+            QueueSnapshot snapshot = queueService.getQueue(DOCTOR_ID, today);
+
+            // Then
+            assertThat(snapshot.getWaiting()).extracting(QueueSnapshot.Token::getEntryId).containsExactly(3L, 4L, 2L, 1L);
+            assertThat(snapshot.getWaiting()).extracting(QueueSnapshot.Token::getPosition).containsExactly(1, 2, 3, 4);
+            assertThat(snapshot.getNowServing()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Wait Estimate Tests")
+    class WaitEstimateTests {
+
+        @Test
+        @DisplayName("Should estimate waits from the doctor's consultation history and the patient in progress")
+        void shouldEstimateWaitsFromHistory() {
+            // Given: two finished 10-minute consultations today and a patient 4 minutes into theirs
+            QueueEntry first = entry(1, 1, 0, false, 0);
+            first.setStatus("COMPLETED");
+            first.setConsultationStartTime(checkInBase.plusMinutes(1));
+            first.setConsultationEndTime(checkInBase.plusMinutes(11));
+            QueueEntry second = entry(2, 2, 0, false, 1);
+            second.setStatus("COMPLETED");
+            second.setConsultationStartTime(checkInBase.plusMinutes(11));
+            second.setConsultationEndTime(checkInBase.plusMinutes(21));
+            QueueEntry inProgress = entry(3, 3, 0, false, 2);
+            inProgress.setStatus("CALLED");
+            inProgress.setCalledTime(LocalDateTime.now().minusMinutes(4));
+            inProgress.setConsultationStartTime(LocalDateTime.now().minusMinutes(4));
+            givenQueue(first, second, inProgress, entry(4, 4, 0, false, 3), entry(5, 5, 0, false, 4));
+
+            // When
+            QueueSnapshot snapshot = queueService.getQueue(DOCTOR_ID, today);
+
+            // Then
+            assertThat(snapshot.getAverageConsultationMinutes()).isEqualTo(10.0);
+            assertThat(snapshot.getP50ConsultationMinutes()).isEqualTo(10.0);
+            assertThat(snapshot.getWaiting()).extracting(QueueSnapshot.Token::getEstimatedWaitMinutes)
+                    .containsExactly(6, 16);
+        }
+
+        @Test
+        @DisplayName("Should fold each finished consultation into the estimates without querying history")
+        void shouldUpdateEstimatesOnCallNext() {
+            // Given: no history yet, so the default slot duration applies; one patient 8 minutes in
+            QueueEntry inProgress = entry(1, 1, 0, false, 0);
+            inProgress.setStatus("CALLED");
+            inProgress.setCalledTime(LocalDateTime.now().minusMinutes(8));
+            inProgress.setConsultationStartTime(LocalDateTime.now().minusMinutes(8));
+            givenQueue(inProgress, entry(2, 2, 0, false, 1), entry(3, 3, 0, false, 2));
+            when(auditorAware.getCurrentAuditor()).thenReturn(Optional.empty());
+            QueueSnapshot before = queueService.getQueue(DOCTOR_ID, today);
+            assertThat(before.getWaiting()).extracting(QueueSnapshot.Token::getEstimatedWaitMinutes).containsExactly(7, 22);
+
+            // When
+            QueueSnapshot after = queueService.callNext(DOCTOR_ID);
+
+            // Then: the first real consultation replaces the prior
+            assertThat(after.getCompleted()).isEqualTo(1);
+            assertThat(after.getAverageConsultationMinutes()).isEqualTo(8.0);
+            assertThat(after.getWaiting()).singleElement()
+                    .satisfies(token -> assertThat(token.getEstimatedWaitMinutes()).isEqualTo(8));
+            verify(queueEntryRepository, times(1)).findByDoctorIdAndDate(DOCTOR_ID, today);
+        }
+
+        @Test
+        @DisplayName("Should not feed past days' consultations into the estimates each time their queue is viewed")
+        void shouldNotReplayPastQueues() {
+            // Given: yesterday's queue with a finished consultation
+            LocalDate yesterday = today.minusDays(1);
+            QueueEntry finished = entry(1, 1, 0, false, 0);
+            finished.setQueueDate(yesterday);
+            finished.setStatus("COMPLETED");
+            finished.setConsultationStartTime(checkInBase.minusDays(1));
+            finished.setConsultationEndTime(checkInBase.minusDays(1).plusMinutes(12));
+            when(queueEntryRepository.findByDoctorIdAndDate(DOCTOR_ID, yesterday)).thenReturn(List.of(finished));
+
+            // When: it is viewed, dropped by the flush and viewed again
+            queueService.getQueue(DOCTOR_ID, yesterday);
+            queueService.flush();
+            QueueSnapshot reloaded = queueService.getQueue(DOCTOR_ID, yesterday);
+
+            // Then
+            assertThat(reloaded.getCompleted()).isEqualTo(1);
+            verify(queueEntryRepository, times(2)).findByDoctorIdAndDate(DOCTOR_ID, yesterday);
+            assertThat(waitTimeEstimator.stats(DOCTOR_ID).samples()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Transition Tests")
+    class TransitionTests {
+
+        @Test
+        @DisplayName("Should complete the current patient, call the next and write both behind")
+        @SuppressWarnings("unchecked")
+        void shouldCallNextAndWriteBehind() {
+            // Given
+            givenQueue(entry(1, 1, 0, false, 0), entry(2, 2, 0, false, 5));
+            when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of("reception"));
+            queueService.callNext(DOCTOR_ID);
+
+            // When
+            QueueSnapshot snapshot = queueService.callNext(DOCTOR_ID);
+
+            // Then
+            assertThat(snapshot.getNowServing().getEntryId()).isEqualTo(2L);
+            assertThat(snapshot.getNowServing().getStatus()).isEqualTo("CALLED");
+            assertThat(snapshot.getCompleted()).isEqualTo(1);
+            assertThat(snapshot.getWaiting()).isEmpty();
+            assertThat(snapshot.getVersion()).isEqualTo(2L);
+
+            // Board broadcast carries tokens but not names
+            ArgumentCaptor<QueueSnapshot> board = ArgumentCaptor.forClass(QueueSnapshot.class);
+            verify(feedPublisher, times(2)).changed(board.capture());
+            assertThat(board.getValue().getNowServing().getTokenDisplay()).isEqualTo("OPD-002");
+            assertThat(board.getValue().getNowServing().getPatientName()).isNull();
+
+            // Nothing written until the flush, then one batch with the latest state per entry
+            verifyNoInteractions(jdbcTemplate);
+            queueService.flush();
+            ArgumentCaptor<Collection<?>> rows = ArgumentCaptor.forClass(Collection.class);
+            verify(jdbcTemplate).batchUpdate(startsWith("UPDATE queue_entries"), rows.capture(), eq(50), any());
+            assertThat(rows.getValue()).hasSize(2);
+
+            queueService.flush();
+            verifyNoMoreInteractions(jdbcTemplate);
+        }
+
+        @Test
+        @DisplayName("Should skip, re-insert at the back of the band and mark no-show")
+        void shouldSkipReinsertAndMarkNoShow() {
+            // Given
+            givenQueue(entry(1, 1, 0, false, 0), entry(2, 2, 0, false, 5), entry(3, 3, 0, false, 10));
+            when(auditorAware.getCurrentAuditor()).thenReturn(Optional.empty());
+
+            // When
+            queueService.skip(DOCTOR_ID, 1L);
+            QueueSnapshot afterReinsert = queueService.reinsert(DOCTOR_ID, 1L);
+            QueueSnapshot afterNoShow = queueService.markNoShow(DOCTOR_ID, 2L);
+
+            // Then
+            assertThat(afterReinsert.getWaiting()).extracting(QueueSnapshot.Token::getEntryId).containsExactly(2L, 3L, 1L);
+            assertThat(afterNoShow.getWaiting()).extracting(QueueSnapshot.Token::getEntryId).containsExactly(3L, 1L);
+            assertThat(afterNoShow.getNoShow()).isEqualTo(1);
+            assertThat(afterNoShow.getSkipped()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should reject transitions that do not apply to the entry's status")
+        void shouldRejectInvalidTransition() {
+            givenQueue(entry(1, 1, 0, false, 0));
+
+            assertThatThrownBy(() -> queueService.reinsert(DOCTOR_ID, 1L))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasFieldOrPropertyWithValue("errorCode", "INVALID_QUEUE_STATE");
+            verifyNoInteractions(feedPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("Check-in Tests")
+    class CheckInTests {
+
+        @Test
+        @DisplayName("Should check in a booked appointment with its token and mark it checked in")
+        void shouldCheckInAppointment() {
+            // Given
+            Appointment appointment = Appointment.builder()
+                    .hospitalId(1L)
+                    .doctorId(DOCTOR_ID)
+                    .patientId(55L)
+                    .patientName("Meena Iyer")
+                    .appointmentNumber("APT2026000042")
+                    .appointmentDate(today)
+                    .tokenNumber(7)
+                    .status(AppointmentStatus.SCHEDULED)
+                    .build();
+            appointment.setId(42L);
+            givenQueue();
+            when(appointmentRepository.findById(42L)).thenReturn(Optional.of(appointment));
+            when(queueEntryRepository.save(any(QueueEntry.class))).thenAnswer(i -> {
+                QueueEntry saved = i.getArgument(0);
+                saved.setId(900L);
+                return saved;
+            });
+
+            // When
+            QueueSnapshot snapshot = queueService.checkIn(QueueCheckInRequest.builder().appointmentId(42L).build());
+
+            // Then
+            assertThat(snapshot.getWaiting()).singleElement().satisfies(token -> {
+                assertThat(token.getTokenDisplay()).isEqualTo("TKN-007");
+                assertThat(token.getPatientName()).isEqualTo("Meena Iyer");
+                assertThat(token.getWalkIn()).isFalse();
+            });
+            assertThat(appointment.getStatus()).isEqualTo(AppointmentStatus.CHECKED_IN);
+            verify(appointmentRepository).save(appointment);
+            verifyNoInteractions(sequenceService);
+
+            // A second check-in for the same appointment is refused
+            assertThatThrownBy(() -> queueService.checkIn(QueueCheckInRequest.builder().appointmentId(42L).build()))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasFieldOrPropertyWithValue("errorCode", "ALREADY_IN_QUEUE");
+        }
+
+        @Test
+        @DisplayName("Should give walk-ins a token from the doctor's daily sequence")
+        void shouldCheckInWalkIn() {
+            // Given
+            givenQueue();
+            when(sequenceService.next(eq("TOKEN"), eq(DOCTOR_ID), eq(today.toString()), eq(1), any())).thenReturn(12L);
+            when(queueEntryRepository.save(any(QueueEntry.class))).thenAnswer(i -> {
+                QueueEntry saved = i.getArgument(0);
+                saved.setId(901L);
+                return saved;
+            });
+
+            // When
+            QueueSnapshot snapshot = queueService.checkIn(QueueCheckInRequest.builder()
+                    .hospitalId(1L)
+                    .doctorId(DOCTOR_ID)
+                    .patientName("Walk In")
+                    .priority(3)
+                    .build());
+
+            // Then
+            assertThat(snapshot.getWaiting()).singleElement().satisfies(token -> {
+                assertThat(token.getTokenNumber()).isEqualTo(12);
+                assertThat(token.getWalkIn()).isTrue();
+                assertThat(token.getPriority()).isEqualTo(3);
+            });
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.dto.QueueFeedMessage;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.service.QueueFeedPublisher;
+import com.hospital.hms.common.service.WebSocketRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the coalescing queue board feed.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QueueFeedPublisher Tests")
+class QueueFeedPublisherTest {
+
+    private static final Long DOCTOR_ID = 4L;
+    private static final String TOPIC = "/topic/queue/" + DOCTOR_ID;
+
+    @Mock
+    private WebSocketRelay relay;
+
+    private QueueFeedPublisher publisher;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        publisher = new QueueFeedPublisher(relay);
+    }
+
+    private static QueueSnapshot.Token token(long id, String status, Integer estimate) {
+        return QueueSnapshot.Token.builder()
+                .entryId(id)
+                .tokenNumber((int) id)
+                .tokenDisplay(String.format("OPD-%03d", id))
+                .status(status)
+                .estimatedWaitMinutes(estimate)
+                .build();
+    }
+
+    private QueueSnapshot board(long version, QueueSnapshot.Token serving, int completed, QueueSnapshot.Token... waiting) {
+        return QueueSnapshot.builder()
+                .doctorId(DOCTOR_ID)
+                .date(today)
+                .version(version)
+                .nowServing(serving)
+                .waiting(List.of(waiting))
+                .skipped(List.of())
+                .completed(completed)
+                .noShow(0)
+                .build();
+    }
+
+    private List<QueueFeedMessage> sent(int times) {
+        ArgumentCaptor<QueueFeedMessage> messages = ArgumentCaptor.forClass(QueueFeedMessage.class);
+        verify(relay, times(times)).convertAndSend(eq(TOPIC), messages.capture());
+        return messages.getAllValues();
+    }
+
+    @Test
+    @DisplayName("Should send a snapshot first, then coalesce a burst of changes into one delta")
+    void shouldCoalesceChangesIntoOneDelta() {
+        // Given
+        publisher.changed(board(1, null, 0, token(1, "WAITING", 0), token(2, "WAITING", 15)));
+        publisher.flush();
+
+        // When: three changes inside one window
+        publisher.changed(board(2, token(1, "CALLED", null), 0, token(2, "WAITING", 15)));
+        publisher.changed(board(3, token(1, "CALLED", null), 0, token(2, "WAITING", 15), token(3, "WAITING", 30)));
+        publisher.changed(board(4, token(2, "CALLED", null), 1, token(3, "WAITING", 15)));
+        publisher.flush();
+        publisher.flush();
+
+        // Then
+        List<QueueFeedMessage> messages = sent(2);
+        assertThat(messages.get(0).getType()).isEqualTo(QueueFeedMessage.SNAPSHOT);
+        assertThat(messages.get(0).getSeq()).isEqualTo(1L);
+
+        QueueFeedMessage delta = messages.get(1);
+        assertThat(delta.getType()).isEqualTo(QueueFeedMessage.DELTA);
+        assertThat(delta.getSeq()).isEqualTo(2L);
+        assertThat(delta.getVersion()).isEqualTo(4L);
+        assertThat(delta.getRemoved()).containsExactly(1L);
+        assertThat(delta.getUpserts()).extracting(QueueSnapshot.Token::getEntryId).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(delta.getUpserts()).allSatisfy(t -> assertThat(t.getEstimatedWaitMinutes()).isNull());
+        assertThat(delta.getNowServingId()).isEqualTo(2L);
+        assertThat(delta.getWaitingIds()).containsExactly(3L);
+        assertThat(delta.getWaitEstimates()).containsExactly(15);
+        assertThat(delta.getCompleted()).isEqualTo(1);
+        assertThat(delta.getNoShow()).isNull();
+        assertThat(delta.getSkippedIds()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should send only the fields that changed and nothing when the board is unchanged")
+    void shouldSendOnlyChangedFields() {
+        // Given
+        publisher.changed(board(1, null, 0, token(1, "WAITING", 0), token(2, "WAITING", 15)));
+        publisher.flush();
+
+        // When: only the estimates move, then an identical board arrives
+        publisher.changed(board(2, null, 0, token(1, "WAITING", 0), token(2, "WAITING", 10)));
+        publisher.flush();
+        publisher.changed(board(2, null, 0, token(1, "WAITING", 0), token(2, "WAITING", 10)));
+        publisher.flush();
+
+        // Then
+        QueueFeedMessage delta = sent(2).get(1);
+        assertThat(delta.getWaitEstimates()).containsExactly(0, 10);
+        assertThat(delta.getUpserts()).isNull();
+        assertThat(delta.getWaitingIds()).isNull();
+        assertThat(delta.getNowServingChanged()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should give subscribers the last sent board with its sequence number")
+    void shouldSnapshotForSubscriber() {
+        // Given: nothing broadcast yet, so the live board becomes the baseline
+        QueueSnapshot live = board(5, null, 2, token(7, "WAITING", 0));
+        QueueFeedMessage first = publisher.snapshot(DOCTOR_ID, () -> live);
+        assertThat(first.getSeq()).isZero();
+        assertThat(first.getSnapshot()).isSameAs(live);
+
+        // When: a change is broadcast
+        publisher.changed(board(6, token(7, "CALLED", null), 2));
+        publisher.flush();
+        QueueFeedMessage resync = publisher.snapshot(DOCTOR_ID, () -> fail("live board not needed"));
+
+        // Then: the broadcast is a delta against the baseline and resync lines up with it
+        assertThat(sent(1).get(0).getType()).isEqualTo(QueueFeedMessage.DELTA);
+        assertThat(resync.getSeq()).isEqualTo(1L);
+        assertThat(resync.getSnapshot().getVersion()).isEqualTo(6L);
+    }
+
+    @Test
+    @DisplayName("Should read the live board without holding the topic lock")
+    void shouldNotHoldTopicLockWhileReadingLiveBoard() {
+        // Given: a queue change recorded from another thread while the live board is being read, as a
+        // check-in holding the queue lock would do
+        QueueSnapshot live = board(5, null, 2, token(7, "WAITING", 0));
+        QueueSnapshot changed = board(6, token(7, "CALLED", null), 2);
+
+        // When
+        QueueFeedMessage first = publisher.snapshot(DOCTOR_ID, () -> {
+            Thread queueThread = new Thread(() -> publisher.changed(changed));
+            queueThread.start();
+            try {
+                queueThread.join(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertThat(queueThread.isAlive()).as("change blocked on the topic lock").isFalse();
+            return live;
+        });
+
+        // Then: the change made meanwhile is the newer baseline
+        assertThat(first.getSnapshot()).isSameAs(changed);
+    }
+
+    @Test
+    @DisplayName("Should share sent boards so subscribers on other instances resync at the same sequence")
+    @SuppressWarnings("unchecked")
+    void shouldMirrorBoardsSentByOtherInstances() {
+        // Given: the board listener registered with the relay, as another instance would reach it
+        ArgumentCaptor<Consumer<QueueFeedPublisher.SentBoard>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(relay).onBroadcast(eq("queue-board"), eq(QueueFeedPublisher.SentBoard.class), listener.capture());
+
+        List<QueueSnapshot> notified = new ArrayList<>();
+        publisher.addListener(notified::add);
+
+        // When: the owning instance sends seq 3, then a stale seq 2 arrives late
+        QueueSnapshot remote = board(9, token(5, "CALLED", null), 4);
+        listener.getValue().accept(new QueueFeedPublisher.SentBoard(DOCTOR_ID, 3, remote));
+        listener.getValue().accept(new QueueFeedPublisher.SentBoard(DOCTOR_ID, 2, board(8, null, 3)));
+        QueueFeedMessage resync = publisher.snapshot(DOCTOR_ID, () -> fail("live board not needed"));
+
+        // Then: this instance answers with the newest mirrored board, hands it to local views once and sends
+        // nothing itself
+        assertThat(resync.getSeq()).isEqualTo(3L);
+        assertThat(resync.getSnapshot()).isSameAs(remote);
+        assertThat(notified).containsExactly(remote);
+        publisher.flush();
+        verify(relay, never()).convertAndSend(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should share every sent board with the other instances")
+    void shouldBroadcastSentBoards() {
+        // When
+        QueueSnapshot first = board(1, null, 0, token(1, "WAITING", 0));
+        publisher.changed(first);
+        publisher.flush();
+
+        // Then
+        verify(relay).broadcast("queue-board", new QueueFeedPublisher.SentBoard(DOCTOR_ID, 1, first));
+    }
+}
@@ -0,0 +1,289 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.dto.SlotAvailabilityDto;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.ChangeType;
+import com.hospital.hms.appointment.event.AppointmentChangedEvent.Snapshot;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.enums.DayOfWeek;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.doctor.entity.DoctorSchedule;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import com.hospital.hms.doctor.repository.DoctorScheduleRepository;
+import com.hospital.hms.factory.TestDataFactory;
+import com.hospital.hms.patient.entity.Patient;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the in-memory slot availability engine.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SlotAvailabilityService Tests")
+class SlotAvailabilityServiceTest {
+
+    private static final Long DOCTOR_ID = 7L;
+
+    @Mock
+    private DoctorScheduleRepository scheduleRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private SlotAvailabilityService slotAvailabilityService;
+    private Doctor doctor;
+    private Patient patient;
+    private LocalDate nextMonday;
+
+    @BeforeEach
+    void setUp() {
+        TestDataFactory.resetIdGenerator();
+        slotAvailabilityService = new SlotAvailabilityService(scheduleRepository, doctorRepository, appointmentRepository, 30, 15);
+        doctor = TestDataFactory.createDoctor();
+        doctor.setId(DOCTOR_ID);
+        patient = TestDataFactory.createPatient();
+        patient.setId(11L);
+        nextMonday = LocalDate.now().with(TemporalAdjusters.next(java.time.DayOfWeek.MONDAY));
+    }
+
+    private DoctorSchedule morningSchedule(Integer maxAppointments) {
+        return DoctorSchedule.builder()
+                .doctor(doctor)
+                .hospitalId(1L)
+                .dayOfWeek(DayOfWeek.MONDAY)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(13, 0))
+                .breakStartTime(LocalTime.of(11, 0))
+                .breakEndTime(LocalTime.of(11, 30))
+                .slotDurationMinutes(15)
+                .maxAppointments(maxAppointments)
+                .build();
+    }
+
+    private Appointment booking(Long id, LocalTime time) {
+        Appointment appointment = TestDataFactory.createAppointment(patient, doctor, nextMonday, time);
+        appointment.setId(id);
+        return appointment;
+    }
+
+    private void givenSchedules(DoctorSchedule... schedules) {
+        when(doctorRepository.findById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
+        when(scheduleRepository.findActiveByDoctorId(DOCTOR_ID)).thenReturn(List.of(schedules));
+    }
+
+    private SlotAvailabilityDto.SlotDto slotAt(SlotAvailabilityDto day, LocalTime time) {
+        return day.getSlots().stream()
+                .filter(s -> s.getStartTime().equals(time))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Nested
+    @DisplayName("Schedule Compilation Tests")
+    class CompilationTests {
+
+        @Test
+        @DisplayName("Should expand schedule into slots skipping the break window")
+        void shouldExpandScheduleSkippingBreak() {
+            // Given
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday)).thenReturn(List.of());
+
+            // When
+            SlotAvailabilityDto day = slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, false);
+
+            // Then
+            assertThat(day.getTotalSlots()).isEqualTo(14);
+            assertThat(day.getAvailableSlots()).isEqualTo(14);
+            assertThat(day.getSlots()).extracting(SlotAvailabilityDto.SlotDto::getStartTime)
+                    .doesNotContain(LocalTime.of(11, 0), LocalTime.of(11, 15))
+                    .contains(LocalTime.of(9, 0), LocalTime.of(11, 30), LocalTime.of(12, 45));
+        }
+
+        @Test
+        @DisplayName("Should use date-specific schedule instead of the weekly one")
+        void shouldPreferSpecificDateSchedule() {
+            // Given
+            DoctorSchedule special = morningSchedule(null);
+            special.setSpecificDate(nextMonday);
+            special.setIsRecurring(false);
+            special.setStartTime(LocalTime.of(14, 0));
+            special.setEndTime(LocalTime.of(15, 0));
+            special.setBreakStartTime(null);
+            special.setBreakEndTime(null);
+            givenSchedules(morningSchedule(null), special);
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday)).thenReturn(List.of());
+
+            // When
+            SlotAvailabilityDto day = slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, false);
+
+            // Then
+            assertThat(day.getTotalSlots()).isEqualTo(4);
+            assertThat(day.getSlots().get(0).getStartTime()).isEqualTo(LocalTime.of(14, 0));
+        }
+
+        @Test
+        @DisplayName("Should report no slots while doctor is on leave")
+        void shouldReturnNoSlotsOnLeave() {
+            // Given
+            doctor.setIsOnLeave(true);
+            doctor.setLeaveFrom(nextMonday.minusDays(1));
+            doctor.setLeaveTo(nextMonday.plusDays(1));
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday)).thenReturn(List.of());
+
+            // When
+            SlotAvailabilityDto day = slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, false);
+
+            // Then
+            assertThat(day.getOnLeave()).isTrue();
+            assertThat(day.getTotalSlots()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Booking Overlay Tests")
+    class OverlayTests {
+
+        @Test
+        @DisplayName("Should mark existing bookings as unavailable and ignore cancelled ones")
+        void shouldOverlayExistingBookings() {
+            // Given
+            Appointment cancelled = booking(2L, LocalTime.of(9, 15));
+            cancelled.setStatus(AppointmentStatus.CANCELLED_BY_PATIENT);
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday))
+                    .thenReturn(List.of(booking(1L, LocalTime.of(9, 0)), cancelled));
+
+            // When
+            SlotAvailabilityDto day = slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, false);
+
+            // Then
+            assertThat(slotAt(day, LocalTime.of(9, 0)).getAvailable()).isFalse();
+            assertThat(slotAt(day, LocalTime.of(9, 15)).getAvailable()).isTrue();
+            assertThat(day.getAvailableSlots()).isEqualTo(13);
+        }
+
+        @Test
+        @DisplayName("Should close every slot once the schedule's max appointments is reached")
+        void shouldHonourMaxAppointments() {
+            // Given
+            givenSchedules(morningSchedule(2));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday))
+                    .thenReturn(List.of(booking(1L, LocalTime.of(9, 0)), booking(2L, LocalTime.of(9, 30))));
+
+            // When
+            SlotAvailabilityDto day = slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, true);
+
+            // Then
+            assertThat(day.getAvailableSlots()).isZero();
+            assertThat(day.getSlots()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Change Event Tests")
+    class ChangeEventTests {
+
+        @Test
+        @DisplayName("Should apply bookings and cancellations without reloading from the database")
+        void shouldApplyEventsInMemory() {
+            // Given
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday)).thenReturn(List.of());
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(10, 0))).isTrue();
+
+            Appointment appointment = booking(5L, LocalTime.of(10, 0));
+            Snapshot booked = Snapshot.of(appointment);
+
+            // When - booked
+            slotAvailabilityService.onAppointmentChanged(new AppointmentChangedEvent(ChangeType.CREATED, booked, null));
+
+            // Then
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(10, 0))).isFalse();
+
+            // When - cancelled
+            appointment.setStatus(AppointmentStatus.CANCELLED_BY_HOSPITAL);
+            slotAvailabilityService.onAppointmentChanged(
+                    new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), booked));
+
+            // Then
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(10, 0))).isTrue();
+            verify(appointmentRepository, times(1)).findByDoctorIdAndDate(eq(DOCTOR_ID), any());
+        }
+
+        @Test
+        @DisplayName("Should move the booking when an appointment is rescheduled to another slot")
+        void shouldMoveRescheduledBooking() {
+            // Given
+            Appointment appointment = booking(5L, LocalTime.of(10, 0));
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday)).thenReturn(List.of(appointment));
+            slotAvailabilityService.getAvailability(DOCTOR_ID, nextMonday, false);
+            Snapshot before = Snapshot.of(appointment);
+
+            // When
+            appointment.setSlotStartTime(LocalTime.of(12, 0));
+            slotAvailabilityService.onAppointmentChanged(
+                    new AppointmentChangedEvent(ChangeType.UPDATED, Snapshot.of(appointment), before));
+
+            // Then
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(10, 0))).isTrue();
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(12, 0))).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Claim Tests")
+    class BatchClaimTests {
+
+        @Test
+        @DisplayName("Should grant each free slot once per batch and fill open requests with the earliest free slot")
+        void shouldClaimSlotsInOnePass() {
+            // Given
+            givenSchedules(morningSchedule(null));
+            when(appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, nextMonday))
+                    .thenReturn(List.of(booking(1L, LocalTime.of(9, 0))));
+
+            // When
+            List<SlotAvailabilityService.SlotClaim> claims = slotAvailabilityService.claimSlots(DOCTOR_ID, nextMonday,
+                    java.util.Arrays.asList(LocalTime.of(9, 15), LocalTime.of(9, 15), null, LocalTime.of(9, 0),
+                            LocalTime.of(11, 0), LocalTime.of(9, 20)));
+
+            // Then
+            assertThat(claims).extracting(SlotAvailabilityService.SlotClaim::errorCode)
+                    .containsExactly(null, "SLOT_TAKEN", null, "SLOT_TAKEN", "SLOT_NOT_IN_SCHEDULE", "SLOT_NOT_IN_SCHEDULE");
+            assertThat(claims.get(2).startTime()).isEqualTo(LocalTime.of(9, 30));
+            assertThat(claims.get(2).endTime()).isEqualTo(LocalTime.of(9, 45));
+            assertThat(slotAvailabilityService.isSlotFree(DOCTOR_ID, nextMonday, LocalTime.of(9, 15))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject ranges longer than the advance booking window")
+    void shouldRejectOversizedRange() {
+        assertThatThrownBy(() -> slotAvailabilityService.getAvailability(
+                DOCTOR_ID, nextMonday, nextMonday.plusDays(60), true))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,168 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.dto.SlotAvailabilityDto;
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import com.hospital.hms.appointment.service.SlotReservationService;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.enums.AppointmentType;
+import com.hospital.hms.common.exception.ConflictException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Contention benchmark for slot booking: hundreds of threads race for a handful of popular slots.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with
+ * {@code mvn test -Dtest=SlotBookingBenchmark -Dbenchmark.threads=400 -Dbenchmark.attempts=20}.
+ * Prints attempts per second for the locked path and for raw inserts relying on the unique constraint
+ * alone (what another instance sees), and checks that every slot ends up booked exactly once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@DisplayName("Slot Booking Benchmark")
+class SlotBookingBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 200);
+    private static final int ATTEMPTS_PER_THREAD = Integer.getInteger("benchmark.attempts", 10);
+    private static final int POPULAR_SLOTS = Integer.getInteger("benchmark.slots", 8);
+    private static final long DOCTOR_ID = 1L;
+
+    @Autowired
+    private SlotReservationService reservationService;
+
+    @Autowired
+    private SlotAvailabilityService slotAvailabilityService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private final AtomicInteger mobileSeq = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should book each contended slot exactly once under heavy concurrency")
+    void benchmarkContendedSlots() throws Exception {
+        List<LocalDate> days = nextDaysWithFreeSlots(2);
+
+        // Locked path: striped lock + cached slot map, constraint as backstop
+        List<LocalTime> lockedSlots = freeSlots(days.get(0));
+        Result locked = race("striped lock", days.get(0), lockedSlots,
+                a -> reservationService.book(a, b -> { }));
+
+        // Unlocked path: every thread goes straight to the database, as concurrent instances would
+        List<LocalTime> rawSlots = freeSlots(days.get(1));
+        Result raw = race("constraint only", days.get(1), rawSlots, appointmentRepository::save);
+
+        for (Result result : List.of(locked, raw)) {
+            assertThat(result.booked()).isEqualTo(result.slots().size());
+            Map<LocalTime, Long> held = appointmentRepository.findByDoctorIdAndDate(DOCTOR_ID, result.date()).stream()
+                    .filter(a -> a.getStatus() == AppointmentStatus.SCHEDULED)
+                    .collect(Collectors.groupingBy(Appointment::getSlotStartTime, Collectors.counting()));
+            assertThat(held).containsOnlyKeys(result.slots());
+            assertThat(held.values()).containsOnly(1L);
+        }
+    }
+
+    private Result race(String label, LocalDate date, List<LocalTime> slots, Consumer<Appointment> booking)
+            throws InterruptedException {
+        LongAdder booked = new LongAdder();
+        LongAdder taken = new LongAdder();
+        LongAdder busy = new LongAdder();
+        LongAdder violations = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalTime slot = slots.get(ThreadLocalRandom.current().nextInt(slots.size()));
+                    try {
+                        booking.accept(appointment(date, slot));
+                        booked.increment();
+                    } catch (ConflictException e) {
+                        ("SLOT_BUSY".equals(e.getErrorCode()) ? busy : taken).increment();
+                    } catch (DataIntegrityViolationException e) {
+                        violations.increment();
+                    }
+                }
+            });
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        long attempts = (long) THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("[%s] %d threads x %d attempts on %d slots: %.0f attempts/s (%.2fs) - booked=%d, "
+                        + "taken=%d, busy=%d, db-violations=%d%n",
+                label, THREADS, ATTEMPTS_PER_THREAD, slots.size(), attempts / seconds, seconds,
+                booked.sum(), taken.sum(), busy.sum(), violations.sum());
+        return new Result(date, slots, booked.sum());
+    }
+
+    private Appointment appointment(LocalDate date, LocalTime slot) {
+        int n = mobileSeq.incrementAndGet();
+        return Appointment.builder()
+                .appointmentNumber("BENCH" + String.format("%08d", n))
+                .hospitalId(1L)
+                .patientId(0L)
+                .patientName("Load Test " + n)
+                .patientMobile(String.format("9%09d", n))
+                .doctorId(DOCTOR_ID)
+                .appointmentType(AppointmentType.OPD)
+                .appointmentDate(date)
+                .slotStartTime(slot)
+                .slotEndTime(slot.plusMinutes(15))
+                .status(AppointmentStatus.SCHEDULED)
+                .tokenNumber(n)
+                .bookingSource("BENCHMARK")
+                .build();
+    }
+
+    private List<LocalDate> nextDaysWithFreeSlots(int count) {
+        List<LocalDate> days = new java.util.ArrayList<>();
+        for (LocalDate date = LocalDate.now().plusDays(1); days.size() < count; date = date.plusDays(1)) {
+            if (freeSlots(date).size() >= POPULAR_SLOTS) {
+                days.add(date);
+            }
+            assertThat(date).isBefore(LocalDate.now().plusDays(30));
+        }
+        return days;
+    }
+
+    private List<LocalTime> freeSlots(LocalDate date) {
+        SlotAvailabilityDto availability = slotAvailabilityService.getAvailability(DOCTOR_ID, date, true);
+        return availability.getSlots() == null ? List.of() : availability.getSlots().stream()
+                .map(SlotAvailabilityDto.SlotDto::getStartTime)
+                .limit(POPULAR_SLOTS)
+                .toList();
+    }
+
+    private record Result(LocalDate date, List<LocalTime> slots, long booked) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.service.SlotHeldBackfillService;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for marking legacy appointments as holding their slot, against an in-memory table.
+ */
+@DisplayName("SlotHeldBackfillService Tests")
+class SlotHeldBackfillServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SlotHeldBackfillService backfillService;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:slot_backfill;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS appointments");
+        jdbcTemplate.execute("CREATE TABLE appointments (id BIGINT PRIMARY KEY, doctor_id BIGINT, " +
+                "appointment_date DATE, slot_start_time TIME, status VARCHAR(20), is_deleted BOOLEAN, slot_held BOOLEAN)");
+        backfillService = new SlotHeldBackfillService(jdbcTemplate, 2);
+    }
+
+    private void row(long id, LocalDate date, String time, String status, boolean deleted, Boolean held) {
+        jdbcTemplate.update("INSERT INTO appointments VALUES (?, 7, ?, ?, ?, ?, ?)",
+                id, date, time, status, deleted, held);
+    }
+
+    private List<Long> held() {
+        return jdbcTemplate.queryForList("SELECT id FROM appointments WHERE slot_held = TRUE ORDER BY id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Should mark upcoming bookings that occupy their slot and leave the rest alone")
+    void shouldMarkUpcomingOccupyingBookings() {
+        // Given
+        row(1, today, "09:00:00", "SCHEDULED", false, null);
+        row(2, today, "09:15:00", "NO_SHOW", false, null);
+        row(3, today, "09:30:00", "CONFIRMED", true, null);
+        row(4, today.minusDays(1), "09:00:00", "COMPLETED", false, null);
+        row(5, today.plusDays(2), "10:00:00", "CHECKED_IN", false, null);
+
+        // When
+        int marked = backfillService.backfill(today);
+
+        // Then
+        assertThat(marked).isEqualTo(2);
+        assertThat(held()).containsExactly(1L, 5L);
+    }
+
+    @Test
+    @DisplayName("Should keep the slot with the earliest booking or the one already marked")
+    void shouldNotMarkTwoBookingsForOneSlot() {
+        // Given: a legacy double booking, and a legacy row whose slot a newer booking already holds
+        row(1, today, "09:00:00", "SCHEDULED", false, null);
+        row(2, today, "09:00:00", "CONFIRMED", false, null);
+        row(3, today, "11:00:00", "SCHEDULED", false, null);
+        row(4, today, "11:00:00", "SCHEDULED", false, true);
+
+        // When
+        int marked = backfillService.backfill(today);
+
+        // Then
+        assertThat(marked).isEqualTo(1);
+        assertThat(held()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should change nothing when run again")
+    void shouldBeIdempotent() {
+        // Given
+        row(1, today, "09:00:00", "SCHEDULED", false, null);
+        row(2, today, "09:30:00", "IN_QUEUE", false, null);
+        row(3, today, "10:00:00", "COMPLETED", false, null);
+        assertThat(backfillService.backfill(today)).isEqualTo(3);
+
+        // When
+        int marked = backfillService.backfill(today);
+
+        // Then
+        assertThat(marked).isZero();
+        assertThat(held()).containsExactly(1L, 2L, 3L);
+    }
+}
@@ -0,0 +1,190 @@
+package com.hospital.hms.appointment;
+
+import com.hospital.hms.appointment.entity.Appointment;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.appointment.service.SlotAvailabilityService;
+import com.hospital.hms.appointment.service.SlotAvailabilityService.SlotClaim;
+import com.hospital.hms.appointment.service.SlotReservationService;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.factory.TestDataFactory;
+import com.hospital.hms.patient.entity.Patient;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for single-slot booking with striped locks and the unique held-slot constraint.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SlotReservationService Tests")
+class SlotReservationServiceTest {
+
+    private static final LocalTime SLOT = LocalTime.of(10, 0);
+
+    @Mock
+    private SlotAvailabilityService slotAvailabilityService;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private SlotReservationService reservationService;
+    private final LocalDate date = LocalDate.now().plusDays(2);
+    private final AtomicInteger tokensDrawn = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new SlotReservationService(slotAvailabilityService, appointmentRepository, 64, 50);
+    }
+
+    private Appointment draft() {
+        Patient patient = TestDataFactory.createPatient();
+        Doctor doctor = TestDataFactory.createDoctor();
+        doctor.setId(7L);
+        Appointment appointment = TestDataFactory.createAppointment(patient, doctor, date, SLOT);
+        appointment.setSlotEndTime(null);
+        appointment.setTokenNumber(null);
+        return appointment;
+    }
+
+    private Appointment book(Appointment appointment) {
+        return reservationService.book(appointment, a -> a.setTokenNumber(tokensDrawn.incrementAndGet()));
+    }
+
+    @Test
+    @DisplayName("Should save a free slot with the schedule's end time and draw the token only then")
+    void shouldBookFreeSlot() {
+        // Given
+        when(slotAvailabilityService.claimSlots(7L, date, List.of(SLOT)))
+                .thenReturn(List.of(new SlotClaim(SLOT, LocalTime.of(10, 20), null)));
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(i -> i.getArgument(0));
+
+        // When
+        Appointment saved = book(draft());
+
+        // Then
+        assertThat(saved.getSlotEndTime()).isEqualTo(LocalTime.of(10, 20));
+        assertThat(saved.getTokenNumber()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a slot the cached map shows as booked without touching the database")
+    void shouldRejectTakenSlot() {
+        // Given
+        when(slotAvailabilityService.claimSlots(7L, date, List.of(SLOT)))
+                .thenReturn(List.of(new SlotClaim(null, null, "SLOT_TAKEN")));
+
+        // When/Then
+        assertThatThrownBy(() -> book(draft()))
+                .isInstanceOf(ConflictException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "SLOT_TAKEN");
+        assertThat(tokensDrawn).hasValue(0);
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    @DisplayName("Should report unbookable slots as bad requests")
+    void shouldRejectSlotOutsideSchedule() {
+        when(slotAvailabilityService.claimSlots(7L, date, List.of(SLOT)))
+                .thenReturn(List.of(new SlotClaim(null, null, "SLOT_NOT_IN_SCHEDULE")));
+
+        assertThatThrownBy(() -> book(draft()))
+                .isInstanceOf(BadRequestException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "SLOT_NOT_IN_SCHEDULE");
+    }
+
+    @Test
+    @DisplayName("Should turn a unique slot violation from another instance into SLOT_TAKEN and drop the cached day")
+    void shouldTranslateConstraintViolation() {
+        // Given
+        when(slotAvailabilityService.claimSlots(7L, date, List.of(SLOT)))
+                .thenReturn(List.of(new SlotClaim(SLOT, LocalTime.of(10, 15), null)));
+        when(appointmentRepository.save(any(Appointment.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UK_APPT_DOCTOR_SLOT_INDEX_1\"")));
+
+        // When/Then
+        assertThatThrownBy(() -> book(draft()))
+                .isInstanceOf(ConflictException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "SLOT_TAKEN");
+        verify(slotAvailabilityService).evictDay(7L, date);
+    }
+
+    @Test
+    @DisplayName("Should fail fast with SLOT_BUSY while another request holds the slot lock")
+    void shouldFailFastWhenSlotLocked() throws Exception {
+        // Given: a booking that stalls inside the lock
+        when(slotAvailabilityService.claimSlots(7L, date, List.of(SLOT)))
+                .thenReturn(List.of(new SlotClaim(SLOT, LocalTime.of(10, 15), null)));
+        CountDownLatch insideLock = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(i -> {
+            insideLock.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return i.getArgument(0);
+        });
+        Thread holder = new Thread(() -> book(draft()));
+        holder.start();
+        assertThat(insideLock.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When/Then
+        try {
+            assertThatThrownBy(() -> book(draft()))
+                    .isInstanceOf(ConflictException.class)
+                    .hasFieldOrPropertyWithValue("errorCode", "SLOT_BUSY");
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hold the slot on insert and release it once cancelled or marked no-show")
+    void shouldReleaseSlotOnCancelOrNoShow() {
+        for (AppointmentStatus released : List.of(AppointmentStatus.CANCELLED_BY_PATIENT, AppointmentStatus.NO_SHOW)) {
+            // Given
+            Appointment appointment = draft();
+            ReflectionTestUtils.invokeMethod(appointment, "holdSlot");
+            assertThat(appointment.getSlotHeld()).isTrue();
+
+            // When
+            appointment.setStatus(released);
+            ReflectionTestUtils.invokeMethod(appointment, "releaseSlot");
+
+            // Then
+            assertThat(appointment.getSlotHeld()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should check in a legacy double booking left unmarked without taking its slot")
+    void shouldNotTakeSlotOnUpdate() {
+        // Given: the later row of a legacy double booking, left unmarked by the backfill
+        Appointment appointment = draft();
+        appointment.setSlotHeld(null);
+
+        // When
+        appointment.setStatus(AppointmentStatus.CHECKED_IN);
+        ReflectionTestUtils.invokeMethod(appointment, "releaseSlot");
+
+        // Then
+        assertThat(appointment.getSlotHeld()).isNull();
+    }
+}
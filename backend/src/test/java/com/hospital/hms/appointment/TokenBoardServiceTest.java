@@ -0,0 +1,221 @@
+package com.hospital.hms.appointment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.appointment.dto.QueueSnapshot;
+import com.hospital.hms.appointment.dto.TokenBoard;
+import com.hospital.hms.appointment.service.OpdQueueService;
+import com.hospital.hms.appointment.service.QueueFeedPublisher;
+import com.hospital.hms.appointment.service.TokenBoardService;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.doctor.entity.Doctor;
+import com.hospital.hms.doctor.repository.DoctorRepository;
+import com.hospital.hms.hospital.repository.DepartmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the department token boards served to waiting-hall displays.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenBoardService Tests")
+class TokenBoardServiceTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final Long DEPARTMENT_ID = 3L;
+
+    @Mock
+    private OpdQueueService queueService;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    @Mock
+    private QueueFeedPublisher feedPublisher;
+
+    private TokenBoardService service;
+    private Consumer<QueueSnapshot> feed;
+
+    @BeforeEach
+    void setUp() {
+        service(120000);
+        lenient().when(departmentRepository.existsByIdAndHospitalIdAndIsActiveTrueAndIsDeletedFalse(DEPARTMENT_ID, HOSPITAL_ID))
+                .thenReturn(true);
+        when(doctorRepository.findByPrimaryHospitalIdAndPrimaryDepartmentIdAndIsActiveTrue(HOSPITAL_ID, DEPARTMENT_ID))
+                .thenReturn(List.of(doctor(7L, "Dr. Verma"), doctor(5L, "Dr. Iyer")));
+        when(queueService.getBoard(7L)).thenReturn(board(7L, "OPD-004", "OPD-005", "OPD-006"));
+        when(queueService.getBoard(5L)).thenReturn(board(5L, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void service(long idleMs) {
+        clearInvocations(feedPublisher);
+        service = new TokenBoardService(queueService, doctorRepository, departmentRepository, feedPublisher,
+                new ObjectMapper().findAndRegisterModules(), Runnable::run, 25000, 1800000, idleMs);
+        ArgumentCaptor<Consumer<QueueSnapshot>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(feedPublisher).addListener(listener.capture());
+        feed = listener.getValue();
+    }
+
+    private static Doctor doctor(Long id, String name) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setFirstName(name);
+        doctor.setDisplayName(name);
+        return doctor;
+    }
+
+    private static QueueSnapshot board(Long doctorId, String serving, String... waiting) {
+        return QueueSnapshot.builder()
+                .doctorId(doctorId)
+                .date(LocalDate.now())
+                .nowServing(serving != null ? token(serving) : null)
+                .waiting(Arrays.stream(waiting).map(TokenBoardServiceTest::token).toList())
+                .skipped(List.of())
+                .completed(0)
+                .noShow(0)
+                .build();
+    }
+
+    private static QueueSnapshot.Token token(String display) {
+        return QueueSnapshot.Token.builder()
+                .tokenDisplay(display)
+                .calledTime(LocalDateTime.now().withNano(0))
+                .build();
+    }
+
+    private ResponseEntity<TokenBoard> poll(String etag) {
+        DeferredResult<ResponseEntity<TokenBoard>> result = service.poll(HOSPITAL_ID, DEPARTMENT_ID, etag);
+        assertThat(result.hasResult()).isTrue();
+        @SuppressWarnings("unchecked")
+        ResponseEntity<TokenBoard> response = (ResponseEntity<TokenBoard>) result.getResult();
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should build the department board from each doctor's queue, ordered by doctor name")
+    void shouldBuildDepartmentBoard() {
+        // When
+        ResponseEntity<TokenBoard> response = poll(null);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        TokenBoard board = response.getBody();
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + board.getEtag() + "\"");
+        assertThat(board.getCounters()).extracting(TokenBoard.Counter::getDoctorName)
+                .containsExactly("Dr. Iyer", "Dr. Verma");
+        TokenBoard.Counter verma = board.getCounters().get(1);
+        assertThat(verma.getNowServing()).isEqualTo("OPD-004");
+        assertThat(verma.getNext()).isEqualTo("OPD-005");
+        assertThat(verma.getWaiting()).isEqualTo(2);
+        assertThat(board.getCounters().get(0).getNowServing()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should hold a poll with the current ETag and answer it on the next visible change")
+    void shouldHoldPollUntilChange() {
+        // Given
+        String etag = poll(null).getBody().getEtag();
+        DeferredResult<ResponseEntity<TokenBoard>> held = service.poll(HOSPITAL_ID, DEPARTMENT_ID, "W/\"" + etag + "\"");
+        assertThat(held.hasResult()).isFalse();
+
+        // When: an identical board changes nothing, then the doctor calls the next token
+        feed.accept(board(7L, "OPD-004", "OPD-005", "OPD-006"));
+        assertThat(held.hasResult()).isFalse();
+        feed.accept(board(7L, "OPD-005", "OPD-006"));
+
+        // Then
+        assertThat(held.hasResult()).isTrue();
+        @SuppressWarnings("unchecked")
+        TokenBoard changed = ((ResponseEntity<TokenBoard>) held.getResult()).getBody();
+        assertThat(changed.getEtag()).isNotEqualTo(etag);
+        assertThat(changed.getCounters().get(1).getNowServing()).isEqualTo("OPD-005");
+        assertThat(changed.getCounters().get(1).getWaiting()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should answer a stale ETag at once and ignore doctors outside the department")
+    void shouldAnswerStaleEtagAtOnce() {
+        // Given
+        String etag = poll(null).getBody().getEtag();
+
+        // When
+        feed.accept(board(99L, "OPD-001"));
+        ResponseEntity<TokenBoard> unchanged = poll("\"old-3\", \"other\"");
+
+        // Then
+        assertThat(unchanged.getBody().getEtag()).isEqualTo(etag);
+        assertThat(service.poll(HOSPITAL_ID, DEPARTMENT_ID, etag).hasResult()).isFalse();
+        verify(queueService, never()).getBoard(99L);
+    }
+
+    @Test
+    @DisplayName("Should refuse boards for departments that do not exist")
+    void shouldRefuseUnknownDepartment() {
+        // Given
+        poll(null);
+
+        // When / Then
+        assertThatThrownBy(() -> service.poll(HOSPITAL_ID, 404L, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.stream(2L, DEPARTMENT_ID, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(doctorRepository, never()).findByPrimaryHospitalIdAndPrimaryDepartmentIdAndIsActiveTrue(HOSPITAL_ID, 404L);
+    }
+
+    @Test
+    @DisplayName("Should drop boards no display uses and rebuild them when opened again")
+    void shouldEvictIdleBoards() throws InterruptedException {
+        // Given: a board answered once and left alone past the idle time
+        service(0);
+        poll(null);
+        Thread.sleep(5);
+
+        // When
+        service.heartbeat();
+        feed.accept(board(7L, "OPD-005", "OPD-006"));
+        ResponseEntity<TokenBoard> reopened = poll(null);
+
+        // Then: the change went to no board and the reopened one is read from the queues again
+        verify(queueService, times(2)).getBoard(7L);
+        assertThat(reopened.getBody().getCounters().get(1).getNowServing()).isEqualTo("OPD-004");
+    }
+
+    @Test
+    @DisplayName("Should keep boards a display is still waiting on")
+    void shouldKeepBoardsInUse() throws InterruptedException {
+        // Given: a long poll held on the board
+        service(0);
+        String etag = poll(null).getBody().getEtag();
+        DeferredResult<ResponseEntity<TokenBoard>> held = service.poll(HOSPITAL_ID, DEPARTMENT_ID, etag);
+        Thread.sleep(5);
+
+        // When
+        service.heartbeat();
+        feed.accept(board(7L, "OPD-005", "OPD-006"));
+
+        // Then
+        assertThat(held.hasResult()).isTrue();
+        verify(queueService, times(1)).getBoard(7L);
+    }
+}
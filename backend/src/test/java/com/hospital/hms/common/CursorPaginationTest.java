@@ -0,0 +1,101 @@
+package com.hospital.hms.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.common.dto.CursorPage;
+import com.hospital.hms.common.dto.ListPage;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.util.CursorCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for keyset cursor encoding and page assembly, plus the offset list page wrapper.
+ */
+@DisplayName("Cursor Pagination Tests")
+class CursorPaginationTest {
+
+    @Test
+    @DisplayName("Should round-trip a (date, id) position through an opaque cursor")
+    void shouldRoundTripCursor() {
+        // When
+        String cursor = CursorCodec.encode(LocalDate.of(2026, 3, 14), 4321L);
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+
+        // Then
+        assertThat(cursor).doesNotContain("2026", "=", "+", "/");
+        assertThat(position.date()).isEqualTo(LocalDate.of(2026, 3, 14));
+        assertThat(position.id()).isEqualTo(4321L);
+    }
+
+    @Test
+    @DisplayName("Should start before the newest row when no cursor is given")
+    void shouldUseFirstPagePositionWithoutCursor() {
+        CursorCodec.Position position = CursorCodec.decode(null);
+
+        assertThat(position.date()).isAfter(LocalDate.now().plusYears(100));
+        assertThat(position.id()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Should reject tampered cursors")
+    void shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> CursorCodec.decode("not-a-cursor"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Should fetch one extra row and clamp page size")
+    void shouldClampLimit() {
+        assertThat(CursorCodec.limit(20).getPageSize()).isEqualTo(21);
+        assertThat(CursorCodec.limit(10_000).getPageSize()).isEqualTo(CursorCodec.MAX_PAGE_SIZE + 1);
+        assertThat(CursorCodec.limit(0).getPageSize()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should expose next cursor only when the extra row was returned")
+    void shouldBuildPageFromLookaheadRow() {
+        // Given
+        List<Long> rows = List.of(30L, 20L, 10L);
+
+        // When
+        CursorPage<Long> full = CursorPage.of(rows, 2, id -> "c" + id, null);
+        CursorPage<Long> last = CursorPage.of(rows, 3, id -> "c" + id, 3L);
+
+        // Then
+        assertThat(full.getContent()).containsExactly(30L, 20L);
+        assertThat(full.isHasNext()).isTrue();
+        assertThat(full.getNextCursor()).isEqualTo("c20");
+        assertThat(full.getTotalElements()).isNull();
+
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+        assertThat(last.getTotalElements()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should serialize offset pages under the keys the web client reads")
+    void shouldSerializeListPageInClientShape() {
+        // Given
+        PageImpl<String> page = new PageImpl<>(List.of("a", "b"), PageRequest.of(1, 2), 5);
+
+        // When
+        Map<String, Object> json = new ObjectMapper().convertValue(ListPage.of(page), new TypeReference<>() {});
+
+        // Then
+        assertThat(json).containsOnlyKeys("content", "totalElements", "totalPages", "currentPage", "size");
+        assertThat(json.get("content")).isEqualTo(List.of("a", "b"));
+        assertThat(json.get("totalElements")).isEqualTo(5L);
+        assertThat(json.get("totalPages")).isEqualTo(3);
+        assertThat(json.get("currentPage")).isEqualTo(1);
+        assertThat(json.get("size")).isEqualTo(2);
+    }
+}
@@ -0,0 +1,169 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.util.EncryptionUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Throughput benchmark for {@link EncryptionUtil}: the per-call path it replaced (new key, Cipher and SecureRandom
+ * on every call) against the cached key and per-thread ciphers, single values and batches, at 1, 8 and 32 threads.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with
+ * {@code mvn test -Dtest=EncryptionUtilBenchmark -Dbenchmark.values=50000}. Each thread encrypts and decrypts
+ * {@code benchmark.values} Aadhaar-sized values after a warm-up round and prints round trips per second per path.
+ */
+@Tag("benchmark")
+@DisplayName("Encryption Benchmark")
+class EncryptionUtilBenchmark {
+
+    private static final int VALUES = Integer.getInteger("benchmark.values", 20_000);
+    private static final int BATCH = 1_000;
+    private static final int[] THREADS = {1, 8, 32};
+    private static final String SECRET_KEY = "TestEncryptionKeyForTesting12345";
+
+    @Test
+    @DisplayName("Should round-trip faster with cached keys and per-thread ciphers")
+    void benchmarkRoundTrips() throws Exception {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", SECRET_KEY);
+        String[] values = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = String.format("%012d", 234_567_890_123L + i * 7_919L);
+        }
+
+        IntUnaryOperator legacy = i -> LegacyCrypto.decrypt(LegacyCrypto.encrypt(values[i])).length();
+        IntUnaryOperator single = i -> util.decrypt(util.encrypt(values[i])).length();
+        IntUnaryOperator batch = i -> {
+            if (i % BATCH != 0) {
+                return 0;
+            }
+            List<String> slice = List.of(values).subList(i, Math.min(i + BATCH, VALUES));
+            return util.decryptAll(util.encryptAll(slice)).size();
+        };
+        IntUnaryOperator buffers = new IntUnaryOperator() {
+            private final ThreadLocal<ByteBuffer[]> scratch = ThreadLocal.withInitial(() -> new ByteBuffer[]{
+                    ByteBuffer.allocateDirect(64), ByteBuffer.allocateDirect(64), ByteBuffer.allocateDirect(64)});
+
+            @Override
+            public int applyAsInt(int i) {
+                ByteBuffer[] b = scratch.get();
+                b[0].clear().put(values[i].getBytes(StandardCharsets.UTF_8)).flip();
+                b[1].clear();
+                util.encrypt(b[0], b[1]);
+                b[1].flip();
+                b[2].clear();
+                return util.decrypt(b[1], b[2]);
+            }
+        };
+
+        // Correctness first: both paths read each other's output
+        assertThat(util.decrypt(LegacyCrypto.encrypt(values[0]))).isEqualTo(values[0]);
+        assertThat(LegacyCrypto.decrypt(util.encrypt(values[1]))).isEqualTo(values[1]);
+        assertThat(buffers.applyAsInt(2)).isEqualTo(12);
+
+        System.out.printf("%-8s %12s %12s %12s %12s%n", "threads", "legacy/s", "single/s", "batch/s", "buffer/s");
+        for (int threads : THREADS) {
+            System.out.printf("%-8d %12.0f %12.0f %12.0f %12.0f%n", threads,
+                    throughput(threads, legacy), throughput(threads, single),
+                    throughput(threads, batch), throughput(threads, buffers));
+        }
+    }
+
+    /**
+     * Round trips per second with {@code threads} threads each running {@code op} over every value, after a warm-up
+     */
+    private static double throughput(int threads, IntUnaryOperator op) throws Exception {
+        run(threads, op);
+        long started = System.nanoTime();
+        run(threads, op);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return (double) threads * VALUES / seconds;
+    }
+
+    private static void run(int threads, IntUnaryOperator op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    long sink = 0;
+                    for (int i = 0; i < VALUES; i++) {
+                        sink += op.applyAsInt(i);
+                    }
+                    return sink;
+                }));
+            }
+            start.countDown();
+            for (Future<Long> result : results) {
+                assertThat(result.get()).isPositive();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * EncryptionUtil.encrypt/decrypt as they were: key, Cipher and SecureRandom built on every call
+     */
+    private static final class LegacyCrypto {
+
+        static String encrypt(String plainText) {
+            try {
+                byte[] iv = new byte[12];
+                new SecureRandom().nextBytes(iv);
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.ENCRYPT_MODE, key(), new GCMParameterSpec(128, iv));
+                byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+                byte[] combined = new byte[iv.length + encrypted.length];
+                System.arraycopy(iv, 0, combined, 0, iv.length);
+                System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+                return Base64.getEncoder().encodeToString(combined);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        static String decrypt(String encryptedText) {
+            try {
+                byte[] combined = Base64.getDecoder().decode(encryptedText);
+                byte[] iv = new byte[12];
+                byte[] encrypted = new byte[combined.length - 12];
+                System.arraycopy(combined, 0, iv, 0, iv.length);
+                System.arraycopy(combined, iv.length, encrypted, 0, encrypted.length);
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(128, iv));
+                return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static SecretKeySpec key() {
+            byte[] keyBytes = SECRET_KEY.getBytes(StandardCharsets.UTF_8);
+            byte[] key = new byte[32];
+            System.arraycopy(keyBytes, 0, key, 0, Math.min(keyBytes.length, 32));
+            return new SecretKeySpec(key, "AES");
+        }
+    }
+}
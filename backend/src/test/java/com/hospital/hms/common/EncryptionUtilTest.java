@@ -0,0 +1,153 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for AES-GCM encryption of single values, batches and buffers.
+ */
+@DisplayName("EncryptionUtil Tests")
+class EncryptionUtilTest {
+
+    private EncryptionUtil encryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "TestEncryptionKeyForTesting12345");
+    }
+
+    @Test
+    @DisplayName("Should round-trip values with a fresh IV each time")
+    void shouldRoundTripValues() {
+        String first = encryptionUtil.encrypt("123456789012");
+        String second = encryptionUtil.encrypt("123456789012");
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(Base64.getDecoder().decode(first)).hasSize(EncryptionUtil.encryptedSize(12) - 1);
+        assertThat(encryptionUtil.decrypt(first)).isEqualTo("123456789012");
+        assertThat(encryptionUtil.encrypt("")).isNull();
+        assertThat(encryptionUtil.decrypt(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should round-trip batches, keeping empty values null")
+    void shouldRoundTripBatches() {
+        List<String> encrypted = encryptionUtil.encryptAll(Arrays.asList("123456789012", null, "987654321098"));
+
+        assertThat(encrypted.get(1)).isNull();
+        assertThat(encryptionUtil.decryptAll(encrypted)).containsExactly("123456789012", null, "987654321098");
+    }
+
+    @Test
+    @DisplayName("Should encrypt between buffers as a key version byte and the layout of strings")
+    void shouldRoundTripBuffers() {
+        ByteBuffer plain = ByteBuffer.wrap("123456789012".getBytes(StandardCharsets.UTF_8));
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(EncryptionUtil.encryptedSize(12));
+
+        int written = encryptionUtil.encrypt(plain, encrypted);
+        encrypted.flip();
+        byte[] bytes = new byte[written - 1];
+        encrypted.duplicate().position(1).get(bytes);
+        ByteBuffer decrypted = ByteBuffer.allocate(12);
+        encryptionUtil.decrypt(encrypted, decrypted);
+
+        assertThat(written).isEqualTo(EncryptionUtil.encryptedSize(12));
+        assertThat(encrypted.get(0)).isZero();
+        assertThat(new String(decrypted.array(), StandardCharsets.UTF_8)).isEqualTo("123456789012");
+        assertThat(encryptionUtil.decrypt(Base64.getEncoder().encodeToString(bytes))).isEqualTo("123456789012");
+        assertThatThrownBy(() -> encryptionUtil.encrypt(ByteBuffer.allocate(12), ByteBuffer.allocate(20)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject tampered ciphertext and recover for the next value")
+    void shouldRejectTamperedCiphertext() {
+        byte[] bytes = Base64.getDecoder().decode(encryptionUtil.encrypt("123456789012"));
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> encryptionUtil.decrypt(Base64.getEncoder().encodeToString(bytes)))
+                .hasMessage("Decryption failed");
+        assertThat(encryptionUtil.decrypt(encryptionUtil.encrypt("987654321098"))).isEqualTo("987654321098");
+    }
+
+    @Test
+    @DisplayName("Should decrypt with retired keys and encrypt with the current one after a rotation")
+    void shouldRotateKeys() {
+        // Given: a value under the original key, then the key rotated to version 1
+        String legacy = encryptionUtil.encrypt("123456789012");
+        EncryptionUtil rotated = encryptionUtil("NewEncryptionKey-Version1", 1, "0:TestEncryptionKeyForTesting12345");
+
+        // When
+        String current = rotated.encrypt("987654321098");
+
+        // Then
+        assertThat(current).startsWith("v1:");
+        assertThat(EncryptionUtil.keyVersion(current)).isEqualTo(1);
+        assertThat(EncryptionUtil.keyVersion(legacy)).isZero();
+        assertThat(rotated.keyVersions()).containsExactlyInAnyOrder(0, 1);
+        assertThat(rotated.decrypt(legacy)).isEqualTo("123456789012");
+        assertThat(rotated.decrypt(current)).isEqualTo("987654321098");
+        assertThat(rotated.reencrypt(current)).isSameAs(current);
+        String moved = rotated.reencrypt(legacy);
+        assertThat(moved).startsWith("v1:");
+        assertThat(rotated.decrypt(moved)).isEqualTo("123456789012");
+    }
+
+    @Test
+    @DisplayName("Should fail on values whose key is no longer configured")
+    void shouldRejectUnknownKeyVersion() {
+        String current = encryptionUtil("NewEncryptionKey-Version1", 1, null).encrypt("123456789012");
+
+        assertThatThrownBy(() -> encryptionUtil.decrypt(current)).hasMessage("Decryption failed");
+        assertThatThrownBy(() -> encryptionUtil("Whatever", 1, "x")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should be safe to share across threads")
+    void shouldEncryptConcurrently() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = pool.invokeAll(IntStream.range(0, 8)
+                    .<Callable<Boolean>>mapToObj(t -> () -> {
+                        for (int i = 0; i < 500; i++) {
+                            String value = String.format("%012d", t * 1_000L + i);
+                            if (!value.equals(encryptionUtil.decrypt(encryptionUtil.encrypt(value)))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }).toList());
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static EncryptionUtil encryptionUtil(String secretKey, int version, String previousKeys) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", secretKey);
+        ReflectionTestUtils.setField(util, "secretKeyVersion", version);
+        ReflectionTestUtils.setField(util, "previousKeys", previousKeys);
+        util.keyVersions();
+        return util;
+    }
+}
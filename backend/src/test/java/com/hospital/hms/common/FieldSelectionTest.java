@@ -0,0 +1,99 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.dto.FieldCatalog;
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.doctor.dto.DoctorFields;
+import com.hospital.hms.patient.dto.PatientFields;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for sparse fieldsets: parsing {@code ?fields=}, the columns selected and the rows emitted.
+ */
+@DisplayName("Field Selection Tests")
+class FieldSelectionTest {
+
+    @Test
+    @DisplayName("Should keep the full response when no fields are requested")
+    void shouldReturnNullForBlankParameter() {
+        assertThat(PatientFields.CATALOG.select(null)).isNull();
+        assertThat(PatientFields.CATALOG.select("  ")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should select only the columns behind the summary view")
+    void shouldSelectSummaryColumns() {
+        // When
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select("summary");
+
+        // Then
+        assertThat(selection.fieldNames())
+                .containsExactly("id", "uhid", "firstName", "lastName", "fullName", "age", "gender", "mobileNumber");
+        assertThat(selection.paths()).containsExactly(
+                "id", "uhid", "firstName", "lastName", "middleName", "dateOfBirth", "ageYears", "gender", "mobileNumber");
+        assertThat(selection.selectClause("p")).startsWith("p.id, p.uhid, p.firstName");
+    }
+
+    @Test
+    @DisplayName("Should always include id and read foreign keys without loading the association")
+    void shouldAddIdToFieldList() {
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select("uhid, primaryAccountId");
+
+        assertThat(selection.fieldNames()).containsExactly("id", "uhid", "primaryAccountId");
+        assertThat(selection.selectClause("p")).isEqualTo("p.id, p.uhid, p.primaryAccount.id");
+    }
+
+    @Test
+    @DisplayName("Should compute derived fields and leave out nulls, as the full DTO does")
+    void shouldBuildRowFromColumns() {
+        // Given
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select("fullName,age,gender,aadhaarMasked");
+        LocalDate dateOfBirth = LocalDate.now().minusYears(34).minusDays(1);
+
+        // When: columns are id, firstName, middleName, lastName, dateOfBirth, ageYears, gender, aadhaarLastFour
+        Map<String, Object> row = selection.toRow(
+                new Object[]{7L, "Asha", null, "Rao", dateOfBirth, null, Gender.FEMALE, null});
+
+        // Then
+        assertThat(row).containsExactly(
+                entry("id", 7L), entry("fullName", "Asha Rao"), entry("age", 34), entry("gender", Gender.FEMALE));
+    }
+
+    @Test
+    @DisplayName("Should expand the full view to every catalog field")
+    void shouldExpandFullView() {
+        FieldCatalog.Selection selection = DoctorFields.CATALOG.select("FULL");
+
+        assertThat(selection.fieldNames()).hasSize(22).startsWith("id", "employeeId").endsWith("isActive");
+    }
+
+    @Test
+    @DisplayName("Should reject unknown fields")
+    void shouldRejectUnknownField() {
+        assertThatThrownBy(() -> PatientFields.CATALOG.select("uhid,aadhaarEncrypted"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("aadhaarEncrypted")
+                .extracting("errorCode").isEqualTo("UNKNOWN_FIELD");
+    }
+
+    @Test
+    @DisplayName("Should order by plain fields only")
+    void shouldValidateSort() {
+        FieldCatalog.Selection selection = PatientFields.CATALOG.select("summary");
+
+        assertThat(selection.orderByClause(Sort.by("createdAt").descending(), "p"))
+                .isEqualTo(" ORDER BY p.createdAt DESC");
+        assertThat(selection.orderByClause(Sort.unsorted(), "p")).isEmpty();
+        assertThatThrownBy(() -> selection.orderByClause(Sort.by("fullName"), "p"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> selection.orderByClause(Sort.by("id; DROP TABLE patients"), "p"))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.util.P2Quantile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming quantile estimator.
+ */
+@DisplayName("P2Quantile Tests")
+class P2QuantileTest {
+
+    @Test
+    @DisplayName("Should be exact for the first few observations")
+    void shouldBeExactForFewObservations() {
+        P2Quantile median = new P2Quantile(0.5);
+        assertThat(median.value()).isNaN();
+
+        median.add(12);
+        median.add(4);
+        median.add(8);
+
+        assertThat(median.value()).isEqualTo(8);
+        assertThat(median.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should track median and p90 of a skewed stream within a few percent")
+    void shouldTrackQuantilesOfSkewedStream() {
+        // Given: consultation-like durations, mostly short with a long tail
+        Random random = new Random(42);
+        double[] samples = new double[20_000];
+        P2Quantile p50 = new P2Quantile(0.5);
+        P2Quantile p90 = new P2Quantile(0.9);
+
+        // When
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 5 + -8 * Math.log(1 - random.nextDouble());
+            p50.add(samples[i]);
+            p90.add(samples[i]);
+        }
+
+        // Then
+        Arrays.sort(samples);
+        assertThat(p50.value()).isCloseTo(samples[samples.length / 2], withinPercentage(3));
+        assertThat(p90.value()).isCloseTo(samples[(int) (samples.length * 0.9)], withinPercentage(3));
+    }
+
+    @Test
+    @DisplayName("Should reject quantiles outside (0, 1)")
+    void shouldRejectInvalidQuantile() {
+        assertThatThrownBy(() -> new P2Quantile(1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
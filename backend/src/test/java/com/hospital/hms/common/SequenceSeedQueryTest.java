@@ -0,0 +1,59 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.factory.TestDataFactory;
+import com.hospital.hms.patient.entity.Patient;
+import com.hospital.hms.patient.repository.PatientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * The MAX queries that seed a sequence from the numbers already issued, run against the in-memory database.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Sequence Seed Query Tests")
+class SequenceSeedQueryTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private void patient(String uhid) {
+        Patient patient = TestDataFactory.createPatient();
+        patient.setUhid(uhid);
+        patientRepository.saveAndFlush(patient);
+    }
+
+    @Test
+    @DisplayName("Should seed from the numerically highest number and skip foreign formats")
+    void shouldSeedFromHighestNumericSuffix() {
+        // Given: numbers past the fixed width, a foreign format and the bare prefix under the same prefix
+        patient("HMS26999999");
+        patient("HMS261000000");
+        patient("HMS26000042");
+        patient("HMS26-LEGACY-7");
+        patient("HMS26");
+        patient("HMS252000000");
+
+        // When
+        long max = SequenceService.orZero(patientRepository.findMaxUhid("HMS26"));
+
+        // Then
+        assertThat(max).isEqualTo(1_000_000);
+    }
+
+    @Test
+    @DisplayName("Should seed from 0 when only foreign formats exist")
+    void shouldSeedFromZeroWithoutNumericSuffixes() {
+        // Given
+        patient("HMS26ABC");
+
+        // When/Then
+        assertThat(SequenceService.orZero(patientRepository.findMaxUhid("HMS26"))).isZero();
+    }
+}
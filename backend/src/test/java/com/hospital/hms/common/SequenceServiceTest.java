@@ -0,0 +1,120 @@
+package com.hospital.hms.common;
+
+import com.hospital.hms.common.service.SequenceBlockAllocator;
+import com.hospital.hms.common.service.SequenceService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for block-based business number allocation.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SequenceService Tests")
+class SequenceServiceTest {
+
+    @Mock
+    private SequenceBlockAllocator allocator;
+
+    private SequenceService sequenceService;
+
+    @BeforeEach
+    void setUp() {
+        sequenceService = new SequenceService(allocator, 10);
+    }
+
+    private void givenDatabaseCounter(AtomicLong counter) {
+        when(allocator.reserve(anyString(), anyLong(), anyString(), anyInt(), any()))
+                .thenAnswer(i -> counter.getAndAdd(i.<Integer>getArgument(3)));
+    }
+
+    @Test
+    @DisplayName("Should hand out a whole block from memory before reserving the next")
+    void shouldServeBlockFromMemory() {
+        // Given
+        givenDatabaseCounter(new AtomicLong(1));
+
+        // When
+        for (int i = 1; i <= 25; i++) {
+            assertThat(sequenceService.next("APT", SequenceService.GLOBAL_SCOPE, "2026", () -> 0)).isEqualTo(i);
+        }
+
+        // Then
+        verify(allocator, times(3)).reserve(eq("APT"), eq(0L), eq("2026"), eq(10), any());
+    }
+
+    @Test
+    @DisplayName("Should keep separate blocks per scope and period")
+    void shouldSeparateScopes() {
+        // Given
+        givenDatabaseCounter(new AtomicLong(1));
+
+        // When
+        long hospitalOne = sequenceService.next("INV", 1L, "2026", () -> 0);
+        long hospitalTwo = sequenceService.next("INV", 2L, "2026", () -> 0);
+
+        // Then
+        assertThat(hospitalOne).isNotEqualTo(hospitalTwo);
+        verify(allocator).reserve(eq("INV"), eq(1L), eq("2026"), eq(10), any());
+        verify(allocator).reserve(eq("INV"), eq(2L), eq("2026"), eq(10), any());
+    }
+
+    @Test
+    @DisplayName("Should retry once when another instance created the sequence row concurrently")
+    void shouldRetryOnConcurrentCreation() {
+        // Given
+        when(allocator.reserve(anyString(), anyLong(), anyString(), anyInt(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(41L);
+
+        // When
+        long value = sequenceService.next("RX", SequenceService.GLOBAL_SCOPE, "2026", () -> 0);
+
+        // Then
+        assertThat(value).isEqualTo(41L);
+    }
+
+    @Test
+    @DisplayName("Should never hand out duplicates under concurrency")
+    void shouldNotDuplicateUnderConcurrency() throws Exception {
+        // Given
+        givenDatabaseCounter(new AtomicLong(1));
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    issued.add(sequenceService.next("UHID", SequenceService.GLOBAL_SCOPE, "2026", () -> 0));
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(issued).hasSize(8000);
+        assertThat(issued).allMatch(v -> v >= 1 && v <= 8000);
+    }
+
+    @Test
+    @DisplayName("Should seed from the highest number, or 0 when none exist yet")
+    void shouldSeedFromMaxOrZero() {
+        assertThat(SequenceService.orZero(1_000_000L)).isEqualTo(1_000_000);
+        assertThat(SequenceService.orZero(null)).isZero();
+    }
+}
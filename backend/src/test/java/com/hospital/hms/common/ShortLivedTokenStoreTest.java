@@ -0,0 +1,120 @@
+package com.hospital.hms.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.appointment.dto.GuestOtpSession;
+import com.hospital.hms.common.service.InMemoryTokenStore;
+import com.hospital.hms.common.service.RedisTokenStore;
+import com.hospital.hms.common.service.ShortLivedTokenStore;
+import org.junit.jupiter.api.*;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the guest OTP / access token store, against Caffeine and an embedded Redis server.
+ */
+@DisplayName("ShortLivedTokenStore Tests")
+class ShortLivedTokenStoreTest {
+
+    private static GuestOtpSession otpSession() {
+        return GuestOtpSession.builder()
+                .otp("123456")
+                .mobile("9876543210")
+                .expiryTime(System.currentTimeMillis() + 60_000)
+                .verified(false)
+                .build();
+    }
+
+    private static void assertRoundTripsAndExpires(ShortLivedTokenStore store) throws InterruptedException {
+        // Given
+        store.put("guest-otp", "s1", otpSession(), Duration.ofMinutes(5));
+        store.put("guest-access", "t1", 42L, Duration.ofSeconds(1));
+
+        // Then
+        assertThat(store.get("guest-otp", "s1", GuestOtpSession.class))
+                .hasValueSatisfying(s -> assertThat(s.getMobile()).isEqualTo("9876543210"));
+        assertThat(store.get("guest-access", "t1", Long.class)).contains(42L);
+        assertThat(store.get("guest-access", "s1", Long.class)).isEmpty();
+
+        Thread.sleep(2000);
+        assertThat(store.get("guest-access", "t1", Long.class)).isEmpty();
+        assertThat(store.get("guest-otp", "s1", GuestOtpSession.class)).isPresent();
+
+        store.remove("guest-otp", "s1");
+        assertThat(store.get("guest-otp", "s1", GuestOtpSession.class)).isEmpty();
+    }
+
+    @Nested
+    @DisplayName("In-memory store")
+    class InMemory {
+
+        @Test
+        @DisplayName("Should store values per namespace and expire each entry on its own TTL")
+        void shouldExpirePerEntry() throws InterruptedException {
+            assertRoundTripsAndExpires(new InMemoryTokenStore(1000));
+        }
+
+        @Test
+        @DisplayName("Should replace an entry and apply the new TTL")
+        void shouldReplaceWithNewTtl() throws InterruptedException {
+            // Given
+            InMemoryTokenStore store = new InMemoryTokenStore(1000);
+            GuestOtpSession session = otpSession();
+            store.put("guest-otp", "s1", session, Duration.ofMinutes(5));
+
+            // When
+            session.setVerified(true);
+            store.put("guest-otp", "s1", session, Duration.ofMillis(200));
+            GuestOtpSession stored = store.get("guest-otp", "s1", GuestOtpSession.class).orElseThrow();
+            Thread.sleep(600);
+
+            // Then
+            assertThat(stored.isVerified()).isTrue();
+            assertThat(store.get("guest-otp", "s1", GuestOtpSession.class)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Redis store")
+    class Redis {
+
+        private RedisServer redisServer;
+        private LettuceConnectionFactory connectionFactory;
+        private RedisTokenStore store;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            redisServer = new RedisServer(port);
+            redisServer.start();
+
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+            connectionFactory.afterPropertiesSet();
+            StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+            template.afterPropertiesSet();
+            store = new RedisTokenStore(template, new ObjectMapper());
+        }
+
+        @AfterEach
+        void tearDown() throws IOException {
+            connectionFactory.destroy();
+            redisServer.stop();
+        }
+
+        @Test
+        @DisplayName("Should store JSON values with a native Redis TTL")
+        void shouldExpirePerEntry() throws InterruptedException {
+            assertRoundTripsAndExpires(store);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.hospital.hms.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.common.service.RedisWebSocketRelay;
+import com.hospital.hms.common.service.WebSocketRelay;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Two application contexts sharing an embedded Redis server, each standing in for one instance with
+ * its own local broker, to check cross-instance delivery, ordering and latency of the Redis relay.
+ */
+@DisplayName("WebSocketRelay Tests")
+class WebSocketRelayTest {
+
+    private static final String TOPIC = "/topic/queue/4";
+
+    private RedisServer redisServer;
+    private AnnotationConfigApplicationContext instanceA;
+    private AnnotationConfigApplicationContext instanceB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        instanceA = instance(port);
+        instanceB = instance(port);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        instanceA.close();
+        instanceB.close();
+        redisServer.stop();
+    }
+
+    private static AnnotationConfigApplicationContext instance(int port) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("test", Map.of("test.redis-port", port)));
+        context.register(RelayInstance.class);
+        context.refresh();
+        return context;
+    }
+
+    private static WebSocketRelay relay(AnnotationConfigApplicationContext context) {
+        return context.getBean(WebSocketRelay.class);
+    }
+
+    private static LocalBroker broker(AnnotationConfigApplicationContext context) {
+        return context.getBean(LocalBroker.class);
+    }
+
+    @Test
+    @DisplayName("Should deliver a burst of topic messages to every instance in publish order")
+    void shouldFanOutInOrder() throws Exception {
+        // Given
+        int count = 1000;
+        CountDownLatch receivedA = broker(instanceA).expect(count);
+        CountDownLatch receivedB = broker(instanceB).expect(count);
+
+        // When
+        for (int i = 0; i < count; i++) {
+            relay(instanceA).convertAndSend(TOPIC, Map.of("seq", i));
+        }
+
+        // Then
+        assertThat(receivedA.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(receivedB.await(10, TimeUnit.SECONDS)).isTrue();
+        for (LocalBroker broker : List.of(broker(instanceA), broker(instanceB))) {
+            assertThat(broker.delivered).hasSize(count)
+                    .allSatisfy(d -> assertThat(d.destination()).isEqualTo(TOPIC));
+            assertThat(broker.delivered.stream().map(d -> d.payload().get("seq").asInt()).toList())
+                    .isSorted()
+                    .doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver to another instance within a few milliseconds at board update rates")
+    void shouldDeliverWithLowLatency() throws Exception {
+        // Given: connections and dispatch paths warmed up
+        CountDownLatch warmedUp = broker(instanceB).expect(200);
+        publish(relay(instanceA), "warmup", 200);
+        assertThat(warmedUp.await(10, TimeUnit.SECONDS)).isTrue();
+        broker(instanceB).reset();
+
+        // When: one message per millisecond, far above a real board's rate
+        int count = 500;
+        CountDownLatch received = broker(instanceB).expect(count);
+        for (int i = 0; i < count; i++) {
+            relay(instanceA).convertAndSend(TOPIC, Map.of("seq", i, "sentNanos", System.nanoTime()));
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Long> latencies = new ArrayList<>(broker(instanceB).delivered.stream()
+                .map(d -> TimeUnit.NANOSECONDS.toMicros(d.receivedNanos() - d.payload().get("sentNanos").asLong()))
+                .toList());
+        Collections.sort(latencies);
+        long p50 = latencies.get(count / 2);
+        long p99 = latencies.get(count * 99 / 100);
+        assertThat(TimeUnit.MICROSECONDS.toMillis(p50)).as("p50 latency of %d us", p50).isLessThan(5);
+        assertThat(TimeUnit.MICROSECONDS.toMillis(p99)).as("p99 latency of %d us", p99).isLessThan(100);
+    }
+
+    @Test
+    @DisplayName("Should give every instance the same order when several instances publish to one topic")
+    void shouldAgreeOnOrderAcrossPublishers() throws Exception {
+        // Given
+        int perInstance = 200;
+        CountDownLatch receivedA = broker(instanceA).expect(2 * perInstance);
+        CountDownLatch receivedB = broker(instanceB).expect(2 * perInstance);
+
+        // When: both instances publish concurrently
+        Thread publisherA = new Thread(() -> publish(relay(instanceA), "A", perInstance));
+        Thread publisherB = new Thread(() -> publish(relay(instanceB), "B", perInstance));
+        publisherA.start();
+        publisherB.start();
+        publisherA.join();
+        publisherB.join();
+
+        // Then
+        assertThat(receivedA.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(receivedB.await(10, TimeUnit.SECONDS)).isTrue();
+        List<String> orderA = broker(instanceA).delivered.stream().map(d -> d.payload().get("id").asText()).toList();
+        List<String> orderB = broker(instanceB).delivered.stream().map(d -> d.payload().get("id").asText()).toList();
+        assertThat(orderA).hasSize(2 * perInstance).isEqualTo(orderB);
+    }
+
+    @Test
+    @DisplayName("Should deliver user destinations on every instance for its own sessions")
+    void shouldRelayUserDestinations() throws Exception {
+        // Given
+        CountDownLatch received = broker(instanceB).expect(1);
+
+        // When
+        relay(instanceA).convertAndSendToUser("dr.sharma", "/queue/alerts", Map.of("text", "Patient waiting"));
+
+        // Then
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        Delivered delivered = broker(instanceB).delivered.get(0);
+        assertThat(delivered.destination()).isEqualTo("/user/dr.sharma/queue/alerts");
+        assertThat(delivered.payload().get("text").asText()).isEqualTo("Patient waiting");
+    }
+
+    @Test
+    @DisplayName("Should share state broadcasts with other instances only")
+    void shouldBroadcastStateToOtherInstances() throws Exception {
+        // Given
+        List<String> seenByA = new CopyOnWriteArrayList<>();
+        CountDownLatch seenByB = new CountDownLatch(1);
+        relay(instanceA).onBroadcast("queue-board", String.class, seenByA::add);
+        relay(instanceB).onBroadcast("queue-board", String.class, s -> seenByB.countDown());
+
+        // When
+        relay(instanceA).broadcast("queue-board", "board-1");
+
+        // Then
+        assertThat(seenByB.await(5, TimeUnit.SECONDS)).isTrue();
+        // A marker behind the broadcast on the same channel shows A has already passed over it
+        CountDownLatch marker = broker(instanceA).expect(1);
+        relay(instanceA).convertAndSend(TOPIC, Map.of("marker", true));
+        assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seenByA).isEmpty();
+        assertThat(broker(instanceA).delivered).singleElement()
+                .satisfies(d -> assertThat(d.payload().has("marker")).isTrue());
+    }
+
+    private static void publish(WebSocketRelay relay, String instance, int count) {
+        for (int i = 0; i < count; i++) {
+            relay.convertAndSend(TOPIC, Map.of("id", instance + i));
+        }
+    }
+
+    /**
+     * One instance: the relay under test, its Redis connection and a capturing stand-in for the simple broker
+     */
+    @Configuration
+    static class RelayInstance {
+
+        @Bean(destroyMethod = "destroy")
+        LettuceConnectionFactory redisConnectionFactory(@Value("${test.redis-port}") int port) {
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+            factory.afterPropertiesSet();
+            return factory;
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+            return new StringRedisTemplate(connectionFactory);
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return Jackson2ObjectMapperBuilder.json().build();
+        }
+
+        @Bean
+        LocalBroker localBroker(ObjectMapper objectMapper) {
+            return new LocalBroker(objectMapper);
+        }
+
+        @Bean
+        SimpMessagingTemplate messagingTemplate(LocalBroker localBroker) {
+            return new SimpMessagingTemplate(localBroker);
+        }
+
+        @Bean
+        RedisWebSocketRelay webSocketRelay(StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory,
+                                           SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+            return new RedisWebSocketRelay(redisTemplate, connectionFactory, messagingTemplate, objectMapper, "hms:ws:test");
+        }
+    }
+
+    record Delivered(String destination, JsonNode payload, long receivedNanos) {
+    }
+
+    static class LocalBroker implements MessageChannel {
+
+        private final ObjectMapper objectMapper;
+        private final List<Delivered> delivered = new CopyOnWriteArrayList<>();
+        private final List<CountDownLatch> latches = new CopyOnWriteArrayList<>();
+
+        LocalBroker(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        void reset() {
+            latches.clear();
+            delivered.clear();
+        }
+
+        CountDownLatch expect(int count) {
+            CountDownLatch latch = new CountDownLatch(count);
+            latches.add(latch);
+            return latch;
+        }
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            long now = System.nanoTime();
+            try {
+                String json = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+                delivered.add(new Delivered(SimpMessageHeaderAccessor.getDestination(message.getHeaders()),
+                        objectMapper.readTree(json), now));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            latches.forEach(CountDownLatch::countDown);
+            return true;
+        }
+    }
+}
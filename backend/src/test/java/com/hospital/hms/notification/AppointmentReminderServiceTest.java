@@ -0,0 +1,170 @@
+package com.hospital.hms.notification;
+
+import com.hospital.hms.appointment.dto.ReminderCandidate;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.notification.entity.ReminderRun;
+import com.hospital.hms.notification.repository.ReminderRunRepository;
+import com.hospital.hms.notification.service.AppointmentReminderService;
+import com.hospital.hms.notification.service.ReminderChunkWriter;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the chunked, resumable appointment reminder run.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AppointmentReminderService Tests")
+class AppointmentReminderServiceTest {
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    private ReminderCandidate candidate(long id, Boolean sms, Boolean whatsapp) {
+        return new ReminderCandidate(id, 1L, id, "Patient " + id, "90000000" + id, "Dr. Rajesh Kumar",
+                tomorrow, LocalTime.of(10, 30), 3, sms, whatsapp);
+    }
+
+    private ReminderRun run(String status, long cursor) {
+        ReminderRun run = ReminderRun.builder()
+                .targetDate(tomorrow)
+                .status(status)
+                .lastAppointmentId(cursor)
+                .build();
+        run.setId(9L);
+        return run;
+    }
+
+    @Nested
+    @DisplayName("Run")
+    class Run {
+
+        @Mock
+        private AppointmentRepository appointmentRepository;
+
+        @Mock
+        private ReminderRunRepository runRepository;
+
+        @Mock
+        private ReminderChunkWriter chunkWriter;
+
+        private AppointmentReminderService reminderService;
+
+        @BeforeEach
+        void setUp() {
+            reminderService = new AppointmentReminderService(appointmentRepository, runRepository, chunkWriter, 2);
+        }
+
+        @Test
+        @DisplayName("Should resume after the saved cursor and stream the rest in keyset chunks")
+        void shouldResumeFromCursor() {
+            // Given
+            ReminderRun interrupted = run(ReminderRun.STATUS_RUNNING, 40L);
+            when(runRepository.findByTargetDate(tomorrow)).thenReturn(Optional.of(interrupted));
+            when(runRepository.findById(9L)).thenReturn(Optional.of(interrupted));
+            when(runRepository.save(any(ReminderRun.class))).thenAnswer(i -> i.getArgument(0));
+            when(appointmentRepository.findReminderCandidates(eq(tomorrow), eq(AppointmentStatus.SCHEDULED), eq(40L), any()))
+                    .thenReturn(List.of(candidate(41, true, true), candidate(45, true, false)));
+            when(appointmentRepository.findReminderCandidates(eq(tomorrow), eq(AppointmentStatus.SCHEDULED), eq(45L), any()))
+                    .thenReturn(List.of(candidate(50, false, false)));
+            when(chunkWriter.write(eq(9L), anyList())).thenAnswer(i -> i.<List<?>>getArgument(1).size());
+
+            // When
+            ReminderRun result = reminderService.sendReminders(tomorrow);
+
+            // Then
+            verify(chunkWriter, times(2)).write(eq(9L), anyList());
+            verify(appointmentRepository, never())
+                    .findReminderCandidates(any(), any(), eq(0L), any());
+            assertThat(result.getStatus()).isEqualTo(ReminderRun.STATUS_COMPLETED);
+            assertThat(result.getCompletedAt()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Should do nothing when the run for the date already completed")
+        void shouldSkipCompletedRun() {
+            // Given
+            when(runRepository.findByTargetDate(tomorrow)).thenReturn(Optional.of(run(ReminderRun.STATUS_COMPLETED, 80L)));
+
+            // When
+            reminderService.sendReminders(tomorrow);
+
+            // Then
+            verifyNoInteractions(appointmentRepository, chunkWriter);
+        }
+    }
+
+    @Nested
+    @DisplayName("Chunk writer")
+    class ChunkWriter {
+
+        @Mock
+        private ReminderRunRepository runRepository;
+
+        @Mock
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        @SuppressWarnings("unchecked")
+        @DisplayName("Should batch insert reminders on consented channels and advance the cursor")
+        void shouldInsertAndAdvanceCursor() throws Exception {
+            // Given
+            ReminderChunkWriter writer = new ReminderChunkWriter(runRepository, jdbcTemplate, 50);
+            ReminderRun run = run(ReminderRun.STATUS_RUNNING, 0L);
+            when(runRepository.findForUpdate(9L)).thenReturn(Optional.of(run));
+            List<ReminderCandidate> chunk = List.of(candidate(3, false, true), candidate(7, null, null));
+
+            // When
+            int created = writer.write(9L, chunk);
+
+            // Then
+            ArgumentCaptor<ParameterizedPreparedStatementSetter<ReminderCandidate>> setter =
+                    ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO notifications"), eq(chunk), eq(50), setter.capture());
+            verify(jdbcTemplate).batchUpdate(startsWith("UPDATE appointments SET reminder_sent"), eq(chunk), eq(50), any());
+
+            PreparedStatement consented = mock(PreparedStatement.class);
+            setter.getValue().setValues(consented, chunk.get(0));
+            verify(consented).setBoolean(9, false);   // send_sms: opted out
+            verify(consented).setBoolean(11, true);   // send_whatsapp: opted in
+
+            PreparedStatement guest = mock(PreparedStatement.class);
+            setter.getValue().setValues(guest, chunk.get(1));
+            verify(guest).setBoolean(9, true);
+            verify(guest).setBoolean(11, false);
+
+            assertThat(created).isEqualTo(2);
+            assertThat(run.getLastAppointmentId()).isEqualTo(7L);
+            assertThat(run.getNotificationsCreated()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should skip a chunk that an earlier attempt already committed")
+        void shouldSkipRecordedChunk() {
+            // Given
+            ReminderChunkWriter writer = new ReminderChunkWriter(runRepository, jdbcTemplate, 50);
+            when(runRepository.findForUpdate(9L)).thenReturn(Optional.of(run(ReminderRun.STATUS_RUNNING, 7L)));
+
+            // When
+            int created = writer.write(9L, List.of(candidate(3, true, true), candidate(7, true, true)));
+
+            // Then
+            assertThat(created).isZero();
+            verifyNoInteractions(jdbcTemplate);
+        }
+    }
+}
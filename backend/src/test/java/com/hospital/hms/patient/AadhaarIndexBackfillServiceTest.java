@@ -0,0 +1,108 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.dto.AadhaarIndexBackfillReport;
+import com.hospital.hms.patient.service.AadhaarIndexBackfillService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Blind index of Aadhaar numbers and its backfill, against an in-memory patients table
+ */
+@DisplayName("Aadhaar Index Backfill Tests")
+class AadhaarIndexBackfillServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EncryptionUtil encryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:aadhaar_index;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE patients (id BIGINT PRIMARY KEY, " +
+                "aadhaar_encrypted VARCHAR(255), aadhaar_hash VARCHAR(64))");
+        encryptionUtil = encryptionUtil("TestBlindIndexKeyForTesting12345");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE patients");
+    }
+
+    @Test
+    @DisplayName("Should hash deterministically under its own key")
+    void shouldComputeKeyedBlindIndex() {
+        String hash = encryptionUtil.blindIndex("123456789012");
+
+        assertThat(hash).hasSize(44).isEqualTo(encryptionUtil.blindIndex("123456789012"));
+        assertThat(encryptionUtil.blindIndex("123456789013")).isNotEqualTo(hash);
+        assertThat(encryptionUtil("AnotherBlindIndexKey").blindIndex("123456789012")).isNotEqualTo(hash);
+        assertThat(encryptionUtil.blindIndex("")).isNull();
+        assertThat(encryptionUtil.blindIndexAll(List.of("123456789012", ""))).containsExactly(hash, null);
+    }
+
+    @Test
+    @DisplayName("Should index every unindexed patient across parallel chunks")
+    void shouldBackfillInChunks() {
+        // Given: 25 patients with Aadhaar, one without, one already indexed, one undecryptable
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            rows.add(new Object[]{id, encryptionUtil.encrypt(aadhaar(id)), null});
+        }
+        rows.add(new Object[]{26L, null, null});
+        rows.add(new Object[]{27L, encryptionUtil.encrypt(aadhaar(27)), "existing"});
+        rows.add(new Object[]{28L, "bm90LWEtY2lwaGVydGV4dC1hdC1hbGw=", null});
+        jdbcTemplate.batchUpdate("INSERT INTO patients VALUES (?, ?, ?)", rows);
+        AadhaarIndexBackfillService service = new AadhaarIndexBackfillService(jdbcTemplate, encryptionUtil, 4, 3);
+
+        // When
+        AadhaarIndexBackfillReport report = service.backfill();
+
+        // Then
+        assertThat(report.getScanned()).isEqualTo(26);
+        assertThat(report.getChunks()).isEqualTo(7);
+        assertThat(report.getIndexed()).isEqualTo(25);
+        assertThat(report.getFailed()).isEqualTo(1);
+        for (long id = 1; id <= 25; id++) {
+            assertThat(hashOf(id)).isEqualTo(encryptionUtil.blindIndex(aadhaar(id)));
+        }
+        assertThat(hashOf(26)).isNull();
+        assertThat(hashOf(27)).isEqualTo("existing");
+        assertThat(hashOf(28)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should only revisit rows a previous run could not index")
+    void shouldResumeWhereItLeftOff() {
+        jdbcTemplate.update("INSERT INTO patients VALUES (1, ?, NULL)", encryptionUtil.encrypt(aadhaar(1)));
+        AadhaarIndexBackfillService service = new AadhaarIndexBackfillService(jdbcTemplate, encryptionUtil, 10, 2);
+
+        assertThat(service.backfill().getIndexed()).isEqualTo(1);
+        assertThat(service.backfill().getScanned()).isZero();
+    }
+
+    private String hashOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT aadhaar_hash FROM patients WHERE id = ?", String.class, id);
+    }
+
+    private static String aadhaar(long id) {
+        return String.format("9876%08d", id);
+    }
+
+    private static EncryptionUtil encryptionUtil(String blindIndexKey) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", "TestEncryptionKeyForTesting12345");
+        ReflectionTestUtils.setField(util, "blindIndexKey", blindIndexKey);
+        return util;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.dto.AadhaarReencryptionReport;
+import com.hospital.hms.patient.service.AadhaarReencryptionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Re-encryption of Aadhaar numbers after a key rotation, against an in-memory patients table
+ */
+@DisplayName("Aadhaar Re-encryption Tests")
+class AadhaarReencryptionServiceTest {
+
+    private static final String ORIGINAL_KEY = "TestEncryptionKeyForTesting12345";
+
+    private JdbcTemplate jdbcTemplate;
+    private EncryptionUtil original;
+    private EncryptionUtil rotated;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:aadhaar_reencryption;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE patients (id BIGINT PRIMARY KEY, " +
+                "aadhaar_encrypted VARCHAR(255), aadhaar_hash VARCHAR(64))");
+        original = encryptionUtil(ORIGINAL_KEY, 0, null);
+        rotated = encryptionUtil("RotatedEncryptionKeyVersion1", 1, "0:" + ORIGINAL_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE patients");
+    }
+
+    @Test
+    @DisplayName("Should move every value to the current key and leave current ones alone")
+    void shouldReencryptToCurrentKey() {
+        // Given: 20 values under the original key, one already under the new key
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            rows.add(new Object[]{id, original.encrypt(aadhaar(id))});
+        }
+        String current = rotated.encrypt(aadhaar(21));
+        rows.add(new Object[]{21L, current});
+        jdbcTemplate.batchUpdate("INSERT INTO patients (id, aadhaar_encrypted) VALUES (?, ?)", rows);
+        AadhaarReencryptionService service = new AadhaarReencryptionService(jdbcTemplate, rotated, 6, 2, 0);
+
+        // When
+        AadhaarReencryptionReport report = service.reencrypt();
+
+        // Then
+        assertThat(report.getKeyVersion()).isEqualTo(1);
+        assertThat(report.getScanned()).isEqualTo(20);
+        assertThat(report.getBatches()).isEqualTo(4);
+        assertThat(report.getReencrypted()).isEqualTo(20);
+        for (long id = 1; id <= 20; id++) {
+            String value = valueOf(id);
+            assertThat(value).startsWith("v1:");
+            assertThat(rotated.decrypt(value)).isEqualTo(aadhaar(id));
+        }
+        assertThat(valueOf(21)).isEqualTo(current);
+        assertThat(service.reencrypt().getScanned()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count values under unknown keys as failed and keep them")
+    void shouldKeepUndecryptableValues() {
+        String foreign = encryptionUtil("SomeOtherKey", 7, null).encrypt(aadhaar(1));
+        jdbcTemplate.update("INSERT INTO patients (id, aadhaar_encrypted) VALUES (1, ?)", foreign);
+
+        AadhaarReencryptionReport report = new AadhaarReencryptionService(jdbcTemplate, rotated, 10, 1, 0).reencrypt();
+
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(valueOf(1)).isEqualTo(foreign);
+    }
+
+    @Test
+    @DisplayName("Should hold the reader to the configured rows per second")
+    void shouldThrottle() {
+        for (long id = 1; id <= 30; id++) {
+            jdbcTemplate.update("INSERT INTO patients (id, aadhaar_encrypted) VALUES (?, ?)",
+                    id, original.encrypt(aadhaar(id)));
+        }
+
+        // 30 rows in batches of 10 at 100 rows/s: the third batch is read no earlier than 200 ms in
+        AadhaarReencryptionReport report = new AadhaarReencryptionService(jdbcTemplate, rotated, 10, 2, 100)
+                .reencrypt();
+
+        assertThat(report.getReencrypted()).isEqualTo(30);
+        assertThat(report.getDurationMs()).isGreaterThanOrEqualTo(190);
+    }
+
+    private String valueOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT aadhaar_encrypted FROM patients WHERE id = ?", String.class, id);
+    }
+
+    private static String aadhaar(long id) {
+        return String.format("9876%08d", id);
+    }
+
+    private static EncryptionUtil encryptionUtil(String secretKey, int version, String previousKeys) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKey", secretKey);
+        ReflectionTestUtils.setField(util, "secretKeyVersion", version);
+        ReflectionTestUtils.setField(util, "previousKeys", previousKeys);
+        return util;
+    }
+}
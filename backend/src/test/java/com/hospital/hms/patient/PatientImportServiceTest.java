@@ -0,0 +1,369 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ConflictException;
+import com.hospital.hms.common.service.SequenceService;
+import com.hospital.hms.common.util.EncryptionUtil;
+import com.hospital.hms.patient.entity.Patient;
+import com.hospital.hms.patient.entity.PatientImportJob;
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import com.hospital.hms.patient.repository.PatientImportJobRepository;
+import com.hospital.hms.patient.repository.PatientRepository;
+import com.hospital.hms.patient.service.PatientDuplicateService;
+import com.hospital.hms.patient.service.PatientImportChunkWriter;
+import com.hospital.hms.patient.service.PatientImportChunkWriter.Chunk;
+import com.hospital.hms.patient.service.PatientImportChunkWriter.Rejection;
+import com.hospital.hms.patient.service.PatientImportService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the streaming, resumable bulk patient import.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PatientImportService Tests")
+class PatientImportServiceTest {
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private PatientImportJobRepository jobRepository;
+
+    @Mock
+    private PatientImportChunkWriter chunkWriter;
+
+    @Mock
+    private EncryptionUtil encryptionUtil;
+
+    private PatientImportService importService;
+
+    private final AtomicReference<PatientImportJob> stored = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        // Runs the import on the calling thread; chunks of 2 rows in 2 slices
+        importService = new PatientImportService(jobRepository, chunkWriter, encryptionUtil, VALIDATOR,
+                Runnable::run, tempDir.toString(), 2, 2);
+    }
+
+    private void stubJobStore() {
+        when(jobRepository.save(any(PatientImportJob.class))).thenAnswer(i -> {
+            PatientImportJob job = i.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(7L);
+            }
+            stored.set(job);
+            return job;
+        });
+        when(jobRepository.findById(7L)).thenAnswer(i -> Optional.ofNullable(stored.get()));
+    }
+
+    private List<Chunk> writtenChunks(int times) {
+        ArgumentCaptor<Chunk> chunks = ArgumentCaptor.forClass(Chunk.class);
+        verify(chunkWriter, times(times)).write(eq(7L), anyList(), chunks.capture());
+        return chunks.getAllValues();
+    }
+
+    @Nested
+    @DisplayName("Import")
+    class Import {
+
+        @Test
+        @DisplayName("Should import valid rows in chunks, encrypt Aadhaar in bulk and reject invalid rows")
+        void shouldImportValidAndRejectInvalidRows() {
+            // Given
+            stubJobStore();
+            when(encryptionUtil.encryptAll(anyList())).thenAnswer(i -> ((List<String>) i.getArgument(0)).stream()
+                    .map(value -> "enc:" + value).toList());
+            when(encryptionUtil.blindIndexAll(anyList())).thenAnswer(i -> ((List<String>) i.getArgument(0)).stream()
+                    .map(value -> "hash:" + value).toList());
+            String csv = "\uFEFFFirst Name,Last Name,Sex,Mobile,DOB,Aadhaar,Notes\n" +
+                    "Ramesh,Kumar,M,+91 98765 43210,15-08-1980,1234 5678 9012,x\n" +
+                    "A,,X,12345,,,\n" +
+                    "\n" +
+                    "Sunita,Devi,F,9123456780,1992-01-31,,\n";
+            MockMultipartFile file = new MockMultipartFile("file", "patients.csv", "text/csv",
+                    csv.getBytes(StandardCharsets.UTF_8));
+
+            // When
+            importService.start(file, 1L);
+
+            // Then
+            List<Chunk> chunks = writtenChunks(2);
+            Chunk first = chunks.get(0);
+            assertThat(first.firstRow()).isEqualTo(2);
+            assertThat(first.lastRow()).isEqualTo(3);
+            assertThat(first.rowCount()).isEqualTo(2);
+
+            Patient ramesh = first.patients().get(0);
+            assertThat(ramesh.getFirstName()).isEqualTo("Ramesh");
+            assertThat(ramesh.getMobileNumber()).isEqualTo("9876543210");
+            assertThat(ramesh.getDateOfBirth()).isEqualTo(LocalDate.of(1980, 8, 15));
+            assertThat(ramesh.getGender()).isEqualTo(Gender.MALE);
+            assertThat(ramesh.getRegisteredHospitalId()).isEqualTo(1L);
+            assertThat(ramesh.getAadhaarEncrypted()).isEqualTo("enc:123456789012");
+            assertThat(ramesh.getAadhaarLastFour()).isEqualTo("9012");
+            assertThat(ramesh.getAadhaarHash()).isEqualTo("hash:123456789012");
+
+            Rejection rejected = first.rejections().get(0);
+            assertThat(rejected.rowNumber()).isEqualTo(3);
+            assertThat(rejected.errors())
+                    .contains("gender: 'X' is not a gender")
+                    .contains("firstName: First name must be between 2 and 50 characters")
+                    .contains("mobileNumber: Invalid Indian mobile number")
+                    .doesNotContain("Gender is required");
+            assertThat(rejected.values()).startsWith("A", "", "X");
+
+            Chunk second = chunks.get(1);
+            assertThat(second.firstRow()).isEqualTo(4);
+            assertThat(second.patients()).extracting(Patient::getFirstName).containsExactly("Sunita");
+            assertThat(second.patients().get(0).getAadhaarEncrypted()).isNull();
+            assertThat(stored.get().getStatus()).isEqualTo(PatientImportJob.STATUS_COMPLETED);
+        }
+
+        @Test
+        @DisplayName("Should stream XLSX sheets with numeric mobile numbers and date cells")
+        void shouldReadXlsx() throws Exception {
+            // Given
+            stubJobStore();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                Sheet sheet = workbook.createSheet("Patients");
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("firstName");
+                header.createCell(1).setCellValue("gender");
+                header.createCell(2).setCellValue("mobileNumber");
+                header.createCell(3).setCellValue("dateOfBirth");
+                CellStyle dateStyle = workbook.createCellStyle();
+                dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+                Row row = sheet.createRow(2);
+                row.createCell(0).setCellValue("Meena");
+                row.createCell(1).setCellValue("Female");
+                row.createCell(2).setCellValue(9876543210d);
+                row.createCell(3).setCellValue(LocalDate.of(1975, 3, 9));
+                row.getCell(3).setCellStyle(dateStyle);
+                workbook.write(bytes);
+            }
+            MockMultipartFile file = new MockMultipartFile("file", "camp.xlsx", "application/octet-stream",
+                    bytes.toByteArray());
+
+            // When
+            importService.start(file, 1L);
+
+            // Then
+            Chunk chunk = writtenChunks(1).get(0);
+            assertThat(chunk.firstRow()).isEqualTo(3);
+            assertThat(chunk.rejections()).isEmpty();
+            Patient meena = chunk.patients().get(0);
+            assertThat(meena.getGender()).isEqualTo(Gender.FEMALE);
+            assertThat(meena.getMobileNumber()).isEqualTo("9876543210");
+            assertThat(meena.getDateOfBirth()).isEqualTo(LocalDate.of(1975, 3, 9));
+        }
+
+        @Test
+        @DisplayName("Should refuse a file without the required columns before starting")
+        void shouldRefuseMissingColumns() {
+            // Given
+            MockMultipartFile file = new MockMultipartFile("file", "patients.csv", "text/csv",
+                    "Name,Gender\nRamesh,M\n".getBytes(StandardCharsets.UTF_8));
+
+            // When / Then
+            assertThatThrownBy(() -> importService.start(file, 1L))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessageContaining("firstName, mobileNumber");
+            verify(jobRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Resume")
+    class Resume {
+
+        private PatientImportJob interrupted(Path file, long lastRow) {
+            PatientImportJob job = PatientImportJob.builder()
+                    .hospitalId(1L)
+                    .fileName("patients.csv")
+                    .fileFormat("CSV")
+                    .fileSize(100L)
+                    .storedPath(file.toString())
+                    .rejectedPath(tempDir.resolve("rejected.csv").toString())
+                    .status(PatientImportJob.STATUS_FAILED)
+                    .lastRow(lastRow)
+                    .build();
+            job.setId(7L);
+            return job;
+        }
+
+        @Test
+        @DisplayName("Should continue after the last committed row")
+        void shouldSkipCommittedRows() throws Exception {
+            // Given
+            Path file = tempDir.resolve("patients.csv");
+            Files.writeString(file, "firstName,gender,mobileNumber\n" +
+                    "Ramesh,M,9876543210\nSunita,F,9123456780\nMeena,F,9000000001\n");
+            stored.set(interrupted(file, 3L));
+            stubJobStore();
+
+            // When
+            importService.resume(7L, 1L);
+
+            // Then
+            Chunk chunk = writtenChunks(1).get(0);
+            assertThat(chunk.firstRow()).isEqualTo(4);
+            assertThat(chunk.patients()).extracting(Patient::getFirstName).containsExactly("Meena");
+            assertThat(stored.get().getStatus()).isEqualTo(PatientImportJob.STATUS_COMPLETED);
+        }
+
+        @Test
+        @DisplayName("Should leave the import alone when another run has already written past this one")
+        void shouldStopWhenOvertaken() throws Exception {
+            // Given
+            Path file = tempDir.resolve("patients.csv");
+            Files.writeString(file, "firstName,gender,mobileNumber\nRamesh,M,9876543210\n");
+            stored.set(interrupted(file, 0L));
+            stubJobStore();
+            when(chunkWriter.write(eq(7L), anyList(), any()))
+                    .thenThrow(new ConflictException("Patient import 7 is already past row 2", "IMPORT_RUNNING"));
+
+            // When
+            importService.resume(7L, 1L);
+
+            // Then - still RUNNING, owned by the other run
+            assertThat(stored.get().getStatus()).isEqualTo(PatientImportJob.STATUS_RUNNING);
+        }
+
+        @Test
+        @DisplayName("Should not expose imports of other hospitals")
+        void shouldHideOtherHospitals() throws Exception {
+            // Given
+            stored.set(interrupted(tempDir.resolve("patients.csv"), 0L));
+            when(jobRepository.findById(7L)).thenAnswer(i -> Optional.of(stored.get()));
+
+            // When / Then
+            assertThatThrownBy(() -> importService.resume(7L, 2L))
+                    .hasMessageContaining("Patient import");
+            verify(jobRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Rejected rows file")
+    class RejectedRows {
+
+        @Mock
+        private PatientRepository patientRepository;
+
+        @Mock
+        private SequenceService sequenceService;
+
+        @Mock
+        private JdbcTemplate jdbcTemplate;
+
+        @Mock
+        private ApplicationEventPublisher eventPublisher;
+
+        @Mock
+        private PatientDuplicateService duplicateService;
+
+        @Test
+        @DisplayName("Should cut off rows left by a rolled-back chunk before appending")
+        void shouldTruncateToCommittedLength() throws Exception {
+            // Given
+            Path rejected = tempDir.resolve("rejected.csv");
+            String committed = "row,errors,firstName\r\n3,firstName: required,\r\n";
+            Files.writeString(rejected, committed + "9,left over from a rolled-back chunk,X\r\n");
+            PatientImportJob job = PatientImportJob.builder()
+                    .hospitalId(1L)
+                    .rejectedPath(rejected.toString())
+                    .rejectedFileLength((long) committed.length())
+                    .lastRow(5L)
+                    .build();
+            when(jobRepository.findForUpdate(7L)).thenReturn(Optional.of(job));
+            PatientImportChunkWriter writer = new PatientImportChunkWriter(jobRepository, patientRepository,
+                    sequenceService, jdbcTemplate, eventPublisher, duplicateService, 50);
+            Chunk chunk = new Chunk(6L, 7L, 2, List.of(),
+                    List.of(new Rejection(7L, "gender: 'X' is not a gender", List.of("Asha"))));
+
+            // When
+            writer.write(7L, List.of("firstName"), chunk);
+
+            // Then
+            String expected = committed + "7,gender: 'X' is not a gender,Asha\r\n";
+            assertThat(Files.readString(rejected)).isEqualTo(expected);
+            assertThat(job.getRejectedFileLength()).isEqualTo(expected.length());
+            assertThat(job.getLastRow()).isEqualTo(7L);
+            assertThat(job.getRowsRejected()).isEqualTo(1L);
+            verifyNoInteractions(jdbcTemplate, sequenceService);
+        }
+
+        @Test
+        @DisplayName("Should file a chunk's duplicate keys at once instead of one event listener per patient")
+        void shouldFileMatchKeysPerChunk() {
+            // Given
+            PatientImportJob job = PatientImportJob.builder().hospitalId(1L).lastRow(0L).build();
+            when(jobRepository.findForUpdate(7L)).thenReturn(Optional.of(job));
+            when(sequenceService.nextRange(eq("UHID"), any(), any(), eq(2), any())).thenReturn(41L);
+            when(patientRepository.findIdsByUhids(any())).thenAnswer(invocation -> {
+                List<String> uhids = invocation.getArgument(0);
+                return uhids.stream().map(uhid -> uhidId(uhid.endsWith("41") ? 100L : 101L, uhid)).toList();
+            });
+            List<Patient> patients = List.of(
+                    Patient.builder().registeredHospitalId(1L).firstName("Asha").gender(Gender.FEMALE).build(),
+                    Patient.builder().registeredHospitalId(1L).firstName("Ravi").gender(Gender.MALE).build());
+            PatientImportChunkWriter writer = new PatientImportChunkWriter(jobRepository, patientRepository,
+                    sequenceService, jdbcTemplate, eventPublisher, duplicateService, 50);
+
+            // When
+            writer.write(7L, List.of("firstName"), new Chunk(1L, 2L, 2, patients, List.of()));
+
+            // Then: one key batch for the chunk, and the events tell the per-patient listener to stay out
+            verify(duplicateService).fileNewPatients(patients);
+            assertThat(patients).extracting(Patient::getId).containsExactly(100L, 101L);
+            ArgumentCaptor<PatientChangedEvent> events = ArgumentCaptor.forClass(PatientChangedEvent.class);
+            verify(eventPublisher, times(2)).publishEvent(events.capture());
+            assertThat(events.getAllValues()).allMatch(PatientChangedEvent::isMatchKeysFiled);
+        }
+
+        private PatientRepository.UhidId uhidId(Long id, String uhid) {
+            return new PatientRepository.UhidId() {
+                public Long getId() {
+                    return id;
+                }
+
+                public String getUhid() {
+                    return uhid;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.patient.service.NamePhonetics;
+import com.hospital.hms.patient.service.PatientMatcher;
+import com.hospital.hms.patient.service.PatientMatcher.Profile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the phonetic name key, blocking keys and duplicate scoring.
+ */
+@DisplayName("PatientMatcher Tests")
+class PatientMatcherTest {
+
+    private static Profile profile(long id, String first, String last, LocalDate dob, Integer birthYear,
+                                   Gender gender, String mobile) {
+        return new Profile(id, "HMS26" + id, first, last, dob,
+                dob != null ? Integer.valueOf(dob.getYear()) : birthYear, gender, mobile);
+    }
+
+    @Nested
+    @DisplayName("Phonetic key")
+    class Phonetics {
+
+        @Test
+        @DisplayName("Should give common spelling variants of Indian names the same key")
+        void shouldFoldSpellingVariants() {
+            assertThat(List.of("Mohd", "Md.", "Mohammad", "Mohammed", "Muhammad"))
+                    .extracting(NamePhonetics::encode).containsOnly(NamePhonetics.encode("mohammad"));
+            assertThat(NamePhonetics.encode("Laxmi")).isEqualTo(NamePhonetics.encode("Lakshmi"));
+            assertThat(NamePhonetics.encode("Shreenivas")).isEqualTo(NamePhonetics.encode("Srinivas"));
+            assertThat(NamePhonetics.encode("Chaudhary")).isEqualTo(NamePhonetics.encode("Chowdhury"));
+            assertThat(NamePhonetics.encode("Deepak")).isEqualTo(NamePhonetics.encode("Dipak"));
+            assertThat(NamePhonetics.encode("Vijay")).isEqualTo(NamePhonetics.encode("Wijai"));
+            assertThat(NamePhonetics.encode("Siddharth")).isEqualTo(NamePhonetics.encode("Sidharth"));
+        }
+
+        @Test
+        @DisplayName("Should keep different names apart")
+        void shouldSeparateDifferentNames() {
+            assertThat(NamePhonetics.encode("Ramesh")).isNotEqualTo(NamePhonetics.encode("Rakesh"));
+            assertThat(NamePhonetics.encode("Mohan")).isNotEqualTo(NamePhonetics.encode("Mohammad"));
+            assertThat(NamePhonetics.encode("Anita")).isNotEqualTo(NamePhonetics.encode("Amit"));
+            assertThat(NamePhonetics.encode(" ")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Blocking and scoring")
+    class Scoring {
+
+        @Test
+        @DisplayName("Should find a registration under the keys of the same person spelt differently")
+        void shouldShareBlockingKey() {
+            // Given: stored with a DOB, registered again with an approximate age
+            Profile stored = profile(1, "Mohammad", "Khan", LocalDate.of(1985, 3, 2), null, Gender.MALE, "9876543210");
+            Profile registration = profile(2, "Mohd", "Khan", null, 1986, Gender.MALE, "9123456789");
+
+            // Then
+            assertThat(PatientMatcher.lookupKeys(registration)).containsAnyElementsOf(PatientMatcher.indexKeys(stored));
+        }
+
+        @Test
+        @DisplayName("Should look a registration up by its mobile key before its name keys")
+        void shouldLookUpMobileKeyFirst() {
+            // Given
+            Profile registration = profile(2, "Mohd", "Khan", null, 1986, Gender.MALE, "9123456789");
+
+            // When
+            List<String> keys = List.copyOf(PatientMatcher.lookupKeys(registration));
+
+            // Then: the mobile key leads, then the exact year, then a year either side
+            assertThat(keys).hasSize(4);
+            assertThat(keys.get(0)).startsWith("M|").endsWith("|6789");
+            assertThat(keys.subList(1, 4)).allMatch(key -> key.startsWith("N|"));
+            assertThat(keys.get(1)).contains("1986");
+            assertThat(PatientMatcher.lookupKeys(registration)).containsAll(PatientMatcher.indexKeys(registration));
+        }
+
+        @Test
+        @DisplayName("Should score the same person high and family members sharing a mobile low")
+        void shouldScorePairs() {
+            Profile stored = profile(1, "Lakshmi", "Iyer", LocalDate.of(1970, 1, 9), null, Gender.FEMALE, "9876543210");
+            Profile sameSpeltDifferently = profile(2, "Laxmi", "Iyer", LocalDate.of(1970, 1, 9), null, Gender.FEMALE, "9876543210");
+            Profile daughter = profile(3, "Lalitha", "Iyer", LocalDate.of(1998, 6, 1), null, Gender.FEMALE, "9876543210");
+
+            PatientMatcher.Match same = PatientMatcher.score(stored, sameSpeltDifferently);
+            assertThat(same.score()).isGreaterThanOrEqualTo(90);
+            assertThat(same.reasons()).contains("Similar first name", "Same date of birth", "Same mobile number");
+            assertThat(PatientMatcher.score(stored, daughter).score()).isLessThan(50);
+        }
+
+        @Test
+        @DisplayName("Should report each likely pair in a block once, older patient first")
+        void shouldCompareBlock() {
+            // Given
+            List<Profile> block = List.of(
+                    profile(7, "Srinivas", "Rao", null, 1960, Gender.MALE, "9000012345"),
+                    profile(3, "Shreenivas", "Rao", null, 1960, Gender.MALE, "9000012345"),
+                    profile(5, "Sunita", "Rao", null, 1962, Gender.FEMALE, "9000012345"));
+
+            // When
+            List<PatientMatcher.ScoredPair> pairs = PatientMatcher.compareBlock(block, 50);
+
+            // Then
+            assertThat(pairs).hasSize(1);
+            assertThat(pairs.get(0).first().id()).isEqualTo(3L);
+            assertThat(pairs.get(0).second().id()).isEqualTo(7L);
+        }
+    }
+}
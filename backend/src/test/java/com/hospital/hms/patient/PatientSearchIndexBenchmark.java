@@ -0,0 +1,95 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import com.hospital.hms.patient.service.PatientSearchIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Latency benchmark for the patient search index at hospital-network scale.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with
+ * {@code mvn test -Dtest=PatientSearchIndexBenchmark -Dbenchmark.patients=5000000} (give the JVM a couple of
+ * GB with {@code -DargLine=-Xmx4g} at that size). Loads synthetic patients into one hospital, then prints
+ * load time, heap used and p50/p99 latency (after a warm-up round) for typical reception queries: name fragments, full names,
+ * mobile prefixes and last digits, and UHIDs.
+ */
+@Tag("benchmark")
+@DisplayName("Patient Search Index Benchmark")
+class PatientSearchIndexBenchmark {
+
+    private static final int PATIENTS = Integer.getInteger("benchmark.patients", 1_000_000);
+    private static final int QUERIES = Integer.getInteger("benchmark.queries", 5_000);
+
+    private static final String[] FIRST_NAMES = {"Ramesh", "Suresh", "Priya", "Anita", "Amit", "Sunita", "Rahul",
+            "Pooja", "Vikram", "Kavita", "Arjun", "Neha", "Manoj", "Deepa", "Sanjay", "Meena", "Rajesh", "Lakshmi",
+            "Karthik", "Divya", "Mohammed", "Fatima", "Gurpreet", "Harpreet", "Joseph", "Mary", "Venkatesh", "Sita"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Patel", "Reddy", "Iyer", "Nair", "Singh", "Kumar",
+            "Gupta", "Rao", "Das", "Banerjee", "Mukherjee", "Khan", "Joshi", "Mehta", "Pillai", "Menon", "Chauhan",
+            "Yadav", "Agarwal", "Bose", "Kulkarni", "Deshpande", "Naidu", "Fernandes", "Gill", "Sandhu"};
+
+    @Test
+    @DisplayName("Should answer reception queries in a few milliseconds")
+    void benchmarkSearchLatency() {
+        Random random = new Random(42);
+        PatientSearchIndex index = new PatientSearchIndex(mock(JdbcTemplate.class), true, 5000);
+        index.load();
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long loadStarted = System.nanoTime();
+        String[] mobiles = new String[PATIENTS];
+        for (int i = 1; i <= PATIENTS; i++) {
+            mobiles[i - 1] = String.valueOf(6_000_000_000L + (long) (random.nextDouble() * 3_999_999_999L));
+            index.onPatientChanged(new PatientChangedEvent((long) i, 1L, 0,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], null,
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    mobiles[i - 1], String.format("HMS26%07d", i), false));
+        }
+        long loadMillis = (System.nanoTime() - loadStarted) / 1_000_000;
+        System.gc();
+        long heapMb = (runtime.totalMemory() - runtime.freeMemory() - heapBefore) / (1024 * 1024);
+
+        // Warm up the JIT before measuring
+        for (int q = 0; q < QUERIES; q++) {
+            index.search(1L, query(random, mobiles), 0, 20);
+        }
+        long[] latencies = new long[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            String query = query(random, mobiles);
+            long started = System.nanoTime();
+            List<Long> ids = index.search(1L, query, 0, 20).orElseThrow().ids();
+            latencies[q] = System.nanoTime() - started;
+            assertThat(ids.size()).isLessThanOrEqualTo(20);
+        }
+        Arrays.sort(latencies);
+        double p50 = latencies[QUERIES / 2] / 1_000_000.0;
+        double p99 = latencies[QUERIES * 99 / 100] / 1_000_000.0;
+        System.out.printf("Patient search: %d patients loaded in %d ms, ~%d MB heap; %d queries p50=%.2f ms p99=%.2f ms%n",
+                PATIENTS, loadMillis, heapMb, QUERIES, p50, p99);
+    }
+
+    private static String query(Random random, String[] mobiles) {
+        String mobile = mobiles[random.nextInt(mobiles.length)];
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)].toLowerCase();
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)].toLowerCase();
+        return switch (random.nextInt(6)) {
+            case 0 -> first.substring(0, Math.min(4, first.length()));
+            case 1 -> first + " " + last;
+            case 2 -> mobile.substring(0, 6);
+            case 3 -> mobile.substring(6);
+            case 4 -> String.format("HMS26%07d", 1 + random.nextInt(mobiles.length));
+            default -> last.substring(0, Math.min(3, last.length())) + " " + first.charAt(0);
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.patient.event.PatientChangedEvent;
+import com.hospital.hms.patient.service.PatientSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the in-memory patient search index, fed with change events as the application would.
+ */
+@DisplayName("PatientSearchIndex Tests")
+class PatientSearchIndexTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // The patients table is empty; everything arrives as change events
+        index = new PatientSearchIndex(mock(JdbcTemplate.class), true, 100);
+        index.load();
+        patient(1, 0, "Ramesh", "Kumar", "Sharma", "9876543210", "HMS2600001");
+        patient(2, 0, "Sunita", null, "Ramakrishnan", "9123456789", "HMS2600002");
+        patient(3, 0, "Amit", null, "Verma", "9988776655", "HMS2600003");
+        patient(4, 0, "Ram", null, "Prasad", "9000012345", "HMS2600004");
+        patient(5, 0, "Priya", null, "Sharma", "9876500000", "HMS2600005");
+    }
+
+    private void patient(long id, long version, String first, String middle, String last, String mobile, String uhid) {
+        index.onPatientChanged(new PatientChangedEvent(id, HOSPITAL_ID, version, first, middle, last, mobile, uhid, false));
+    }
+
+    private List<Long> search(String query) {
+        return index.search(HOSPITAL_ID, query, 0, 20).orElseThrow().ids();
+    }
+
+    @Nested
+    @DisplayName("Matching and ranking")
+    class Matching {
+
+        @Test
+        @DisplayName("Should match anywhere in a name and rank whole words before prefixes before infixes")
+        void shouldRankNameMatches() {
+            // When / Then: "ram" is Ram's first name, a prefix of Ramesh and Ramakrishnan, inside nobody else
+            List<Long> ids = search("ram");
+            assertThat(ids.get(0)).isEqualTo(4L);
+            assertThat(ids).containsExactlyInAnyOrder(4L, 1L, 2L);
+
+            assertThat(search("krish")).containsExactly(2L);
+            assertThat(search("RAMESH")).containsExactly(1L);
+        }
+
+        @Test
+        @DisplayName("Should find mobile numbers and UHIDs by prefix, last digits and infix")
+        void shouldMatchMobileAndUhid() {
+            assertThat(search("98765")).containsExactlyInAnyOrder(1L, 5L);
+            assertThat(search("3210")).containsExactly(1L);
+            assertThat(search("543")).containsExactly(1L);
+            assertThat(search("hms2600003")).containsExactly(3L);
+            assertThat(search("0004")).containsExactly(4L);
+        }
+
+        @Test
+        @DisplayName("Should require every word of the query and match short words by prefix")
+        void shouldMatchAllTerms() {
+            assertThat(search("sharma priya")).containsExactly(5L);
+            assertThat(search("r sharma")).containsExactly(1L);
+            assertThat(search("a v")).containsExactly(3L);
+            assertThat(search("ramesh verma")).isEmpty();
+            assertThat(search("xyz")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should page through ranked results with the full match count")
+        void shouldPage() {
+            // When
+            PatientSearchIndex.Result first = index.search(HOSPITAL_ID, "hms26", 0, 2).orElseThrow();
+            PatientSearchIndex.Result last = index.search(HOSPITAL_ID, "hms26", 4, 2).orElseThrow();
+
+            // Then
+            assertThat(first.total()).isEqualTo(5);
+            assertThat(first.ids()).hasSize(2);
+            assertThat(last.ids()).hasSize(1).doesNotContainAnyElementsOf(first.ids());
+            assertThat(index.search(2L, "hms26", 0, 2).orElseThrow().ids()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should rank a broad query as if every match were scored")
+        void shouldRankBroadQuery() {
+            // Given: thousands of prefix and infix matches, one whole-word match among them
+            for (long id = 10; id < 3010; id++) {
+                patient(id, 0, id % 2 == 0 ? "Suresh" : "Asuresh", null, "Patil", "8000000" + id, "HMS26" + id);
+            }
+            patient(5000, 0, "Sure", null, "Patil", "8000005000", "HMS265000");
+            patient(5001, 0, "Ramesh", null, "Patil", "8000005001", "HMS265001");
+
+            // When
+            PatientSearchIndex.Result result = index.search(HOSPITAL_ID, "sure", 0, 3).orElseThrow();
+            PatientSearchIndex.Result twoTerms = index.search(HOSPITAL_ID, "patil sure", 0, 3).orElseThrow();
+
+            // Then: whole word, then the newest prefix matches; infix matches only count towards the total
+            assertThat(result.ids()).containsExactly(5000L, 3008L, 3006L);
+            assertThat(result.total()).isEqualTo(3001);
+            assertThat(twoTerms.ids()).containsExactly(5000L, 3008L, 3006L);
+            assertThat(index.search(HOSPITAL_ID, "sure", 1500, 3).orElseThrow().ids())
+                    .containsExactly(10L, 3009L, 3007L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Keeping current")
+    class KeepingCurrent {
+
+        @Test
+        @DisplayName("Should re-index an updated patient and ignore an older version arriving late")
+        void shouldApplyNewestVersion() {
+            // When
+            patient(3, 2, "Amitabh", null, "Verma", "9988776655", "HMS2600003");
+            patient(3, 1, "Amit", null, "Varma", "9988776655", "HMS2600003");
+
+            // Then
+            assertThat(search("amitabh")).containsExactly(3L);
+            assertThat(search("varma")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should drop a deleted patient and not bring it back from an older row")
+        void shouldRemoveDeleted() {
+            // When
+            index.onPatientChanged(new PatientChangedEvent(5L, HOSPITAL_ID, 1, "Priya", null, "Sharma",
+                    "9876500000", "HMS2600005", true));
+            patient(5, 0, "Priya", null, "Sharma", "9876500000", "HMS2600005");
+
+            // Then
+            assertThat(search("sharma")).containsExactly(1L);
+        }
+
+        @Test
+        @DisplayName("Should stay correct after many updates compact the index")
+        void shouldSurviveCompaction() {
+            // When: every patient renamed 500 times, leaving thousands of dead entries to compact
+            for (int round = 1; round <= 500; round++) {
+                for (long id = 1; id <= 5; id++) {
+                    patient(id, round, "Name" + round, null, "Patient" + id, "90000000" + id, "HMS260000" + id);
+                }
+            }
+
+            // Then
+            assertThat(search("name500")).hasSize(5);
+            assertThat(search("name499")).isEmpty();
+            assertThat(search("patient3")).containsExactly(3L);
+        }
+
+        @Test
+        @DisplayName("Should leave searching to the database until the index is loaded")
+        void shouldReturnEmptyBeforeLoad() {
+            PatientSearchIndex loading = new PatientSearchIndex(mock(JdbcTemplate.class), true, 100);
+            assertThat(loading.search(HOSPITAL_ID, "ram", 0, 20)).isEmpty();
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package com.hospital.hms.patient;
 
+import com.hospital.hms.common.dto.PageResponse;
 import com.hospital.hms.common.enums.BloodGroup;
 import com.hospital.hms.common.enums.Gender;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.DuplicateResourceException;
 import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.service.SequenceService;
 import com.hospital.hms.common.util.EncryptionUtil;
 import com.hospital.hms.factory.TestDataFactory;
 import com.hospital.hms.patient.dto.CreatePatientRequest;
 import com.hospital.hms.patient.dto.PatientDto;
 import com.hospital.hms.patient.entity.Patient;
 import com.hospital.hms.patient.repository.PatientRepository;
+import com.hospital.hms.patient.service.PatientDuplicateService;
+import com.hospital.hms.patient.service.PatientSearchIndex;
 import com.hospital.hms.patient.service.PatientService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -35,6 +43,15 @@ class PatientServiceTest {
     @Mock
     private EncryptionUtil encryptionUtil;
 
+    @Mock
+    private SequenceService sequenceService;
+
+    @Mock
+    private PatientSearchIndex searchIndex;
+
+    @Mock
+    private PatientDuplicateService duplicateService;
+
     @InjectMocks
     private PatientService patientService;
 
@@ -67,7 +84,7 @@ class PatientServiceTest {
                     .pincode("400001")
                     .build();
 
-            when(patientRepository.findMaxUhidNumber(anyString())).thenReturn(0);
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(1L);
             when(patientRepository.save(any(Patient.class))).thenAnswer(i -> {
                 Patient p = i.getArgument(0);
                 p.setId(1L);
@@ -75,7 +92,7 @@ class PatientServiceTest {
             });
 
             // When
-            PatientDto result = patientService.createPatient(request, 1L);
+            PatientDto result = patientService.createPatient(request, 1L, true);
 
             // Then
             assertThat(result).isNotNull();
@@ -97,8 +114,9 @@ class PatientServiceTest {
                     .aadhaarNumber("123456789012")
                     .build();
 
-            when(patientRepository.findMaxUhidNumber(anyString())).thenReturn(0);
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(1L);
             when(encryptionUtil.encrypt("123456789012")).thenReturn("encrypted_aadhaar");
+            when(encryptionUtil.blindIndex("123456789012")).thenReturn("aadhaar_hash");
             when(patientRepository.save(any(Patient.class))).thenAnswer(i -> {
                 Patient p = i.getArgument(0);
                 p.setId(1L);
@@ -106,12 +124,13 @@ class PatientServiceTest {
             });
 
             // When
-            PatientDto result = patientService.createPatient(request, 1L);
+            PatientDto result = patientService.createPatient(request, 1L, true);
 
             // Then
             assertThat(result).isNotNull();
             assertThat(result.getAadhaarMasked()).isEqualTo("XXXX-XXXX-9012");
             verify(encryptionUtil).encrypt("123456789012");
+            verify(patientRepository).save(argThat(p -> "aadhaar_hash".equals(p.getAadhaarHash())));
         }
 
         @Test
@@ -131,7 +150,7 @@ class PatientServiceTest {
                     .build();
 
             when(patientRepository.findById(1L)).thenReturn(Optional.of(primaryPatient));
-            when(patientRepository.findMaxUhidNumber(anyString())).thenReturn(1);
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(2L);
             when(patientRepository.save(any(Patient.class))).thenAnswer(i -> {
                 Patient p = i.getArgument(0);
                 p.setId(2L);
@@ -139,7 +158,7 @@ class PatientServiceTest {
             });
 
             // When
-            PatientDto result = patientService.createPatient(request, 1L);
+            PatientDto result = patientService.createPatient(request, 1L, true);
 
             // Then
             assertThat(result).isNotNull();
@@ -161,12 +180,60 @@ class PatientServiceTest {
                     .build();
 
             when(patientRepository.findById(999L)).thenReturn(Optional.empty());
-            when(patientRepository.findMaxUhidNumber(anyString())).thenReturn(0);
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(1L);
 
             // When/Then
-            assertThatThrownBy(() -> patientService.createPatient(request, 1L))
+            assertThatThrownBy(() -> patientService.createPatient(request, 1L, true))
                     .isInstanceOf(ResourceNotFoundException.class);
         }
+
+        @Test
+        @DisplayName("Should refuse a likely duplicate until the desk confirms")
+        void shouldRefuseLikelyDuplicateUntilConfirmed() {
+            // Given
+            CreatePatientRequest request = CreatePatientRequest.builder()
+                    .firstName("Mohd")
+                    .lastName("Khan")
+                    .gender(Gender.MALE)
+                    .mobileNumber("9876543213")
+                    .build();
+            doThrow(new DuplicateResourceException("Likely duplicate of an existing patient"))
+                    .when(duplicateService).rejectLikelyDuplicate(request);
+
+            // When/Then
+            assertThatThrownBy(() -> patientService.createPatient(request, 1L, true))
+                    .isInstanceOf(DuplicateResourceException.class);
+            verify(patientRepository, never()).save(any(Patient.class));
+
+            // Given: the desk reviewed the candidates
+            request.setConfirmedNotDuplicate(true);
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(8L);
+            when(patientRepository.save(any(Patient.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When/Then
+            assertThat(patientService.createPatient(request, 1L, true).getFirstName()).isEqualTo("Mohd");
+            verify(duplicateService, times(1)).rejectLikelyDuplicate(request);
+        }
+
+        @Test
+        @DisplayName("Should not check duplicates for self-registrations")
+        void shouldSkipDuplicateCheckForSelfRegistration() {
+            // Given
+            CreatePatientRequest request = CreatePatientRequest.builder()
+                    .firstName("Mohd")
+                    .lastName("Khan")
+                    .gender(Gender.MALE)
+                    .mobileNumber("9876543213")
+                    .build();
+            when(sequenceService.next(eq("UHID"), anyLong(), anyString(), any())).thenReturn(9L);
+            when(patientRepository.save(any(Patient.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            patientService.createPatient(request, 1L, false);
+
+            // Then
+            verify(duplicateService, never()).rejectLikelyDuplicate(any());
+        }
     }
 
     @Nested
@@ -232,6 +299,76 @@ class PatientServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Aadhaar Lookup Tests")
+    class AadhaarLookupTests {
+
+        @Test
+        @DisplayName("Should probe the blind index with the normalised number")
+        void shouldLookUpByBlindIndex() {
+            // Given
+            when(encryptionUtil.blindIndex("123456789012")).thenReturn("aadhaar_hash");
+            when(patientRepository.findByAadhaarHash("aadhaar_hash", 1L)).thenReturn(List.of(testPatient));
+
+            // When
+            List<PatientDto> result = patientService.getPatientsByAadhaar("1234 5678-9012", 1L);
+
+            // Then
+            assertThat(result).extracting(PatientDto::getId).containsExactly(testPatient.getId());
+            verify(encryptionUtil, never()).decrypt(anyString());
+        }
+
+        @Test
+        @DisplayName("Should reject numbers that are not 12 digits")
+        void shouldRejectInvalidAadhaar() {
+            assertThatThrownBy(() -> patientService.getPatientsByAadhaar("1234 5678", 1L))
+                    .isInstanceOf(BadRequestException.class)
+                    .extracting("errorCode").isEqualTo("INVALID_AADHAAR");
+            verifyNoInteractions(patientRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Patient Tests")
+    class SearchPatientTests {
+
+        @Test
+        @DisplayName("Should hydrate ranked ids from the search index in one batch, keeping the ranking")
+        void shouldHydrateIndexHitsInRankOrder() {
+            // Given
+            Patient first = TestDataFactory.createPatient();
+            Patient second = TestDataFactory.createPatient();
+            first.setId(7L);
+            second.setId(3L);
+            when(searchIndex.search(1L, "sharma", 0, 20))
+                    .thenReturn(Optional.of(new PatientSearchIndex.Result(List.of(7L, 3L), 42)));
+            when(patientRepository.findAllById(List.of(7L, 3L))).thenReturn(List.of(second, first));
+
+            // When
+            PageResponse<PatientDto> result = patientService.searchPatients("sharma", 1L, PageRequest.of(0, 20));
+
+            // Then
+            assertThat(result.getContent()).extracting(PatientDto::getId).containsExactly(7L, 3L);
+            assertThat(result.getTotalElements()).isEqualTo(42);
+            verify(patientRepository, never()).searchPatients(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the database query while the index is loading")
+        void shouldFallBackWhileIndexLoads() {
+            // Given
+            when(searchIndex.search(1L, "sharma", 0, 20)).thenReturn(Optional.empty());
+            when(patientRepository.searchPatients("sharma", 1L, PageRequest.of(0, 20)))
+                    .thenReturn(new PageImpl<>(List.of(testPatient)));
+
+            // When
+            PageResponse<PatientDto> result = patientService.searchPatients("sharma", 1L, PageRequest.of(0, 20));
+
+            // Then
+            assertThat(result.getContent()).hasSize(1);
+        }
+    }
+
     @Nested
     @DisplayName("Update Patient Tests")
     class UpdatePatientTests {
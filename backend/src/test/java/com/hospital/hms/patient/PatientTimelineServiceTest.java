@@ -0,0 +1,239 @@
+package com.hospital.hms.patient;
+
+import com.hospital.hms.appointment.dto.AppointmentListItem;
+import com.hospital.hms.appointment.repository.AppointmentRepository;
+import com.hospital.hms.billing.dto.InvoiceListItem;
+import com.hospital.hms.billing.repository.InvoiceRepository;
+import com.hospital.hms.common.enums.AdmissionStatus;
+import com.hospital.hms.common.enums.AppointmentStatus;
+import com.hospital.hms.common.enums.PaymentStatus;
+import com.hospital.hms.common.exception.BadRequestException;
+import com.hospital.hms.common.exception.ResourceNotFoundException;
+import com.hospital.hms.common.util.CursorCodec;
+import com.hospital.hms.doctor.repository.PrescriptionRepository;
+import com.hospital.hms.hospital.dto.AdmissionListItem;
+import com.hospital.hms.hospital.repository.AdmissionRepository;
+import com.hospital.hms.lab.repository.LabOrderRepository;
+import com.hospital.hms.patient.dto.PatientTimelineDto;
+import com.hospital.hms.patient.repository.PatientRepository;
+import com.hospital.hms.patient.service.PatientTimelineService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PatientTimelineService Tests")
+class PatientTimelineServiceTest {
+
+    private static final Long PATIENT_ID = 42L;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private PrescriptionRepository prescriptionRepository;
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private AdmissionRepository admissionRepository;
+
+    @Mock
+    private LabOrderRepository labOrderRepository;
+
+    private ExecutorService executor;
+    private PatientTimelineService timelineService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(5);
+        timelineService = new PatientTimelineService(patientRepository, appointmentRepository,
+                prescriptionRepository, invoiceRepository, admissionRepository, labOrderRepository, executor,
+                mock(PlatformTransactionManager.class), 500);
+        when(patientRepository.existsById(PATIENT_ID)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Nested
+    @DisplayName("Merge")
+    class Merge {
+
+        @Test
+        @DisplayName("Should merge every section newest first")
+        void shouldMergeSectionsByDate() {
+            // Given
+            when(appointmentRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenReturn(List.of(appointment(3L, LocalDate.of(2026, 5, 10)),
+                            appointment(1L, LocalDate.of(2026, 1, 5))));
+            when(invoiceRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenReturn(List.of(invoice(7L, LocalDate.of(2026, 3, 1))));
+            when(admissionRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenReturn(List.of(admission(2L, LocalDateTime.of(2026, 5, 10, 22, 15))));
+
+            // When
+            PatientTimelineDto timeline = timelineService.getTimeline(PATIENT_ID, null, null, 10);
+
+            // Then
+            assertThat(timeline.getEntries()).extracting(PatientTimelineDto.Entry::getType)
+                    .containsExactly("ADMISSION", "APPOINTMENT", "INVOICE", "APPOINTMENT");
+            assertThat(timeline.getSections()).containsOnlyKeys(
+                    "appointments", "prescriptions", "invoices", "admissions", "labOrders");
+            assertThat(timeline.getSections().get("appointments").getCount()).isEqualTo(2);
+            assertThat(timeline.getSections().get("prescriptions").getCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should only query the requested sections")
+        void shouldQueryRequestedSections() {
+            // When
+            PatientTimelineDto timeline = timelineService.getTimeline(PATIENT_ID, List.of("invoices"), null, 10);
+
+            // Then
+            assertThat(timeline.getSections()).containsOnlyKeys("invoices");
+            verify(invoiceRepository).findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any());
+            verifyNoInteractions(appointmentRepository, prescriptionRepository, admissionRepository,
+                    labOrderRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject unknown patients and sections")
+        void shouldRejectUnknownPatientAndSection() {
+            when(patientRepository.existsById(99L)).thenReturn(false);
+
+            assertThatThrownBy(() -> timelineService.getTimeline(99L, null, null, 10))
+                    .isInstanceOf(ResourceNotFoundException.class);
+            assertThatThrownBy(() -> timelineService.getTimeline(PATIENT_ID, List.of("vitals"), null, 10))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cursors")
+    class Cursors {
+
+        @Test
+        @DisplayName("Should page a section on its own cursor")
+        void shouldReturnAndFollowSectionCursor() {
+            // Given: limit 2, three rows back means another page exists
+            when(appointmentRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenReturn(List.of(appointment(9L, LocalDate.of(2026, 6, 3)),
+                            appointment(8L, LocalDate.of(2026, 6, 2)),
+                            appointment(5L, LocalDate.of(2026, 6, 1))));
+
+            // When
+            PatientTimelineDto first = timelineService.getTimeline(PATIENT_ID, List.of("appointments"), null, 2);
+            String cursor = first.getSections().get("appointments").getNextCursor();
+            timelineService.getTimeline(PATIENT_ID, List.of("appointments"), List.of(cursor), 2);
+
+            // Then
+            assertThat(first.getEntries()).hasSize(2);
+            assertThat(first.getSections().get("appointments").isHasNext()).isTrue();
+            assertThat(cursor).startsWith("appointments.");
+            verify(appointmentRepository).findByPatientIdBefore(
+                    eq(PATIENT_ID), eq(LocalDate.of(2026, 6, 2)), eq(8L), any());
+        }
+
+        @Test
+        @DisplayName("Should reject malformed cursors and cursors of sections not requested")
+        void shouldRejectBadCursor() {
+            String invoiceCursor = "invoices." + CursorCodec.encode(LocalDate.of(2026, 1, 1), 5L);
+
+            assertThatThrownBy(() -> timelineService.getTimeline(PATIENT_ID, null, List.of("garbage"), 10))
+                    .isInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> timelineService.getTimeline(
+                    PATIENT_ID, List.of("appointments"), List.of(invoiceCursor), 10))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class Failures {
+
+        @Test
+        @DisplayName("Should report a slow section as timed out, cancel it and return the others")
+        void shouldTimeOutSlowSection() throws Exception {
+            // Given
+            CountDownLatch cancelled = new CountDownLatch(1);
+            when(invoiceRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any())).thenAnswer(call -> {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    throw e;
+                }
+                return List.of();
+            });
+            when(appointmentRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenReturn(List.of(appointment(1L, LocalDate.of(2026, 2, 1))));
+
+            // When
+            long start = System.nanoTime();
+            PatientTimelineDto timeline = timelineService.getTimeline(PATIENT_ID, null, null, 10);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            // Then
+            assertThat(elapsedMs).isLessThan(3_000);
+            assertThat(timeline.getSections().get("invoices").getError()).isEqualTo("TIMEOUT");
+            assertThat(timeline.getSections().get("appointments").getError()).isNull();
+            assertThat(timeline.getEntries()).extracting(PatientTimelineDto.Entry::getId).containsExactly(1L);
+            assertThat(cancelled.await(1, TimeUnit.SECONDS)).as("slow section interrupted").isTrue();
+        }
+
+        @Test
+        @DisplayName("Should report a failing section without failing the timeline")
+        void shouldIsolateFailingSection() {
+            when(labOrderRepository.findByPatientIdBefore(eq(PATIENT_ID), any(), any(), any()))
+                    .thenThrow(new IllegalStateException("connection reset"));
+
+            PatientTimelineDto timeline = timelineService.getTimeline(PATIENT_ID, null, null, 10);
+
+            assertThat(timeline.getSections().get("labOrders").getError()).isEqualTo("FAILED");
+            assertThat(timeline.getSections().get("admissions").getError()).isNull();
+        }
+    }
+
+    private static AppointmentListItem appointment(Long id, LocalDate date) {
+        return new AppointmentListItem(id, "APT" + id, 1L, PATIENT_ID, "Asha Rao", "9876543210", 3L,
+                "Dr. Mehta", null, date, LocalTime.of(10, 0), LocalTime.of(10, 15), AppointmentStatus.COMPLETED,
+                1, null, 500.0, true, "WALK_IN", date.atStartOfDay());
+    }
+
+    private static InvoiceListItem invoice(Long id, LocalDate date) {
+        return new InvoiceListItem(id, "INV" + id, 1L, null, PATIENT_ID, "HMS26000001", "Asha Rao", "9876543210",
+                null, date, date, BigDecimal.TEN, BigDecimal.TEN, BigDecimal.ZERO, PaymentStatus.SUCCESS, false,
+                date.atStartOfDay());
+    }
+
+    private static AdmissionListItem admission(Long id, LocalDateTime at) {
+        return new AdmissionListItem(id, "ADM" + id, 1L, PATIENT_ID, AdmissionStatus.ADMITTED, at, null, null,
+                "EMERGENCY", "Cardiology", "Ward A", "A-12", "Dr. Mehta", "Chest pain", null, null, null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.hospital.hms.security;
+
+import com.hospital.hms.security.jwt.AccessTokenRevocationList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Memory and lookup throughput of {@link AccessTokenRevocationList} holding a million revoked tokens (24-hour tokens
+ * revoked evenly over a day, hourly expiry groups): heap used, time to add them and to rebuild the filter, and
+ * checks per second for live tokens (answered by the Bloom filter) and for revoked ones (filter hit plus the exact
+ * lookup), at 1 and 8 threads.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with
+ * {@code mvn test -Dtest=AccessTokenRevocationBenchmark -Dbenchmark.revocations=1000000}.
+ */
+@Tag("benchmark")
+@DisplayName("Access Token Revocation Benchmark")
+class AccessTokenRevocationBenchmark {
+
+    private static final int REVOCATIONS = Integer.getInteger("benchmark.revocations", 1_000_000);
+    private static final int CHECKS = 1_000_000;
+    private static final int PROBES = 100_000;
+    private static final int[] THREADS = {1, 8};
+    private static final long NOW = 1_800_000_000L;
+
+    @Test
+    @DisplayName("Should hold a million revocations in tens of megabytes and clear live tokens in nanoseconds")
+    void benchmarkRevocationList() throws Exception {
+        String[] revokedIds = new String[REVOCATIONS];
+        for (int i = 0; i < REVOCATIONS; i++) {
+            revokedIds[i] = UUID.randomUUID().toString();
+        }
+        String[] liveIds = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            liveIds[i] = UUID.randomUUID().toString();
+        }
+
+        long heapBefore = usedHeap();
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 3_600);
+        long started = System.nanoTime();
+        for (int i = 0; i < REVOCATIONS; i++) {
+            list.revokeToken(revokedIds[i], NOW + (long) i * 86_400 / REVOCATIONS);
+        }
+        double addSeconds = (System.nanoTime() - started) / 1e9;
+        started = System.nanoTime();
+        list.purge(NOW);
+        double rebuildMs = (System.nanoTime() - started) / 1e6;
+        long heapAfter = usedHeap();
+
+        // Filter false positives on live ids are settled by the exact lookup, so none may be reported revoked
+        for (String id : liveIds) {
+            assertThat(list.isRevoked(id, 0L, NOW)).isFalse();
+        }
+        for (int i = 0; i < PROBES; i++) {
+            assertThat(list.isRevoked(revokedIds[i * (REVOCATIONS / PROBES)], 0L, NOW)).isTrue();
+        }
+
+        System.out.printf("revocations      %,d%n", list.size());
+        System.out.printf("heap used        %,.1f MB (%.0f bytes per revocation)%n",
+                (heapAfter - heapBefore) / 1e6, (double) (heapAfter - heapBefore) / REVOCATIONS);
+        System.out.printf("bloom filter     %,.2f MB%n", list.filterSizeInBytes() / 1e6);
+        System.out.printf("add              %,.0f revocations/s%n", REVOCATIONS / addSeconds);
+        System.out.printf("purge + rebuild  %,.0f ms%n", rebuildMs);
+
+        IntPredicate live = i -> list.isRevoked(liveIds[i % PROBES], 0L, NOW);
+        IntPredicate revoked = i -> list.isRevoked(revokedIds[(i % PROBES) * (REVOCATIONS / PROBES)], 0L, NOW);
+        System.out.printf("%-8s %16s %16s%n", "threads", "live checks/s", "revoked checks/s");
+        for (int threads : THREADS) {
+            System.out.printf("%-8d %,16.0f %,16.0f%n", threads,
+                    throughput(threads, live, false), throughput(threads, revoked, true));
+        }
+    }
+
+    /**
+     * Checks per second over all {@code threads} threads, each running {@code check} {@link #CHECKS} times, after a
+     * warm-up
+     */
+    private static double throughput(int threads, IntPredicate check, boolean expected) throws Exception {
+        run(threads, check, expected);
+        long started = System.nanoTime();
+        run(threads, check, expected);
+        return (double) threads * CHECKS / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private static void run(int threads, IntPredicate check, boolean expected) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int matching = 0;
+                    for (int i = 0; i < CHECKS; i++) {
+                        if (check.test(i) == expected) {
+                            matching++;
+                        }
+                    }
+                    return matching;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(CHECKS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,117 @@
+package com.hospital.hms.security;
+
+import com.hospital.hms.common.util.BloomFilter;
+import com.hospital.hms.security.jwt.AccessTokenRevocationList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * In-memory list of revoked access tokens: exact answers through the Bloom filter, expiry and growth
+ */
+@DisplayName("Access Token Revocation List Tests")
+class AccessTokenRevocationListTest {
+
+    private static final long NOW = 1_800_000_000L;
+
+    @Test
+    @DisplayName("Should report revoked tokens and only those")
+    void shouldReportRevokedTokens() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 3_600);
+        String revoked = UUID.randomUUID().toString();
+        list.revokeToken(revoked, NOW + 600);
+        list.revokeToken("not-a-uuid", NOW + 600);
+
+        assertThat(list.isRevoked(revoked, 7L, NOW)).isTrue();
+        assertThat(list.isRevoked("not-a-uuid", 7L, NOW)).isTrue();
+        assertThat(list.isRevoked(UUID.randomUUID().toString(), 7L, NOW)).isFalse();
+        assertThat(list.isRevoked(null, 7L, NOW)).isFalse();
+        assertThat(list.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should revoke a user's tokens issued up to the cutoff")
+    void shouldRevokeUserTokensUpToCutoff() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 3_600);
+
+        list.revokeUser(7L, NOW, NOW + 86_400);
+
+        assertThat(list.isRevoked(UUID.randomUUID().toString(), 7L, NOW - 10)).isTrue();
+        assertThat(list.isRevoked(null, 7L, NOW)).isTrue();
+        assertThat(list.isRevoked(UUID.randomUUID().toString(), 7L, NOW + 1)).isFalse();
+        assertThat(list.isRevoked(UUID.randomUUID().toString(), 8L, NOW - 10)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep tokens issued later in the same second as the cutoff")
+    void shouldCompareUserCutoffInMilliseconds() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 3_600);
+        long cutoff = NOW * 1000 + 400;
+
+        list.revokeUser(7L, cutoff, NOW + 86_400);
+
+        assertThat(list.isRevoked(null, 7L, NOW * 1000 + 399)).isTrue();
+        assertThat(list.isRevoked(null, 7L, cutoff)).isTrue();
+        assertThat(list.isRevoked(null, 7L, NOW * 1000 + 401)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should forget revocations once their tokens have expired")
+    void shouldPurgeExpiredRevocations() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 60);
+        String expiring = UUID.randomUUID().toString();
+        String live = UUID.randomUUID().toString();
+        list.revokeToken(expiring, NOW + 30);
+        list.revokeToken(live, NOW + 7_200);
+        list.revokeUser(7L, NOW - 3_600, NOW + 30);
+
+        list.purge(NOW + 120);
+
+        assertThat(list.size()).isEqualTo(1);
+        assertThat(list.isRevoked(expiring, 8L, NOW)).isFalse();
+        assertThat(list.isRevoked(null, 7L, NOW - 7_200)).isFalse();
+        assertThat(list.isRevoked(live, 8L, NOW)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep every revocation while growing past the filter's capacity")
+    void shouldGrowWithoutLosingRevocations() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(0.01, 3_600);
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String id = UUID.randomUUID().toString();
+            revoked.add(id);
+            list.revokeToken(id, NOW + i % 7_200);
+        }
+
+        assertThat(revoked).allMatch(id -> list.isRevoked(id, null, NOW));
+        assertThat(list.size()).isEqualTo(20_000);
+        assertThat(list.filterSizeInBytes()).isLessThan(100_000);
+    }
+
+    @Test
+    @DisplayName("Should keep Bloom filter false positives near the target rate")
+    void shouldKeepFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.put(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = UUID.randomUUID();
+            if (filter.mightContain(id.getMostSignificantBits(), id.getLeastSignificantBits())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(falsePositives).isBetween(500, 1_500);
+    }
+}
@@ -9,14 +9,17 @@ import com.hospital.hms.security.dto.*;
 import com.hospital.hms.security.entity.RefreshToken;
 import com.hospital.hms.security.entity.User;
 import com.hospital.hms.security.jwt.JwtTokenProvider;
+import com.hospital.hms.security.jwt.UserPrincipal;
 import com.hospital.hms.security.repository.RefreshTokenRepository;
 import com.hospital.hms.security.repository.UserRepository;
+import com.hospital.hms.security.service.AccessTokenRevocationService;
 import com.hospital.hms.security.service.AuthService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -44,6 +47,12 @@ class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AccessTokenRevocationService revocationService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -171,7 +180,7 @@ class AuthServiceTest {
             when(userRepository.findByMobileNumber("9876543210")).thenReturn(Optional.of(testUser));
             when(passwordEncoder.matches("123456", "encoded_otp")).thenReturn(true);
             when(userRepository.save(any(User.class))).thenReturn(testUser);
-            when(tokenProvider.generateAccessToken(anyLong(), anyString(), any(), any(), any()))
+            when(tokenProvider.generateAccessToken(any(UserPrincipal.class)))
                     .thenReturn("access_token");
             when(tokenProvider.getExpirationInSeconds()).thenReturn(3600L);
             when(tokenProvider.getRefreshExpirationInSeconds()).thenReturn(86400L);
@@ -295,7 +304,7 @@ class AuthServiceTest {
             when(userRepository.findByUsername("test_user")).thenReturn(Optional.of(testUser));
             when(passwordEncoder.matches("password123", "encoded_password")).thenReturn(true);
             when(userRepository.save(any(User.class))).thenReturn(testUser);
-            when(tokenProvider.generateAccessToken(anyLong(), anyString(), any(), any(), any()))
+            when(tokenProvider.generateAccessToken(any(UserPrincipal.class)))
                     .thenReturn("access_token");
             when(tokenProvider.getExpirationInSeconds()).thenReturn(3600L);
             when(tokenProvider.getRefreshExpirationInSeconds()).thenReturn(86400L);
@@ -382,7 +391,7 @@ class AuthServiceTest {
             
             when(refreshTokenRepository.findByToken("valid_refresh_token"))
                     .thenReturn(Optional.of(refreshToken));
-            when(tokenProvider.generateAccessToken(anyLong(), anyString(), any(), any(), any()))
+            when(tokenProvider.generateAccessToken(any(UserPrincipal.class)))
                     .thenReturn("new_access_token");
             when(tokenProvider.getExpirationInSeconds()).thenReturn(3600L);
             when(tokenProvider.getRefreshExpirationInSeconds()).thenReturn(86400L);
@@ -0,0 +1,136 @@
+package com.hospital.hms.security;
+
+import com.hospital.hms.common.enums.UserRole;
+import com.hospital.hms.common.service.WebSocketRelay;
+import com.hospital.hms.security.jwt.AccessTokenRevocationList;
+import com.hospital.hms.security.jwt.JwtTokenProvider;
+import com.hospital.hms.security.jwt.TokenAuthenticationCache;
+import com.hospital.hms.security.jwt.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of authenticating one request from its access token, database excluded: the old path (key and parser
+ * rebuilt, token parsed twice), one verification with the cached parser and a principal from the claims, and a
+ * hit in {@link TokenAuthenticationCache} followed by the revocation check. The old path also loaded the user on every request, which this does not
+ * count.
+ *
+ * Not part of the regular test run (the class name does not match the surefire includes). Run with
+ * {@code mvn test -Dtest=JwtAuthenticationBenchmark -Dbenchmark.requests=200000}.
+ */
+@Tag("benchmark")
+@DisplayName("JWT Authentication Benchmark")
+class JwtAuthenticationBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+    private static final int USERS = 1_000;
+    private static final int[] THREADS = {1, 8};
+    private static final String SECRET =
+            "dGVzdGluZ2p3dHNlY3JldGtleWZvcnRlc3RpbmdwdXJwb3Nlc29ubHl0aGlzc2hvdWxkYmVsb25nZW5vdWdo";
+
+    @Test
+    @DisplayName("Should authenticate in microseconds once the token has been seen")
+    void benchmarkAuthentication() throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(mock(WebSocketRelay.class), 100_000, Duration.ofMinutes(15), 3_600_000L);
+        AccessTokenRevocationList revocations = new AccessTokenRevocationList(0.01, 150);
+        String[] tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = provider.generateAccessToken(UserPrincipal.builder()
+                    .id((long) i).username("user" + i).mobileNumber("98765" + String.format("%05d", i))
+                    .primaryRole(UserRole.DOCTOR).roles(Set.of(UserRole.DOCTOR)).hospitalId(2L).build());
+        }
+
+        IntUnaryOperator legacy = i -> {
+            String token = tokens[i % USERS];
+            Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build()
+                    .parseSignedClaims(token);
+            Claims claims = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build().parseSignedClaims(token).getPayload();
+            return (int) Long.parseLong(claims.getSubject()) + 1;
+        };
+        IntUnaryOperator verifyOnce = i -> {
+            UserPrincipal principal = UserPrincipal.fromClaims(provider.parseToken(tokens[i % USERS]));
+            return principal.getId().intValue() + 1;
+        };
+        IntUnaryOperator cached = i -> {
+            String token = tokens[i % USERS];
+            TokenAuthenticationCache.VerifiedToken verified = cache.get(token);
+            if (verified == null) {
+                Claims claims = provider.parseToken(token);
+                verified = new TokenAuthenticationCache.VerifiedToken(UserPrincipal.fromClaims(claims),
+                        claims.getId(), JwtTokenProvider.issuedAtMillis(claims));
+                cache.put(token, verified, claims.getExpiration(), null);
+            }
+            if (revocations.isRevoked(verified.tokenId(), verified.principal().getId(), verified.issuedAt())) {
+                return 0;
+            }
+            return verified.principal().getId().intValue() + 1;
+        };
+
+        assertThat(legacy.applyAsInt(3)).isEqualTo(verifyOnce.applyAsInt(3)).isEqualTo(cached.applyAsInt(3));
+
+        System.out.printf("%-8s %14s %14s %14s%n", "threads", "legacy us/req", "verify us/req", "cached us/req");
+        for (int threads : THREADS) {
+            System.out.printf("%-8d %14.2f %14.2f %14.3f%n", threads,
+                    micros(threads, legacy), micros(threads, verifyOnce), micros(threads, cached));
+        }
+    }
+
+    /**
+     * Mean time per request seen by each of {@code threads} threads running {@code op} over every request,
+     * after a warm-up
+     */
+    private static double micros(int threads, IntUnaryOperator op) throws Exception {
+        run(threads, op);
+        long started = System.nanoTime();
+        run(threads, op);
+        return (System.nanoTime() - started) / 1e3 / REQUESTS;
+    }
+
+    private static void run(int threads, IntUnaryOperator op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    long sink = 0;
+                    for (int i = 0; i < REQUESTS; i++) {
+                        sink += op.applyAsInt(i);
+                    }
+                    return sink;
+                }));
+            }
+            start.countDown();
+            for (Future<Long> result : results) {
+                assertThat(result.get()).isPositive();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.hospital.hms.security;
+
+import com.hospital.hms.common.enums.UserRole;
+import com.hospital.hms.common.service.WebSocketRelay;
+import com.hospital.hms.security.entity.RevokedAccessToken;
+import com.hospital.hms.security.entity.User;
+import com.hospital.hms.security.entity.UserEntityListener;
+import com.hospital.hms.security.event.AccessTokenRevokedEvent;
+import com.hospital.hms.security.event.UserAccessChangedEvent;
+import com.hospital.hms.security.jwt.JwtAuthenticationFilter;
+import com.hospital.hms.security.jwt.JwtTokenProvider;
+import com.hospital.hms.security.jwt.TokenAuthenticationCache;
+import com.hospital.hms.security.jwt.UserPrincipal;
+import com.hospital.hms.security.repository.RevokedAccessTokenRepository;
+import com.hospital.hms.security.service.AccessTokenRevocationService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JWT Authentication Filter Tests")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private WebSocketRelay relay;
+
+    @Mock
+    private RevokedAccessTokenRepository revokedRepository;
+
+    private JwtTokenProvider tokenProvider;
+    private TokenAuthenticationCache authenticationCache;
+    private AccessTokenRevocationService revocationService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret",
+                "dGVzdGluZ2p3dHNlY3JldGtleWZvcnRlc3RpbmdwdXJwb3Nlc29ubHl0aGlzc2hvdWxkYmVsb25nZW5vdWdo");
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        tokenProvider = spy(provider);
+        authenticationCache = new TokenAuthenticationCache(relay, 1_000, Duration.ofMinutes(15), 3_600_000L);
+        revocationService = new AccessTokenRevocationService(revokedRepository,
+                mock(WebSocketRelay.class), mock(ApplicationEventPublisher.class), 3_600_000L, 0.01);
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, authenticationCache, revocationService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Nested
+    @DisplayName("Fast Path Tests")
+    class FastPathTests {
+
+        @Test
+        @DisplayName("Should authenticate from the token claims without loading the user")
+        void shouldAuthenticateFromClaims() throws Exception {
+            // Given
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR, UserRole.NURSE));
+
+            // When
+            UserPrincipal principal = authenticate(token);
+
+            // Then
+            assertThat(principal.getId()).isEqualTo(7L);
+            assertThat(principal.getUsername()).isEqualTo("dr.rao");
+            assertThat(principal.getDisplayName()).isEqualTo("Dr Rao");
+            assertThat(principal.getEmail()).isEqualTo("rao@example.com");
+            assertThat(principal.getPrimaryRole()).isEqualTo(UserRole.DOCTOR);
+            assertThat(principal.getRoles()).containsExactlyInAnyOrder(UserRole.DOCTOR, UserRole.NURSE);
+            assertThat(principal.getHospitalId()).isEqualTo(2L);
+            assertThat(principal.getDepartmentId()).isEqualTo(5L);
+            assertThat(principal.isEnabled()).isTrue();
+            verifyNoInteractions(userDetailsService);
+        }
+
+        @Test
+        @DisplayName("Should verify a token once and answer repeats from the cache")
+        void shouldVerifyOnce() throws Exception {
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+
+            UserPrincipal first = authenticate(token);
+            UserPrincipal second = authenticate(token);
+
+            assertThat(second).isSameAs(first);
+            verify(tokenProvider, times(1)).parseToken(token);
+            verifyNoInteractions(userDetailsService);
+        }
+
+        @Test
+        @DisplayName("Should reject tampered tokens without touching the database")
+        void shouldRejectInvalidToken() throws Exception {
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+            assertThat(authenticate(tampered)).isNull();
+            assertThat(authenticate("not-a-jwt")).isNull();
+            verifyNoInteractions(userDetailsService);
+        }
+
+        @Test
+        @DisplayName("Should load the user for tokens issued without principal claims")
+        void shouldLoadUserForLegacyTokens() throws Exception {
+            String token = tokenProvider.generateAccessToken(7L, "9876543210", UserRole.DOCTOR,
+                    Set.of(UserRole.DOCTOR), 2L);
+            when(userDetailsService.loadUserByUsername("7")).thenReturn(principal(7L, true, UserRole.DOCTOR));
+
+            assertThat(authenticate(token).getUsername()).isEqualTo("dr.rao");
+            assertThat(authenticate(token).getUsername()).isEqualTo("dr.rao");
+            verify(userDetailsService, times(1)).loadUserByUsername("7");
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidation Tests")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("Should take roles from the database after a role change")
+        void shouldReloadAfterRoleChange() throws Exception {
+            // Given: a cached token, then the user is made a hospital admin
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            authenticate(token);
+            when(userDetailsService.loadUserByUsername("7"))
+                    .thenReturn(principal(7L, true, UserRole.HOSPITAL_ADMIN));
+
+            // When
+            authenticationCache.onUserAccessChanged(new UserAccessChangedEvent(7L));
+            UserPrincipal principal = authenticate(token);
+
+            // Then
+            assertThat(principal.getRoles()).containsExactly(UserRole.HOSPITAL_ADMIN);
+            assertThat(authenticate(token)).isSameAs(principal);
+            verify(userDetailsService, times(1)).loadUserByUsername("7");
+            verify(relay).broadcast(eq("user-access"), argThat(change ->
+                    ((TokenAuthenticationCache.UserInvalidated) change).userId().equals(7L)));
+        }
+
+        @Test
+        @DisplayName("Should apply a change made on another instance")
+        @SuppressWarnings("unchecked")
+        void shouldApplyRelayedChange() throws Exception {
+            // Given: a cached token, and the listener registered with the relay
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            authenticate(token);
+            ArgumentCaptor<Consumer<TokenAuthenticationCache.UserInvalidated>> listener =
+                    ArgumentCaptor.forClass(Consumer.class);
+            verify(relay).onBroadcast(eq("user-access"), eq(TokenAuthenticationCache.UserInvalidated.class),
+                    listener.capture());
+            when(userDetailsService.loadUserByUsername("7")).thenReturn(principal(7L, false, UserRole.DOCTOR));
+
+            // When: the user is deactivated on another instance
+            listener.getValue().accept(new TokenAuthenticationCache.UserInvalidated(7L,
+                    System.currentTimeMillis() / 1000));
+
+            // Then
+            assertThat(authenticationCache.get(token)).isNull();
+            assertThat(authenticate(token)).isNull();
+            verify(relay, never()).broadcast(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Should reject tokens of a deactivated user")
+        void shouldRejectDeactivatedUser() throws Exception {
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            authenticate(token);
+            when(userDetailsService.loadUserByUsername("7")).thenReturn(principal(7L, false, UserRole.DOCTOR));
+
+            authenticationCache.invalidateUser(7L);
+
+            assertThat(authenticate(token)).isNull();
+            assertThat(authenticate(token)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should only invalidate the changed user")
+        void shouldKeepOtherUsers() throws Exception {
+            String other = tokenProvider.generateAccessToken(principal(8L, true, UserRole.NURSE));
+            UserPrincipal cached = authenticate(other);
+
+            authenticationCache.invalidateUser(7L);
+
+            assertThat(authenticationCache.get(other).principal()).isSameAs(cached);
+        }
+
+        @Test
+        @DisplayName("Should not keep a principal built before a concurrent change")
+        void shouldDropPrincipalRacingChange() {
+            UserPrincipal principal = principal(7L, true, UserRole.DOCTOR);
+            TokenAuthenticationCache.Invalidation seen = authenticationCache.invalidation(7L);
+            authenticationCache.invalidateUser(7L);
+
+            authenticationCache.put("token", new TokenAuthenticationCache.VerifiedToken(principal, null, 0),
+                    new Date(System.currentTimeMillis() + 60_000), seen);
+
+            assertThat(authenticationCache.get("token")).isNull();
+        }
+
+        @Test
+        @DisplayName("Should publish a change only when principal fields change")
+        void shouldPublishOnPrincipalChanges() {
+            ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+            UserEntityListener listener = new UserEntityListener(publisher);
+            User user = User.builder().username("dr.rao").mobileNumber("9876543210").firstName("Rao")
+                    .primaryRole(UserRole.DOCTOR).roles(new HashSet<>(Set.of(UserRole.DOCTOR))).build();
+            user.setId(7L);
+            listener.remember(user);
+
+            user.setLastLoginAt(LocalDateTime.now());
+            user.setOtpAttempts(2);
+            listener.onUpdate(user);
+            verifyNoInteractions(publisher);
+
+            user.getRoles().add(UserRole.HOSPITAL_ADMIN);
+            listener.onUpdate(user);
+            user.setIsActive(false);
+            listener.onUpdate(user);
+            listener.onUpdate(user);
+            verify(publisher, times(2)).publishEvent(any(UserAccessChangedEvent.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Revocation Tests")
+    class RevocationTests {
+
+        @Test
+        @DisplayName("Should reject a revoked token even once cached")
+        void shouldRejectRevokedToken() throws Exception {
+            // Given: two cached tokens of the same user
+            String revoked = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            String other = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            authenticate(revoked);
+            authenticate(other);
+            Claims claims = tokenProvider.parseToken(revoked);
+
+            // When
+            revocationService.onAccessTokenRevoked(new AccessTokenRevokedEvent(claims.getId(), 7L, 0,
+                    claims.getExpiration().getTime() / 1000));
+
+            // Then
+            assertThat(authenticate(revoked)).isNull();
+            assertThat(authenticate(other)).isNotNull();
+            verifyNoInteractions(userDetailsService);
+        }
+
+        @Test
+        @DisplayName("Should reject every token a user was issued before logging out everywhere")
+        void shouldRejectTokensIssuedBeforeLogoutAll() throws Exception {
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            String otherUser = tokenProvider.generateAccessToken(principal(8L, true, UserRole.NURSE));
+            authenticate(token);
+            long now = System.currentTimeMillis();
+
+            revocationService.onAccessTokenRevoked(new AccessTokenRevokedEvent(null, 7L, now, now / 1000 + 3_600));
+
+            assertThat(authenticate(token)).isNull();
+            assertThat(authenticate(otherUser)).isNotNull();
+            assertThat(revocationService.isRevoked(null, 7L, now + 1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should accept a token from logging in again right after logging out everywhere")
+        void shouldAcceptTokenIssuedRightAfterLogoutAll() throws Exception {
+            // Given: every token of the user issued up to this millisecond is revoked
+            String before = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            long cutoff = JwtTokenProvider.issuedAtMillis(tokenProvider.parseToken(before));
+            revocationService.onAccessTokenRevoked(new AccessTokenRevokedEvent(null, 7L, cutoff, cutoff / 1000 + 3_600));
+            while (System.currentTimeMillis() <= cutoff) {
+                Thread.onSpinWait();
+            }
+
+            // When: a new login, most likely within the same second
+            String after = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+
+            // Then
+            assertThat(authenticate(before)).isNull();
+            assertThat(authenticate(after)).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Should pick up a revocation whose broadcast this instance missed")
+        void shouldCatchUpFromTable() throws Exception {
+            // Given: another instance stored a revocation, but its broadcast never arrived
+            String token = tokenProvider.generateAccessToken(principal(7L, true, UserRole.DOCTOR));
+            assertThat(authenticate(token)).isNotNull();
+            Claims claims = tokenProvider.parseToken(token);
+            RevokedAccessToken stored = RevokedAccessToken.builder()
+                    .tokenId(claims.getId())
+                    .userId(7L)
+                    .expiresAt(LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()))
+                    .build();
+            stored.setCreatedAt(LocalDateTime.now());
+            when(revokedRepository.findByCreatedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of(stored));
+
+            // When
+            revocationService.refresh();
+
+            // Then
+            assertThat(authenticate(token)).isNull();
+        }
+    }
+
+    private UserPrincipal authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? (UserPrincipal) authentication.getPrincipal() : null;
+    }
+
+    private static UserPrincipal principal(Long id, boolean enabled, UserRole primaryRole, UserRole... otherRoles) {
+        Set<UserRole> roles = new HashSet<>(Set.of(otherRoles));
+        roles.add(primaryRole);
+        return UserPrincipal.builder()
+                .id(id)
+                .username("dr.rao")
+                .mobileNumber("9876543210")
+                .email("rao@example.com")
+                .displayName("Dr Rao")
+                .primaryRole(primaryRole)
+                .roles(roles)
+                .hospitalId(2L)
+                .departmentId(5L)
+                .enabled(enabled)
+                .build();
+    }
+}
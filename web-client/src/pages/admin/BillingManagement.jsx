@@ -115,7 +115,7 @@ const BillingManagement = () => {
   const searchPatients = async (query) => {
     if (query.length < 2) return
     try {
-      const response = await api.get(`/api/v1/patients?query=${query}&size=10`)
+      const response = await api.get(`/api/v1/patients?query=${query}&size=10&fields=summary`)
       const data = response.data?.data || response.data
       setPatients(data?.content || data || [])
     } catch (err) {
@@ -35,6 +35,7 @@ const PatientManagement = () => {
   const [selectedPatient, setSelectedPatient] = useState(null)
   const [actionLoading, setActionLoading] = useState(false)
   const [actionSuccess, setActionSuccess] = useState(null)
+  const [duplicateCandidates, setDuplicateCandidates] = useState(null)
 
   // Form state
   const [formData, setFormData] = useState({
@@ -98,12 +99,12 @@ const PatientManagement = () => {
     return Object.keys(errors).length === 0
   }
 
-  const handleAddPatient = async () => {
+  const registerPatient = async (confirmedNotDuplicate) => {
     if (!validateForm()) return
     
     setActionLoading(true)
     try {
-      await api.post('/api/v1/patients', formData)
+      await api.post('/api/v1/patients', { ...formData, confirmedNotDuplicate })
       setActionSuccess('Patient added successfully!')
       setTimeout(() => {
         setShowAddModal(false)
@@ -112,11 +113,23 @@ const PatientManagement = () => {
         fetchPatients()
       }, 1500)
     } catch (err) {
-      setError(err.response?.data?.message || 'Failed to add patient')
+      if (err.response?.status === 409 && err.response?.data?.errorCode === 'DUPLICATE' && !confirmedNotDuplicate) {
+        // Likely an existing patient: show the candidates and let the desk confirm before registering
+        try {
+          const response = await api.post('/api/v1/patients/duplicates/check', formData)
+          setDuplicateCandidates(response.data.data || [])
+        } catch {
+          setError(err.response?.data?.error || 'Failed to add patient')
+        }
+      } else {
+        setError(err.response?.data?.error || err.response?.data?.message || 'Failed to add patient')
+      }
       setActionLoading(false)
     }
   }
 
+  const handleAddPatient = () => registerPatient(false)
+
   const handleEditPatient = async () => {
     if (!validateForm()) return
     
@@ -154,6 +167,7 @@ const PatientManagement = () => {
   }
 
   const resetForm = () => {
+    setDuplicateCandidates(null)
     setFormData({
       firstName: '', lastName: '', email: '', mobileNumber: '',
       gender: 'MALE', dateOfBirth: '', bloodGroup: '',
@@ -598,6 +612,45 @@ const PatientManagement = () => {
                   </div>
                   <p className="text-green-600 font-medium">{actionSuccess}</p>
                 </div>
+              ) : duplicateCandidates ? (
+                <div className="space-y-4">
+                  <div className="flex items-start gap-3 p-4 bg-yellow-50 border border-yellow-200 rounded-lg">
+                    <ExclamationTriangleIcon className="h-6 w-6 text-yellow-600 flex-shrink-0" />
+                    <p className="text-sm text-yellow-800">
+                      This patient may already be registered. Check the matches below; register anyway only if
+                      this is a different person (e.g. a twin or a family member sharing the mobile number).
+                    </p>
+                  </div>
+                  <ul className="divide-y border rounded-lg">
+                    {duplicateCandidates.map((candidate) => (
+                      <li key={candidate.patientId} className="px-4 py-3 flex items-center justify-between">
+                        <div>
+                          <p className="font-medium">{candidate.fullName}</p>
+                          <p className="text-sm text-gray-500">
+                            {candidate.uhid} · {candidate.mobileNumber}{candidate.age != null && ` · ${candidate.age} yrs`}
+                          </p>
+                        </div>
+                        <span className="text-sm text-gray-600">{candidate.score}% match</span>
+                      </li>
+                    ))}
+                  </ul>
+                  <div className="flex gap-3 pt-2">
+                    <button
+                      onClick={() => setDuplicateCandidates(null)}
+                      disabled={actionLoading}
+                      className="flex-1 px-4 py-2 border border-gray-300 rounded-lg hover:bg-gray-50 disabled:opacity-50"
+                    >
+                      Back
+                    </button>
+                    <button
+                      onClick={() => registerPatient(true)}
+                      disabled={actionLoading}
+                      className="flex-1 px-4 py-2 bg-primary-600 text-white rounded-lg hover:bg-primary-700 disabled:opacity-50"
+                    >
+                      {actionLoading ? 'Processing...' : 'Register Anyway'}
+                    </button>
+                  </div>
+                </div>
               ) : (
                 <PatientForm onSubmit={handleAddPatient} submitText="Add Patient" />
               )}
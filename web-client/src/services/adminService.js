@@ -9,8 +9,8 @@ import api from './api'
 export const getDashboardStats = async () => {
   try {
     const [patientsRes, doctorsRes, appointmentsRes, hospitalsRes] = await Promise.all([
-      api.get('/api/v1/patients?page=0&size=1'),
-      api.get('/api/v1/doctors?page=0&size=1'),
+      api.get('/api/v1/patients?page=0&size=1&fields=id'),
+      api.get('/api/v1/doctors?page=0&size=1&fields=id'),
       api.get('/api/v1/appointments?page=0&size=1'),
       api.get('/api/v1/hospitals?page=0&size=1')
     ])